@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+
+/**
+ * A {@link DbArtifact} stored on the filesystem. Every call of
+ * {@link #getFileInputStream()} opens a new {@link InputStream} and
+ * {@link #openChannel()} returns a {@link FileChannel}, so downloads can be
+ * served by {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}.
+ *
+ *
+ *
+ */
+public class ArtifactFilesystem extends DbArtifact {
+
+    private final Path file;
+
+    /**
+     * @param file
+     *            the file of the artifact
+     */
+    public ArtifactFilesystem(final Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        try {
+            return Files.newInputStream(file);
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Could not open artifact file " + file, e);
+        }
+    }
+
+    @Override
+    public SeekableByteChannel openChannel() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Defines the base directory of the {@link ArtifactFilesystemRepository}.
+ * 
+ *
+ *
+ */
+@ConfigurationProperties("hawkbit.artifact.repository.filesystem")
+public class ArtifactFilesystemProperties {
+
+    /**
+     * Base directory of the artifacts, might be a network share in case of a
+     * cluster.
+     */
+    private String path = "./artifactrepo";
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(final String path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+
+/**
+ * {@link ArtifactRepository} implementation which stores the artifacts on a
+ * local or network filesystem. Artifacts are stored once per SHA1 hash in a
+ * sharded directory layout {@code <path>/<sha1[0-1]>/<sha1[2-3]>/<sha1>}
+ * together with a metadata file containing the MD5 hash and the content type.
+ * The SHA1 hash is also used as artifact ID.
+ *
+ * New artifacts are written into a temporary file within the base directory
+ * and moved atomically to their final location after the hashes have been
+ * verified, so readers never see a partially written artifact.
+ *
+ *
+ *
+ */
+public class ArtifactFilesystemRepository implements ArtifactRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactFilesystemRepository.class);
+
+    private static final Pattern SHA1_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+    private static final String TEMP_DIRECTORY = ".tmp";
+    private static final String METADATA_SUFFIX = ".meta";
+    private static final String MD5 = "md5";
+    private static final String CONTENT_TYPE = "contentType";
+
+    private final Path basePath;
+    private final Path tempPath;
+
+    /**
+     * @param artifactFilesystemProperties
+     *            the properties defining the base directory
+     */
+    public ArtifactFilesystemRepository(final ArtifactFilesystemProperties artifactFilesystemProperties) {
+        basePath = Paths.get(artifactFilesystemProperties.getPath()).toAbsolutePath();
+        tempPath = basePath.resolve(TEMP_DIRECTORY);
+    }
+
+    @Override
+    public DbArtifact store(final InputStream content, final String filename, final String contentType) {
+        return store(content, filename, contentType, null);
+    }
+
+    @Override
+    public DbArtifact store(final InputStream content, final String filename, final String contentType,
+            final DbArtifactHash hash) {
+        LOGGER.debug("storing file {} of content {}", filename, contentType);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(tempPath);
+            tempFile = Files.createTempFile(tempPath, "upload", null);
+
+            final MessageDigest sha1Digest = MessageDigest.getInstance("SHA-1");
+            final MessageDigest md5Digest = MessageDigest.getInstance("MD5");
+            try (final OutputStream os = new DigestOutputStream(
+                    new DigestOutputStream(Files.newOutputStream(tempFile), sha1Digest), md5Digest)) {
+                ByteStreams.copy(content, os);
+            }
+            try (final FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+
+            final String sha1Hash = BaseEncoding.base16().lowerCase().encode(sha1Digest.digest());
+            final String md5Hash = BaseEncoding.base16().lowerCase().encode(md5Digest.digest());
+            checkHashes(hash, sha1Hash, md5Hash);
+
+            final Path artifactFile = artifactFile(sha1Hash);
+            if (Files.exists(artifactFile)) {
+                LOGGER.info("file with sha1 hash {} already exists in repository", sha1Hash);
+            } else {
+                Files.createDirectories(artifactFile.getParent());
+                writeMetadata(sha1Hash, md5Hash, contentType);
+                moveAtomically(tempFile, artifactFile);
+            }
+            return map(sha1Hash);
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            throw new ArtifactStoreException(e.getMessage(), e);
+        } finally {
+            deleteTempFile(tempFile);
+        }
+    }
+
+    @Override
+    public void deleteById(final String artifactId) {
+        deleteBySha1(artifactId);
+    }
+
+    @Override
+    public void deleteBySha1(final String sha1Hash) {
+        if (!isValidSha1(sha1Hash)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(artifactFile(sha1Hash));
+            Files.deleteIfExists(metadataFile(sha1Hash));
+        } catch (final IOException e) {
+            throw new ArtifactStoreException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DbArtifact getArtifactBySha1(final String sha1Hash) {
+        return map(sha1Hash);
+    }
+
+    @Override
+    public DbArtifact getArtifactById(final String id) {
+        return map(id);
+    }
+
+    @Override
+    public List<DbArtifact> getArtifactsBySha1(final List<String> sha1Hashes) {
+        return sha1Hashes.stream().map(this::map).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private ArtifactFilesystem map(final String sha1Hash) {
+        if (!isValidSha1(sha1Hash)) {
+            return null;
+        }
+        final Path artifactFile = artifactFile(sha1Hash);
+        try {
+            final long size = Files.size(artifactFile);
+            final Properties metadata = readMetadata(sha1Hash);
+
+            final ArtifactFilesystem artifact = new ArtifactFilesystem(artifactFile);
+            artifact.setArtifactId(sha1Hash);
+            artifact.setSize(size);
+            artifact.setContentType(metadata.getProperty(CONTENT_TYPE));
+            artifact.setHashes(new DbArtifactHash(sha1Hash, metadata.getProperty(MD5)));
+            return artifact;
+        } catch (final NoSuchFileException e) {
+            LOGGER.trace("artifact with sha1 hash {} does not exist", sha1Hash, e);
+            return null;
+        } catch (final IOException e) {
+            throw new ArtifactStoreException(e.getMessage(), e);
+        }
+    }
+
+    private static void checkHashes(final DbArtifactHash hash, final String sha1Hash, final String md5Hash) {
+        if (hash == null) {
+            return;
+        }
+        if (hash.getSha1() != null && !hash.getSha1().equalsIgnoreCase(sha1Hash)) {
+            throw new HashNotMatchException(
+                    "The given sha1 hash " + hash.getSha1() + " not matching the calculated sha1 hash " + sha1Hash,
+                    HashNotMatchException.SHA1);
+        }
+        if (hash.getMd5() != null && !hash.getMd5().equalsIgnoreCase(md5Hash)) {
+            throw new HashNotMatchException(
+                    "The given md5 hash " + hash.getMd5() + " not matching the calculated md5 hash " + md5Hash,
+                    HashNotMatchException.MD5);
+        }
+    }
+
+    private void writeMetadata(final String sha1Hash, final String md5Hash, final String contentType)
+            throws IOException {
+        final Properties metadata = new Properties();
+        metadata.setProperty(MD5, md5Hash);
+        if (contentType != null) {
+            metadata.setProperty(CONTENT_TYPE, contentType);
+        }
+
+        final Path tempFile = Files.createTempFile(tempPath, "metadata", null);
+        try {
+            try (final OutputStream os = Files.newOutputStream(tempFile)) {
+                metadata.store(os, null);
+            }
+            moveAtomically(tempFile, metadataFile(sha1Hash));
+        } finally {
+            deleteTempFile(tempFile);
+        }
+    }
+
+    private Properties readMetadata(final String sha1Hash) throws IOException {
+        final Properties metadata = new Properties();
+        final Path metadataFile = metadataFile(sha1Hash);
+        if (Files.exists(metadataFile)) {
+            try (final InputStream is = Files.newInputStream(metadataFile)) {
+                metadata.load(is);
+            }
+        }
+        return metadata;
+    }
+
+    private static void moveAtomically(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final FileAlreadyExistsException e) {
+            // stored concurrently with the same content
+            LOGGER.debug("file {} has been stored concurrently", target, e);
+        } catch (final AtomicMoveNotSupportedException e) {
+            throw new ArtifactStoreException(
+                    "Atomic move from " + source + " to " + target + " not supported by the filesystem", e);
+        }
+    }
+
+    private static void deleteTempFile(final Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (final IOException e) {
+            LOGGER.error("Could not delete temporary file: {}", tempFile, e);
+        }
+    }
+
+    private Path artifactFile(final String sha1Hash) {
+        return basePath.resolve(sha1Hash.substring(0, 2)).resolve(sha1Hash.substring(2, 4)).resolve(sha1Hash);
+    }
+
+    private Path metadataFile(final String sha1Hash) {
+        return artifactFile(sha1Hash).resolveSibling(sha1Hash + METADATA_SUFFIX);
+    }
+
+    private static boolean isValidSha1(final String sha1Hash) {
+        return sha1Hash != null && SHA1_PATTERN.matcher(sha1Hash).matches();
+    }
+}
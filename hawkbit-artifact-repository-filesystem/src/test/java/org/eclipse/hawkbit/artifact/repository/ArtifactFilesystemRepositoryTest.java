@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.hash.Hashing;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Artifact Repository")
+@Stories("Filesystem artifact repository")
+public class ArtifactFilesystemRepositoryTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private ArtifactFilesystemRepository artifactRepositoryUnderTest;
+
+    @Before
+    public void before() {
+        final ArtifactFilesystemProperties properties = new ArtifactFilesystemProperties();
+        properties.setPath(folder.getRoot().getAbsolutePath());
+        artifactRepositoryUnderTest = new ArtifactFilesystemRepository(properties);
+    }
+
+    @Test
+    @Description("Stores an artifact in the sharded layout and retrieves it by its sha1 hash.")
+    public void storeAndRetrieveArtifact() throws IOException {
+        final byte[] content = randomBytes(1024);
+        final String sha1 = Hashing.sha1().hashBytes(content).toString();
+
+        final DbArtifact stored = artifactRepositoryUnderTest.store(new ByteArrayInputStream(content), "file.bin",
+                "application/octet-stream");
+
+        assertThat(stored.getArtifactId()).isEqualTo(sha1);
+        assertThat(stored.getSize()).isEqualTo(1024L);
+        assertThat(stored.getHashes().getMd5()).isEqualTo(Hashing.md5().hashBytes(content).toString());
+        assertThat(Files.exists(folder.getRoot().toPath().resolve(sha1.substring(0, 2)).resolve(sha1.substring(2, 4))
+                .resolve(sha1))).isTrue();
+
+        final DbArtifact found = artifactRepositoryUnderTest.getArtifactBySha1(sha1);
+        assertThat(found.getContentType()).isEqualTo("application/octet-stream");
+        try (final SeekableByteChannel channel = found.openChannel()) {
+            assertThat(channel).isInstanceOf(FileChannel.class);
+            final ByteBuffer buffer = ByteBuffer.allocate(24);
+            channel.position(1000);
+            assertThat(channel.read(buffer)).isEqualTo(24);
+            assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(content, 1000, 1024));
+        }
+    }
+
+    @Test
+    @Description("The same content is stored only once and can be deleted by its sha1 hash.")
+    public void sameContentIsStoredOnce() {
+        final byte[] content = randomBytes(512);
+
+        final DbArtifact first = artifactRepositoryUnderTest.store(new ByteArrayInputStream(content), "a.bin", null);
+        final DbArtifact second = artifactRepositoryUnderTest.store(new ByteArrayInputStream(content), "b.bin",
+                null);
+        assertThat(second.getArtifactId()).isEqualTo(first.getArtifactId());
+        assertThat(folder.getRoot().toPath().resolve(".tmp").toFile().list()).isEmpty();
+
+        artifactRepositoryUnderTest.deleteBySha1(first.getArtifactId());
+        assertThat(artifactRepositoryUnderTest.getArtifactBySha1(first.getArtifactId())).isNull();
+    }
+
+    @Test(expected = HashNotMatchException.class)
+    @Description("An artifact with a wrong sha1 hash is rejected and not stored.")
+    public void wrongSha1HashIsRejected() {
+        artifactRepositoryUnderTest.store(new ByteArrayInputStream(randomBytes(16)), "file.bin", null,
+                new DbArtifactHash("0000000000000000000000000000000000000000", null));
+    }
+
+    @Test
+    @Description("Lookups with invalid artifact IDs do not access files outside the repository.")
+    public void invalidIdIsNotFound() {
+        final Path outside = folder.getRoot().toPath().resolve("..");
+        assertThat(artifactRepositoryUnderTest.getArtifactById(outside.toString())).isNull();
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+}
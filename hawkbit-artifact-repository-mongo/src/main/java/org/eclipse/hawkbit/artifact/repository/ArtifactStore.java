@@ -24,6 +24,7 @@ import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -67,9 +68,18 @@ public class ArtifactStore implements ArtifactRepository {
 
     private static final String ID = "_id";
 
+    /**
+     * The collection holding the chunks of the files in the default bucket
+     * used by the {@link GridFsOperations}.
+     */
+    private static final String CHUNKS_COLLECTION = "fs.chunks";
+
     @Autowired
     private GridFsOperations gridFs;
 
+    @Autowired
+    private MongoDbFactory mongoDbFactory;
+
     MongoTemplate mongoTemplate;
 
     /**
@@ -271,7 +281,8 @@ public class ArtifactStore implements ArtifactRepository {
         if (fsFile == null) {
             return null;
         }
-        final GridFsArtifact artifact = new GridFsArtifact(fsFile);
+        final GridFsArtifact artifact = new GridFsArtifact(fsFile,
+                mongoDbFactory.getDb().getCollection(CHUNKS_COLLECTION));
         artifact.setArtifactId(fsFile.getId().toString());
         artifact.setSize(fsFile.getLength());
         artifact.setContentType(fsFile.getContentType());
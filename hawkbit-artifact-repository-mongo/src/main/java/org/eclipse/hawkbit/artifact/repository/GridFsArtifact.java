@@ -8,10 +8,14 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.StreamSeekableByteChannel;
 
+import com.mongodb.DBCollection;
 import com.mongodb.gridfs.GridFSDBFile;
 import com.mongodb.gridfs.GridFSFile;
 
@@ -21,18 +25,42 @@ import com.mongodb.gridfs.GridFSFile;
  * retrieves when calling {@link #getFileInputStream()} always a new
  * {@link InputStream} and not the same.
  *
+ * Positional reads by {@link #openChannel()} start at the chunk containing the
+ * requested position instead of reading all chunks before it.
+ *
  *
  *
  */
 public class GridFsArtifact extends DbArtifact {
 
+    /**
+     * Number of chunks fetched from the database per round trip by positional
+     * reads.
+     */
+    private static final int READ_AHEAD_CHUNKS = 4;
+
     private final GridFSFile dbFile;
 
+    private final DBCollection chunks;
+
     /**
      * @param dbFile
      */
     public GridFsArtifact(final GridFSFile dbFile) {
+        this(dbFile, null);
+    }
+
+    /**
+     * @param dbFile
+     *            the GridFS file
+     * @param chunks
+     *            the chunks collection of the GridFS bucket which holds the
+     *            file, might be {@code null} in which case positional reads
+     *            skip on the stream returned by {@link #getFileInputStream()}
+     */
+    public GridFsArtifact(final GridFSFile dbFile, final DBCollection chunks) {
         this.dbFile = dbFile;
+        this.chunks = chunks;
     }
 
     @Override
@@ -42,4 +70,17 @@ public class GridFsArtifact extends DbArtifact {
         }
         return null;
     }
+
+    @Override
+    public SeekableByteChannel openChannel() throws IOException {
+        if (chunks == null) {
+            return super.openChannel();
+        }
+        return new StreamSeekableByteChannel(this::openStream, dbFile.getLength());
+    }
+
+    private InputStream openStream(final long position) {
+        return new GridFsChunkInputStream(chunks, dbFile.getId(), dbFile.getLength(), (int) dbFile.getChunkSize(),
+                position, READ_AHEAD_CHUNKS);
+    }
 }
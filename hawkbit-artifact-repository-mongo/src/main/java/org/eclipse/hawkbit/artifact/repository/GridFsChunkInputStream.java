@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * {@link InputStream} on the chunks of a GridFS file which starts at an
+ * arbitrary position. Only the chunks from the one containing the start
+ * position up to the end of the file are queried. The chunks are fetched in
+ * batches of {@code readAhead} chunks, so the next chunks are already
+ * transferred while the current one is consumed.
+ *
+ *
+ *
+ */
+class GridFsChunkInputStream extends InputStream {
+
+    private static final String FILES_ID = "files_id";
+    private static final String CHUNK_NUMBER = "n";
+    private static final String DATA = "data";
+
+    private final DBCollection chunks;
+    private final Object fileId;
+    private final long length;
+    private final int chunkSize;
+    private final int readAhead;
+
+    private DBCursor cursor;
+    private int nextChunk;
+    private byte[] data;
+    private int dataPosition;
+    private long position;
+
+    /**
+     * @param chunks
+     *            the chunks collection of the GridFS bucket
+     * @param fileId
+     *            the ID of the GridFS file
+     * @param length
+     *            the length of the file in bytes
+     * @param chunkSize
+     *            the chunk size of the file in bytes
+     * @param position
+     *            the position in bytes to start reading from
+     * @param readAhead
+     *            the number of chunks to fetch per round trip
+     */
+    GridFsChunkInputStream(final DBCollection chunks, final Object fileId, final long length, final int chunkSize,
+            final long position, final int readAhead) {
+        this.chunks = chunks;
+        this.fileId = fileId;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.readAhead = readAhead;
+        this.position = Math.min(position, length);
+        this.nextChunk = (int) (this.position / chunkSize);
+        this.dataPosition = (int) (this.position % chunkSize);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+        if (data == null || dataPosition >= data.length) {
+            fetchNextChunk();
+        }
+
+        final int read = (int) Math.min(Math.min(len, data.length - dataPosition), length - position);
+        System.arraycopy(data, dataPosition, b, off, read);
+        dataPosition += read;
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        final long target = Math.min(position + n, length);
+        final long skipped = target - position;
+        final long bufferedEnd = (long) nextChunk * chunkSize;
+        if (data != null && target - bufferedEnd < (long) readAhead * chunkSize) {
+            // the target is within the current or one of the already
+            // requested chunks
+            long remaining = skipped;
+            while (remaining > 0) {
+                if (dataPosition >= data.length) {
+                    fetchNextChunk();
+                }
+                final int step = (int) Math.min(remaining, data.length - dataPosition);
+                dataPosition += step;
+                position += step;
+                remaining -= step;
+            }
+            return skipped;
+        }
+
+        // restart the query at the chunk of the target position
+        closeCursor();
+        data = null;
+        nextChunk = (int) (target / chunkSize);
+        dataPosition = (int) (target % chunkSize);
+        position = target;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return data == null ? 0 : Math.max(0, data.length - dataPosition);
+    }
+
+    @Override
+    public void close() {
+        closeCursor();
+    }
+
+    private void fetchNextChunk() throws IOException {
+        final int offsetInChunk = data == null ? dataPosition : 0;
+        try {
+            if (cursor == null) {
+                cursor = chunks
+                        .find(new BasicDBObject(FILES_ID, fileId).append(CHUNK_NUMBER,
+                                new BasicDBObject("$gte", nextChunk)))
+                        .sort(new BasicDBObject(CHUNK_NUMBER, 1)).batchSize(readAhead);
+            }
+            if (!cursor.hasNext()) {
+                throw new IOException("Chunk " + nextChunk + " of GridFS file " + fileId + " is missing");
+            }
+            final DBObject chunk = cursor.next();
+            final int chunkNumber = ((Number) chunk.get(CHUNK_NUMBER)).intValue();
+            if (chunkNumber != nextChunk) {
+                throw new IOException("Chunk " + nextChunk + " of GridFS file " + fileId + " is missing, found chunk "
+                        + chunkNumber);
+            }
+            data = (byte[]) chunk.get(DATA);
+        } catch (final MongoException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        nextChunk++;
+        dataPosition = offsetInChunk;
+        if (dataPosition >= data.length) {
+            throw new IOException("Chunk " + (nextChunk - 1) + " of GridFS file " + fileId + " is truncated");
+        }
+    }
+
+    private void closeCursor() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+}
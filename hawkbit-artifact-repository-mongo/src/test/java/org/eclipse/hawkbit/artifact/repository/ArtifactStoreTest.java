@@ -12,9 +12,12 @@ import static org.fest.assertions.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
@@ -26,12 +29,14 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.gridfs.GridFsOperations;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import com.google.common.io.BaseEncoding;
+import com.mongodb.BasicDBObject;
 import com.mongodb.gridfs.GridFSDBFile;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -47,6 +52,9 @@ public class ArtifactStoreTest {
     @Autowired
     private GridFsOperations gridFs;
 
+    @Autowired
+    private MongoDbFactory mongoDbFactory;
+
     @Test
     public void storeArtifactInMongoDB() {
         final int filelengthBytes = 128;
@@ -118,6 +126,37 @@ public class ArtifactStoreTest {
         assertThat(findOne).isNull();
     }
 
+    @Test
+    public void tailRangeReadsOnlyTailChunks() throws IOException {
+        final int filelengthBytes = 1024 * 1024 + 100;
+        final ByteArrayInputStream inputStream = generateInputStream(filelengthBytes);
+        final byte[] content = new byte[filelengthBytes];
+        IOUtils.readFully(inputStream, content);
+        inputStream.reset();
+
+        final DbArtifact artifact = artifactStoreUnderTest.getArtifactById(
+                artifactStoreUnderTest.store(inputStream, "testfile.bin", "application/octet-stream").getArtifactId());
+        final GridFSDBFile dbFile = gridFs
+                .findOne(new Query().addCriteria(Criteria.where("_id").is(artifact.getArtifactId())));
+        final long tailChunk = (filelengthBytes - 150L) / dbFile.getChunkSize();
+        assertThat(tailChunk).isGreaterThanOrEqualTo(3L);
+
+        // a tail range must not need the leading chunks
+        mongoDbFactory.getDb().getCollection("fs.chunks").remove(new BasicDBObject("files_id", dbFile.getId())
+                .append("n", new BasicDBObject("$lt", tailChunk)));
+
+        try (final SeekableByteChannel channel = artifact.openChannel()) {
+            final ByteBuffer buffer = ByteBuffer.allocate(200);
+            channel.position(filelengthBytes - 150L);
+            while (channel.read(buffer) > 0) {
+                // read until the end of the artifact
+            }
+            assertThat(buffer.position()).isEqualTo(150);
+            assertThat(Arrays.copyOf(buffer.array(), 150))
+                    .isEqualTo(Arrays.copyOfRange(content, filelengthBytes - 150, filelengthBytes));
+        }
+    }
+
     private static ByteArrayInputStream generateInputStream(final int length) {
         final byte[] bytes = new byte[length];
         new Random().nextBytes(bytes);
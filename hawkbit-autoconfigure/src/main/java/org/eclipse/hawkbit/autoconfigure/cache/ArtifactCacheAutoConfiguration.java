@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.autoconfigure.cache;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.hawkbit.artifact.repository.ArtifactRepository;
+import org.eclipse.hawkbit.artifact.repository.CachingArtifactRepository;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.google.common.eventbus.EventBus;
+
+/**
+ * A configuration which decorates the {@link ArtifactRepository} with a node
+ * local {@link CachingArtifactRepository} if the artifact cache is enabled by
+ * {@code hawkbit.artifact.cache.enabled}. The cache is registered on the
+ * {@link EventBus} to receive the invalidations of deleted artifacts from all
+ * nodes. The hit, miss and eviction counts of the cache are published as
+ * actuator metrics.
+ *
+ *
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = ArtifactCacheAutoConfiguration.CONFIG_PREFIX, name = "enabled")
+public class ArtifactCacheAutoConfiguration {
+
+    static final String CONFIG_PREFIX = "hawkbit.artifact.cache";
+
+    /**
+     * @return the post processor which decorates the artifact repository
+     */
+    @Bean
+    public static ArtifactCachePostProcessor artifactCachePostProcessor() {
+        return new ArtifactCachePostProcessor();
+    }
+
+    /**
+     * Publishes the metrics of the artifact cache.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+    static class ArtifactCacheMetricsConfiguration {
+
+        /**
+         * @param postProcessor
+         *            the post processor holding the artifact cache
+         * @return the metrics of the artifact cache
+         */
+        @Bean
+        public PublicMetrics artifactCacheMetrics(final ArtifactCachePostProcessor postProcessor) {
+            return () -> {
+                final List<Metric<?>> metrics = new ArrayList<>();
+                final CachingArtifactRepository cache = postProcessor.getCache();
+                if (cache != null) {
+                    metrics.add(new Metric<>(CONFIG_PREFIX + ".hits", cache.getHitCount()));
+                    metrics.add(new Metric<>(CONFIG_PREFIX + ".misses", cache.getMissCount()));
+                    metrics.add(new Metric<>(CONFIG_PREFIX + ".evictions", cache.getEvictionCount()));
+                    metrics.add(new Metric<>(CONFIG_PREFIX + ".size", cache.getCachedBytes()));
+                }
+                return metrics;
+            };
+        }
+    }
+
+    /**
+     * {@link BeanPostProcessor} which wraps the {@link ArtifactRepository}
+     * bean into a {@link CachingArtifactRepository}.
+     */
+    public static class ArtifactCachePostProcessor implements BeanPostProcessor, EnvironmentAware, BeanFactoryAware {
+
+        private static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024 * 1024;
+
+        private RelaxedPropertyResolver environment;
+
+        private BeanFactory beanFactory;
+
+        private CachingArtifactRepository cache;
+
+        @Override
+        public void setEnvironment(final Environment environment) {
+            this.environment = new RelaxedPropertyResolver(environment, CONFIG_PREFIX + ".");
+        }
+
+        @Override
+        public void setBeanFactory(final BeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(final Object bean, final String beanName) {
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+            if (!(bean instanceof ArtifactRepository) || bean instanceof CachingArtifactRepository) {
+                return bean;
+            }
+            final String path = environment.getProperty("path",
+                    Paths.get(System.getProperty("java.io.tmpdir"), "hawkbit-artifact-cache").toString());
+            final long maxSize = environment.getProperty("maxSize", Long.class, DEFAULT_MAX_SIZE);
+            cache = new CachingArtifactRepository((ArtifactRepository) bean, Paths.get(path), maxSize);
+            try {
+                final EventBus eventBus = beanFactory.getBean(EventBus.class);
+                cache.setEventBus(eventBus);
+                eventBus.register(cache);
+            } catch (final NoSuchBeanDefinitionException e) {
+                // without an event bus deleted artifacts are only invalidated
+                // in the cache of this node
+            }
+            return cache;
+        }
+
+        CachingArtifactRepository getCache() {
+            return cache;
+        }
+    }
+}
@@ -11,12 +11,9 @@ package org.eclipse.hawkbit.autoconfigure.scheduling;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -35,13 +32,13 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 @EnableConfigurationProperties(AsyncConfigurerThreadpoolProperties.class)
 public class ExecutorAutoConfiguration {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorAutoConfiguration.class);
-
     @Autowired
     private AsyncConfigurerThreadpoolProperties asyncConfigurerProperties;
 
     /**
-     * @return ExecutorService for general pupose multi threaded operations
+     * @return ExecutorService for general pupose multi threaded operations, in
+     *         case of a full queue the caller runs the runnable itself instead
+     *         of dropping it
      */
     @Bean
     @ConditionalOnMissingBean
@@ -52,13 +49,11 @@ public class ExecutorAutoConfiguration {
                 asyncConfigurerProperties.getCorethreads(), asyncConfigurerProperties.getMaxthreads(),
                 asyncConfigurerProperties.getIdletimeout(), TimeUnit.MILLISECONDS, blockingQueue,
                 new ThreadFactoryBuilder().setNameFormat("central-executor-pool-%d").build());
-        threadPoolExecutor.setRejectedExecutionHandler(new RejectedExecutionHandler() {
-            @Override
-            public void rejectedExecution(final Runnable r, final java.util.concurrent.ThreadPoolExecutor executor) {
-                LOGGER.warn("Reject runnable for centralExecutorService, reached limit of queue size {}", executor
-                        .getQueue().size());
-            }
-        });
+        // the events of the event bus must not get lost, so the caller
+        // executes the runnable itself in case the queue is full which slows
+        // down the publisher until the pool catches up
+        threadPoolExecutor
+                .setRejectedExecutionHandler(new SecurityContextPreservingCallerRunsPolicy("centralExecutorService"));
         return new DelegatingSecurityContextExecutor(threadPoolExecutor);
     }
 
@@ -71,7 +66,7 @@ public class ExecutorAutoConfiguration {
         final BlockingQueue<Runnable> blockingQueue = new ArrayBlockingQueue<>(20);
         final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(1, 20, 10000, TimeUnit.MILLISECONDS,
                 blockingQueue, new ThreadFactoryBuilder().setNameFormat("ui-executor-pool-%d").build());
-        threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPoolExecutor.setRejectedExecutionHandler(new SecurityContextPreservingCallerRunsPolicy("uiExecutor"));
         return new DelegatingSecurityContextExecutor(threadPoolExecutor);
     }
 
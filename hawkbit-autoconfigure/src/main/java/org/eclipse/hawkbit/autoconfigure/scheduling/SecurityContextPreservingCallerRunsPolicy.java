@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.autoconfigure.scheduling;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * {@link ThreadPoolExecutor.CallerRunsPolicy} for executors which are wrapped
+ * by a {@link DelegatingSecurityContextExecutor}. The
+ * {@link DelegatingSecurityContextRunnable} clears the security context of the
+ * executing thread when it is done, which is the caller in case the queue is
+ * full. The policy restores the security context of the caller afterwards.
+ */
+class SecurityContextPreservingCallerRunsPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecurityContextPreservingCallerRunsPolicy.class);
+
+    private final String executorName;
+
+    /**
+     * @param executorName
+     *            the name of the executor for logging
+     */
+    SecurityContextPreservingCallerRunsPolicy(final String executorName) {
+        this.executorName = executorName;
+    }
+
+    @Override
+    public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            LOGGER.warn("Reject runnable for {}, executor has been shut down", executorName);
+            return;
+        }
+        LOGGER.debug("Caller runs runnable for {}, reached limit of queue size {}", executorName,
+                executor.getQueue().size());
+        final SecurityContext callerContext = SecurityContextHolder.getContext();
+        try {
+            super.rejectedExecution(r, executor);
+        } finally {
+            SecurityContextHolder.setContext(callerContext);
+        }
+    }
+}
@@ -10,7 +10,9 @@ package org.eclipse.hawkbit.autoconfigure.security;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.Filter;
@@ -30,19 +32,26 @@ import org.eclipse.hawkbit.im.authentication.UserAuthenticationFilter;
 import org.eclipse.hawkbit.repository.ControllerManagement;
 import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.rest.resource.RestConstants;
+import org.eclipse.hawkbit.security.ControllerAuthenticationCache;
 import org.eclipse.hawkbit.security.ControllerTenantAwareAuthenticationDetailsSource;
 import org.eclipse.hawkbit.security.DosFilter;
+import org.eclipse.hawkbit.security.DosFilter.EndpointClass;
+import org.eclipse.hawkbit.security.DosFilter.KeyType;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticateSecurityTokenFilter;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticatedGatewaySecurityTokenFilter;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticatedSecurityHeaderFilter;
 import org.eclipse.hawkbit.security.HttpDownloadAuthenticationFilter;
 import org.eclipse.hawkbit.security.PreAuthTokenSourceTrustAuthenticationProvider;
+import org.eclipse.hawkbit.security.RateLimit;
 import org.eclipse.hawkbit.security.SecurityProperties;
 import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.bind.RelaxedPropertyResolver;
 import org.springframework.boot.context.embedded.FilterRegistrationBean;
 import org.springframework.boot.context.embedded.ServletListenerRegistrationBean;
@@ -123,6 +132,8 @@ public class SecurityManagedConfiguration implements EnvironmentAware {
         @Autowired
         private TenantAware tenantAware;
         @Autowired
+        private ControllerAuthenticationCache authenticationCache;
+        @Autowired
         private SecurityProperties securityConfiguration;
         @Autowired
         private org.springframework.boot.autoconfigure.security.SecurityProperties springSecurityProperties;
@@ -137,18 +148,21 @@ public class SecurityManagedConfiguration implements EnvironmentAware {
             securityHeaderFilter.setAuthenticationManager(authenticationManager());
             securityHeaderFilter.setCheckForPrincipalChanges(true);
             securityHeaderFilter.setAuthenticationDetailsSource(authenticationDetailsSource);
+            securityHeaderFilter.setAuthenticationCache(authenticationCache);
 
             final HttpControllerPreAuthenticateSecurityTokenFilter securityTokenFilter = new HttpControllerPreAuthenticateSecurityTokenFilter(
                     systemManagement, tenantAware, controllerManagement);
             securityTokenFilter.setAuthenticationManager(authenticationManager());
             securityTokenFilter.setCheckForPrincipalChanges(true);
             securityTokenFilter.setAuthenticationDetailsSource(authenticationDetailsSource);
+            securityTokenFilter.setAuthenticationCache(authenticationCache);
 
             final HttpControllerPreAuthenticatedGatewaySecurityTokenFilter gatewaySecurityTokenFilter = new HttpControllerPreAuthenticatedGatewaySecurityTokenFilter(
                     systemManagement, tenantAware);
             gatewaySecurityTokenFilter.setAuthenticationManager(authenticationManager());
             gatewaySecurityTokenFilter.setCheckForPrincipalChanges(true);
             gatewaySecurityTokenFilter.setAuthenticationDetailsSource(authenticationDetailsSource);
+            gatewaySecurityTokenFilter.setAuthenticationCache(authenticationCache);
 
             HttpSecurity httpSec = http.csrf().disable().headers()
                     .addHeaderWriter(new XFrameOptionsHeaderWriter(XFrameOptionsMode.DENY)).contentTypeOptions()
@@ -212,15 +226,70 @@ public class SecurityManagedConfiguration implements EnvironmentAware {
     public FilterRegistrationBean dosFilter() {
         final FilterRegistrationBean filterRegBean = new FilterRegistrationBean();
 
-        filterRegBean.setFilter(new DosFilter(environment
+        final DosFilter dosFilter = new DosFilter(environment
                 .getProperty("security.dos.filter.maxRead", Integer.class, 200), environment.getProperty(
                 "security.dos.filter.maxWrite", Integer.class, 50), environment
                 .getProperty("security.dos.filter.whitelist"), environment.getProperty("security.clients.blacklist"),
-                environment.getProperty("security.rp.remote_ip_header", String.class, "X-Forwarded-For")));
-        filterRegBean.addUrlPatterns("/{tenant}/controller/v1/*", "/rest/*");
+                environment.getProperty("security.rp.remote_ip_header", String.class, "X-Forwarded-For"),
+                environment.getProperty("security.dos.filter.maxKeys", Integer.class, 100000));
+        configureDosLimits(dosFilter);
+        filterRegBean.setFilter(dosFilter);
+        // servlet url patterns do not support path variables, the filter
+        // classifies the requests itself
+        filterRegBean.addUrlPatterns("/*");
         return filterRegBean;
     }
 
+    /**
+     * Overrides the limits of the {@link DosFilter} per endpoint class and key
+     * type, e.g. {@code security.dos.filter.ddi-poll.controller.maxPerSecond}
+     * and {@code security.dos.filter.ddi-poll.controller.burst}.
+     */
+    private void configureDosLimits(final DosFilter dosFilter) {
+        for (final EndpointClass endpointClass : EndpointClass.values()) {
+            for (final KeyType keyType : KeyType.values()) {
+                final String prefix = "security.dos.filter." + endpointClass.name().toLowerCase().replace('_', '-')
+                        + "." + keyType.name().toLowerCase() + ".";
+                final Integer maxPerSecond = environment.getProperty(prefix + "maxPerSecond", Integer.class);
+                if (maxPerSecond != null) {
+                    dosFilter.setLimit(endpointClass, keyType, maxPerSecond > 0
+                            ? new RateLimit(maxPerSecond, environment.getProperty(prefix + "burst", Integer.class,
+                                    maxPerSecond))
+                            : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Metrics of the {@link DosFilter} in case the actuator is available.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+    static class DosFilterMetricsConfiguration {
+
+        /**
+         * @param dosFilter
+         *            the registration of the {@link DosFilter}
+         * @return the rejected requests per endpoint class and the number of
+         *         tracked keys
+         */
+        @Bean
+        public PublicMetrics dosFilterMetrics(@Qualifier("dosFilter") final FilterRegistrationBean dosFilter) {
+            return () -> {
+                final DosFilter filter = (DosFilter) dosFilter.getFilter();
+                final List<Metric<?>> metrics = new ArrayList<>();
+                for (final EndpointClass endpointClass : EndpointClass.values()) {
+                    metrics.add(new Metric<>("hawkbit.security.dos.rejected."
+                            + endpointClass.name().toLowerCase().replace('_', '-'),
+                            filter.getRejectedCount(endpointClass)));
+                }
+                metrics.add(new Metric<>("hawkbit.security.dos.keys", filter.getActiveKeys()));
+                return metrics;
+            };
+        }
+    }
+
     /**
      * Filter registration bean for spring etag filter.
      *
@@ -236,9 +305,10 @@ public class SecurityManagedConfiguration implements EnvironmentAware {
         // ShallowEtagHeaderFilter, just using the SH1 hash of the artifact
         // itself as 'ETag', because
         // otherwise the file will be copied in memory!
+        // The controller base resource calculates its ETag on its own.
         filterRegBean.setFilter(new ExcludePathAwareShallowETagFilter(
                 "/rest/v1/softwaremodules/{smId}/artifacts/{artId}/download", "/{tenant}/controller/artifacts/**",
-                "/{targetid}/softwaremodules/{softwareModuleId}/artifacts/**"));
+                "/{targetid}/softwaremodules/{softwareModuleId}/artifacts/**", "/{tenant}/controller/v1/{targetid}"));
         return filterRegBean;
     }
 
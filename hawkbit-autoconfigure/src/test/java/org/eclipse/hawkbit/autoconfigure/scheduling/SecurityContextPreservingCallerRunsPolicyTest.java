@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.autoconfigure.scheduling;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Autoconfigure")
+@Stories("Executor")
+public class SecurityContextPreservingCallerRunsPolicyTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Authentication caller = new TestingAuthenticationToken("caller", "secret");
+
+    private ThreadPoolExecutor threadPoolExecutor;
+    private Executor executor;
+
+    @Before
+    public void setup() {
+        threadPoolExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        threadPoolExecutor.setRejectedExecutionHandler(new SecurityContextPreservingCallerRunsPolicy("test"));
+        executor = new DelegatingSecurityContextExecutor(threadPoolExecutor);
+        SecurityContextHolder.getContext().setAuthentication(caller);
+    }
+
+    @After
+    public void cleanup() throws InterruptedException {
+        release.countDown();
+        threadPoolExecutor.shutdown();
+        threadPoolExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Description("The caller runs the runnable if the queue is full and keeps its security context afterwards.")
+    public void callerKeepsSecurityContextOnFullQueue() {
+        // the only thread of the pool is blocked and the queue is full
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        final AtomicReference<Thread> executingThread = new AtomicReference<>();
+        final AtomicReference<Authentication> executingAuthentication = new AtomicReference<>();
+        executor.execute(() -> {
+            executingThread.set(Thread.currentThread());
+            executingAuthentication.set(SecurityContextHolder.getContext().getAuthentication());
+        });
+
+        assertThat(executingThread.get()).isSameAs(Thread.currentThread());
+        assertThat(executingAuthentication.get()).isSameAs(caller);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(caller);
+    }
+
+    @Test
+    @Description("A runnable is dropped and not run by the caller if the executor has been shut down.")
+    public void runnableIsDroppedAfterShutdown() {
+        threadPoolExecutor.shutdown();
+
+        final AtomicBoolean executed = new AtomicBoolean();
+        executor.execute(() -> executed.set(true));
+
+        assertThat(executed.get()).isFalse();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(caller);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
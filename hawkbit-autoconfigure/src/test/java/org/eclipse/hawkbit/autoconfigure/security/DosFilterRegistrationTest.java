@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.autoconfigure.security;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
+import org.springframework.boot.context.embedded.ServletRegistrationBean;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.TestRestTemplate;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.client.RestTemplate;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+/**
+ * Sends requests through the filter chain of an embedded servlet container
+ * with the DoS filter registered by {@link SecurityManagedConfiguration}.
+ */
+@Features("Component Tests - Autoconfigure")
+@Stories("DOS Filter")
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = DosFilterRegistrationTest.TestConfiguration.class)
+@WebIntegrationTest(randomPort = true, value = { "hawkbit.server.security.dos.filter.maxRead=1",
+        "hawkbit.server.security.dos.filter.maxWrite=1" })
+public class DosFilterRegistrationTest {
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private final RestTemplate restTemplate = new TestRestTemplate();
+
+    @Test
+    @Description("Polls of the direct device integration API pass the registered filter and are limited.")
+    public void controllerPollIsLimited() {
+        assertThat(get("/tenant/controller/v1/device")).isEqualTo(HttpStatus.OK);
+        assertThat(get("/tenant/controller/v1/device")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    @Description("Artifact downloads pass the registered filter and are limited.")
+    public void artifactDownloadIsLimited() {
+        assertThat(get("/tenant/controller/artifacts/v1/filename/file.bin")).isEqualTo(HttpStatus.OK);
+        assertThat(get("/tenant/controller/artifacts/v1/filename/file.bin")).isEqualTo(
+                HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    @Description("Requests of the management API pass the registered filter and are limited.")
+    public void managementReadIsLimited() {
+        assertThat(get("/rest/v1/targets")).isEqualTo(HttpStatus.OK);
+        assertThat(get("/rest/v1/targets")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    @Description("Requests of other endpoints, e.g. the UI, are not limited.")
+    public void otherRequestsAreNotLimited() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(get("/UI/")).isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    private HttpStatus get(final String path) {
+        return restTemplate.getForEntity("http://localhost:" + port + path, String.class).getStatusCode();
+    }
+
+    @Configuration
+    static class TestConfiguration {
+
+        @Bean
+        public TomcatEmbeddedServletContainerFactory servletContainerFactory() {
+            return new TomcatEmbeddedServletContainerFactory();
+        }
+
+        @Bean
+        public ServletRegistrationBean okServlet() {
+            return new ServletRegistrationBean(new HttpServlet() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void doGet(final HttpServletRequest req, final HttpServletResponse resp)
+                        throws IOException {
+                    resp.setStatus(HttpStatus.OK.value());
+                }
+            }, "/*");
+        }
+
+        @Bean
+        public FilterRegistrationBean dosFilter(final Environment environment) {
+            final SecurityManagedConfiguration securityConfiguration = new SecurityManagedConfiguration();
+            securityConfiguration.setEnvironment(environment);
+            return securityConfiguration.dosFilter();
+        }
+    }
+}
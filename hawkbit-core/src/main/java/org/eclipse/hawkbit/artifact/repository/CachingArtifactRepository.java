@@ -0,0 +1,737 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.eclipse.hawkbit.eventbus.event.ArtifactCacheInvalidatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@link ArtifactRepository} decorator which keeps a node local, disk backed
+ * copy of the most recently read artifacts, keyed by their SHA1 hash. The
+ * cache is bounded by the total size of the cached files and evicts the least
+ * recently used artifacts first.
+ *
+ * An artifact is copied into the cache as soon as its content is read the
+ * first time. The copy is made by a fill in the background which reads the
+ * content from the delegate repository exactly once, independent of the
+ * reader which started it, e.g. a range request or a closed download does not
+ * abandon the fill. All reads of the artifact while the fill is running,
+ * including the first one, are served from the growing temporary file of the
+ * fill. Accessing the meta data of an artifact only, e.g. its size or hashes,
+ * does not fill the cache. The SHA1 hash of the copied content is verified
+ * before it is served from the cache, the reads of a fill fail at the end of
+ * the content if the hash does not match.
+ *
+ * As the content of an artifact never changes for a given SHA1 hash, cached
+ * files are only invalidated if the artifact gets deleted. The deletion is
+ * distributed by an {@link ArtifactCacheInvalidatedEvent} if an
+ * {@link EventBus} is set, so that the caches of all nodes are invalidated.
+ *
+ * The cache index is kept in memory only, so the cache directory is cleaned
+ * on creation.
+ *
+ *
+ *
+ */
+public class CachingArtifactRepository implements ArtifactRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingArtifactRepository.class);
+
+    private static final Pattern SHA1_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+    private static final String TEMP_DIRECTORY = ".tmp";
+
+    private static final int FILL_BUFFER_SIZE = 64 * 1024;
+
+    private final ArtifactRepository delegate;
+    private final Path cachePath;
+    private final Path tempPath;
+    private final long maxSize;
+
+    private EventBus eventBus;
+
+    /**
+     * Access ordered index of the cached artifacts, guarded by itself.
+     */
+    private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private long cachedBytes;
+
+    private final ConcurrentMap<String, Fill> runningFills = new ConcurrentHashMap<>();
+
+    private final Executor fillExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("artifact-cache-fill-%d").setDaemon(true).build());
+
+    /**
+     * Incremented on every invalidation, fills which started before an
+     * invalidation are not added to the cache as their artifact might have
+     * been deleted in the meantime.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param delegate
+     *            the repository which holds the artifacts
+     * @param cachePath
+     *            the directory to store the cached artifacts in, exclusively
+     *            used by this cache
+     * @param maxSize
+     *            the maximum total size of the cached artifacts in bytes
+     */
+    public CachingArtifactRepository(final ArtifactRepository delegate, final Path cachePath, final long maxSize) {
+        this.delegate = delegate;
+        this.cachePath = cachePath.toAbsolutePath();
+        this.tempPath = this.cachePath.resolve(TEMP_DIRECTORY);
+        this.maxSize = maxSize;
+        cleanCacheDirectory();
+    }
+
+    /**
+     * @param eventBus
+     *            the event bus to distribute the invalidation of deleted
+     *            artifacts to the caches of all nodes
+     */
+    public void setEventBus(final EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public DbArtifact store(final InputStream content, final String filename, final String contentType) {
+        return delegate.store(content, filename, contentType);
+    }
+
+    @Override
+    public DbArtifact store(final InputStream content, final String filename, final String contentType,
+            final DbArtifactHash hash) {
+        return delegate.store(content, filename, contentType, hash);
+    }
+
+    @Override
+    public void deleteById(final String artifactId) {
+        final DbArtifact artifact = delegate.getArtifactById(artifactId);
+        delegate.deleteById(artifactId);
+        if (artifact != null && artifact.getHashes() != null) {
+            deleted(artifact.getHashes().getSha1());
+        }
+    }
+
+    @Override
+    public void deleteBySha1(final String sha1Hash) {
+        delegate.deleteBySha1(sha1Hash);
+        deleted(sha1Hash);
+    }
+
+    @Override
+    public DbArtifact getArtifactBySha1(final String sha1Hash) {
+        if (!isValidSha1(sha1Hash)) {
+            return delegate.getArtifactBySha1(sha1Hash);
+        }
+
+        final CacheEntry cached = lookup(sha1Hash);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return new CachedArtifact(cached);
+        }
+
+        final DbArtifact source = delegate.getArtifactBySha1(sha1Hash);
+        if (source == null || source.getSize() == null || source.getSize() > maxSize) {
+            return source;
+        }
+        return new FillingArtifact(sha1Hash, source);
+    }
+
+    @Override
+    public DbArtifact getArtifactById(final String id) {
+        return delegate.getArtifactById(id);
+    }
+
+    @Override
+    public List<DbArtifact> getArtifactsBySha1(final List<String> sha1Hashes) {
+        return delegate.getArtifactsBySha1(sha1Hashes);
+    }
+
+    /**
+     * Removes the deleted artifact from the cache of this node.
+     *
+     * @param event
+     *            the invalidation event, received from the local node as well
+     *            as from all other nodes
+     */
+    @Subscribe
+    public void artifactCacheInvalidated(final ArtifactCacheInvalidatedEvent event) {
+        invalidate(event.getSha1Hash());
+    }
+
+    /**
+     * @return the number of reads served from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of reads which have not been served from the cache,
+     *         i.e. which have been served by a fill
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of artifacts evicted because of the size limit
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the total size of the cached artifacts in bytes
+     */
+    public long getCachedBytes() {
+        synchronized (entries) {
+            return cachedBytes;
+        }
+    }
+
+    private void deleted(final String sha1Hash) {
+        invalidate(sha1Hash);
+        if (eventBus != null) {
+            eventBus.post(new ArtifactCacheInvalidatedEvent(sha1Hash));
+        }
+    }
+
+    private CacheEntry lookup(final String sha1Hash) {
+        synchronized (entries) {
+            return entries.get(sha1Hash);
+        }
+    }
+
+    private void add(final CacheEntry entry) {
+        final List<CacheEntry> evicted = new ArrayList<>();
+        synchronized (entries) {
+            final CacheEntry replaced = entries.put(entry.sha1Hash, entry);
+            if (replaced != null) {
+                cachedBytes -= replaced.size;
+            }
+            cachedBytes += entry.size;
+
+            final Iterator<CacheEntry> eldest = entries.values().iterator();
+            while (cachedBytes > maxSize && eldest.hasNext()) {
+                final CacheEntry candidate = eldest.next();
+                if (candidate == entry) {
+                    continue;
+                }
+                eldest.remove();
+                cachedBytes -= candidate.size;
+                evicted.add(candidate);
+            }
+        }
+
+        evictions.addAndGet(evicted.size());
+        evicted.forEach(candidate -> {
+            LOGGER.debug("evicting artifact with sha1 hash {} from the cache", candidate.sha1Hash);
+            deleteFile(candidate.file);
+        });
+    }
+
+    private void invalidate(final String sha1Hash) {
+        invalidations.incrementAndGet();
+        final CacheEntry removed;
+        synchronized (entries) {
+            removed = entries.remove(sha1Hash);
+            if (removed != null) {
+                cachedBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            deleteFile(removed.file);
+        }
+    }
+
+    private void cleanCacheDirectory() {
+        try {
+            Files.createDirectories(tempPath);
+            deleteFiles(tempPath);
+            deleteFiles(cachePath);
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Could not prepare artifact cache directory " + cachePath, e);
+        }
+    }
+
+    private static void deleteFiles(final Path directory) throws IOException {
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            files.forEach(CachingArtifactRepository::deleteFile);
+        }
+    }
+
+    private static void deleteFile(final Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            LOGGER.error("Could not delete artifact cache file: {}", file, e);
+        }
+    }
+
+    private static MessageDigest sha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new ArtifactStoreException(e.getMessage(), e);
+        }
+    }
+
+    private static boolean isValidSha1(final String sha1Hash) {
+        return sha1Hash != null && SHA1_PATTERN.matcher(sha1Hash).matches();
+    }
+
+    private static final class CacheEntry {
+        private final String sha1Hash;
+        private final String artifactId;
+        private final String md5Hash;
+        private final String contentType;
+        private final Path file;
+        private final long size;
+
+        private CacheEntry(final DbArtifact source, final Path file, final long size) {
+            this.sha1Hash = file.getFileName().toString();
+            this.artifactId = source.getArtifactId();
+            this.md5Hash = source.getHashes() != null ? source.getHashes().getMd5() : null;
+            this.contentType = source.getContentType();
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * {@link DbArtifact} served from the cache directory. Falls back to the
+     * delegate repository if the file has been evicted in the meantime.
+     */
+    private final class CachedArtifact extends DbArtifact {
+        private final CacheEntry entry;
+
+        private CachedArtifact(final CacheEntry entry) {
+            this.entry = entry;
+            setArtifactId(entry.artifactId);
+            setHashes(new DbArtifactHash(entry.sha1Hash, entry.md5Hash));
+            setContentType(entry.contentType);
+            setSize(entry.size);
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            try {
+                return Files.newInputStream(entry.file);
+            } catch (final NoSuchFileException e) {
+                LOGGER.debug("cached artifact {} has been evicted, reading from repository", entry.sha1Hash, e);
+                return evicted().getFileInputStream();
+            } catch (final IOException e) {
+                throw new ArtifactStoreException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public SeekableByteChannel openChannel() throws IOException {
+            try {
+                return FileChannel.open(entry.file, StandardOpenOption.READ);
+            } catch (final NoSuchFileException e) {
+                LOGGER.debug("cached artifact {} has been evicted, reading from repository", entry.sha1Hash, e);
+                return evicted().openChannel();
+            }
+        }
+
+        private DbArtifact evicted() {
+            final DbArtifact artifact = delegate.getArtifactBySha1(entry.sha1Hash);
+            if (artifact == null) {
+                throw new ArtifactStoreException("Artifact with sha1 hash " + entry.sha1Hash + " does not exist");
+            }
+            return artifact;
+        }
+    }
+
+    /**
+     * {@link DbArtifact} read from the delegate repository which copies its
+     * content into the cache while it is read, unless the artifact is cached
+     * or filled by another reader in the meantime.
+     */
+    private final class FillingArtifact extends DbArtifact {
+        private final String sha1Hash;
+        private final DbArtifact source;
+
+        private FillingArtifact(final String sha1Hash, final DbArtifact source) {
+            this.sha1Hash = sha1Hash;
+            this.source = source;
+            setArtifactId(source.getArtifactId());
+            setHashes(source.getHashes());
+            setContentType(source.getContentType());
+            setSize(source.getSize());
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            try {
+                return Channels.newInputStream(openChannel());
+            } catch (final IOException e) {
+                throw new ArtifactStoreException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public SeekableByteChannel openChannel() throws IOException {
+            final CacheEntry cached = lookup(sha1Hash);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return new CachedArtifact(cached).openChannel();
+            }
+
+            final Fill fill;
+            try {
+                fill = joinFill(sha1Hash, source);
+            } catch (final UncheckedIOException e) {
+                LOGGER.warn("Could not fill the cache with artifact {}, reading from repository", sha1Hash, e);
+                misses.incrementAndGet();
+                return source.openChannel();
+            }
+            if (fill == null) {
+                // the fill has been completed in the meantime
+                return getArtifactBySha1(sha1Hash).openChannel();
+            }
+            misses.incrementAndGet();
+            return new FillChannel(fill, source);
+        }
+    }
+
+    /**
+     * Joins the running fill of the artifact or starts a new one.
+     *
+     * @return the fill or {@code null} if the artifact has been cached in the
+     *         meantime
+     * @throws UncheckedIOException
+     *             if the temporary file of a new fill could not be created
+     */
+    private Fill joinFill(final String sha1Hash, final DbArtifact source) {
+        final Fill[] started = new Fill[1];
+        final Fill fill = runningFills.computeIfAbsent(sha1Hash, key -> {
+            // a fill adds the artifact to the cache before it is removed
+            // from the running fills
+            if (lookup(key) != null) {
+                return null;
+            }
+            started[0] = new Fill(key, source);
+            return started[0];
+        });
+        if (started[0] != null) {
+            fillExecutor.execute(started[0]);
+        }
+        return fill;
+    }
+
+    /**
+     * Copies the content of an artifact from the delegate repository into a
+     * temporary file and moves it into the cache as soon as the complete
+     * content has been copied and verified. The readers of the fill wait for
+     * the content they read.
+     */
+    private final class Fill implements Runnable {
+        private final String sha1Hash;
+        private final DbArtifact source;
+        private final long expectedSize;
+        private final Path tempFile;
+        private final long startedAfterInvalidations = invalidations.get();
+
+        // guarded by this
+        private long filled;
+        private boolean done;
+        private Path cacheFile;
+        private RuntimeException failure;
+
+        private Fill(final String sha1Hash, final DbArtifact source) {
+            this.sha1Hash = sha1Hash;
+            this.source = source;
+            this.expectedSize = source.getSize();
+            try {
+                Files.createDirectories(tempPath);
+                this.tempFile = Files.createTempFile(tempPath, "fill", null);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                copy();
+                complete();
+            } catch (final IOException e) {
+                LOGGER.warn("Could not fill the cache with artifact {}", sha1Hash, e);
+                fail(new ArtifactStoreException(e.getMessage(), e));
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Could not fill the cache with artifact {}", sha1Hash, e);
+                fail(e);
+            } finally {
+                runningFills.remove(sha1Hash, this);
+            }
+        }
+
+        private void copy() throws IOException {
+            final MessageDigest digest = sha1Digest();
+            final byte[] buffer = new byte[FILL_BUFFER_SIZE];
+            try (final InputStream content = source.getFileInputStream();
+                    final FileChannel temp = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                long copied = 0;
+                int read;
+                while ((read = content.read(buffer)) >= 0) {
+                    if (copied + read > expectedSize) {
+                        throw new ArtifactStoreException(
+                                "The content of artifact " + sha1Hash + " is larger than " + expectedSize + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    final ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        temp.write(chunk);
+                    }
+                    copied += read;
+                    synchronized (this) {
+                        filled = copied;
+                        notifyAll();
+                    }
+                }
+                if (copied != expectedSize) {
+                    throw new ArtifactStoreException(
+                            "The content of artifact " + sha1Hash + " is smaller than " + expectedSize + " bytes");
+                }
+            }
+
+            final String calculatedSha1 = BaseEncoding.base16().lowerCase().encode(digest.digest());
+            if (!sha1Hash.equals(calculatedSha1)) {
+                throw new HashNotMatchException("The sha1 hash " + calculatedSha1 + " of the artifact content read "
+                        + "from the repository is not matching the expected sha1 hash " + sha1Hash,
+                        HashNotMatchException.SHA1);
+            }
+        }
+
+        private synchronized void complete() {
+            // moved while holding the lock, so readers open either the
+            // temporary or the cache file
+            if (startedAfterInvalidations == invalidations.get()) {
+                final Path target = cachePath.resolve(sha1Hash);
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                    add(new CacheEntry(source, target, Files.size(target)));
+                    cacheFile = target;
+                } catch (final IOException e) {
+                    LOGGER.warn("Could not fill the cache with artifact {}", sha1Hash, e);
+                }
+            }
+            if (cacheFile == null) {
+                deleteFile(tempFile);
+            }
+            done = true;
+            notifyAll();
+        }
+
+        private synchronized void fail(final RuntimeException cause) {
+            deleteFile(tempFile);
+            failure = cause;
+            done = true;
+            notifyAll();
+        }
+
+        /**
+         * @return a channel on the copied content or {@code null} if the
+         *         content is not available from the fill
+         */
+        private synchronized FileChannel openContent() throws IOException {
+            if (failure instanceof HashNotMatchException) {
+                throw failure;
+            }
+            try {
+                if (!done) {
+                    return FileChannel.open(tempFile, StandardOpenOption.READ);
+                }
+                return cacheFile != null ? FileChannel.open(cacheFile, StandardOpenOption.READ) : null;
+            } catch (final NoSuchFileException e) {
+                LOGGER.debug("filled artifact {} is not available anymore, reading from repository", sha1Hash, e);
+                return null;
+            }
+        }
+
+        /**
+         * Waits until the content at the given position has been copied.
+         *
+         * @return the number of copied bytes or {@code -1} if the fill failed
+         *         and the content has to be read from the repository
+         */
+        private synchronized long awaitFilled(final long position) throws InterruptedIOException {
+            while (!done && filled <= position) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for artifact " + sha1Hash);
+                }
+            }
+            if (failure instanceof HashNotMatchException) {
+                throw failure;
+            }
+            return failure != null ? -1 : filled;
+        }
+    }
+
+    /**
+     * Channel of a single reader of a {@link Fill} which reads the content
+     * from the file of the fill as soon as it has been copied. Falls back to
+     * the delegate repository if the fill fails for other reasons than a
+     * hash mismatch or the file has been evicted already.
+     */
+    private final class FillChannel implements SeekableByteChannel {
+        private final Fill fill;
+        private final DbArtifact source;
+        private FileChannel content;
+        private SeekableByteChannel fallback;
+        private long position;
+        private boolean open = true;
+
+        private FillChannel(final Fill fill, final DbArtifact source) throws IOException {
+            this.fill = fill;
+            this.source = source;
+            content = fill.openContent();
+            if (content == null) {
+                fallback = source.openChannel();
+            }
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (fallback != null) {
+                return fallback.read(dst);
+            }
+            if (position >= fill.expectedSize) {
+                // the end is signaled after the content has been verified
+                if (fill.awaitFilled(fill.expectedSize) < 0) {
+                    return fallBack().read(dst);
+                }
+                return -1;
+            }
+
+            final long filled = fill.awaitFilled(position);
+            if (filled < 0) {
+                return fallBack().read(dst);
+            }
+            final ByteBuffer chunk = dst.duplicate();
+            chunk.limit(chunk.position() + (int) Math.min(chunk.remaining(), filled - position));
+            final int read = content.read(chunk, position);
+            if (read > 0) {
+                dst.position(dst.position() + read);
+                position += read;
+            }
+            return read;
+        }
+
+        private SeekableByteChannel fallBack() throws IOException {
+            content.close();
+            fallback = source.openChannel();
+            fallback.position(position);
+            return fallback;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return fallback != null ? fallback.position() : position;
+        }
+
+        @Override
+        public SeekableByteChannel position(final long newPosition) throws IOException {
+            if (fallback != null) {
+                fallback.position(newPosition);
+            } else {
+                position = newPosition;
+            }
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return fill.expectedSize;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(final long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            if (content != null) {
+                content.close();
+            }
+            if (fallback != null) {
+                fallback.close();
+            }
+        }
+    }
+}
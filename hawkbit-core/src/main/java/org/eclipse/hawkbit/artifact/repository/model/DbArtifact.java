@@ -8,8 +8,13 @@
  */
 package org.eclipse.hawkbit.artifact.repository.model;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+import com.google.common.io.ByteStreams;
 
 /**
  * Database representation of artifact.
@@ -79,4 +84,27 @@ public class DbArtifact {
     public void setFileOutputStream(final OutputStream fileOutputStream) {
         this.fileOutputStream = fileOutputStream;
     }
+
+    /**
+     * Opens a read-only channel on the content of the artifact which supports
+     * positional reads, e.g. for range requests. The default implementation
+     * skips the content before the requested position on the stream returned
+     * by {@link #getFileInputStream()}, which therefore has to return a new
+     * stream on every call in case of backward seeks. Stores which are able to
+     * read at an offset or which are file based should override this method,
+     * file based stores by returning a {@link FileChannel} which allows
+     * callers to use {@link FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)}.
+     *
+     * @return a new channel which has to be closed by the caller
+     * @throws IOException
+     *             in case the channel could not be opened
+     */
+    public SeekableByteChannel openChannel() throws IOException {
+        return new StreamSeekableByteChannel(position -> {
+            final InputStream stream = getFileInputStream();
+            ByteStreams.skipFully(stream, position);
+            return stream;
+        }, size);
+    }
 }
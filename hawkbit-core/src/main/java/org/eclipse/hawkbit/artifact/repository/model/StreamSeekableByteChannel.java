@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A read-only {@link SeekableByteChannel} on top of an artifact store which
+ * only provides {@link InputStream}s. The stream is opened lazily at the
+ * requested position by a {@link StreamOpener}, so stores which are able to
+ * start reading at an offset do not need to read the skipped content. Short
+ * forward seeks are served by skipping on the current stream, all other seeks
+ * reopen the stream at the new position.
+ *
+ *
+ *
+ */
+public class StreamSeekableByteChannel implements SeekableByteChannel {
+
+    /**
+     * Forward seeks up to this distance skip on the current stream instead of
+     * reopening it.
+     */
+    private static final long MAX_SKIP_DISTANCE = 64 * 1024L;
+
+    private final StreamOpener opener;
+    private final long size;
+
+    private InputStream stream;
+    private long streamPosition;
+    private long position;
+    private boolean open = true;
+
+    /**
+     * @param opener
+     *            opens the stream of the artifact at a given position
+     * @param size
+     *            the size of the artifact in bytes
+     */
+    public StreamSeekableByteChannel(final StreamOpener opener, final long size) {
+        this.opener = opener;
+        this.size = size;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        seekStream();
+
+        final int toRead = (int) Math.min(dst.remaining(), size - position);
+        final int read;
+        if (dst.hasArray()) {
+            read = stream.read(dst.array(), dst.arrayOffset() + dst.position(), toRead);
+            if (read > 0) {
+                dst.position(dst.position() + read);
+            }
+        } else {
+            final byte[] buffer = new byte[toRead];
+            read = stream.read(buffer);
+            if (read > 0) {
+                dst.put(buffer, 0, read);
+            }
+        }
+
+        if (read < 0) {
+            throw new EOFException("Unexpected end of artifact stream at position " + position + " of " + size);
+        }
+        position += read;
+        streamPosition += read;
+        return read;
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long newSize) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        closeStream();
+    }
+
+    private void seekStream() throws IOException {
+        if (stream != null && position == streamPosition) {
+            return;
+        }
+        if (stream != null && position > streamPosition && position - streamPosition <= MAX_SKIP_DISTANCE) {
+            ByteStreams.skipFully(stream, position - streamPosition);
+            streamPosition = position;
+            return;
+        }
+        closeStream();
+        stream = opener.open(position);
+        streamPosition = position;
+    }
+
+    private void closeStream() throws IOException {
+        if (stream != null) {
+            final InputStream toClose = stream;
+            stream = null;
+            toClose.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Opens the stream of an artifact at a given position.
+     */
+    @FunctionalInterface
+    public interface StreamOpener {
+
+        /**
+         * @param position
+         *            the position in bytes to start reading from
+         * @return a new stream which starts at the given position
+         * @throws IOException
+         *             in case the stream could not be opened
+         */
+        InputStream open(long position) throws IOException;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.eventbus.event;
+
+/**
+ * Event that gets sent when an artifact has been deleted from the artifact
+ * repository, so that node local copies of the artifact content are removed
+ * on all nodes. The content of an artifact is identified by its SHA1 hash
+ * only, so the event is not bound to a tenant.
+ *
+ *
+ *
+ */
+public class ArtifactCacheInvalidatedEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+    private final String sha1Hash;
+
+    /**
+     * @param sha1Hash
+     *            the SHA1 hash of the deleted artifact
+     */
+    public ArtifactCacheInvalidatedEvent(final String sha1Hash) {
+        super(-1, null);
+        this.sha1Hash = sha1Hash;
+    }
+
+    /**
+     * @return the SHA1 hash of the deleted artifact
+     */
+    public String getSha1Hash() {
+        return sha1Hash;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ArtifactCacheInvalidatedEvent [sha1Hash=" + sha1Hash + "]";
+    }
+}
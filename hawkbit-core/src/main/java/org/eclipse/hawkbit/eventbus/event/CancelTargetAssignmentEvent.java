@@ -19,6 +19,7 @@ import java.net.URI;
  */
 public class CancelTargetAssignmentEvent {
 
+    private final String tenant;
     private final String controllerId;
     private final Long actionId;
     private final URI targetAdress;
@@ -26,6 +27,8 @@ public class CancelTargetAssignmentEvent {
     /**
      * Creates a new {@link CancelTargetAssignmentEvent}.
      *
+     * @param tenant
+     *            the tenant of the target
      * @param controllerId
      *            the ID of the controller
      * @param actionId
@@ -33,12 +36,21 @@ public class CancelTargetAssignmentEvent {
      * @param targetAdress
      *            the targetAdress of the target
      */
-    public CancelTargetAssignmentEvent(final String controllerId, final Long actionId, final URI targetAdress) {
+    public CancelTargetAssignmentEvent(final String tenant, final String controllerId, final Long actionId,
+            final URI targetAdress) {
+        this.tenant = tenant;
         this.controllerId = controllerId;
         this.actionId = actionId;
         this.targetAdress = targetAdress;
     }
 
+    /**
+     * @return the tenant of the target
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
     /**
      * @return the action id of the assignment
      */
@@ -69,7 +81,7 @@ public class CancelTargetAssignmentEvent {
      */
     @Override
     public String toString() {
-        return "TargetAssignDistributionSetEvent [targetAdress=" + targetAdress + ", controllerId=" + controllerId
+        return "TargetAssignDistributionSetEvent [targetAdress=" + targetAdress + ", tenant=" + tenant + ", controllerId=" + controllerId
                 + ", actionId=" + actionId + "]";
     }
 }
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.eventbus.event;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Event that contains the latest download progress of all actions of a tenant
+ * which have changed within one aggregation window. Replaces the
+ * {@link DownloadProgressEvent} per progress step if the download progress is
+ * aggregated.
+ *
+ *
+ *
+ */
+public class DownloadProgressBatchEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HashMap<Long, Integer> progressPercents;
+
+    /**
+     * Constructor.
+     *
+     * @param tenant
+     *            the tenant for this event
+     * @param revision
+     *            the revision of the event, increasing with every aggregation
+     *            window
+     * @param progressPercents
+     *            the latest progress in percent (1-100) by ID of the
+     *            {@link UpdateActionStatus}
+     */
+    public DownloadProgressBatchEvent(final String tenant, final long revision,
+            final Map<Long, Integer> progressPercents) {
+        super(revision, tenant);
+        this.progressPercents = new HashMap<>(progressPercents);
+    }
+
+    /**
+     * @return the latest progress in percent by ID of the action status
+     */
+    public Map<Long, Integer> getProgressPercents() {
+        return Collections.unmodifiableMap(progressPercents);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.eventbus.event;
+
+/**
+ * Event that gets sent when the software content which is delivered to the
+ * controllers might have changed, i.e. a distribution set, a software module
+ * or an artifact has been changed or deleted, so that cached deployment
+ * payloads need to be invalidated on all nodes.
+ *
+ * In case neither a distribution set nor a software module is given the
+ * change could not be narrowed down and affects all distribution sets of the
+ * tenant.
+ *
+ *
+ *
+ */
+public class SoftwareContentChangedEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+    private final Long distributionSetId;
+    private final Long softwareModuleId;
+
+    /**
+     * @param tenant
+     *            the tenant for this event
+     * @param distributionSetId
+     *            the ID of the changed distribution set, might be
+     *            {@code null}
+     * @param softwareModuleId
+     *            the ID of the software module which itself or which
+     *            artifacts have been changed, might be {@code null}
+     */
+    public SoftwareContentChangedEvent(final String tenant, final Long distributionSetId,
+            final Long softwareModuleId) {
+        super(-1, tenant);
+        this.distributionSetId = distributionSetId;
+        this.softwareModuleId = softwareModuleId;
+    }
+
+    /**
+     * @return the distributionSetId or {@code null}
+     */
+    public Long getDistributionSetId() {
+        return distributionSetId;
+    }
+
+    /**
+     * @return the softwareModuleId or {@code null}
+     */
+    public Long getSoftwareModuleId() {
+        return softwareModuleId;
+    }
+
+    /**
+     * @return {@code true} if all distribution sets of the tenant are
+     *         affected
+     */
+    public boolean isTenantWide() {
+        return distributionSetId == null && softwareModuleId == null;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SoftwareContentChangedEvent [tenant=" + getTenant() + ", distributionSetId=" + distributionSetId
+                + ", softwareModuleId=" + softwareModuleId + "]";
+    }
+}
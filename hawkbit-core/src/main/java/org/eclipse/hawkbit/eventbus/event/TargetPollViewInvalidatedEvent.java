@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.eventbus.event;
+
+/**
+ * Event that gets sent when the response of a controller poll might have
+ * changed, e.g. due to a new or canceled action, so that cached poll responses
+ * of the target need to be invalidated on all nodes.
+ *
+ *
+ *
+ */
+public class TargetPollViewInvalidatedEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+    private final String controllerId;
+
+    /**
+     * @param tenant
+     *            the tenant for this event
+     * @param controllerId
+     *            the ID of the controller which poll response has changed
+     */
+    public TargetPollViewInvalidatedEvent(final String tenant, final String controllerId) {
+        super(-1, tenant);
+        this.controllerId = controllerId;
+    }
+
+    /**
+     * @return the controllerId
+     */
+    public String getControllerId() {
+        return controllerId;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "TargetPollViewInvalidatedEvent [tenant=" + getTenant() + ", controllerId=" + controllerId + "]";
+    }
+}
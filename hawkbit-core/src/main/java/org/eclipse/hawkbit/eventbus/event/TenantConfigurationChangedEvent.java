@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.eventbus.event;
+
+/**
+ * Event that gets sent when a configuration value of a tenant has been added,
+ * updated or deleted, so that configuration values held in memory can be
+ * refreshed on all nodes.
+ *
+ *
+ *
+ */
+public class TenantConfigurationChangedEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+    private final String configurationKey;
+
+    /**
+     * @param tenant
+     *            the tenant for this event
+     * @param configurationKey
+     *            the name of the configuration key which has been changed
+     */
+    public TenantConfigurationChangedEvent(final String tenant, final String configurationKey) {
+        super(-1, tenant);
+        this.configurationKey = configurationKey;
+    }
+
+    /**
+     * @return the name of the changed configuration key
+     */
+    public String getConfigurationKey() {
+        return configurationKey;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "TenantConfigurationChangedEvent [tenant=" + getTenant() + ", configurationKey=" + configurationKey
+                + "]";
+    }
+}
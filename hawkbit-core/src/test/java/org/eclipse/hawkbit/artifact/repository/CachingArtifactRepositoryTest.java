@@ -0,0 +1,317 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.eclipse.hawkbit.eventbus.event.ArtifactCacheInvalidatedEvent;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Artifact Repository")
+@Stories("Artifact cache")
+public class CachingArtifactRepositoryTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ArtifactRepository delegate = mock(ArtifactRepository.class);
+
+    private final AtomicInteger opens = new AtomicInteger();
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private volatile boolean gated;
+
+    private Path cachePath;
+
+    @Before
+    public void before() throws IOException {
+        cachePath = folder.newFolder("cache").toPath();
+    }
+
+    @Test
+    @Description("The first read fills the cache, later reads are served from the cached file.")
+    public void secondReadIsServedFromCache() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final byte[] content = randomBytes(1000);
+        final String sha1 = mockArtifact(content, content);
+
+        assertArrayEquals(content, read(cache.getArtifactBySha1(sha1)));
+        final DbArtifact cached = cache.getArtifactBySha1(sha1);
+        assertArrayEquals(content, read(cached));
+        assertArrayEquals(content, read(cached));
+
+        verify(delegate, times(1)).getArtifactBySha1(sha1);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1000, cache.getCachedBytes());
+        assertEquals("artifact-" + sha1, cached.getArtifactId());
+        assertTrue(Files.exists(cachePath.resolve(sha1)));
+    }
+
+    @Test
+    @Description("Content which does not match the requested sha1 hash fails the read and is not cached.")
+    public void corruptContentIsNotCached() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final String sha1 = mockArtifact(randomBytes(100), randomBytes(100));
+
+        try {
+            read(cache.getArtifactBySha1(sha1));
+            fail("HashNotMatchException expected");
+        } catch (final HashNotMatchException e) {
+            assertEquals(HashNotMatchException.SHA1, e.getHashFunction());
+        }
+        assertEquals(0, cache.getCachedBytes());
+        assertFalse(Files.exists(cachePath.resolve(sha1)));
+    }
+
+    @Test
+    @Description("Accessing the meta data of an artifact only does not fill the cache.")
+    public void metadataAccessDoesNotFill() {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final byte[] content = randomBytes(1000);
+        final String sha1 = mockArtifact(content, content);
+
+        final DbArtifact artifact = cache.getArtifactBySha1(sha1);
+
+        assertEquals(Long.valueOf(1000), artifact.getSize());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(0, cache.getCachedBytes());
+        assertFalse(Files.exists(cachePath.resolve(sha1)));
+    }
+
+    @Test
+    @Description("A read which is closed before the end of the content does not abandon the fill of the cache.")
+    public void partialReadFillsCache() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final byte[] content = randomBytes(1000);
+        final String sha1 = mockArtifact(content, content);
+
+        try (final InputStream stream = cache.getArtifactBySha1(sha1).getFileInputStream()) {
+            ByteStreams.readFully(stream, new byte[500]);
+        }
+
+        assertArrayEquals(content, read(cache.getArtifactBySha1(sha1)));
+        assertEquals(1000, cache.getCachedBytes());
+        assertTrue(Files.exists(cachePath.resolve(sha1)));
+        assertEquals(1, opens.get());
+    }
+
+    @Test
+    @Description("The least recently used artifacts are evicted if the size limit is exceeded.")
+    public void leastRecentlyUsedArtifactIsEvicted() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 2500);
+        final byte[] first = randomBytes(1000);
+        final byte[] second = randomBytes(1000);
+        final byte[] third = randomBytes(1000);
+        final String firstSha1 = mockArtifact(first, first);
+        final String secondSha1 = mockArtifact(second, second);
+        final String thirdSha1 = mockArtifact(third, third);
+
+        read(cache.getArtifactBySha1(firstSha1));
+        read(cache.getArtifactBySha1(secondSha1));
+        read(cache.getArtifactBySha1(firstSha1));
+        read(cache.getArtifactBySha1(thirdSha1));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2000, cache.getCachedBytes());
+        assertTrue(Files.exists(cachePath.resolve(firstSha1)));
+        assertFalse(Files.exists(cachePath.resolve(secondSha1)));
+    }
+
+    @Test
+    @Description("Reads which start while the cache is filled are served from the fill instead of the repository.")
+    public void concurrentReadIsServedFromFill() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final byte[] content = randomBytes(1000);
+        final String sha1 = mockArtifact(content, content);
+
+        try (final InputStream first = cache.getArtifactBySha1(sha1).getFileInputStream()) {
+            final byte[] firstContent = new byte[1000];
+            ByteStreams.readFully(first, firstContent, 0, 500);
+
+            assertArrayEquals(content, read(cache.getArtifactBySha1(sha1)));
+
+            ByteStreams.readFully(first, firstContent, 500, 500);
+            assertArrayEquals(content, firstContent);
+        }
+
+        assertEquals(1000, cache.getCachedBytes());
+        assertArrayEquals(content, read(cache.getArtifactBySha1(sha1)));
+        assertEquals(1, opens.get());
+        // the second read either joined the fill or hit the filled cache
+        assertEquals(3, cache.getMissCount() + cache.getHitCount());
+    }
+
+    @Test
+    @Description("Concurrent misses of an artifact share a single fill which reads the content from the repository exactly once.")
+    public void concurrentMissesOpenTheSourceOnce() throws Exception {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 100000);
+        final byte[] content = randomBytes(50000);
+        final String sha1 = mockArtifact(content, content);
+        gated = true;
+
+        final int readers = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            final List<Future<byte[]>> reads = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                reads.add(executor.submit(() -> read(cache.getArtifactBySha1(sha1))));
+            }
+            // the content is held back until every reader joined the fill
+            for (int i = 0; i < 500 && cache.getMissCount() < readers; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(readers, cache.getMissCount());
+            gate.countDown();
+
+            for (final Future<byte[]> result : reads) {
+                assertArrayEquals(content, result.get(10, TimeUnit.SECONDS));
+            }
+        } catch (final ExecutionException e) {
+            throw new AssertionError("Concurrent read failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, opens.get());
+        assertEquals(50000, cache.getCachedBytes());
+        assertTrue(Files.exists(cachePath.resolve(sha1)));
+    }
+
+    @Test
+    @Description("Deleting an artifact removes it from the cache and distributes the invalidation to all nodes.")
+    public void deleteInvalidatesCache() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final EventBus eventBus = mock(EventBus.class);
+        cache.setEventBus(eventBus);
+        final byte[] content = randomBytes(100);
+        final String sha1 = mockArtifact(content, content);
+        read(cache.getArtifactBySha1(sha1));
+
+        cache.deleteBySha1(sha1);
+
+        verify(delegate).deleteBySha1(sha1);
+        final ArgumentCaptor<ArtifactCacheInvalidatedEvent> event = ArgumentCaptor
+                .forClass(ArtifactCacheInvalidatedEvent.class);
+        verify(eventBus).post(event.capture());
+        assertEquals(sha1, event.getValue().getSha1Hash());
+        assertEquals(0, cache.getCachedBytes());
+        assertFalse(Files.exists(cachePath.resolve(sha1)));
+    }
+
+    @Test
+    @Description("An artifact deleted on another node is removed from the cache.")
+    public void distributedInvalidationRemovesCachedArtifact() throws IOException {
+        final CachingArtifactRepository cache = new CachingArtifactRepository(delegate, cachePath, 10000);
+        final byte[] content = randomBytes(100);
+        final String sha1 = mockArtifact(content, content);
+        read(cache.getArtifactBySha1(sha1));
+        assertEquals(100, cache.getCachedBytes());
+
+        cache.artifactCacheInvalidated(new ArtifactCacheInvalidatedEvent(sha1));
+
+        assertEquals(0, cache.getCachedBytes());
+        assertFalse(Files.exists(cachePath.resolve(sha1)));
+    }
+
+    private String mockArtifact(final byte[] expectedContent, final byte[] actualContent) {
+        final String sha1 = Hashing.sha1().hashBytes(expectedContent).toString();
+        when(delegate.getArtifactBySha1(sha1)).then(invocation -> artifact(sha1, actualContent));
+        return sha1;
+    }
+
+    /**
+     * @return an artifact which counts how often its content is opened and
+     *         holds the content back until the gate is opened if the test is
+     *         gated
+     */
+    private DbArtifact artifact(final String sha1, final byte[] content) {
+        final DbArtifact artifact = new DbArtifact() {
+            @Override
+            public InputStream getFileInputStream() {
+                opens.incrementAndGet();
+                final InputStream stream = new ByteArrayInputStream(content);
+                return gated ? new GatedInputStream(stream) : stream;
+            }
+        };
+        artifact.setArtifactId("artifact-" + sha1);
+        artifact.setHashes(new DbArtifactHash(sha1, null));
+        artifact.setSize((long) content.length);
+        return artifact;
+    }
+
+    private static byte[] read(final DbArtifact artifact) throws IOException {
+        try (final InputStream stream = artifact.getFileInputStream()) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    private final class GatedInputStream extends FilterInputStream {
+        private GatedInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            return super.read(b, off, len);
+        }
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Artifact Repository")
+@Stories("Seekable artifact channel")
+public class StreamSeekableByteChannelTest {
+
+    private static final int SIZE = 256 * 1024;
+
+    private final byte[] content = new byte[SIZE];
+
+    private final List<Long> openedPositions = new ArrayList<>();
+
+    public StreamSeekableByteChannelTest() {
+        for (int i = 0; i < SIZE; i++) {
+            content[i] = (byte) i;
+        }
+    }
+
+    @Test
+    @Description("A seek to a far position opens the stream directly at that position.")
+    public void farSeekOpensStreamAtPosition() throws IOException {
+        try (final StreamSeekableByteChannel channel = createChannel()) {
+            channel.position(SIZE - 10);
+            final ByteBuffer buffer = ByteBuffer.allocate(100);
+
+            assertEquals(10, channel.read(buffer));
+            assertEquals(content[SIZE - 10], buffer.get(0));
+            assertEquals(-1, channel.read(buffer));
+        }
+        assertEquals(1, openedPositions.size());
+        assertEquals(Long.valueOf(SIZE - 10), openedPositions.get(0));
+    }
+
+    @Test
+    @Description("Short forward seeks reuse the current stream, backward seeks reopen it.")
+    public void shortForwardSeekReusesStream() throws IOException {
+        try (final StreamSeekableByteChannel channel = createChannel()) {
+            final ByteBuffer buffer = ByteBuffer.allocate(10);
+            channel.read(buffer);
+
+            channel.position(100);
+            buffer.clear();
+            channel.read(buffer);
+            assertEquals(content[100], buffer.get(0));
+            assertEquals(1, openedPositions.size());
+
+            channel.position(5);
+            buffer.clear();
+            channel.read(buffer);
+            assertEquals(content[5], buffer.get(0));
+            assertEquals(2, openedPositions.size());
+            assertEquals(15, channel.position());
+        }
+    }
+
+    private StreamSeekableByteChannel createChannel() {
+        return new StreamSeekableByteChannel(position -> {
+            openedPositions.add(position);
+            return new ByteArrayInputStream(content, (int) position, SIZE - (int) position);
+        }, SIZE);
+    }
+}
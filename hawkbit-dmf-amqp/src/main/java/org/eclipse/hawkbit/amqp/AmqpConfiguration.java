@@ -20,9 +20,9 @@ import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFacto
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
@@ -45,16 +45,20 @@ public class AmqpConfiguration {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired(required = false)
+    private GaugeService gaugeService;
+
     /**
-     * Method to set the Jackson2JsonMessageConverter.
+     * Method to set the {@link DmfMessageConverter} which converts JSON and
+     * the binary encodings of the DMF messages.
      *
-     * @return the Jackson2JsonMessageConverter
+     * @return the DmfMessageConverter
      */
     @Bean
     public MessageConverter jsonMessageConverter() {
-        final Jackson2JsonMessageConverter jackson2JsonMessageConverter = new Jackson2JsonMessageConverter();
-        rabbitTemplate.setMessageConverter(jackson2JsonMessageConverter);
-        return jackson2JsonMessageConverter;
+        final DmfMessageConverter dmfMessageConverter = new DmfMessageConverter();
+        rabbitTemplate.setMessageConverter(dmfMessageConverter);
+        return dmfMessageConverter;
     }
 
     /**
@@ -129,14 +133,19 @@ public class AmqpConfiguration {
     }
 
     /**
-     * Returns the Listener factory.
+     * Returns the Listener factory. If consumer lanes are configured the
+     * messages are processed in lanes by thing, see
+     * {@link LanedRabbitListenerContainerFactory}.
      *
      * @return the {@link SimpleMessageListenerContainer} that gets used receive
      *         AMQP messages
      */
     @Bean(name = { "listenerContainerFactory" })
     public SimpleRabbitListenerContainerFactory listenerContainerFactory() {
-        final SimpleRabbitListenerContainerFactory containerFactory = new SimpleRabbitListenerContainerFactory();
+        final SimpleRabbitListenerContainerFactory containerFactory = amqpProperties.getConsumerLanes() > 0
+                ? new LanedRabbitListenerContainerFactory(amqpProperties.getConsumerLanes(),
+                        amqpProperties.getConsumerLaneCapacity(), gaugeService)
+                : new SimpleRabbitListenerContainerFactory();
         containerFactory.setDefaultRequeueRejected(false);
         containerFactory.setConnectionFactory(connectionFactory);
         return containerFactory;
@@ -18,6 +18,7 @@ import org.eclipse.hawkbit.im.authentication.TenantAwareAuthenticationDetails;
 import org.eclipse.hawkbit.repository.ControllerManagement;
 import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.security.CoapAnonymousPreAuthenticatedFilter;
+import org.eclipse.hawkbit.security.ControllerAuthenticationCache;
 import org.eclipse.hawkbit.security.ControllerPreAuthenticateSecurityTokenFilter;
 import org.eclipse.hawkbit.security.ControllerPreAuthenticatedGatewaySecurityTokenFilter;
 import org.eclipse.hawkbit.security.ControllerPreAuthenticatedSecurityHeaderFilter;
@@ -57,6 +58,9 @@ public class AmqpControllerAuthentfication {
     @Autowired
     private SecurityProperties secruityProperties;
 
+    @Autowired
+    private ControllerAuthenticationCache authenticationCache;
+
     /**
      * Constructor.
      */
@@ -74,16 +78,16 @@ public class AmqpControllerAuthentfication {
 
     private void addFilter() {
         final ControllerPreAuthenticatedGatewaySecurityTokenFilter gatewaySecurityTokenFilter = new ControllerPreAuthenticatedGatewaySecurityTokenFilter(
-                systemManagement, tenantAware);
+                systemManagement, tenantAware, authenticationCache);
         filterChain.add(gatewaySecurityTokenFilter);
 
         final ControllerPreAuthenticatedSecurityHeaderFilter securityHeaderFilter = new ControllerPreAuthenticatedSecurityHeaderFilter(
                 secruityProperties.getRpCnHeader(), secruityProperties.getRpSslIssuerHashHeader(), systemManagement,
-                tenantAware);
+                tenantAware, authenticationCache);
         filterChain.add(securityHeaderFilter);
 
         final ControllerPreAuthenticateSecurityTokenFilter securityTokenFilter = new ControllerPreAuthenticateSecurityTokenFilter(
-                systemManagement, controllerManagement, tenantAware);
+                systemManagement, controllerManagement, tenantAware, authenticationCache);
         filterChain.add(securityTokenFilter);
 
         filterChain.add(new CoapAnonymousPreAuthenticatedFilter());
@@ -149,4 +153,8 @@ public class AmqpControllerAuthentfication {
         this.tenantAware = tenantAware;
     }
 
+    public void setAuthenticationCache(final ControllerAuthenticationCache authenticationCache) {
+        this.authenticationCache = authenticationCache;
+    }
+
 }
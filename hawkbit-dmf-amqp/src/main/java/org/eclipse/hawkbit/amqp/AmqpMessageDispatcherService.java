@@ -12,6 +12,7 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
@@ -23,11 +24,14 @@ import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateRequest;
 import org.eclipse.hawkbit.dmf.json.model.SoftwareModule;
 import org.eclipse.hawkbit.eventbus.EventSubscriber;
 import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent.TargetAssignment;
 import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.eclipse.hawkbit.util.ArtifactUrlHandler;
 import org.eclipse.hawkbit.util.IpUtil;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -54,6 +58,12 @@ public class AmqpMessageDispatcherService {
     @Autowired
     private ArtifactUrlHandler artifactUrlHandler;
 
+    @Autowired(required = false)
+    private AmqpMessagePublisher messagePublisher;
+
+    @Autowired(required = false)
+    private AmqpProperties amqpProperties;
+
     /**
      * Method to send a message to a RabbitMQ Exchange after the Distribution
      * set has been assign to a Target.
@@ -63,16 +73,37 @@ public class AmqpMessageDispatcherService {
      */
     @Subscribe
     public void targetAssignDistributionSet(final TargetAssignDistributionSetEvent targetAssignDistributionSetEvent) {
-        final URI targetAdress = targetAssignDistributionSetEvent.getTargetAdress();
+        sendDownloadAndUpdateRequest(targetAssignDistributionSetEvent.getControllerId(),
+                targetAssignDistributionSetEvent.getActionId(), targetAssignDistributionSetEvent.getTargetAdress(),
+                targetAssignDistributionSetEvent.getSoftwareModules());
+    }
+
+    /**
+     * Method to send a message per target to a RabbitMQ Exchange after the
+     * Distribution set has been assign to a bunch of Targets.
+     *
+     * @param targetAssignDistributionSetBulkEvent
+     *            the assignments to be send.
+     */
+    @Subscribe
+    public void targetAssignDistributionSetBulk(
+            final TargetAssignDistributionSetBulkEvent targetAssignDistributionSetBulkEvent) {
+        final Collection<org.eclipse.hawkbit.repository.model.SoftwareModule> modules = targetAssignDistributionSetBulkEvent
+                .getSoftwareModules();
+        for (final TargetAssignment assignment : targetAssignDistributionSetBulkEvent.getAssignments()) {
+            sendDownloadAndUpdateRequest(assignment.getControllerId(), assignment.getActionId(),
+                    assignment.getTargetAdress(), modules);
+        }
+    }
+
+    private void sendDownloadAndUpdateRequest(final String controllerId, final Long actionId, final URI targetAdress,
+            final Collection<org.eclipse.hawkbit.repository.model.SoftwareModule> modules) {
         if (!IpUtil.isAmqpUri(targetAdress)) {
             return;
         }
 
-        final String controllerId = targetAssignDistributionSetEvent.getControllerId();
-        final Collection<org.eclipse.hawkbit.repository.model.SoftwareModule> modules = targetAssignDistributionSetEvent
-                .getSoftwareModules();
         final DownloadAndUpdateRequest downloadAndUpdateRequest = new DownloadAndUpdateRequest();
-        downloadAndUpdateRequest.setActionId(targetAssignDistributionSetEvent.getActionId());
+        downloadAndUpdateRequest.setActionId(actionId);
 
         for (final org.eclipse.hawkbit.repository.model.SoftwareModule softwareModule : modules) {
             final SoftwareModule amqpSoftwareModule = convertToAmqpSoftwareModule(controllerId, softwareModule);
@@ -104,32 +135,55 @@ public class AmqpMessageDispatcherService {
     }
 
     /**
-     * Send message to exchange.
+     * Send message to exchange. The message is queued at the
+     * {@link AmqpMessagePublisher} if enabled and sent directly otherwise. The
+     * message is never sent directly while the publisher is running, as it
+     * would overtake the queued messages of the exchange.
      *
      * @param exchange
      *            the exchange
      * @param message
      *            the message
+     * @throws AmqpException
+     *             if the publisher is enabled and its lane of the exchange
+     *             stays full
      */
     public void sendMessage(final String exchange, final Message message) {
         message.getMessageProperties().getHeaders().remove(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
-        rabbitTemplate.setExchange(exchange);
-        rabbitTemplate.send(message);
+        if (messagePublisher != null && messagePublisher.publish(exchange, message)) {
+            return;
+        }
+        // the template is shared, so the exchange is passed per message
+        rabbitTemplate.send(exchange, null, message);
     }
 
     private MessageProperties createConnectorMessageProperties(final String controllerId, final EventTopic topic) {
-        final MessageProperties messageProperties = createMessageProperties();
+        final String tenant = tenantAware.getCurrentTenant();
+        final MessageProperties messageProperties = createMessageProperties(getContentType(tenant));
         messageProperties.setHeader(MessageHeaderKey.TOPIC, topic);
         messageProperties.setHeader(MessageHeaderKey.THING_ID, controllerId);
-        messageProperties.setHeader(MessageHeaderKey.TENANT, tenantAware.getCurrentTenant());
+        messageProperties.setHeader(MessageHeaderKey.TENANT, tenant);
         messageProperties.setHeader(MessageHeaderKey.TYPE, MessageType.EVENT);
         return messageProperties;
     }
 
-    private static MessageProperties createMessageProperties() {
+    /**
+     * Resolves the content type of the messages to the things of the given
+     * tenant, JSON if nothing else is configured.
+     */
+    private String getContentType(final String tenant) {
+        if (amqpProperties == null) {
+            return MessageProperties.CONTENT_TYPE_JSON;
+        }
+        return amqpProperties.getTenantContentTypes().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(tenant)).map(Map.Entry::getValue).findFirst()
+                .orElse(amqpProperties.getContentType());
+    }
+
+    private static MessageProperties createMessageProperties(final String contentType) {
         final MessageProperties messageProperties = new MessageProperties();
-        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
-        messageProperties.setHeader(MessageHeaderKey.CONTENT_TYPE, MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentType(contentType);
+        messageProperties.setHeader(MessageHeaderKey.CONTENT_TYPE, contentType);
         return messageProperties;
     }
 
@@ -181,4 +235,12 @@ public class AmqpMessageDispatcherService {
     public void setArtifactUrlHandler(final ArtifactUrlHandler artifactUrlHandler) {
         this.artifactUrlHandler = artifactUrlHandler;
     }
+
+    public void setMessagePublisher(final AmqpMessagePublisher messagePublisher) {
+        this.messagePublisher = messagePublisher;
+    }
+
+    public void setAmqpProperties(final AmqpProperties amqpProperties) {
+        this.amqpProperties = amqpProperties;
+    }
 }
@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.hawkbit.amqp.ArtifactMetadataCache.ArtifactMetadata;
 import org.eclipse.hawkbit.api.HostnameResolver;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
@@ -23,6 +24,7 @@ import org.eclipse.hawkbit.cache.CacheConstants;
 import org.eclipse.hawkbit.cache.DownloadArtifactCache;
 import org.eclipse.hawkbit.cache.DownloadType;
 import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageContentType;
 import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
 import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
 import org.eclipse.hawkbit.dmf.json.model.ActionUpdateStatus;
@@ -104,6 +106,12 @@ public class AmqpMessageHandlerService {
     @Autowired
     private HostnameResolver hostnameResolver;
 
+    @Autowired(required = false)
+    private AmqpTargetRegistrationBatcher registrationBatcher;
+
+    @Autowired(required = false)
+    private ArtifactMetadataCache artifactMetadataCache;
+
     /**
      * /** Method to handle all incoming amqp messages.
      *
@@ -120,14 +128,14 @@ public class AmqpMessageHandlerService {
     @RabbitListener(queues = "${hawkbit.dmf.rabbitmq.receiverQueue}", containerFactory = "listenerContainerFactory")
     public Message onMessage(final Message message, @Header(MessageHeaderKey.TYPE) final String type,
             @Header(MessageHeaderKey.TENANT) final String tenant) {
-        checkContentTypeJson(message);
+        checkContentType(message);
         final SecurityContext oldContext = SecurityContextHolder.getContext();
         try {
             final MessageType messageType = MessageType.valueOf(type);
             switch (messageType) {
             case THING_CREATED:
                 setTenantSecurityContext(tenant);
-                registerTarget(message);
+                registerTarget(message, tenant);
                 break;
             case EVENT:
                 setTenantSecurityContext(tenant);
@@ -153,11 +161,8 @@ public class AmqpMessageHandlerService {
         final String sha1 = secruityToken.getSha1();
         try {
             SecurityContextHolder.getContext().setAuthentication(authenticationManager.doAuthenticate(secruityToken));
-            final LocalArtifact localArtifact = artifactManagement
-                    .findFirstLocalArtifactsBySHA1(secruityToken.getSha1());
-            if (localArtifact == null) {
-                throw new EntityNotFoundException();
-            }
+            final ArtifactMetadata metadata = artifactMetadataCache == null ? loadArtifactMetadata(sha1)
+                    : artifactMetadataCache.get(secruityToken.getTenant(), sha1, () -> loadArtifactMetadata(sha1));
 
             // check action for this download purposes, the method will throw an
             // EntityNotFoundException in case the controller is not allowed to
@@ -165,15 +170,11 @@ public class AmqpMessageHandlerService {
             // because it's not assigned to an action and not assigned to this
             // controller.
             final Action action = controllerManagement.getActionForDownloadByTargetAndSoftwareModule(
-                    secruityToken.getControllerId(), localArtifact.getSoftwareModule());
+                    secruityToken.getControllerId(), metadata.getSoftwareModuleId());
             LOG.info("Found action for download authentication request action: {}, sha1: {}", action,
                     secruityToken.getSha1());
 
-            final Artifact artifact = convertDbArtifact(artifactManagement.loadLocalArtifactBinary(localArtifact));
-            if (artifact == null) {
-                throw new EntityNotFoundException();
-            }
-            authentificationResponse.setArtifact(artifact);
+            authentificationResponse.setArtifact(convertArtifactMetadata(metadata));
             final String downloadId = UUID.randomUUID().toString();
             final DownloadArtifactCache downloadCache = new DownloadArtifactCache(DownloadType.BY_SHA1, sha1);
             cache.put(downloadId, downloadCache);
@@ -199,11 +200,25 @@ public class AmqpMessageHandlerService {
         return rabbitTemplate.getMessageConverter().toMessage(authentificationResponse, messageProperties);
     }
 
-    private static Artifact convertDbArtifact(final DbArtifact dbArtifact) {
-        final Artifact artifact = new Artifact();
-        artifact.setSize(dbArtifact.getSize());
+    private ArtifactMetadata loadArtifactMetadata(final String sha1) {
+        final LocalArtifact localArtifact = artifactManagement.findFirstLocalArtifactsBySHA1(sha1);
+        if (localArtifact == null) {
+            throw new EntityNotFoundException();
+        }
+        final DbArtifact dbArtifact = artifactManagement.loadLocalArtifactBinary(localArtifact);
+        if (dbArtifact == null) {
+            throw new EntityNotFoundException();
+        }
         final DbArtifactHash dbArtifactHash = dbArtifact.getHashes();
-        artifact.setHashes(new ArtifactHash(dbArtifactHash.getSha1(), dbArtifactHash.getMd5()));
+        final SoftwareModule softwareModule = localArtifact.getSoftwareModule();
+        return new ArtifactMetadata(dbArtifactHash.getSha1(), dbArtifactHash.getMd5(), dbArtifact.getSize(),
+                softwareModule == null ? null : softwareModule.getId());
+    }
+
+    private static Artifact convertArtifactMetadata(final ArtifactMetadata metadata) {
+        final Artifact artifact = new Artifact();
+        artifact.setSize(metadata.getSize());
+        artifact.setHashes(new ArtifactHash(metadata.getSha1Hash(), metadata.getMd5Hash()));
         return artifact;
     }
 
@@ -218,7 +233,7 @@ public class AmqpMessageHandlerService {
         SecurityContextHolder.setContext(securityContextImpl);
     }
 
-    private static void setTenantSecurityContext(final String tenantId) {
+    static void setTenantSecurityContext(final String tenantId) {
         final AnonymousAuthenticationToken authenticationToken = new AnonymousAuthenticationToken(
                 UUID.randomUUID().toString(), "AMQP-Controller",
                 Collections.singletonList(new SimpleGrantedAuthority(SpringEvalExpressions.CONTROLLER_ROLE_ANONYMOUS)));
@@ -237,13 +252,15 @@ public class AmqpMessageHandlerService {
 
     /**
      * Method to create a new target or to find the target if it already exists.
+     * The registration is queued at the {@link AmqpTargetRegistrationBatcher}
+     * if enabled.
      *
-     * @param targetID
-     *            the ID of the target/thing
-     * @param ip
-     *            the ip of the target/thing
+     * @param message
+     *            the THING_CREATED message
+     * @param tenant
+     *            the tenant of the target/thing
      */
-    private void registerTarget(final Message message) {
+    private void registerTarget(final Message message, final String tenant) {
         final String thingId = getStringHeaderKey(message, MessageHeaderKey.THING_ID, "ThingId is null");
         final String replyTo = message.getMessageProperties().getReplyTo();
 
@@ -251,6 +268,9 @@ public class AmqpMessageHandlerService {
             logAndThrowMessageError(message, "No ReplyTo was set for the createThing Event.");
         }
         final URI amqpUri = IpUtil.createAmqpUri(replyTo);
+        if (registrationBatcher != null && registrationBatcher.register(tenant, thingId, amqpUri, message)) {
+            return;
+        }
         final Target target = controllerManagement.findOrRegisterTargetIfItDoesNotexist(thingId, amqpUri);
         LOG.debug("Target {} reported online state.", thingId);
 
@@ -267,8 +287,8 @@ public class AmqpMessageHandlerService {
         final DistributionSet distributionSet = action.getDistributionSet();
         final List<SoftwareModule> softwareModuleList = controllerManagement
                 .findSoftwareModulesByDistributionSet(distributionSet);
-        eventBus.post(new TargetAssignDistributionSetEvent(target.getControllerId(), action.getId(), softwareModuleList,
-                target.getTargetInfo().getAddress()));
+        eventBus.post(new TargetAssignDistributionSetEvent(target.getTenant(), target.getControllerId(), action.getId(),
+                softwareModuleList, target.getTargetInfo().getAddress()));
 
     }
 
@@ -393,21 +413,17 @@ public class AmqpMessageHandlerService {
     }
 
     /**
-     * Is needed to verify if an incoming message has the content type json.
+     * Is needed to verify if an incoming message has a supported content type,
+     * i.e. json or one of the binary {@link MessageContentType}s.
      *
      * @param message
      *            the to verify
-     * @param contentType
-     *            the content type
-     * @return true if the content type has json, false it not.
      */
-
-    private static void checkContentTypeJson(final Message message) {
-        final MessageProperties messageProperties = message.getMessageProperties();
-        if (messageProperties.getContentType() != null && messageProperties.getContentType().contains("json")) {
+    private static void checkContentType(final Message message) {
+        if (MessageContentType.fromMimeType(message.getMessageProperties().getContentType()) != null) {
             return;
         }
-        throw new IllegalArgumentException("Content-Type is not JSON compatible");
+        throw new IllegalArgumentException("Content-Type is not supported");
     }
 
     void setControllerManagement(final ControllerManagement controllerManagement) {
@@ -442,4 +458,12 @@ public class AmqpMessageHandlerService {
         this.eventBus = eventBus;
     }
 
+    void setRegistrationBatcher(final AmqpTargetRegistrationBatcher registrationBatcher) {
+        this.registrationBatcher = registrationBatcher;
+    }
+
+    void setArtifactMetadataCache(final ArtifactMetadataCache artifactMetadataCache) {
+        this.artifactMetadataCache = artifactMetadataCache;
+    }
+
 }
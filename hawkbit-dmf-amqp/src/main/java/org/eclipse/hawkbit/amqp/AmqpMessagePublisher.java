@@ -0,0 +1,485 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+
+/**
+ * Publisher of the outgoing DMF messages with publisher confirms. The messages
+ * are distributed over a fixed number of lanes by their exchange, i.e. by the
+ * virtual host of the targets. Every lane owns one channel in confirm mode and
+ * one thread which publishes the queued messages in batches, so a batch is
+ * confirmed by the broker with a single acknowledgement instead of a round
+ * trip per message.
+ *
+ * The messages of an exchange are published in the order they have been
+ * queued. A lane waits for the confirms of a batch before it publishes the
+ * next one. If a message of a batch is nacked or the channel fails, the
+ * message and all later messages of the batch are published again before any
+ * other message, up to {@code maxRetries} times. A message might therefore be
+ * received twice, but never before a message which has been queued earlier.
+ * If the queue of a lane is full the caller is blocked up to
+ * {@code offerTimeout} milliseconds and the send fails afterwards, the
+ * message is never sent past the queue.
+ *
+ * The confirm mode channels are created on a connection of their own, so the
+ * channels of the shared connection factory used by the listeners and the
+ * {@code RabbitTemplate} are not switched to confirm mode.
+ *
+ * The publisher is disabled by default and can be enabled with the property
+ * {@code hawkbit.dmf.publisher.enabled}. If disabled the
+ * {@link AmqpMessageDispatcherService} sends the message directly.
+ *
+ */
+@Service
+public class AmqpMessagePublisher implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AmqpMessagePublisher.class);
+
+    private static final String METRIC_PREFIX = "hawkbit.dmf.publisher.";
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    @Autowired(required = false)
+    private RabbitProperties rabbitProperties;
+
+    @Autowired(required = false)
+    private CounterService counterService;
+
+    @Autowired(required = false)
+    private GaugeService gaugeService;
+
+    private ConnectionFactory connectionFactory;
+
+    private CachingConnectionFactory dedicatedConnectionFactory;
+
+    private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+
+    private ExecutorService executor;
+
+    private volatile boolean running;
+
+    private boolean enabled;
+
+    private int laneCount = 4;
+
+    private int batchSize = 100;
+
+    private int capacity = 10000;
+
+    private int maxRetries = 3;
+
+    private long offerTimeout = 1000;
+
+    private long confirmTimeout = 5000;
+
+    /**
+     * Starts the lanes if the publisher is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (connectionFactory == null) {
+            dedicatedConnectionFactory = createConnectionFactory();
+            connectionFactory = dedicatedConnectionFactory;
+        }
+        executor = Executors.newFixedThreadPool(laneCount,
+                new ThreadFactoryBuilder().setNameFormat("dmf-publisher-%d").setDaemon(true).build());
+        running = true;
+        for (int i = 0; i < laneCount; i++) {
+            final Lane lane = new Lane(i);
+            lanes.add(lane);
+            executor.execute(lane);
+        }
+        LOG.info("Started DMF publisher with {} lanes", laneCount);
+    }
+
+    /**
+     * Publishes the queued messages, waits for their confirms and closes the
+     * channels.
+     */
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(confirmTimeout, TimeUnit.MILLISECONDS)) {
+                LOG.warn("DMF publisher has not been stopped within {} ms", confirmTimeout);
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        executor = null;
+        lanes.clear();
+        if (dedicatedConnectionFactory != null) {
+            dedicatedConnectionFactory.destroy();
+            dedicatedConnectionFactory = null;
+            connectionFactory = null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the messages are published by this publisher
+     */
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Queues the given message for publishing. Blocks up to
+     * {@code offerTimeout} milliseconds if the lane of the exchange is full.
+     *
+     * @param exchange
+     *            the exchange
+     * @param message
+     *            the message
+     * @return {@code true} if the message has been queued, {@code false} if
+     *         the publisher is not running
+     * @throws AmqpException
+     *             if the lane of the exchange is still full after the
+     *             {@code offerTimeout}
+     */
+    public boolean publish(final String exchange, final Message message) {
+        if (!isEnabled()) {
+            return false;
+        }
+        final Lane lane = lanes.get(Math.floorMod(exchange.hashCode(), lanes.size()));
+        try {
+            if (lane.queue.offer(new PendingMessage(exchange, message), offerTimeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while queueing DMF message for exchange " + exchange, e);
+        }
+        increment("rejected");
+        throw new AmqpException("DMF publisher lane for exchange " + exchange + " is full");
+    }
+
+    /**
+     * @return the number of published messages which have not been confirmed
+     *         yet
+     */
+    int getInFlight() {
+        return lanes.stream().mapToInt(lane -> lane.outstanding.size()).sum();
+    }
+
+    private CachingConnectionFactory createConnectionFactory() {
+        if (rabbitProperties == null) {
+            throw new IllegalStateException("The DMF publisher requires the RabbitMQ connection properties");
+        }
+        final CachingConnectionFactory factory = new CachingConnectionFactory();
+        factory.setAddresses(rabbitProperties.getAddresses());
+        if (rabbitProperties.getHost() != null) {
+            factory.setHost(rabbitProperties.getHost());
+            factory.setPort(rabbitProperties.getPort());
+        }
+        if (rabbitProperties.getUsername() != null) {
+            factory.setUsername(rabbitProperties.getUsername());
+        }
+        if (rabbitProperties.getPassword() != null) {
+            factory.setPassword(rabbitProperties.getPassword());
+        }
+        if (rabbitProperties.getVirtualHost() != null) {
+            factory.setVirtualHost(rabbitProperties.getVirtualHost());
+        }
+        factory.setChannelCacheSize(laneCount);
+        return factory;
+    }
+
+    private void increment(final String metric) {
+        if (counterService != null) {
+            counterService.increment(METRIC_PREFIX + metric);
+        }
+    }
+
+    private void increment(final String metric, final int count) {
+        for (int i = 0; i < count; i++) {
+            increment(metric);
+        }
+    }
+
+    private void submitGauges() {
+        if (gaugeService != null) {
+            gaugeService.submit(METRIC_PREFIX + "inflight", getInFlight());
+            gaugeService.submit(METRIC_PREFIX + "queued", lanes.stream().mapToInt(lane -> lane.queue.size()).sum());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment, "hawkbit.dmf.publisher.");
+        enabled = env.getProperty("enabled", Boolean.class, false);
+        laneCount = env.getProperty("lanes", Integer.class, 4);
+        batchSize = env.getProperty("batchSize", Integer.class, 100);
+        capacity = env.getProperty("capacity", Integer.class, 10000);
+        maxRetries = env.getProperty("maxRetries", Integer.class, 3);
+        offerTimeout = env.getProperty("offerTimeout", Long.class, 1000L);
+        confirmTimeout = env.getProperty("confirmTimeout", Long.class, 5000L);
+    }
+
+    /**
+     * @param connectionFactory
+     *            the connection factory to create the confirm mode channels
+     *            with, a dedicated one is created from the
+     *            {@link RabbitProperties} if not set
+     */
+    public void setConnectionFactory(final ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setCounterService(final CounterService counterService) {
+        this.counterService = counterService;
+    }
+
+    public void setGaugeService(final GaugeService gaugeService) {
+        this.gaugeService = gaugeService;
+    }
+
+    /**
+     * A message waiting to be published or confirmed.
+     */
+    private static final class PendingMessage {
+        private final String exchange;
+        private final Message message;
+        private int attempts;
+
+        private PendingMessage(final String exchange, final Message message) {
+            this.exchange = exchange;
+            this.message = message;
+        }
+    }
+
+    /**
+     * One channel in confirm mode and the thread which publishes the messages
+     * of its queue on the channel.
+     */
+    private final class Lane implements Runnable, ConfirmListener {
+        private final int index;
+        private final BlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>(capacity);
+
+        /**
+         * Index within the current batch by publish sequence number of the
+         * messages which have not been confirmed yet.
+         */
+        private final NavigableMap<Long, Integer> outstanding = new ConcurrentSkipListMap<>();
+
+        /**
+         * Index within the current batch of the nacked messages.
+         */
+        private final NavigableSet<Integer> nacked = new ConcurrentSkipListSet<>();
+
+        private Channel channel;
+
+        private Lane(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            final List<PendingMessage> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    final PendingMessage first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    publishInOrder(batch);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    batch.clear();
+                }
+            }
+            closeChannel();
+        }
+
+        /**
+         * Publishes the batch and publishes the unconfirmed tail of the batch
+         * again until all messages have been confirmed or dropped after
+         * {@code maxRetries}.
+         */
+        private void publishInOrder(final List<PendingMessage> batch) throws InterruptedException {
+            List<PendingMessage> pending = batch;
+            while (!pending.isEmpty()) {
+                final int confirmed = publishBatch(pending);
+                if (confirmed == pending.size()) {
+                    return;
+                }
+
+                final List<PendingMessage> retries = new ArrayList<>(pending.size() - confirmed);
+                for (final PendingMessage message : pending.subList(confirmed, pending.size())) {
+                    if (++message.attempts > maxRetries) {
+                        LOG.error("Failed to publish DMF message to exchange {} after {} attempts",
+                                message.exchange, message.attempts);
+                        increment("failed");
+                    } else {
+                        retries.add(message);
+                    }
+                }
+                increment("retried", retries.size());
+                pending = retries;
+                if (!pending.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(POLL_TIMEOUT_MILLIS);
+                }
+            }
+        }
+
+        /**
+         * @return the number of leading messages of the batch which have been
+         *         confirmed by the broker
+         */
+        private int publishBatch(final List<PendingMessage> batch) throws InterruptedException {
+            outstanding.clear();
+            nacked.clear();
+            int published = 0;
+            try {
+                final Channel confirmChannel = getChannel();
+                for (final PendingMessage pending : batch) {
+                    outstanding.put(confirmChannel.getNextPublishSeqNo(), published);
+                    confirmChannel.basicPublish(pending.exchange, "", false,
+                            messagePropertiesConverter.fromMessageProperties(pending.message.getMessageProperties(),
+                                    ENCODING),
+                            pending.message.getBody());
+                    published++;
+                }
+                submitGauges();
+                confirmChannel.waitForConfirms(confirmTimeout);
+            } catch (final IOException | RuntimeException | TimeoutException e) {
+                LOG.warn("DMF publisher lane {} failed, recreating channel", index, e);
+                closeChannel();
+            }
+            increment("published", published);
+
+            // the messages of a failed channel will never be confirmed
+            int confirmed = published;
+            for (final Integer unconfirmed : outstanding.values()) {
+                confirmed = Math.min(confirmed, unconfirmed);
+            }
+            if (!nacked.isEmpty()) {
+                confirmed = Math.min(confirmed, nacked.first());
+            }
+            outstanding.clear();
+            nacked.clear();
+            submitGauges();
+            return confirmed;
+        }
+
+        private Channel getChannel() throws IOException {
+            if (channel != null && !channel.isOpen()) {
+                channel = null;
+            }
+            if (channel == null) {
+                channel = connectionFactory.createConnection().createChannel(false);
+                channel.confirmSelect();
+                channel.addConfirmListener(this);
+            }
+            return channel;
+        }
+
+        private void closeChannel() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                if (channel.isOpen()) {
+                    channel.close();
+                }
+            } catch (final IOException | RuntimeException | TimeoutException e) {
+                LOG.debug("Failed to close channel of DMF publisher lane {}", index, e);
+            }
+            channel = null;
+        }
+
+        @Override
+        public void handleAck(final long deliveryTag, final boolean multiple) {
+            increment("confirmed", confirmed(deliveryTag, multiple).size());
+        }
+
+        @Override
+        public void handleNack(final long deliveryTag, final boolean multiple) {
+            final List<Integer> nackedIndexes = confirmed(deliveryTag, multiple);
+            LOG.warn("{} DMF messages have been nacked by the broker", nackedIndexes.size());
+            increment("nacked", nackedIndexes.size());
+            nacked.addAll(nackedIndexes);
+        }
+
+        private List<Integer> confirmed(final long deliveryTag, final boolean multiple) {
+            final List<Integer> confirmed = new ArrayList<>();
+            if (multiple) {
+                final NavigableMap<Long, Integer> head = outstanding.headMap(deliveryTag, true);
+                confirmed.addAll(head.values());
+                head.clear();
+            } else {
+                final Integer batchIndex = outstanding.remove(deliveryTag);
+                if (batchIndex != null) {
+                    confirmed.add(batchIndex);
+                }
+            }
+            return confirmed;
+        }
+    }
+}
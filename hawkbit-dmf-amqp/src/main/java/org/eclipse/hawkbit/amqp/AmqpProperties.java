@@ -8,6 +8,10 @@
  */
 package org.eclipse.hawkbit.amqp;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -24,6 +28,10 @@ public class AmqpProperties {
     private String deadLetterQueue = "dmf_connector_deadletter";
     private String deadLetterExchange = "dmf.connector.deadletter";
     private String receiverQueue = "dmf_receiver";
+    private int consumerLanes;
+    private int consumerLaneCapacity = 100;
+    private String contentType = MessageProperties.CONTENT_TYPE_JSON;
+    private final Map<String, String> tenantContentTypes = new HashMap<>();
 
     /**
      * Returns the dead letter exchange.
@@ -70,4 +78,73 @@ public class AmqpProperties {
     public void setReceiverQueue(final String receiverQueue) {
         this.receiverQueue = receiverQueue;
     }
+
+    /**
+     * Returns the number of lanes the consumed messages are processed in. A
+     * value of {@code 0} processes the messages on the consumer thread.
+     * 
+     * @return the number of consumer lanes
+     */
+    public int getConsumerLanes() {
+        return consumerLanes;
+    }
+
+    /**
+     * Sets the number of lanes the consumed messages are processed in.
+     * 
+     * @param consumerLanes
+     *            the number of consumer lanes, {@code 0} to disable the lanes
+     */
+    public void setConsumerLanes(final int consumerLanes) {
+        this.consumerLanes = consumerLanes;
+    }
+
+    /**
+     * Returns the number of messages a consumer lane can hold.
+     * 
+     * @return the capacity of a consumer lane
+     */
+    public int getConsumerLaneCapacity() {
+        return consumerLaneCapacity;
+    }
+
+    /**
+     * Sets the number of messages a consumer lane can hold.
+     * 
+     * @param consumerLaneCapacity
+     *            the capacity of a consumer lane
+     */
+    public void setConsumerLaneCapacity(final int consumerLaneCapacity) {
+        this.consumerLaneCapacity = consumerLaneCapacity;
+    }
+
+    /**
+     * Returns the content type of the messages which are sent to the things.
+     * 
+     * @return the default content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Sets the content type of the messages which are sent to the things.
+     * 
+     * @param contentType
+     *            the default content type, see
+     *            {@link org.eclipse.hawkbit.dmf.amqp.api.MessageContentType}
+     */
+    public void setContentType(final String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Returns the content types of the messages which are sent to the things
+     * of specific tenants.
+     * 
+     * @return the content types by tenant
+     */
+    public Map<String, String> getTenantContentTypes() {
+        return tenantContentTypes;
+    }
 }
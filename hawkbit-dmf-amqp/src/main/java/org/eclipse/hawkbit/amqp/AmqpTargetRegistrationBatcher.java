@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.repository.ControllerManagement;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Batching stage for the {@code THING_CREATED} messages which e.g. arrive in
+ * masses after a restart of a gateway or the broker. The registrations are
+ * collected per tenant for up to {@code maxDelay} milliseconds or
+ * {@code maxSize} things. A batch resolves the existing targets with one
+ * query, registers the missing ones in one transaction, refreshes the
+ * addresses of the existing ones in one transaction and looks up the active
+ * actions of all targets of the batch with one query before the pending
+ * updates are sent to the things.
+ *
+ * If the messages are received by a {@link LanedMessageListener} their
+ * acknowledgement is deferred until the batch has been committed. If the batch
+ * fails its registrations are retried one by one and the messages of a failed
+ * registration are rejected, i.e. dead lettered. Messages which have already
+ * been acknowledged by the container are republished to the dead letter
+ * exchange instead. The pending registrations are registered on shutdown.
+ * The batching is disabled by default and can be enabled with the property
+ * {@code hawkbit.dmf.registration.batch.enabled}.
+ *
+ */
+@Service
+public class AmqpTargetRegistrationBatcher implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AmqpTargetRegistrationBatcher.class);
+
+    @Autowired
+    private ControllerManagement controllerManagement;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private AmqpProperties amqpProperties;
+
+    /**
+     * The pending registrations by thing ID per tenant.
+     */
+    private final Map<String, Map<String, Registration>> pending = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Guarded by {@link #pending}.
+     */
+    private boolean running;
+
+    private boolean enabled;
+
+    private int maxSize = 500;
+
+    private long maxDelay = 100;
+
+    private int threads = 2;
+
+    /**
+     * Starts the scheduler of the batches if the batching is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads,
+                new ThreadFactoryBuilder().setNameFormat("dmf-registration-%d").setDaemon(true).build());
+        // the pending batches are registered by stop()
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduler = executor;
+        synchronized (pending) {
+            running = true;
+        }
+    }
+
+    /**
+     * Stops queueing registrations, registers the pending things and waits
+     * for the running batches.
+     */
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        final Map<String, Map<String, Registration>> remaining;
+        synchronized (pending) {
+            running = false;
+            remaining = new HashMap<>(pending);
+            pending.clear();
+        }
+        remaining.forEach(this::registerBatch);
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("Registration batches did not finish on shutdown");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Queues the registration of the given thing.
+     *
+     * @param tenant
+     *            of the thing
+     * @param thingId
+     *            the ID of the thing
+     * @param address
+     *            the AMQP address of the thing
+     * @param message
+     *            the registration message which is acknowledged or rejected
+     *            when the batch has been processed
+     * @return {@code true} if the registration has been queued, {@code false}
+     *         if the batching is disabled or stopped
+     */
+    public boolean register(final String tenant, final String thingId, final URI address, final Message message) {
+        synchronized (pending) {
+            if (!running) {
+                return false;
+            }
+            final Map<String, Registration> tenantBatch = pending.computeIfAbsent(tenant,
+                    key -> new LinkedHashMap<>());
+            tenantBatch.computeIfAbsent(thingId, key -> new Registration()).add(address, message);
+            if (tenantBatch.size() == 1) {
+                scheduler.schedule(() -> flush(tenant), maxDelay, TimeUnit.MILLISECONDS);
+            }
+            if (tenantBatch.size() >= maxSize) {
+                final Map<String, Registration> batch = pending.remove(tenant);
+                scheduler.execute(() -> registerBatch(tenant, batch));
+            }
+            return true;
+        }
+    }
+
+    private void flush(final String tenant) {
+        final Map<String, Registration> batch;
+        synchronized (pending) {
+            batch = pending.remove(tenant);
+        }
+        if (batch != null) {
+            registerBatch(tenant, batch);
+        }
+    }
+
+    private void registerBatch(final String tenant, final Map<String, Registration> batch) {
+        final SecurityContext oldContext = SecurityContextHolder.getContext();
+        try {
+            AmqpMessageHandlerService.setTenantSecurityContext(tenant);
+            try {
+                register(batch);
+                batch.values().forEach(Registration::ack);
+                return;
+            } catch (final RuntimeException e) {
+                LOG.warn("Failed to register {} targets of tenant {}, retrying them one by one", batch.size(),
+                        tenant, e);
+            }
+            batch.forEach((thingId, registration) -> {
+                try {
+                    register(Collections.singletonMap(thingId, registration));
+                    registration.ack();
+                } catch (final RuntimeException e) {
+                    LOG.error("Failed to register target {} of tenant {}", thingId, tenant, e);
+                    registration.reject();
+                }
+            });
+        } finally {
+            SecurityContextHolder.setContext(oldContext);
+        }
+    }
+
+    private void register(final Map<String, Registration> batch) {
+        final Map<String, URI> addresses = batch.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                entry -> entry.getValue().address, (first, second) -> first, LinkedHashMap::new));
+        final List<Target> targets = controllerManagement.findOrRegisterTargetsIfTheyDoNotExist(addresses);
+        LOG.debug("{} targets reported online state.", targets.size());
+        lookIfUpdatesAvailable(targets);
+    }
+
+    private void lookIfUpdatesAvailable(final List<Target> targets) {
+        // actions are ordered by ID ASC, so the first one is the oldest
+        final Map<Long, Action> oldestActions = new HashMap<>();
+        controllerManagement.findActionsByTargetsAndActive(targets)
+                .forEach(action -> oldestActions.putIfAbsent(action.getTarget().getId(), action));
+        if (oldestActions.isEmpty()) {
+            return;
+        }
+
+        final Map<Long, List<SoftwareModule>> modulesByDistributionSet = new HashMap<>();
+        for (final Target target : targets) {
+            final Action action = oldestActions.get(target.getId());
+            if (action == null) {
+                continue;
+            }
+            final DistributionSet distributionSet = action.getDistributionSet();
+            final List<SoftwareModule> modules = modulesByDistributionSet.computeIfAbsent(distributionSet.getId(),
+                    id -> new ArrayList<>(controllerManagement.findSoftwareModulesByDistributionSet(distributionSet)));
+            eventBus.post(new TargetAssignDistributionSetEvent(target.getTenant(), target.getControllerId(),
+                    action.getId(), modules, target.getTargetInfo().getAddress()));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.dmf.registration.batch.");
+        enabled = env.getProperty("enabled", Boolean.class, false);
+        maxSize = env.getProperty("maxSize", Integer.class, 500);
+        maxDelay = env.getProperty("maxDelay", Long.class, 100L);
+        threads = env.getProperty("threads", Integer.class, 2);
+    }
+
+    void setControllerManagement(final ControllerManagement controllerManagement) {
+        this.controllerManagement = controllerManagement;
+    }
+
+    void setEventBus(final EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    void setRabbitTemplate(final RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    void setAmqpProperties(final AmqpProperties amqpProperties) {
+        this.amqpProperties = amqpProperties;
+    }
+
+    /**
+     * The pending registration of a thing, i.e. its latest address and the
+     * messages which requested the registration.
+     */
+    private final class Registration {
+        private URI address;
+        private final List<DeferredAcknowledgement> acknowledgements = new ArrayList<>(1);
+        private final List<Message> acknowledgedMessages = new ArrayList<>(1);
+
+        private void add(final URI address, final Message message) {
+            this.address = address;
+            final DeferredAcknowledgement acknowledgement = DeferredAcknowledgement.defer();
+            if (acknowledgement != null) {
+                acknowledgements.add(acknowledgement);
+            } else {
+                acknowledgedMessages.add(message);
+            }
+        }
+
+        private void ack() {
+            acknowledgements.forEach(DeferredAcknowledgement::ack);
+        }
+
+        private void reject() {
+            acknowledgements.forEach(DeferredAcknowledgement::reject);
+            for (final Message message : acknowledgedMessages) {
+                try {
+                    rabbitTemplate.send(amqpProperties.getDeadLetterExchange(), "", message);
+                } catch (final AmqpException e) {
+                    LOG.error("Failed to dead letter registration message {}",
+                            message.getMessageProperties().getMessageId(), e);
+                }
+            }
+        }
+    }
+}
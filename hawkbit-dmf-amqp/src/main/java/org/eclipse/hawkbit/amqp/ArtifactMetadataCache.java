@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.eventbus.event.SoftwareContentChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Cache of the metadata of the artifacts by tenant and SHA1 hash for the
+ * download authentication requests of the DMF, so an authentication request
+ * neither looks up the artifact in the database nor reads the binary from the
+ * artifact repository to get the size and the hashes.
+ *
+ * The metadata of an artifact is immutable, only the module it belongs to
+ * might change, so the entries of a module are invalidated with every
+ * {@link SoftwareContentChangedEvent} of the module on any node.
+ *
+ * The cache is disabled by default and can be enabled with the property
+ * {@code hawkbit.dmf.artifactcache.enabled}.
+ *
+ */
+@EventSubscriber
+public class ArtifactMetadataCache implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactMetadataCache.class);
+
+    /**
+     * Sequence number of the last invalidation, used to reject metadata which
+     * has been read before an invalidation but is put into the cache after
+     * it.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private Cache<MetadataKey, ArtifactMetadata> metadata;
+
+    private boolean enabled;
+
+    /**
+     * Returns the metadata of the artifact with the given hash, either from
+     * the cache or from the given loader.
+     *
+     * @param tenant
+     *            of the artifact
+     * @param sha1
+     *            the SHA1 hash of the artifact
+     * @param loader
+     *            to load the metadata on a cache miss
+     * @return the metadata
+     */
+    ArtifactMetadata get(final String tenant, final String sha1, final Supplier<ArtifactMetadata> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        final MetadataKey key = new MetadataKey(tenant, sha1);
+        final ArtifactMetadata cached = metadata.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long loadingSequence = invalidations.get();
+        final ArtifactMetadata loaded = loader.get();
+        if (invalidations.get() == loadingSequence) {
+            metadata.put(key, loaded);
+        } else {
+            LOG.debug("metadata of artifact {} has been invalidated while loading, not caching it", key);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the metadata of the artifacts of the changed software module.
+     *
+     * @param event
+     *            the software content changed event
+     */
+    @Subscribe
+    public void softwareContentChanged(final SoftwareContentChangedEvent event) {
+        if (!enabled || event.getDistributionSetId() != null) {
+            // distribution set changes do not change the artifacts
+            return;
+        }
+        invalidations.incrementAndGet();
+        final String tenant = event.getTenant().toUpperCase();
+        metadata.asMap().entrySet().removeIf(entry -> entry.getKey().tenant.equals(tenant)
+                && (event.isTenantWide() || event.getSoftwareModuleId().equals(entry.getValue().softwareModuleId)));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment, "hawkbit.dmf.artifactcache.");
+        configure(env.getProperty("enabled", Boolean.class, false), env.getProperty("maxSize", Long.class, 10000L));
+    }
+
+    /**
+     * @param enabled
+     *            {@code true} to cache the metadata
+     * @param maxSize
+     *            the maximum number of cached artifacts
+     */
+    void configure(final boolean enabled, final long maxSize) {
+        this.enabled = enabled;
+        metadata = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * The metadata of an artifact which is needed to authorize and answer a
+     * download request.
+     */
+    static final class ArtifactMetadata {
+        private final String sha1Hash;
+        private final String md5Hash;
+        private final Long size;
+        private final Long softwareModuleId;
+
+        ArtifactMetadata(final String sha1Hash, final String md5Hash, final Long size, final Long softwareModuleId) {
+            this.sha1Hash = sha1Hash;
+            this.md5Hash = md5Hash;
+            this.size = size;
+            this.softwareModuleId = softwareModuleId;
+        }
+
+        String getSha1Hash() {
+            return sha1Hash;
+        }
+
+        String getMd5Hash() {
+            return md5Hash;
+        }
+
+        Long getSize() {
+            return size;
+        }
+
+        Long getSoftwareModuleId() {
+            return softwareModuleId;
+        }
+    }
+
+    private static final class MetadataKey {
+        private final String tenant;
+        private final String sha1;
+
+        private MetadataKey(final String tenant, final String sha1) {
+            this.tenant = tenant.toUpperCase();
+            this.sha1 = sha1;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenant.hashCode() + sha1.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MetadataKey)) {
+                return false;
+            }
+            final MetadataKey other = (MetadataKey) obj;
+            return tenant.equals(other.tenant) && sha1.equals(other.sha1);
+        }
+
+        @Override
+        public String toString() {
+            return "MetadataKey [tenant=" + tenant + ", sha1=" + sha1 + "]";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * Manual acknowledgement of a message which is processed by a
+ * {@link LanedMessageListener}. The processing of a message can take over the
+ * acknowledgement with {@link #defer()}, e.g. to acknowledge the message after
+ * it has been processed asynchronously, instead of the listener acknowledging
+ * it as soon as the processing returns.
+ *
+ */
+final class DeferredAcknowledgement {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredAcknowledgement.class);
+
+    private static final ThreadLocal<DeferredAcknowledgement> CURRENT = new ThreadLocal<>();
+
+    private final Channel channel;
+    private final long deliveryTag;
+    private volatile boolean deferred;
+
+    DeferredAcknowledgement(final Channel channel, final long deliveryTag) {
+        this.channel = channel;
+        this.deliveryTag = deliveryTag;
+    }
+
+    /**
+     * Takes over the acknowledgement of the message which is currently
+     * processed by this thread.
+     *
+     * @return the acknowledgement which has to be acknowledged or rejected by
+     *         the caller or {@code null} if the message is not acknowledged
+     *         manually, i.e. it has already been acknowledged by the container
+     *         when the processing returns
+     */
+    static DeferredAcknowledgement defer() {
+        final DeferredAcknowledgement current = CURRENT.get();
+        if (current != null) {
+            current.deferred = true;
+        }
+        return current;
+    }
+
+    /**
+     * Binds the acknowledgement to the current thread while its message is
+     * processed.
+     *
+     * @param acknowledgement
+     *            the acknowledgement or {@code null} to unbind it
+     */
+    static void bind(final DeferredAcknowledgement acknowledgement) {
+        if (acknowledgement == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(acknowledgement);
+        }
+    }
+
+    /**
+     * @return {@code true} if the acknowledgement has been taken over by the
+     *         processing
+     */
+    boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Acknowledges the message.
+     */
+    void ack() {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (final IOException | RuntimeException e) {
+            // the broker redelivers the message if the channel has been
+            // closed
+            LOG.error("Failed to acknowledge message {}", deliveryTag, e);
+        }
+    }
+
+    /**
+     * Rejects the message without requeueing it, i.e. the message is dead
+     * lettered.
+     */
+    void reject() {
+        try {
+            channel.basicReject(deliveryTag, false);
+        } catch (final IOException | RuntimeException e) {
+            // the broker redelivers the message if the channel has been
+            // closed
+            LOG.error("Failed to reject message {}", deliveryTag, e);
+        }
+    }
+}
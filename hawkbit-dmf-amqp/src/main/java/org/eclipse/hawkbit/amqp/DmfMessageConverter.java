@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.eclipse.hawkbit.dmf.amqp.api.MessageContentType;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Message converter for the DMF models which negotiates the encoding by the
+ * content type of the message properties, i.e. an incoming message is decoded
+ * according to its content type and an outgoing message is encoded in the
+ * content type which has been set in its properties, so a reply which is
+ * created with the properties of the request is encoded like the request.
+ *
+ * JSON and unknown content types are converted by a
+ * {@link Jackson2JsonMessageConverter}, the binary encodings of
+ * {@link MessageContentType} by the corresponding Jackson data format.
+ *
+ */
+public class DmfMessageConverter extends AbstractMessageConverter {
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+
+    private final Jackson2JavaTypeMapper javaTypeMapper = new DefaultJackson2JavaTypeMapper();
+
+    private final Map<MessageContentType, ObjectMapper> binaryMappers = new EnumMap<>(MessageContentType.class);
+
+    /**
+     * Constructor.
+     */
+    public DmfMessageConverter() {
+        for (final MessageContentType contentType : MessageContentType.values()) {
+            if (contentType != MessageContentType.JSON) {
+                binaryMappers.put(contentType, contentType.createObjectMapper());
+            }
+        }
+    }
+
+    @Override
+    protected Message createMessage(final Object object, final MessageProperties messageProperties) {
+        final MessageContentType contentType = MessageContentType.fromMimeType(messageProperties.getContentType());
+        final ObjectMapper mapper = binaryMappers.get(contentType);
+        if (mapper == null) {
+            return jsonConverter.toMessage(object, messageProperties);
+        }
+
+        final byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(object);
+        } catch (final IOException e) {
+            throw new MessageConversionException("Failed to convert object to " + contentType, e);
+        }
+        messageProperties.setContentType(contentType.getMimeType());
+        messageProperties.setContentLength(body.length);
+        javaTypeMapper.fromJavaType(mapper.constructType(object.getClass()), messageProperties);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(final Message message) {
+        final MessageProperties messageProperties = message.getMessageProperties();
+        final MessageContentType contentType = messageProperties == null ? null
+                : MessageContentType.fromMimeType(messageProperties.getContentType());
+        final ObjectMapper mapper = binaryMappers.get(contentType);
+        if (mapper == null) {
+            return jsonConverter.fromMessage(message);
+        }
+
+        try {
+            return mapper.readValue(message.getBody(), javaTypeMapper.toJavaType(messageProperties));
+        } catch (final IOException e) {
+            throw new MessageConversionException("Failed to convert " + contentType + " message content", e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageContentType;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.core.ChannelAwareMessageListener;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+
+/**
+ * Listener which hands the consumed messages over to a fixed number of worker
+ * lanes. The lane of a message is chosen by the tenant and thing ID of the
+ * message, so all messages of a thing are processed one after another in the
+ * order of the queue, while the messages of different things are processed
+ * concurrently. Action status updates carry no thing ID, their lane is chosen
+ * by the action ID of the body instead, so a {@code FINISHED} action status is
+ * never processed before the {@code RUNNING} status that has been sent before.
+ *
+ * The messages are acknowledged after they have been processed by the
+ * delegate and rejected if the delegate fails, so the container has to use
+ * manual acknowledgement. The delegate can take over the acknowledgement of a
+ * message with {@link DeferredAcknowledgement#defer()}. The lanes are bounded,
+ * i.e. the consumer blocks if the lane of a message is full.
+ *
+ */
+class LanedMessageListener implements ChannelAwareMessageListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LanedMessageListener.class);
+
+    private static final String METRIC_PREFIX = "hawkbit.dmf.consumer.lane.";
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final Object delegate;
+
+    private final GaugeService gaugeService;
+
+    private final List<Lane> lanes;
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private final Map<MessageContentType, ObjectMapper> mappers = new EnumMap<>(MessageContentType.class);
+
+    /**
+     * Constructor which starts the lanes.
+     *
+     * @param delegate
+     *            the {@link ChannelAwareMessageListener} or
+     *            {@link MessageListener} which processes the messages
+     * @param laneCount
+     *            the number of lanes
+     * @param laneCapacity
+     *            the number of messages a lane can hold
+     * @param gaugeService
+     *            to report the lane depths, might be {@code null}
+     */
+    LanedMessageListener(final Object delegate, final int laneCount, final int laneCapacity,
+            final GaugeService gaugeService) {
+        if (!(delegate instanceof ChannelAwareMessageListener) && !(delegate instanceof MessageListener)) {
+            throw new IllegalArgumentException("Unsupported message listener " + delegate);
+        }
+        this.delegate = delegate;
+        this.gaugeService = gaugeService;
+        for (final MessageContentType contentType : MessageContentType.values()) {
+            mappers.put(contentType, contentType.createObjectMapper());
+        }
+        lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            final Lane lane = new Lane(i, laneCapacity);
+            lanes.add(lane);
+            lane.start();
+        }
+    }
+
+    @Override
+    public void onMessage(final Message message, final Channel channel) throws Exception {
+        final Lane lane = lanes.get(Math.floorMod(laneKey(message), lanes.size()));
+        lane.queue.put(new Delivery(message, channel));
+        reportDepth(lane);
+    }
+
+    /**
+     * Stops the lanes after the messages which have already been handed over
+     * have been processed.
+     */
+    void shutdown() {
+        lanes.forEach(Lane::shutdown);
+    }
+
+    /**
+     * @return the number of messages waiting in the lanes
+     */
+    int getQueuedMessages() {
+        return lanes.stream().mapToInt(lane -> lane.queue.size()).sum();
+    }
+
+    private int laneKey(final Message message) {
+        final Map<String, Object> headers = message.getMessageProperties().getHeaders();
+        Object orderKey = headers.get(MessageHeaderKey.THING_ID);
+        if (orderKey == null && EventTopic.UPDATE_ACTION_STATUS.name().equals(headers.get(MessageHeaderKey.TOPIC))) {
+            orderKey = readActionId(message);
+        }
+        if (orderKey == null) {
+            // messages without thing, e.g. authentication requests, have no
+            // order
+            return roundRobin.getAndIncrement();
+        }
+        final Object tenant = headers.get(MessageHeaderKey.TENANT);
+        return 31 * (tenant == null ? 0 : tenant.toString().toUpperCase().hashCode()) + orderKey.toString().hashCode();
+    }
+
+    /**
+     * @return the action ID of an action status update or {@code null} if the
+     *         body cannot be read, the delegate rejects such a message anyway
+     */
+    private Long readActionId(final Message message) {
+        final MessageContentType contentType = MessageContentType
+                .fromMimeType(message.getMessageProperties().getContentType());
+        final ObjectMapper mapper = mappers.get(contentType == null ? MessageContentType.JSON : contentType);
+        try {
+            final JsonNode body = mapper.readTree(message.getBody());
+            final JsonNode actionId = body == null ? null : body.get("actionId");
+            return actionId == null || !actionId.canConvertToLong() ? null : actionId.asLong();
+        } catch (final IOException e) {
+            LOG.debug("Failed to read the action ID of message {}", message.getMessageProperties().getMessageId(),
+                    e);
+            return null;
+        }
+    }
+
+    private void process(final Delivery delivery) {
+        final long deliveryTag = delivery.message.getMessageProperties().getDeliveryTag();
+        final DeferredAcknowledgement acknowledgement = new DeferredAcknowledgement(delivery.channel, deliveryTag);
+        DeferredAcknowledgement.bind(acknowledgement);
+        try {
+            if (delegate instanceof ChannelAwareMessageListener) {
+                ((ChannelAwareMessageListener) delegate).onMessage(delivery.message, delivery.channel);
+            } else {
+                ((MessageListener) delegate).onMessage(delivery.message);
+            }
+            if (!acknowledgement.isDeferred()) {
+                acknowledgement.ack();
+            }
+        } catch (final Exception e) {
+            if (acknowledgement.isDeferred()) {
+                LOG.warn("Failed to process message {} after its acknowledgement has been deferred",
+                        delivery.message.getMessageProperties().getMessageId(), e);
+            } else {
+                LOG.warn("Failed to process message {}, rejecting it",
+                        delivery.message.getMessageProperties().getMessageId(), e);
+                acknowledgement.reject();
+            }
+        } finally {
+            DeferredAcknowledgement.bind(null);
+        }
+    }
+
+    private void reportDepth(final Lane lane) {
+        if (gaugeService != null) {
+            gaugeService.submit(METRIC_PREFIX + lane.index + ".depth", lane.queue.size());
+        }
+    }
+
+    private static final class Delivery {
+        private final Message message;
+        private final Channel channel;
+
+        private Delivery(final Message message, final Channel channel) {
+            this.message = message;
+            this.channel = channel;
+        }
+    }
+
+    private final class Lane extends Thread {
+        private final int index;
+        private final BlockingQueue<Delivery> queue;
+        private volatile boolean running = true;
+
+        private Lane(final int index, final int capacity) {
+            super("dmf-consumer-lane-" + index);
+            setDaemon(true);
+            this.index = index;
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    final Delivery delivery = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (delivery != null) {
+                        reportDepth(this);
+                        process(delivery);
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void shutdown() {
+            running = false;
+        }
+    }
+}
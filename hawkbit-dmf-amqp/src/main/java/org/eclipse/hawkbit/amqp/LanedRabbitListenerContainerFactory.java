@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+/**
+ * {@link SimpleRabbitListenerContainerFactory} which wraps the listeners of
+ * its containers into a {@link LanedMessageListener}. The containers use
+ * manual acknowledgement and a prefetch count of all lanes, so the consumer
+ * can fill every lane while the lanes acknowledge the messages after
+ * processing.
+ *
+ */
+public class LanedRabbitListenerContainerFactory extends SimpleRabbitListenerContainerFactory
+        implements DisposableBean {
+
+    private final int laneCount;
+
+    private final int laneCapacity;
+
+    private final GaugeService gaugeService;
+
+    private final List<LanedMessageListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param laneCount
+     *            the number of lanes per container
+     * @param laneCapacity
+     *            the number of messages a lane can hold
+     * @param gaugeService
+     *            to report the lane depths, might be {@code null}
+     */
+    public LanedRabbitListenerContainerFactory(final int laneCount, final int laneCapacity,
+            final GaugeService gaugeService) {
+        this.laneCount = laneCount;
+        this.laneCapacity = laneCapacity;
+        this.gaugeService = gaugeService;
+        setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        setPrefetchCount(laneCount * laneCapacity);
+    }
+
+    @Override
+    protected SimpleMessageListenerContainer createContainerInstance() {
+        return new SimpleMessageListenerContainer() {
+            @Override
+            public void setMessageListener(final Object messageListener) {
+                final LanedMessageListener lanedListener = new LanedMessageListener(messageListener, laneCount,
+                        laneCapacity, gaugeService);
+                listeners.add(lanedListener);
+                super.setMessageListener(lanedListener);
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        listeners.forEach(LanedMessageListener::shutdown);
+    }
+}
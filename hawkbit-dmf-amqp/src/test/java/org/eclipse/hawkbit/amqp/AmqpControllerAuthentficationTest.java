@@ -14,6 +14,8 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
@@ -23,6 +25,7 @@ import org.eclipse.hawkbit.dmf.json.model.TenantSecruityToken;
 import org.eclipse.hawkbit.repository.ArtifactManagement;
 import org.eclipse.hawkbit.repository.ControllerManagement;
 import org.eclipse.hawkbit.repository.SystemManagement;
+import org.eclipse.hawkbit.security.ControllerAuthenticationCache;
 import org.eclipse.hawkbit.security.SecurityContextTenantAware;
 import org.eclipse.hawkbit.security.SecurityProperties;
 import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
@@ -34,6 +37,7 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -118,6 +122,38 @@ public class AmqpControllerAuthentficationTest {
         assertThat(authentication).isNotNull();
     }
 
+    @Test
+    @Description("Tests that the security token and the authentication mode are read only once if the authentication cache is enabled")
+    public void testCachedAuthentication() {
+        final ControllerManagement controllerManagement = mock(ControllerManagement.class);
+        when(controllerManagement.getSecurityTokenByControllerId(anyString())).thenReturn(CONTROLLLER_ID);
+        when(systemManagement.getConfigurationValue(
+                eq(TenantConfigurationKey.AUTHENTICATION_MODE_TARGET_SECURITY_TOKEN_ENABLED), any()))
+                        .thenReturn(Boolean.TRUE);
+        final ControllerAuthenticationCache authenticationCache = new ControllerAuthenticationCache();
+        authenticationCache.setEnvironment(
+                new MockEnvironment().withProperty("hawkbit.server.controller.authcache.enabled", "true"));
+
+        final AmqpControllerAuthentfication cachedAuthenticationManager = new AmqpControllerAuthentfication();
+        final SecurityProperties secruityProperties = mock(SecurityProperties.class);
+        when(secruityProperties.getRpSslIssuerHashHeader()).thenReturn("X-Ssl-Issuer-Hash-%d");
+        cachedAuthenticationManager.setSecruityProperties(secruityProperties);
+        cachedAuthenticationManager.setSystemManagement(systemManagement);
+        cachedAuthenticationManager.setControllerManagement(controllerManagement);
+        cachedAuthenticationManager.setTenantAware(new SecurityContextTenantAware());
+        cachedAuthenticationManager.setAuthenticationCache(authenticationCache);
+        cachedAuthenticationManager.postConstruct();
+
+        final TenantSecruityToken securityToken = new TenantSecruityToken(TENANT, CONTROLLLER_ID, "12345");
+        securityToken.getHeaders().put(TenantSecruityToken.AUTHORIZATION_HEADER, "TargetToken " + CONTROLLLER_ID);
+        assertThat(cachedAuthenticationManager.doAuthenticate(securityToken)).isNotNull();
+        assertThat(cachedAuthenticationManager.doAuthenticate(securityToken)).isNotNull();
+
+        verify(controllerManagement, times(1)).getSecurityTokenByControllerId(CONTROLLLER_ID);
+        verify(systemManagement, times(1)).getConfigurationValue(
+                TenantConfigurationKey.AUTHENTICATION_MODE_TARGET_SECURITY_TOKEN_ENABLED, Boolean.class);
+    }
+
     @Test
     @Description("Tests authentication message without principal")
     public void testAuthenticationMessageBadCredantialsWithoutPricipal() {
@@ -20,6 +20,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.hawkbit.AbstractIntegrationTestWithMongoDB;
@@ -30,11 +31,14 @@ import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
 import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
 import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateRequest;
 import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent.TargetAssignment;
 import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
 import org.eclipse.hawkbit.repository.model.Artifact;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
 import org.eclipse.hawkbit.util.ArtifactUrlHandler;
 import org.eclipse.hawkbit.util.IpUtil;
 import org.junit.Test;
@@ -87,7 +91,8 @@ public class AmqpMessageDispatcherServiceTest extends AbstractIntegrationTestWit
     @Description("Verfies that download and install event with no software modul works")
     public void testSendDownloadRequesWithEmptySoftwareModules() {
         final TargetAssignDistributionSetEvent targetAssignDistributionSetEvent = new TargetAssignDistributionSetEvent(
-                CONTROLLER_ID, 1l, new ArrayList<SoftwareModule>(), IpUtil.createAmqpUri("mytest"));
+                tenantAware.getCurrentTenant(), CONTROLLER_ID, 1l, new ArrayList<SoftwareModule>(),
+                IpUtil.createAmqpUri("mytest"));
         amqpMessageDispatcherService.targetAssignDistributionSet(targetAssignDistributionSetEvent);
         final Message sendMessage = createArgumentCapture(targetAssignDistributionSetEvent.getTargetAdress().getHost());
         final DownloadAndUpdateRequest downloadAndUpdateRequest = assertDownloadAndInstallMessage(sendMessage);
@@ -100,7 +105,7 @@ public class AmqpMessageDispatcherServiceTest extends AbstractIntegrationTestWit
         final DistributionSet dsA = TestDataUtil.generateDistributionSet("", softwareManagement,
                 distributionSetManagement);
         final TargetAssignDistributionSetEvent targetAssignDistributionSetEvent = new TargetAssignDistributionSetEvent(
-                CONTROLLER_ID, 1l, dsA.getModules(), IpUtil.createAmqpUri("mytest"));
+                tenantAware.getCurrentTenant(), CONTROLLER_ID, 1l, dsA.getModules(), IpUtil.createAmqpUri("mytest"));
         amqpMessageDispatcherService.targetAssignDistributionSet(targetAssignDistributionSetEvent);
         final Message sendMessage = createArgumentCapture(targetAssignDistributionSetEvent.getTargetAdress().getHost());
         final DownloadAndUpdateRequest downloadAndUpdateRequest = assertDownloadAndInstallMessage(sendMessage);
@@ -134,7 +139,7 @@ public class AmqpMessageDispatcherServiceTest extends AbstractIntegrationTestWit
         Mockito.when(rabbitTemplate.convertSendAndReceive(any())).thenReturn(receivedList);
 
         final TargetAssignDistributionSetEvent targetAssignDistributionSetEvent = new TargetAssignDistributionSetEvent(
-                CONTROLLER_ID, 1l, dsA.getModules(), IpUtil.createAmqpUri("mytest"));
+                tenantAware.getCurrentTenant(), CONTROLLER_ID, 1l, dsA.getModules(), IpUtil.createAmqpUri("mytest"));
         amqpMessageDispatcherService.targetAssignDistributionSet(targetAssignDistributionSetEvent);
         final Message sendMessage = createArgumentCapture(targetAssignDistributionSetEvent.getTargetAdress().getHost());
         final DownloadAndUpdateRequest downloadAndUpdateRequest = assertDownloadAndInstallMessage(sendMessage);
@@ -148,11 +153,30 @@ public class AmqpMessageDispatcherServiceTest extends AbstractIntegrationTestWit
         }
     }
 
+    @Test
+    @Description("Verfies that a bulk assignment event sends a download and install message to every AMQP target only")
+    public void testSendDownloadRequestsOfBulkEvent() {
+        final DistributionSet dsA = TestDataUtil.generateDistributionSet("", softwareManagement,
+                distributionSetManagement);
+        amqpMessageDispatcherService.targetAssignDistributionSetBulk(new TargetAssignDistributionSetBulkEvent(
+                tenantAware.getCurrentTenant(),
+                Arrays.asList(
+                        new TargetAssignment(CONTROLLER_ID, 1L, IpUtil.createAmqpUri("mytest"),
+                                TargetUpdateStatus.PENDING),
+                        new TargetAssignment("2", 2L, IpUtil.createHttpUri("127.0.0.1"), TargetUpdateStatus.PENDING)),
+                dsA.getModules()));
+
+        final Message sendMessage = createArgumentCapture("mytest");
+        final DownloadAndUpdateRequest downloadAndUpdateRequest = assertDownloadAndInstallMessage(sendMessage);
+        assertEquals(3, downloadAndUpdateRequest.getSoftwareModules().size());
+        Mockito.verify(amqpMessageDispatcherService, Mockito.times(1)).sendMessage(anyString(), any(Message.class));
+    }
+
     @Test
     @Description("Verfies that send cancel event works")
     public void testSendCancelRequest() {
         final CancelTargetAssignmentEvent cancelTargetAssignmentDistributionSetEvent = new CancelTargetAssignmentEvent(
-                CONTROLLER_ID, 1l, IpUtil.createAmqpUri("mytest"));
+                tenantAware.getCurrentTenant(), CONTROLLER_ID, 1l, IpUtil.createAmqpUri("mytest"));
         amqpMessageDispatcherService
                 .targetCancelAssignmentToDistributionSet(cancelTargetAssignmentDistributionSetEvent);
         final Message sendMessage = createArgumentCapture(cancelTargetAssignmentDistributionSetEvent.getTargetAdress()
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("AMQP Dispatcher Test")
+@Stories("Publisher confirms")
+public class AmqpMessagePublisherTest {
+
+    private static final long VERIFY_TIMEOUT = 5000;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Channel channel;
+
+    @Mock
+    private CounterService counterService;
+
+    private final AtomicLong publishSeqNo = new AtomicLong();
+
+    /**
+     * Permits for the lane to return from waiting for the confirms of a
+     * batch, released by the test after it confirmed the batch.
+     */
+    private final Semaphore confirmsReceived = new Semaphore(0);
+
+    private AmqpMessagePublisher publisher;
+
+    @Before
+    public void setup() throws Exception {
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.getNextPublishSeqNo()).thenAnswer(invocation -> publishSeqNo.incrementAndGet());
+        when(channel.waitForConfirms(anyLong()))
+                .thenAnswer(invocation -> confirmsReceived.tryAcquire(VERIFY_TIMEOUT, TimeUnit.MILLISECONDS));
+
+        publisher = startPublisher(new MockEnvironment());
+    }
+
+    @After
+    public void tearDown() {
+        confirmsReceived.release(100);
+        publisher.stop();
+    }
+
+    @Test
+    @Description("Published messages are in flight until the broker confirms them, the next batch is published "
+            + "after the confirms.")
+    public void messagesAreInFlightUntilConfirmed() throws Exception {
+        assertThat(publisher.publish("vHost", message("first"))).isTrue();
+        verify(channel, timeout(VERIFY_TIMEOUT).times(1)).basicPublish(eq("vHost"), eq(""), eq(false),
+                any(BasicProperties.class), any(byte[].class));
+        verify(channel).confirmSelect();
+        assertThat(publisher.getInFlight()).isEqualTo(1);
+
+        // queued while the lane waits for the confirm of the first message
+        assertThat(publisher.publish("vHost", message("second"))).isTrue();
+        confirmListener().handleAck(1, false);
+        assertThat(publisher.getInFlight()).isEqualTo(0);
+        confirmsReceived.release();
+
+        final ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+        verify(channel, timeout(VERIFY_TIMEOUT).times(2)).basicPublish(eq("vHost"), eq(""), eq(false),
+                any(BasicProperties.class), bodies.capture());
+        assertThat(new String(bodies.getAllValues().get(0))).isEqualTo("first");
+        assertThat(new String(bodies.getAllValues().get(1))).isEqualTo("second");
+        assertThat(publisher.getInFlight()).isEqualTo(1);
+
+        confirmListener().handleAck(2, true);
+        confirmsReceived.release();
+        assertThat(publisher.getInFlight()).isEqualTo(0);
+        verify(counterService, times(2)).increment("hawkbit.dmf.publisher.confirmed");
+    }
+
+    @Test
+    @Description("Nacked messages are published again.")
+    public void nackedMessagesArePublishedAgain() throws Exception {
+        publisher.publish("vHost", message("nacked"));
+        verify(channel, timeout(VERIFY_TIMEOUT).times(1)).basicPublish(anyString(), anyString(), anyBoolean(),
+                any(BasicProperties.class), any(byte[].class));
+
+        confirmListener().handleNack(1, false);
+        confirmsReceived.release();
+
+        final ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+        verify(channel, timeout(VERIFY_TIMEOUT).times(2)).basicPublish(anyString(), anyString(), anyBoolean(),
+                any(BasicProperties.class), bodies.capture());
+        assertThat(new String(bodies.getAllValues().get(1))).isEqualTo("nacked");
+        verify(counterService).increment("hawkbit.dmf.publisher.retried");
+
+        confirmListener().handleAck(2, false);
+        confirmsReceived.release();
+        assertThat(publisher.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    @Description("A nacked message is published again before the messages which have been queued after it.")
+    public void nackedMessageKeepsOrder() throws Exception {
+        publisher.publish("vHost", message("first"));
+        verify(channel, timeout(VERIFY_TIMEOUT).times(1)).basicPublish(anyString(), anyString(), anyBoolean(),
+                any(BasicProperties.class), any(byte[].class));
+
+        // queued while the lane waits for the confirm of the first message
+        publisher.publish("vHost", message("second"));
+        confirmListener().handleNack(1, false);
+        confirmsReceived.release();
+
+        verify(channel, timeout(VERIFY_TIMEOUT).times(2)).basicPublish(anyString(), anyString(), anyBoolean(),
+                any(BasicProperties.class), any(byte[].class));
+        confirmListener().handleAck(2, false);
+        confirmsReceived.release();
+
+        final ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+        verify(channel, timeout(VERIFY_TIMEOUT).times(3)).basicPublish(anyString(), anyString(), anyBoolean(),
+                any(BasicProperties.class), bodies.capture());
+        assertThat(new String(bodies.getAllValues().get(0))).isEqualTo("first");
+        assertThat(new String(bodies.getAllValues().get(1))).isEqualTo("first");
+        assertThat(new String(bodies.getAllValues().get(2))).isEqualTo("second");
+    }
+
+    @Test
+    @Description("The send fails if the lane stays full instead of sending the message past the queue.")
+    public void fullLaneFailsTheSend() throws Exception {
+        publisher.stop();
+        publisher = startPublisher(new MockEnvironment().withProperty("hawkbit.dmf.publisher.capacity", "1")
+                .withProperty("hawkbit.dmf.publisher.offerTimeout", "100"));
+
+        publisher.publish("vHost", message("first"));
+        verify(channel, timeout(VERIFY_TIMEOUT).times(1)).basicPublish(anyString(), anyString(), anyBoolean(),
+                any(BasicProperties.class), any(byte[].class));
+        assertThat(publisher.publish("vHost", message("second"))).isTrue();
+
+        try {
+            publisher.publish("vHost", message("third"));
+            fail("AmqpException expected as the lane is full");
+        } catch (final AmqpException e) {
+            verify(counterService).increment("hawkbit.dmf.publisher.rejected");
+        }
+    }
+
+    @Test
+    @Description("Messages are not queued if the publisher is stopped.")
+    public void stoppedPublisherRejectsMessages() {
+        publisher.stop();
+        assertThat(publisher.isEnabled()).isFalse();
+        assertThat(publisher.publish("vHost", message("rejected"))).isFalse();
+    }
+
+    private AmqpMessagePublisher startPublisher(final MockEnvironment environment) {
+        final AmqpMessagePublisher messagePublisher = new AmqpMessagePublisher();
+        messagePublisher.setEnvironment(environment.withProperty("hawkbit.dmf.publisher.enabled", "true")
+                .withProperty("hawkbit.dmf.publisher.lanes", "1"));
+        messagePublisher.setConnectionFactory(connectionFactory);
+        messagePublisher.setCounterService(counterService);
+        messagePublisher.start();
+        return messagePublisher;
+    }
+
+    private ConfirmListener confirmListener() {
+        final ArgumentCaptor<ConfirmListener> listener = ArgumentCaptor.forClass(ConfirmListener.class);
+        verify(channel).addConfirmListener(listener.capture());
+        final List<ConfirmListener> listeners = listener.getAllValues();
+        return listeners.get(listeners.size() - 1);
+    }
+
+    private static Message message(final String body) {
+        return new Message(body.getBytes(), new MessageProperties());
+    }
+}
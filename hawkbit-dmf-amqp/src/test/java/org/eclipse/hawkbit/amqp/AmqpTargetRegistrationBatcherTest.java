@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.repository.ControllerManagement;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.google.common.eventbus.EventBus;
+import com.rabbitmq.client.Channel;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("AMQP Message Handler Test")
+@Stories("Batched target registration")
+public class AmqpTargetRegistrationBatcherTest {
+
+    private static final long VERIFY_TIMEOUT = 5000;
+
+    private static final URI ADDRESS = URI.create("amqp://vHost/queue");
+
+    private static final Message MESSAGE = new Message(new byte[0], new MessageProperties());
+
+    @Mock
+    private ControllerManagement controllerManagement;
+
+    @Mock
+    private EventBus eventBus;
+
+    @Mock
+    private Target target;
+
+    @Mock
+    private TargetInfo targetInfo;
+
+    @Mock
+    private Action action;
+
+    @Mock
+    private DistributionSet distributionSet;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private Channel channel;
+
+    private final AmqpTargetRegistrationBatcher batcher = new AmqpTargetRegistrationBatcher();
+
+    @After
+    public void tearDown() {
+        batcher.stop();
+    }
+
+    @Test
+    @Description("The registrations of a tenant are processed in one batch once the batch is full and the pending update is sent.")
+    @SuppressWarnings("unchecked")
+    public void fullBatchIsRegisteredAtOnce() {
+        start("3", "60000");
+        when(target.getId()).thenReturn(1L);
+        when(target.getControllerId()).thenReturn("thing1");
+        when(target.getTenant()).thenReturn("DEFAULT");
+        when(target.getTargetInfo()).thenReturn(targetInfo);
+        when(targetInfo.getAddress()).thenReturn(ADDRESS);
+        when(action.getId()).thenReturn(42L);
+        when(action.getTarget()).thenReturn(target);
+        when(action.getDistributionSet()).thenReturn(distributionSet);
+        when(distributionSet.getId()).thenReturn(7L);
+        when(controllerManagement.findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class)))
+                .thenReturn(Arrays.asList(target));
+        when(controllerManagement.findActionsByTargetsAndActive(Arrays.asList(target)))
+                .thenReturn(Arrays.asList(action));
+        when(controllerManagement.findSoftwareModulesByDistributionSet(distributionSet))
+                .thenReturn(Collections.<SoftwareModule> emptyList());
+
+        assertThat(batcher.register("DEFAULT", "thing1", ADDRESS, MESSAGE)).isTrue();
+        assertThat(batcher.register("DEFAULT", "thing2", ADDRESS, MESSAGE)).isTrue();
+        assertThat(batcher.register("DEFAULT", "thing3", ADDRESS, MESSAGE)).isTrue();
+
+        final ArgumentCaptor<Map> batch = ArgumentCaptor.forClass(Map.class);
+        verify(controllerManagement, timeout(VERIFY_TIMEOUT)).findOrRegisterTargetsIfTheyDoNotExist(batch.capture());
+        assertThat(batch.getValue().keySet()).containsExactly("thing1", "thing2", "thing3");
+
+        final ArgumentCaptor<TargetAssignDistributionSetEvent> event = ArgumentCaptor
+                .forClass(TargetAssignDistributionSetEvent.class);
+        verify(eventBus, timeout(VERIFY_TIMEOUT)).post(event.capture());
+        assertThat(event.getValue().getControllerId()).isEqualTo("thing1");
+        assertThat(event.getValue().getActionId()).isEqualTo(42L);
+    }
+
+    @Test
+    @Description("Registrations are processed after the maximum delay even if the batch is not full.")
+    @SuppressWarnings("unchecked")
+    public void pendingRegistrationsAreFlushedAfterDelay() {
+        start("100", "50");
+
+        batcher.register("DEFAULT", "thing1", ADDRESS, MESSAGE);
+        batcher.register("OTHER", "thing1", ADDRESS, MESSAGE);
+
+        verify(controllerManagement, timeout(VERIFY_TIMEOUT).times(2))
+                .findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class));
+        verify(eventBus, times(0)).post(any());
+    }
+
+    @Test
+    @Description("Registrations are not queued if the batching is disabled.")
+    public void disabledBatcherDoesNotQueue() {
+        batcher.setEnvironment(new MockEnvironment());
+        batcher.start();
+
+        assertThat(batcher.register("DEFAULT", "thing1", ADDRESS, MESSAGE)).isFalse();
+    }
+
+    @Test
+    @Description("Messages of a manual acknowledging listener are acknowledged after the batch has been committed.")
+    @SuppressWarnings("unchecked")
+    public void messagesAreAcknowledgedAfterCommit() throws IOException {
+        start("100", "60000");
+
+        registerDeferred("thing1", 1);
+        registerDeferred("thing2", 2);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        batcher.stop();
+
+        verify(controllerManagement).findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class));
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    @Description("If a batch fails its registrations are retried one by one and the message of a failed registration is rejected.")
+    @SuppressWarnings("unchecked")
+    public void failedRegistrationIsRejected() throws IOException {
+        start("2", "60000");
+        when(controllerManagement.findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class)))
+                .thenAnswer(invocation -> {
+                    if (((Map<String, URI>) invocation.getArguments()[0]).containsKey("thing2")) {
+                        throw new IllegalStateException("invalid thing");
+                    }
+                    return Collections.emptyList();
+                });
+
+        registerDeferred("thing1", 1);
+        registerDeferred("thing2", 2);
+
+        verify(channel, timeout(VERIFY_TIMEOUT)).basicReject(2, false);
+        verify(channel, timeout(VERIFY_TIMEOUT)).basicAck(1, false);
+        verify(channel, never()).basicAck(2, false);
+        verify(controllerManagement, times(3)).findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class));
+    }
+
+    @Test
+    @Description("A failed registration of an already acknowledged message is republished to the dead letter exchange.")
+    @SuppressWarnings("unchecked")
+    public void failedAcknowledgedRegistrationIsDeadLettered() {
+        start("1", "60000");
+        when(controllerManagement.findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class)))
+                .thenThrow(new IllegalStateException("invalid thing"));
+
+        batcher.register("DEFAULT", "thing1", ADDRESS, MESSAGE);
+
+        verify(rabbitTemplate, timeout(VERIFY_TIMEOUT)).send(eq("dmf.dead.letter"), eq(""), eq(MESSAGE));
+    }
+
+    @Test
+    @Description("The pending registrations are registered on shutdown and no registrations are queued afterwards.")
+    @SuppressWarnings("unchecked")
+    public void pendingRegistrationsAreDrainedOnStop() {
+        start("100", "60000");
+
+        batcher.register("DEFAULT", "thing1", ADDRESS, MESSAGE);
+        batcher.stop();
+
+        verify(controllerManagement).findOrRegisterTargetsIfTheyDoNotExist(anyMapOf(String.class, URI.class));
+        assertThat(batcher.register("DEFAULT", "thing2", ADDRESS, MESSAGE)).isFalse();
+    }
+
+    private void registerDeferred(final String thingId, final long deliveryTag) {
+        DeferredAcknowledgement.bind(new DeferredAcknowledgement(channel, deliveryTag));
+        try {
+            assertThat(batcher.register("DEFAULT", thingId, ADDRESS, MESSAGE)).isTrue();
+        } finally {
+            DeferredAcknowledgement.bind(null);
+        }
+    }
+
+    private void start(final String maxSize, final String maxDelay) {
+        batcher.setEnvironment(new MockEnvironment().withProperty("hawkbit.dmf.registration.batch.enabled", "true")
+                .withProperty("hawkbit.dmf.registration.batch.maxSize", maxSize)
+                .withProperty("hawkbit.dmf.registration.batch.maxDelay", maxDelay));
+        batcher.setControllerManagement(controllerManagement);
+        batcher.setEventBus(eventBus);
+        batcher.setRabbitTemplate(rabbitTemplate);
+        final AmqpProperties amqpProperties = new AmqpProperties();
+        amqpProperties.setDeadLetterExchange("dmf.dead.letter");
+        batcher.setAmqpProperties(amqpProperties);
+        batcher.start();
+    }
+}
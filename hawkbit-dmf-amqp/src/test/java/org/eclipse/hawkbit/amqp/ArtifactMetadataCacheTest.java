@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hawkbit.amqp.ArtifactMetadataCache.ArtifactMetadata;
+import org.eclipse.hawkbit.eventbus.event.SoftwareContentChangedEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("AMQP Message Handler Test")
+@Stories("Artifact metadata cache")
+public class ArtifactMetadataCacheTest {
+
+    private final ArtifactMetadataCache cache = new ArtifactMetadataCache();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        cache.configure(true, 100);
+    }
+
+    @Test
+    @Description("The metadata of an artifact is loaded once per tenant and invalidated when its module changes.")
+    public void metadataIsCachedUntilModuleChanges() {
+        final ArtifactMetadata metadata = cache.get("default", "sha1", this::load);
+        assertThat(metadata.getSize()).isEqualTo(1L);
+        assertThat(cache.get("DEFAULT", "sha1", this::load)).isSameAs(metadata);
+        assertThat(loads.get()).isEqualTo(1);
+
+        cache.get("OTHER", "sha1", this::load);
+        assertThat(loads.get()).isEqualTo(2);
+
+        // distribution sets and other modules do not invalidate the metadata
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", 1L, null));
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", null, 11L));
+        assertThat(cache.get("DEFAULT", "sha1", this::load)).isSameAs(metadata);
+
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", null, 10L));
+        assertThat(cache.get("DEFAULT", "sha1", this::load)).isNotSameAs(metadata);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @Description("Metadata which has been loaded before an invalidation is not cached.")
+    public void metadataLoadedBeforeInvalidationIsNotCached() {
+        cache.get("DEFAULT", "sha1", () -> {
+            cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", null, null));
+            return load();
+        });
+        cache.get("DEFAULT", "sha1", this::load);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private ArtifactMetadata load() {
+        loads.incrementAndGet();
+        return new ArtifactMetadata("sha1", "md5", 1L, 10L);
+    }
+}
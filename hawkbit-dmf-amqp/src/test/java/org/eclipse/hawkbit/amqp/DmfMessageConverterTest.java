@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.eclipse.hawkbit.dmf.amqp.api.MessageContentType;
+import org.eclipse.hawkbit.dmf.json.model.Artifact;
+import org.eclipse.hawkbit.dmf.json.model.ArtifactHash;
+import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateRequest;
+import org.eclipse.hawkbit.dmf.json.model.SoftwareModule;
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("AMQP Message Handler Test")
+@Stories("Message encodings")
+public class DmfMessageConverterTest {
+
+    private final DmfMessageConverter converter = new DmfMessageConverter();
+
+    @Test
+    @Description("A message is encoded in the content type of its properties and decoded according to it.")
+    public void messagesAreEncodedInTheirContentType() {
+        final int jsonSize = roundTrip(MessageContentType.JSON).getBody().length;
+
+        for (final MessageContentType contentType : Arrays.asList(MessageContentType.SMILE,
+                MessageContentType.CBOR)) {
+            final Message message = roundTrip(contentType);
+            assertThat(message.getMessageProperties().getContentType()).isEqualTo(contentType.getMimeType());
+            assertThat(message.getBody().length).isLessThan(jsonSize);
+        }
+    }
+
+    @Test
+    @Description("Every JSON content type is resolved to JSON, other content types are not supported.")
+    public void contentTypesAreResolvedByMimeType() {
+        assertThat(MessageContentType.fromMimeType("application/json; charset=UTF-8"))
+                .isEqualTo(MessageContentType.JSON);
+        assertThat(MessageContentType.fromMimeType("Application/CBOR")).isEqualTo(MessageContentType.CBOR);
+        assertThat(MessageContentType.fromMimeType("application/xml")).isNull();
+        assertThat(MessageContentType.fromMimeType(null)).isNull();
+    }
+
+    private Message roundTrip(final MessageContentType contentType) {
+        final MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(contentType.getMimeType());
+        final Message message = converter.toMessage(createDownloadAndUpdateRequest(), messageProperties);
+
+        final DownloadAndUpdateRequest decoded = (DownloadAndUpdateRequest) converter.fromMessage(message);
+        assertThat(decoded.getActionId()).isEqualTo(4711L);
+        assertThat(decoded.getSoftwareModules()).hasSize(3);
+        final Artifact artifact = decoded.getSoftwareModules().get(2).getArtifacts().get(0);
+        assertThat(artifact.getFilename()).isEqualTo("module2.bin");
+        assertThat(artifact.getHashes().getSha1()).isEqualTo("sha1-2");
+        assertThat(artifact.getUrls().get(Artifact.UrlProtocol.HTTPS))
+                .isEqualTo("https://localhost/DEFAULT/controller/v1/thing/softwaremodules/2/artifacts/module2.bin");
+        return message;
+    }
+
+    private static DownloadAndUpdateRequest createDownloadAndUpdateRequest() {
+        final DownloadAndUpdateRequest request = new DownloadAndUpdateRequest();
+        request.setActionId(4711L);
+        for (long moduleId = 0; moduleId < 3; moduleId++) {
+            final Artifact artifact = new Artifact();
+            artifact.setFilename("module" + moduleId + ".bin");
+            artifact.setSize(1024L * moduleId);
+            artifact.setHashes(new ArtifactHash("sha1-" + moduleId, "md5-" + moduleId));
+            for (final Artifact.UrlProtocol protocol : Artifact.UrlProtocol.values()) {
+                artifact.getUrls().put(protocol, protocol.name().toLowerCase()
+                        + "://localhost/DEFAULT/controller/v1/thing/softwaremodules/" + moduleId + "/artifacts/module"
+                        + moduleId + ".bin");
+            }
+
+            final SoftwareModule module = new SoftwareModule();
+            module.setModuleId(moduleId);
+            module.setModuleType("application");
+            module.setModuleVersion("1.0." + moduleId);
+            module.setArtifacts(Arrays.asList(artifact));
+            request.addSoftwareModule(module);
+        }
+        return request;
+    }
+}
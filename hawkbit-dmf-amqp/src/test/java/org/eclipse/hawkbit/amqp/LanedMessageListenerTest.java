@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
+import org.eclipse.hawkbit.dmf.json.model.ActionStatus;
+import org.eclipse.hawkbit.dmf.json.model.ActionUpdateStatus;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.ChannelAwareMessageListener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("AMQP Message Handler Test")
+@Stories("Consumer lanes")
+public class LanedMessageListenerTest {
+
+    private static final long VERIFY_TIMEOUT = 5000;
+
+    private final Channel channel = mock(Channel.class);
+
+    private final Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+
+    private LanedMessageListener listener;
+
+    @After
+    public void tearDown() {
+        listener.shutdown();
+    }
+
+    @Test
+    @Description("The messages of a thing are processed in order and acknowledged after processing.")
+    public void messagesOfAThingAreProcessedInOrder() throws Exception {
+        listener = new LanedMessageListener((ChannelAwareMessageListener) (message, consumerChannel) -> {
+            final MessageProperties properties = message.getMessageProperties();
+            // slow down the processing to provoke reordering
+            Thread.sleep(properties.getDeliveryTag() % 3);
+            processed.computeIfAbsent(properties.getHeaders().get(MessageHeaderKey.THING_ID).toString(),
+                    thing -> new CopyOnWriteArrayList<>()).add(properties.getDeliveryTag());
+        }, 4, 10, null);
+
+        for (long deliveryTag = 1; deliveryTag <= 60; deliveryTag++) {
+            listener.onMessage(message("thing" + deliveryTag % 6, deliveryTag), channel);
+        }
+
+        verify(channel, timeout(VERIFY_TIMEOUT).times(60)).basicAck(anyLong(), eq(false));
+        for (int thing = 0; thing < 6; thing++) {
+            final List<Long> deliveryTags = processed.get("thing" + thing);
+            assertThat(deliveryTags).hasSize(10);
+            for (int i = 1; i < deliveryTags.size(); i++) {
+                assertThat(deliveryTags.get(i)).isGreaterThan(deliveryTags.get(i - 1));
+            }
+        }
+        verify(channel, never()).basicReject(anyLong(), anyBoolean());
+    }
+
+    @Test
+    @Description("The action status updates, which carry no thing ID, of an action are processed in order.")
+    public void statusUpdatesOfAnActionAreProcessedInOrder() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        listener = new LanedMessageListener((ChannelAwareMessageListener) (message, consumerChannel) -> {
+            final MessageProperties properties = message.getMessageProperties();
+            // slow down the processing to provoke reordering
+            Thread.sleep(properties.getDeliveryTag() % 3);
+            final ActionUpdateStatus status = mapper.readValue(message.getBody(), ActionUpdateStatus.class);
+            processed.computeIfAbsent(status.getActionId().toString(), action -> new CopyOnWriteArrayList<>())
+                    .add(properties.getDeliveryTag());
+        }, 4, 10, null);
+
+        for (long deliveryTag = 1; deliveryTag <= 60; deliveryTag++) {
+            final ActionUpdateStatus status = new ActionUpdateStatus();
+            status.setActionId(deliveryTag % 6);
+            status.setActionStatus(deliveryTag > 54 ? ActionStatus.FINISHED : ActionStatus.RUNNING);
+            listener.onMessage(statusMessage(mapper.writeValueAsBytes(status), deliveryTag), channel);
+        }
+
+        verify(channel, timeout(VERIFY_TIMEOUT).times(60)).basicAck(anyLong(), eq(false));
+        for (int action = 0; action < 6; action++) {
+            final List<Long> deliveryTags = processed.get(String.valueOf(action));
+            assertThat(deliveryTags).hasSize(10);
+            for (int i = 1; i < deliveryTags.size(); i++) {
+                assertThat(deliveryTags.get(i)).isGreaterThan(deliveryTags.get(i - 1));
+            }
+        }
+    }
+
+    @Test
+    @Description("A message which fails is rejected instead of acknowledged.")
+    public void failedMessageIsRejected() throws Exception {
+        listener = new LanedMessageListener((ChannelAwareMessageListener) (message, consumerChannel) -> {
+            throw new IllegalArgumentException("invalid message");
+        }, 2, 10, null);
+
+        listener.onMessage(message("thing", 1), channel);
+
+        verify(channel, timeout(VERIFY_TIMEOUT)).basicReject(1, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    @Description("A message whose acknowledgement has been deferred is acknowledged by the processing only.")
+    public void deferredMessageIsAcknowledgedByTheProcessing() throws Exception {
+        final List<DeferredAcknowledgement> deferred = new CopyOnWriteArrayList<>();
+        final CountDownLatch processedMessages = new CountDownLatch(2);
+        listener = new LanedMessageListener((ChannelAwareMessageListener) (message, consumerChannel) -> {
+            deferred.add(DeferredAcknowledgement.defer());
+            processedMessages.countDown();
+        }, 2, 10, null);
+
+        listener.onMessage(message("thing", 1), channel);
+        listener.onMessage(message("thing", 2), channel);
+
+        assertThat(processedMessages.await(VERIFY_TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        deferred.get(0).ack();
+        verify(channel).basicAck(1, false);
+        verify(channel, never()).basicAck(2, false);
+        assertThat(DeferredAcknowledgement.defer()).isNull();
+    }
+
+    private static Message message(final String thingId, final long deliveryTag) {
+        final MessageProperties properties = new MessageProperties();
+        properties.setHeader(MessageHeaderKey.THING_ID, thingId);
+        properties.setHeader(MessageHeaderKey.TENANT, "DEFAULT");
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(new byte[0], properties);
+    }
+
+    /**
+     * @return an action status update with the headers of a DMF client, i.e.
+     *         without a thing ID
+     */
+    private static Message statusMessage(final byte[] body, final long deliveryTag) {
+        final MessageProperties properties = new MessageProperties();
+        properties.setHeader(MessageHeaderKey.TYPE, MessageType.EVENT.name());
+        properties.setHeader(MessageHeaderKey.TENANT, "DEFAULT");
+        properties.setHeader(MessageHeaderKey.TOPIC, EventTopic.UPDATE_ACTION_STATUS.name());
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(body, properties);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.dmf.amqp.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The content types the payload of the DMF messages can be encoded in. The
+ * JSON models of the DMF API are encoded in all content types the same way,
+ * the binary encodings only reduce the payload size and the serialization
+ * cost.
+ *
+ *
+ *
+ */
+public enum MessageContentType {
+
+    /**
+     * JSON, the default content type.
+     */
+    JSON("application/json"),
+
+    /**
+     * The binary JSON format Smile.
+     */
+    SMILE("application/x-jackson-smile"),
+
+    /**
+     * The Concise Binary Object Representation (RFC 7049).
+     */
+    CBOR("application/cbor");
+
+    private final String mimeType;
+
+    private MessageContentType(final String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * @return the MIME type which is set as content type of the messages
+     */
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Creates an {@link ObjectMapper} which reads and writes this content
+     * type.
+     *
+     * @return the new mapper
+     */
+    public ObjectMapper createObjectMapper() {
+        switch (this) {
+        case SMILE:
+            return new ObjectMapper(new SmileFactory());
+        case CBOR:
+            return new ObjectMapper(new CBORFactory());
+        default:
+            return new ObjectMapper();
+        }
+    }
+
+    /**
+     * Resolves the content type of the given MIME type. Parameters like the
+     * charset are ignored and every JSON MIME type is resolved to
+     * {@link #JSON}.
+     *
+     * @param mimeType
+     *            the content type of a message, might be {@code null}
+     * @return the content type or {@code null} if the MIME type is not
+     *         supported
+     */
+    public static MessageContentType fromMimeType(final String mimeType) {
+        if (mimeType == null) {
+            return null;
+        }
+        final String type = mimeType.split(";")[0].trim().toLowerCase();
+        for (final MessageContentType contentType : values()) {
+            if (contentType.mimeType.equals(type)) {
+                return contentType;
+            }
+        }
+        return type.contains("json") ? JSON : null;
+    }
+}
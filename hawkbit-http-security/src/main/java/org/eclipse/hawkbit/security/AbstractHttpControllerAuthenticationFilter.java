@@ -57,6 +57,7 @@ public abstract class AbstractHttpControllerAuthenticationFilter extends Abstrac
             + "}/controller/artifacts/v1/**";
     protected SystemManagement systemManagement;
     protected TenantAware tenantAware;
+    protected ControllerAuthenticationCache authenticationCache;
 
     private final AntPathMatcher pathExtractor;
 
@@ -110,6 +111,16 @@ public abstract class AbstractHttpControllerAuthenticationFilter extends Abstrac
 
     protected abstract PreAuthenficationFilter createControllerAuthenticationFilter();
 
+    /**
+     * @param authenticationCache
+     *            the cache of the authentication information of the
+     *            controllers, {@code null} to read them from the repository
+     *            for every request
+     */
+    public void setAuthenticationCache(final ControllerAuthenticationCache authenticationCache) {
+        this.authenticationCache = authenticationCache;
+    }
+
     /**
      * Extracts tenant and controllerId from the request URI as path variables.
      * 
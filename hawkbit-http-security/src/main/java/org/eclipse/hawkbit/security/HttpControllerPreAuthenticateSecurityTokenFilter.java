@@ -53,7 +53,8 @@ public class HttpControllerPreAuthenticateSecurityTokenFilter extends AbstractHt
 
     @Override
     protected PreAuthenficationFilter createControllerAuthenticationFilter() {
-        return new ControllerPreAuthenticateSecurityTokenFilter(systemManagement, controllerManagement, tenantAware);
+        return new ControllerPreAuthenticateSecurityTokenFilter(systemManagement, controllerManagement, tenantAware,
+                authenticationCache);
     }
 
 }
@@ -41,7 +41,8 @@ public class HttpControllerPreAuthenticatedGatewaySecurityTokenFilter
 
     @Override
     protected PreAuthenficationFilter createControllerAuthenticationFilter() {
-        return new ControllerPreAuthenticatedGatewaySecurityTokenFilter(systemManagement, tenantAware);
+        return new ControllerPreAuthenticatedGatewaySecurityTokenFilter(systemManagement, tenantAware,
+                authenticationCache);
     }
 
 }
@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.eventbus.event.DownloadProgressBatchEvent;
+import org.eclipse.hawkbit.eventbus.event.DownloadProgressEvent;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Aggregation stage for the download progress of running downloads. Instead
+ * of writing every progress step into the cache and posting a
+ * {@link DownloadProgressEvent} for it, only the latest progress per
+ * {@link ActionStatus} is kept in memory. Once per window the collected
+ * progress is written into the cache {@link CacheKeys#DOWNLOAD_PROGRESS_PERCENT}
+ * and published with one {@link DownloadProgressBatchEvent} per tenant.
+ *
+ * The aggregation is disabled by default and can be enabled with the property
+ * {@code hawkbit.server.download.progress.enabled}.
+ *
+ */
+@Service
+public class DownloadProgressAggregator implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadProgressAggregator.class);
+
+    private static final int DOWNLOAD_PROGRESS_MAX = 100;
+
+    private final Map<ProgressKey, Integer> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong revision = new AtomicLong();
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    private ScheduledExecutorService publishExecutor;
+
+    private boolean enabled;
+
+    private long window = 1000;
+
+    /**
+     * Starts the periodic publishing in case the aggregation is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        publishExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("download-progress-%d").setDaemon(true).build());
+        publishExecutor.scheduleWithFixedDelay(this::publishSafely, window, window, TimeUnit.MILLISECONDS);
+        LOG.info("Download progress aggregation enabled with a window of {} ms", window);
+    }
+
+    /**
+     * Stops the periodic publishing and publishes the remaining progress.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (publishExecutor == null) {
+            return;
+        }
+        publishExecutor.shutdown();
+        try {
+            publishExecutor.awaitTermination(window, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted while waiting for download progress publishing termination", e);
+            Thread.currentThread().interrupt();
+        }
+        publishSafely();
+    }
+
+    /**
+     * @return {@code true} if the download progress is aggregated,
+     *         {@code false} if every progress step has to be published
+     *         directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the download progress of an action status. A higher progress of
+     * the same action status replaces a lower one which has not been published
+     * yet.
+     *
+     * @param tenant
+     *            the tenant of the action status
+     * @param statusId
+     *            the ID of the {@link ActionStatus}
+     * @param progressPercent
+     *            the progress in percentage which must be between 0-100
+     */
+    public void record(final String tenant, final long statusId, final int progressPercent) {
+        pending.merge(new ProgressKey(tenant, statusId), progressPercent, Math::max);
+    }
+
+    /**
+     * Writes the collected progress into the cache and posts one
+     * {@link DownloadProgressBatchEvent} per tenant.
+     *
+     * @return the number of published progress entries
+     */
+    int publish() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        final Map<String, Map<Long, Integer>> byTenant = new HashMap<>();
+        for (final ProgressKey key : pending.keySet()) {
+            // progress recorded after the removal is published next time
+            final Integer progressPercent = pending.remove(key);
+            if (progressPercent != null) {
+                byTenant.computeIfAbsent(key.tenant, tenant -> new HashMap<>()).put(key.statusId, progressPercent);
+            }
+        }
+
+        final long eventRevision = revision.incrementAndGet();
+        int published = 0;
+        for (final Map.Entry<String, Map<Long, Integer>> tenantProgress : byTenant.entrySet()) {
+            final String tenant = tenantProgress.getKey();
+            final Map<Long, Integer> progressPercents = tenantProgress.getValue();
+            tenantAware.runAsTenant(tenant, () -> {
+                writeCache(progressPercents);
+                return null;
+            });
+            eventBus.post(new DownloadProgressBatchEvent(tenant, eventRevision, progressPercents));
+            published += progressPercents.size();
+        }
+        LOG.debug("Published download progress of {} action status", published);
+        return published;
+    }
+
+    private void writeCache(final Map<Long, Integer> progressPercents) {
+        final Cache cache = cacheManager.getCache(Action.class.getName());
+        progressPercents.forEach((statusId, progressPercent) -> {
+            final String cacheKey = CacheKeys.entitySpecificCacheKey(String.valueOf(statusId),
+                    CacheKeys.DOWNLOAD_PROGRESS_PERCENT);
+            if (progressPercent < DOWNLOAD_PROGRESS_MAX) {
+                cache.put(cacheKey, progressPercent);
+            } else {
+                // finished downloads must not stay in the cache forever
+                cache.evict(cacheKey);
+            }
+        });
+    }
+
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to publish download progress", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.download.progress.");
+        enabled = env.getProperty("enabled", Boolean.class, false);
+        window = env.getProperty("window", Long.class, 1000L);
+    }
+
+    /**
+     * @param cacheManager
+     *            the cacheManager to set
+     */
+    void setCacheManager(final CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * @param eventBus
+     *            the eventBus to set
+     */
+    void setEventBus(final EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * @param tenantAware
+     *            the tenantAware to set
+     */
+    void setTenantAware(final TenantAware tenantAware) {
+        this.tenantAware = tenantAware;
+    }
+
+    /**
+     * @param enabled
+     *            {@code true} to aggregate the download progress
+     */
+    void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Key of the progress of an action status.
+     */
+    private static final class ProgressKey {
+        private final String tenant;
+        private final long statusId;
+
+        private ProgressKey(final String tenant, final long statusId) {
+            this.tenant = tenant;
+            this.statusId = statusId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenant.hashCode() + Long.hashCode(statusId);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ProgressKey)) {
+                return false;
+            }
+            final ProgressKey other = (ProgressKey) obj;
+            return tenant.equals(other.tenant) && statusId == other.statusId;
+        }
+    }
+}
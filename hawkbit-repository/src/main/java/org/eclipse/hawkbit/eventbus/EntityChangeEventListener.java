@@ -15,12 +15,16 @@ import javax.persistence.EntityManager;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.eclipse.hawkbit.eventbus.event.SoftwareContentChangedEvent;
 import org.eclipse.hawkbit.eventbus.event.TargetCreatedEvent;
 import org.eclipse.hawkbit.eventbus.event.TargetDeletedEvent;
 import org.eclipse.hawkbit.eventbus.event.TargetInfoUpdateEvent;
 import org.eclipse.hawkbit.executor.AfterTransactionCommitExecutor;
 import org.eclipse.hawkbit.repository.TargetRepository;
 import org.eclipse.hawkbit.repository.model.BaseEntity;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.LocalArtifact;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
 import org.eclipse.hawkbit.tenancy.TenantAware;
@@ -128,6 +132,51 @@ public class EntityChangeEventListener {
         return result;
     }
 
+    /**
+     * Proxy method around the save and delete methods of the repositories of
+     * the software content which is delivered to the controllers to notify
+     * the {@link SoftwareContentChangedEvent}.
+     * 
+     * @param joinpoint
+     *            the aspect join point
+     * @return the object of the {@link ProceedingJoinPoint#proceed()}
+     * @throws Throwable
+     *             in case exception happens in the
+     *             {@link ProceedingJoinPoint#proceed()}
+     */
+    @Around("execution(* org.eclipse.hawkbit.repository.DistributionSetRepository.save(..)) "
+            + "|| execution(* org.eclipse.hawkbit.repository.DistributionSetRepository.delete*(..)) "
+            + "|| execution(* org.eclipse.hawkbit.repository.SoftwareModuleRepository.save(..)) "
+            + "|| execution(* org.eclipse.hawkbit.repository.SoftwareModuleRepository.delete*(..)) "
+            + "|| execution(* org.eclipse.hawkbit.repository.LocalArtifactRepository.save(..)) "
+            + "|| execution(* org.eclipse.hawkbit.repository.LocalArtifactRepository.delete*(..))")
+    public Object softwareContentChanged(final ProceedingJoinPoint joinpoint) throws Throwable {
+        final String currentTenant = tenantAware.getCurrentTenant();
+        final Object result = joinpoint.proceed();
+        if (currentTenant != null) {
+            final Object param = joinpoint.getArgs().length > 0 ? joinpoint.getArgs()[0] : null;
+            if (param instanceof DistributionSet) {
+                notifySoftwareContentChanged(currentTenant, ((DistributionSet) param).getId(), null);
+            } else if (param instanceof SoftwareModule) {
+                notifySoftwareContentChanged(currentTenant, null, ((SoftwareModule) param).getId());
+            } else if (param instanceof LocalArtifact && ((LocalArtifact) param).getSoftwareModule() != null) {
+                notifySoftwareContentChanged(currentTenant, null,
+                        ((LocalArtifact) param).getSoftwareModule().getId());
+            } else {
+                // deleted by ID or in bulk, the change cannot be narrowed
+                // down
+                notifySoftwareContentChanged(currentTenant, null, null);
+            }
+        }
+        return result;
+    }
+
+    private void notifySoftwareContentChanged(final String tenant, final Long distributionSetId,
+            final Long softwareModuleId) {
+        afterCommit.afterCommit(
+                () -> eventBus.post(new SoftwareContentChangedEvent(tenant, distributionSetId, softwareModuleId)));
+    }
+
     private void notifyTargetCreated(final Target t) {
         afterCommit.afterCommit(() -> eventBus.post(new TargetCreatedEvent(t)));
 
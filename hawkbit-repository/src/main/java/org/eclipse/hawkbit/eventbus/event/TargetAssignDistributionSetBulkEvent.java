@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.eventbus.event;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+
+/**
+ * Event that gets sent when a distribution set gets assigned to a bunch of
+ * targets at once. Replaces a {@link TargetAssignDistributionSetEvent} and a
+ * {@link TargetInfoUpdateEvent} per target so a mass assignment results in a
+ * few events only, the software modules are shared by all assignments.
+ *
+ */
+public class TargetAssignDistributionSetBulkEvent implements Event {
+
+    private final String tenant;
+    private final List<TargetAssignment> assignments;
+    private final Collection<SoftwareModule> softwareModules;
+
+    /**
+     * Creates a new {@link TargetAssignDistributionSetBulkEvent}.
+     *
+     * @param tenant
+     *            the tenant of the targets
+     * @param assignments
+     *            the assigned targets and their actions
+     * @param softwareModules
+     *            the software modules which have been assigned to all targets
+     */
+    public TargetAssignDistributionSetBulkEvent(final String tenant, final List<TargetAssignment> assignments,
+            final Collection<SoftwareModule> softwareModules) {
+        this.tenant = tenant;
+        this.assignments = assignments;
+        this.softwareModules = softwareModules;
+    }
+
+    @Override
+    public long getRevision() {
+        return -1;
+    }
+
+    @Override
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * @return the assigned targets and their actions
+     */
+    public List<TargetAssignment> getAssignments() {
+        return assignments;
+    }
+
+    /**
+     * @return the software modules which have been assigned to all targets
+     */
+    public Collection<SoftwareModule> getSoftwareModules() {
+        return softwareModules;
+    }
+
+    /**
+     * A single target of a {@link TargetAssignDistributionSetBulkEvent} and the
+     * action of the assignment. Holds the values which are needed by the
+     * subscribers only instead of the target entities, so the pending events
+     * of a mass assignment do not keep the persistence context alive.
+     */
+    public static final class TargetAssignment {
+        private final String controllerId;
+        private final Long actionId;
+        private final URI targetAdress;
+        private final TargetUpdateStatus updateStatus;
+
+        /**
+         * @param controllerId
+         *            the controllerId of the assigned target
+         * @param actionId
+         *            the action id of the assignment
+         * @param targetAdress
+         *            the address of the assigned target
+         * @param updateStatus
+         *            the update status of the target after the assignment
+         */
+        public TargetAssignment(final String controllerId, final Long actionId, final URI targetAdress,
+                final TargetUpdateStatus updateStatus) {
+            this.controllerId = controllerId;
+            this.actionId = actionId;
+            this.targetAdress = targetAdress;
+            this.updateStatus = updateStatus;
+        }
+
+        /**
+         * @return the controllerId of the assigned target
+         */
+        public String getControllerId() {
+            return controllerId;
+        }
+
+        /**
+         * @return the action id of the assignment
+         */
+        public Long getActionId() {
+            return actionId;
+        }
+
+        /**
+         * @return the address of the assigned target
+         */
+        public URI getTargetAdress() {
+            return targetAdress;
+        }
+
+        /**
+         * @return the update status of the target after the assignment
+         */
+        public TargetUpdateStatus getUpdateStatus() {
+            return updateStatus;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.eclipse.hawkbit.repository.model.SoftwareModule;
 public class TargetAssignDistributionSetEvent {
 
     private final Collection<SoftwareModule> softwareModules;
+    private final String tenant;
     private final String controllerId;
     private final Long actionId;
     private final URI targetAdress;
@@ -29,6 +30,8 @@ public class TargetAssignDistributionSetEvent {
     /**
      * Creates a new {@link TargetAssignDistributionSetEvent}.
      *
+     * @param tenant
+     *            the tenant of the target
      * @param controllerId
      *            the ID of the controller
      * @param actionId
@@ -38,14 +41,22 @@ public class TargetAssignDistributionSetEvent {
      * @param targetAdress
      *            the targetAdress of the target
      */
-    public TargetAssignDistributionSetEvent(final String controllerId, final Long actionId,
+    public TargetAssignDistributionSetEvent(final String tenant, final String controllerId, final Long actionId,
             final Collection<SoftwareModule> softwareModules, final URI targetAdress) {
+        this.tenant = tenant;
         this.controllerId = controllerId;
         this.actionId = actionId;
         this.softwareModules = softwareModules;
         this.targetAdress = targetAdress;
     }
 
+    /**
+     * @return the tenant of the target
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
     /**
      * @return the action id of the assignment
      */
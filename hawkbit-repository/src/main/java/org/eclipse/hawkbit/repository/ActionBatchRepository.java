@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.hawkbit.Constants;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Set based persistence of {@link Action}s and {@link ActionStatus}es for
+ * mass operations of the {@link DeploymentManagement}. Instead of persisting
+ * every entity with its own insert and identity fetch the rows are written
+ * with JDBC batch inserts and the generated IDs of the actions are read back
+ * with one query per partition of targets.
+ *
+ * The rows are written in the transaction of the caller, bypassing the
+ * persistence context. Entity listeners and auditing are not applied, the
+ * audit columns are set explicitly.
+ *
+ */
+@Repository
+public class ActionBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_ACTION = "INSERT INTO sp_action (created_at, created_by, last_modified_at, "
+            + "last_modified_by, optlock_revision, tenant, action_type, active, forced_time, status, "
+            + "distribution_set, target) VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_LATEST_ACTIONS = "SELECT MAX(id) AS action_id, target FROM sp_action "
+            + "WHERE tenant = :tenant AND distribution_set = :ds AND target IN (:targets) GROUP BY target";
+
+    private static final String INSERT_ACTION_STATUS = "INSERT INTO sp_action_status (created_at, created_by, "
+            + "last_modified_at, last_modified_by, optlock_revision, tenant, target_occurred_at, status, action) "
+            + "VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?)";
+
+    private static final String INSERT_ACTION_STATUS_MESSAGES = "INSERT INTO sp_action_status_messages "
+            + "(action_status_id, detail_message) SELECT s.id, :message FROM sp_action_status s "
+            + "WHERE s.tenant = :tenant AND s.action IN (:actions) AND s.status = :status "
+            + "AND s.target_occurred_at = :occurredAt";
+
+    /**
+     * Targets which got the distribution set assigned by a set based update
+     * marked with the given assignment key, see
+     * {@link DeploymentManagement#assignDistributionSetByTargetQuery}.
+     */
+    private static final String ASSIGNED_TARGETS = "SELECT t.id FROM sp_target t WHERE t.tenant = :tenant "
+            + "AND t.assigned_distribution_set = :ds AND t.assignment_id = :assignment";
+
+    private static final String INSERT_ACTIONS_OF_ASSIGNED_TARGETS = "INSERT INTO sp_action (created_at, "
+            + "created_by, last_modified_at, last_modified_by, optlock_revision, tenant, action_type, active, "
+            + "forced_time, status, distribution_set, target) SELECT :assignedAt, :createdBy, :assignedAt, "
+            + ":createdBy, 1, t.tenant, :actionType, :active, :forcedTime, :status, "
+            + "t.assigned_distribution_set, t.id FROM sp_target t WHERE t.id IN (" + ASSIGNED_TARGETS + ") "
+            + "AND NOT EXISTS (SELECT a.id FROM sp_action a WHERE a.target = t.id AND a.distribution_set = :ds "
+            + "AND a.active = :active)";
+
+    private static final String INSERT_STATUS_OF_ASSIGNED_TARGETS = "INSERT INTO sp_action_status (created_at, "
+            + "created_by, last_modified_at, last_modified_by, optlock_revision, tenant, target_occurred_at, "
+            + "status, action) SELECT :assignedAt, :createdBy, :assignedAt, :createdBy, 1, a.tenant, :assignedAt, "
+            + ":status, a.id FROM sp_action a WHERE a.tenant = :tenant "
+            + "AND a.status = :status AND a.active = :active AND a.target IN (" + ASSIGNED_TARGETS + ") "
+            + "AND a.last_modified_at = :assignedAt";
+
+    private static final String INSERT_STATUS_MESSAGES_OF_ASSIGNED_TARGETS = "INSERT INTO "
+            + "sp_action_status_messages (action_status_id, detail_message) SELECT s.id, :message "
+            + "FROM sp_action_status s WHERE s.tenant = :tenant AND s.status = :status "
+            + "AND s.target_occurred_at = :assignedAt AND s.action IN (SELECT a.id FROM sp_action a "
+            + "WHERE a.tenant = :tenant AND a.target IN (" + ASSIGNED_TARGETS + "))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts a new active {@link Action} in status {@link Status#RUNNING} for
+     * every given target.
+     *
+     * @param set
+     *            the distribution set of the actions
+     * @param targets
+     *            the targets to create the actions for
+     * @param actionTypes
+     *            the action type and forced time of a target
+     * @param createdBy
+     *            the current auditor, might be {@code null}
+     * @param createdAt
+     *            the creation time of the actions
+     * @return the IDs of the created actions by the IDs of their targets
+     */
+    Map<Long, Long> insertActions(final DistributionSet set, final List<Target> targets,
+            final Function<Target, TargetWithActionType> actionTypes, final String createdBy, final long createdAt) {
+        final String tenant = set.getTenant();
+
+        jdbcTemplate.batchUpdate(INSERT_ACTION, targets, BATCH_SIZE, (ps, target) -> {
+            final TargetWithActionType actionType = actionTypes.apply(target);
+            ps.setLong(1, createdAt);
+            setNullableString(ps, 2, createdBy);
+            ps.setLong(3, createdAt);
+            setNullableString(ps, 4, createdBy);
+            ps.setString(5, tenant);
+            ps.setString(6, actionType.getActionType().name());
+            ps.setBoolean(7, true);
+            ps.setLong(8, actionType.getForceTime());
+            ps.setInt(9, Status.RUNNING.ordinal());
+            ps.setLong(10, set.getId());
+            ps.setLong(11, target.getId());
+        });
+
+        final NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        final Map<Long, Long> actionIdsByTarget = new HashMap<>(targets.size() * 2);
+        for (final List<Target> partition : Lists.partition(targets, Constants.MAX_ENTRIES_IN_STATEMENT)) {
+            final MapSqlParameterSource params = new MapSqlParameterSource().addValue("tenant", tenant)
+                    .addValue("ds", set.getId())
+                    .addValue("targets", Lists.transform(partition, Target::getId));
+            namedJdbcTemplate.query(SELECT_LATEST_ACTIONS, params, rs -> {
+                actionIdsByTarget.put(rs.getLong("target"), rs.getLong("action_id"));
+            });
+        }
+        return actionIdsByTarget;
+    }
+
+    /**
+     * Inserts an {@link ActionStatus} for every given action.
+     *
+     * @param tenant
+     *            the tenant of the actions
+     * @param actionIds
+     *            the IDs of the actions
+     * @param status
+     *            of the action status
+     * @param occurredAt
+     *            the time of the status
+     * @param createdBy
+     *            the current auditor, might be {@code null}
+     * @param message
+     *            the message of the status, might be {@code null}
+     */
+    void insertActionStatus(final String tenant, final Collection<Long> actionIds, final Status status,
+            final long occurredAt, final String createdBy, final String message) {
+        if (actionIds.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ACTION_STATUS, actionIds, BATCH_SIZE, (ps, actionId) -> {
+            ps.setLong(1, occurredAt);
+            setNullableString(ps, 2, createdBy);
+            ps.setLong(3, occurredAt);
+            setNullableString(ps, 4, createdBy);
+            ps.setString(5, tenant);
+            ps.setLong(6, occurredAt);
+            ps.setInt(7, status.ordinal());
+            ps.setLong(8, actionId);
+        });
+
+        if (message != null) {
+            final NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+            for (final List<Long> partition : Iterables.partition(actionIds, Constants.MAX_ENTRIES_IN_STATEMENT)) {
+                namedJdbcTemplate.update(INSERT_ACTION_STATUS_MESSAGES,
+                        new MapSqlParameterSource().addValue("message", message).addValue("tenant", tenant)
+                                .addValue("actions", partition).addValue("status", status.ordinal())
+                                .addValue("occurredAt", occurredAt));
+            }
+        }
+    }
+
+    /**
+     * Inserts an {@link ActionStatus} for the active actions in the given
+     * status of all targets which got the distribution set assigned by the
+     * given assignment. The actions are expected to be modified at the time
+     * of the assignment.
+     *
+     * @param set
+     *            the assigned distribution set
+     * @param assignment
+     *            the key the assigned targets are marked with
+     * @param assignedAt
+     *            the time of the assignment
+     * @param status
+     *            of the actions and the created action status
+     * @param createdBy
+     *            the current auditor, might be {@code null}
+     * @param message
+     *            the message of the status, might be {@code null}
+     * @return the number of created action status
+     */
+    int insertActionStatusOfAssignedTargets(final DistributionSet set, final String assignment,
+            final long assignedAt, final Status status, final String createdBy, final String message) {
+        final MapSqlParameterSource params = assignedTargetsParams(set, assignment, assignedAt)
+                .addValue("createdBy", createdBy, Types.VARCHAR).addValue("status", status.ordinal())
+                .addValue("active", true);
+        final NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        final int inserted = namedJdbcTemplate.update(INSERT_STATUS_OF_ASSIGNED_TARGETS, params);
+        if (message != null && inserted > 0) {
+            namedJdbcTemplate.update(INSERT_STATUS_MESSAGES_OF_ASSIGNED_TARGETS, params.addValue("message", message));
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts a new active {@link Action} in status {@link Status#RUNNING}
+     * together with its initial {@link ActionStatus} for all targets which got
+     * the distribution set assigned by the given assignment and have no active
+     * action for it yet. The actions are created and modified at the time of
+     * the assignment.
+     *
+     * @param set
+     *            the assigned distribution set
+     * @param assignment
+     *            the key the assigned targets are marked with
+     * @param assignedAt
+     *            the time of the assignment
+     * @param actionType
+     *            the action type and forced time of the actions
+     * @param createdBy
+     *            the current auditor, might be {@code null}
+     * @return the number of created actions
+     */
+    int insertActionsOfAssignedTargets(final DistributionSet set, final String assignment, final long assignedAt,
+            final TargetWithActionType actionType, final String createdBy) {
+        final MapSqlParameterSource params = assignedTargetsParams(set, assignment, assignedAt)
+                .addValue("createdBy", createdBy, Types.VARCHAR)
+                .addValue("actionType", actionType.getActionType().name())
+                .addValue("forcedTime", actionType.getForceTime()).addValue("status", Status.RUNNING.ordinal())
+                .addValue("active", true);
+        final NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        final int inserted = namedJdbcTemplate.update(INSERT_ACTIONS_OF_ASSIGNED_TARGETS, params);
+        if (inserted > 0) {
+            namedJdbcTemplate.update(INSERT_STATUS_OF_ASSIGNED_TARGETS, params);
+        }
+        return inserted;
+    }
+
+    private static MapSqlParameterSource assignedTargetsParams(final DistributionSet set, final String assignment,
+            final long assignedAt) {
+        return new MapSqlParameterSource().addValue("tenant", set.getTenant()).addValue("ds", set.getId())
+                .addValue("assignment", assignment).addValue("assignedAt", assignedAt);
+    }
+
+    private static void setNullableString(final PreparedStatement ps, final int index, final String value)
+            throws SQLException {
+        if (value != null) {
+            ps.setString(index, value);
+        } else {
+            ps.setNull(index, Types.VARCHAR);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Asynchronous ingestion of action feedback of controllers. The feedback is
+ * validated and acknowledged by the caller and then queued instead of being
+ * persisted on the request thread. The queue is partitioned by target, every
+ * partition is processed by a single worker which persists the feedback in
+ * micro-batches with one transaction per tenant, so the order of the feedback
+ * of an action is preserved.
+ *
+ * Only the identifier of the action and the reported status are queued. The
+ * action is read again within the transaction of the worker, so the feedback
+ * is applied to the current state of the action and not to the detached copy
+ * of the request thread.
+ *
+ * The partitions are bounded. If a partition is full the feedback is rejected
+ * and the caller has to ask the controller to retry later.
+ *
+ * The asynchronous ingestion is disabled by default and can be enabled with
+ * the property {@code hawkbit.server.controller.feedback.async}.
+ *
+ */
+@Service
+public class ActionFeedbackQueue implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActionFeedbackQueue.class);
+
+    private static final String METRIC_ACCEPTED = "hawkbit.controller.feedback.accepted";
+    private static final String METRIC_REJECTED = "hawkbit.controller.feedback.rejected";
+    private static final String METRIC_PERSISTED = "hawkbit.controller.feedback.persisted";
+    private static final String METRIC_FAILED = "hawkbit.controller.feedback.failed";
+    private static final String METRIC_QUEUE_SIZE = "hawkbit.controller.feedback.queue.size";
+    private static final String METRIC_BATCH_LATENCY = "hawkbit.controller.feedback.batch.latency";
+
+    private static final long POLL_TIMEOUT = 500;
+
+    @Autowired
+    private ControllerManagement controllerManagement;
+
+    @Autowired
+    private ActionRepository actionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private GaugeService gaugeService;
+
+    private final List<BlockingQueue<Feedback>> partitions = new ArrayList<>();
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    private boolean enabled;
+
+    private int partitionCount = 4;
+
+    private int capacity = 1000;
+
+    private int batchSize = 50;
+
+    private int retryAfter = 5;
+
+    /**
+     * Starts the workers in case the asynchronous ingestion is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        workers = Executors.newFixedThreadPool(partitionCount,
+                new ThreadFactoryBuilder().setNameFormat("action-feedback-%d").setDaemon(true).build());
+        for (int i = 0; i < partitionCount; i++) {
+            final BlockingQueue<Feedback> partition = new LinkedBlockingQueue<>(capacity);
+            partitions.add(partition);
+            workers.execute(() -> work(partition));
+        }
+        LOG.info("Asynchronous action feedback ingestion enabled with {} partitions of {} entries", partitionCount,
+                capacity);
+    }
+
+    /**
+     * Stops the workers and persists the remaining feedback.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (workers == null) {
+            return;
+        }
+        running = false;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(POLL_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted while waiting for action feedback workers termination", e);
+            Thread.currentThread().interrupt();
+        }
+        partitions.forEach(partition -> {
+            final List<Feedback> remaining = new ArrayList<>();
+            partition.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                persist(remaining);
+            }
+        });
+    }
+
+    /**
+     * @return {@code true} if feedback is ingested asynchronously,
+     *         {@code false} if the caller has to persist it directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of seconds a controller should wait before retrying
+     *         a rejected feedback
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Queues an {@link ActionStatus} of an update action for
+     * {@link ControllerManagement#addUpdateActionStatus(ActionStatus, Action)}
+     * .
+     *
+     * @param actionStatus
+     *            the validated status to add
+     * @param action
+     *            the action the status is for
+     * @return {@code true} if the feedback has been queued, {@code false} if
+     *         the partition of the target is full
+     */
+    public boolean offerUpdateActionStatus(final ActionStatus actionStatus, final Action action) {
+        return offer(new Feedback(actionStatus, action, false));
+    }
+
+    /**
+     * Queues an {@link ActionStatus} of a cancel action for
+     * {@link ControllerManagement#addCancelActionStatus(ActionStatus, Action)}
+     * .
+     *
+     * @param actionStatus
+     *            the validated status to add
+     * @param action
+     *            the action the status is for
+     * @return {@code true} if the feedback has been queued, {@code false} if
+     *         the partition of the target is full
+     */
+    public boolean offerCancelActionStatus(final ActionStatus actionStatus, final Action action) {
+        return offer(new Feedback(actionStatus, action, true));
+    }
+
+    /**
+     * @return the number of queued feedback entries
+     */
+    public int size() {
+        return partitions.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    private boolean offer(final Feedback feedback) {
+        if (!running) {
+            counterService.increment(METRIC_REJECTED);
+            return false;
+        }
+        final int partition = (int) Math.floorMod(feedback.targetId, (long) partitions.size());
+        if (!partitions.get(partition).offer(feedback)) {
+            counterService.increment(METRIC_REJECTED);
+            return false;
+        }
+        counterService.increment(METRIC_ACCEPTED);
+        return true;
+    }
+
+    private void work(final BlockingQueue<Feedback> partition) {
+        final List<Feedback> batch = new ArrayList<>(batchSize);
+        while (running || !partition.isEmpty()) {
+            try {
+                final Feedback first = partition.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                partition.drainTo(batch, batchSize - 1);
+                gaugeService.submit(METRIC_QUEUE_SIZE, size());
+                persist(batch);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to persist {} action feedback entries", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Persists a batch of feedback with one transaction per tenant. In case
+     * the transaction fails the feedback of the tenant is persisted one by one
+     * to isolate the failing entry.
+     *
+     * @param batch
+     *            the feedback in the order of arrival
+     */
+    void persist(final List<Feedback> batch) {
+        final long start = System.currentTimeMillis();
+        final Map<String, List<Feedback>> byTenant = new LinkedHashMap<>();
+        batch.forEach(feedback -> byTenant
+                .computeIfAbsent(feedback.tenant.toUpperCase(), tenant -> new ArrayList<>())
+                .add(feedback));
+
+        byTenant.forEach((tenant, tenantBatch) -> {
+            try {
+                persistInTransaction(tenant, tenantBatch);
+                tenantBatch.forEach(feedback -> counterService.increment(METRIC_PERSISTED));
+            } catch (final RuntimeException e) {
+                LOG.warn("Failed to persist {} action feedback entries of tenant {} in one transaction, retrying "
+                        + "one by one", tenantBatch.size(), tenant, e);
+                tenantBatch.forEach(feedback -> persistSingle(tenant, feedback));
+            }
+        });
+        gaugeService.submit(METRIC_BATCH_LATENCY, System.currentTimeMillis() - start);
+    }
+
+    private void persistSingle(final String tenant, final Feedback feedback) {
+        try {
+            persistInTransaction(tenant, Collections.singletonList(feedback));
+            counterService.increment(METRIC_PERSISTED);
+        } catch (final RuntimeException e) {
+            counterService.increment(METRIC_FAILED);
+            LOG.error("Failed to persist feedback {} of action {}", feedback.status, feedback.actionId, e);
+        }
+    }
+
+    private void persistInTransaction(final String tenant, final List<Feedback> tenantBatch) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(ActionFeedbackQueue.class.getCanonicalName() + ".persist");
+
+        final SecurityContext original = SecurityContextHolder.getContext();
+        try {
+            // the controller management requires the authentication of the
+            // controller which reported the feedback
+            SecurityContextHolder.setContext(tenantBatch.get(0).securityContext);
+            tenantAware.runAsTenant(tenant, () -> transactionTemplate.execute(status -> {
+                for (final Feedback feedback : tenantBatch) {
+                    SecurityContextHolder.setContext(feedback.securityContext);
+                    apply(feedback);
+                }
+                return null;
+            }));
+        } finally {
+            SecurityContextHolder.setContext(original);
+        }
+    }
+
+    private void apply(final Feedback feedback) {
+        final Action action = actionRepository.findOne(feedback.actionId);
+        if (action == null) {
+            LOG.warn("Dropping feedback {} of action {} as the action does not exist anymore", feedback.status,
+                    feedback.actionId);
+            return;
+        }
+
+        final ActionStatus actionStatus = new ActionStatus(action, feedback.status, feedback.occurredAt);
+        feedback.messages.forEach(actionStatus::addMessage);
+        if (feedback.cancel) {
+            controllerManagement.addCancelActionStatus(actionStatus, action);
+        } else {
+            action.setStatus(feedback.status);
+            controllerManagement.addUpdateActionStatus(actionStatus, action);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.feedback.");
+        enabled = env.getProperty("async", Boolean.class, false);
+        partitionCount = env.getProperty("partitions", Integer.class, 4);
+        capacity = env.getProperty("capacity", Integer.class, 1000);
+        batchSize = env.getProperty("batchSize", Integer.class, 50);
+        retryAfter = env.getProperty("retryAfter", Integer.class, 5);
+    }
+
+    /**
+     * A queued feedback with the security context of the reporting
+     * controller. Holds the identifiers of the action only, not the entity.
+     */
+    static final class Feedback {
+        private final String tenant;
+        private final Long actionId;
+        private final Long targetId;
+        private final Status status;
+        private final Long occurredAt;
+        private final List<String> messages;
+        private final boolean cancel;
+        private final SecurityContext securityContext;
+
+        Feedback(final ActionStatus actionStatus, final Action action, final boolean cancel) {
+            this.tenant = action.getTenant();
+            this.actionId = action.getId();
+            this.targetId = action.getTarget().getId();
+            this.status = actionStatus.getStatus();
+            this.occurredAt = actionStatus.getOccurredAt();
+            this.messages = new ArrayList<>(actionStatus.getMessages());
+            this.cancel = cancel;
+            // the context of the request thread gets cleared after the request
+            this.securityContext = SecurityContextHolder.createEmptyContext();
+            this.securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
@@ -98,19 +99,33 @@ public interface ActionRepository extends BaseEntityRepository<Action, Long>, Jp
     List<Action> findByTargetAndActiveOrderByIdAsc(final Target target, boolean active);
 
     /**
-     * Retrieves latest {@link UpdateAction} for given target and
-     * {@link SoftwareModule}.
+     * Retrieves all active {@link Action}s of the given {@link Target}s with
+     * one query ordered by action ID.
+     * 
+     * @param targets
+     *            the targets to find assigned actions, must not be empty
+     * @return the found {@link Action}s
+     */
+    @EntityGraph(value = "Action.ds", type = EntityGraphType.LOAD)
+    @Query("Select a from Action a where a.active = true and a.target in :targets order by a.id")
+    List<Action> findActiveByTargetIn(@Param("targets") Collection<Target> targets);
+
+    /**
+     * Retrieves latest {@link UpdateAction}s for given target and
+     * {@link SoftwareModule}, newest first.
      *
+     * @param pageable
+     *            page parameters, i.e. the number of actions to retrieve
      * @param targetId
      *            to search for
-     * @param module
-     *            to search for
+     * @param moduleId
+     *            the ID of the module to search for
      * @return action if there is one with assigned target and module is part of
      *         assigned {@link DistributionSet}.
      */
-    @Query("Select a from Action a join a.distributionSet ds join ds.modules modul where a.target.controllerId = :target and modul = :module order by a.id desc")
-    List<Action> findActionByTargetAndSoftwareModule(@Param("target") final String targetId,
-            @Param("module") SoftwareModule module);
+    @Query("Select a from Action a join a.distributionSet ds join ds.modules modul where a.target.controllerId = :target and modul.id = :module order by a.id desc")
+    List<Action> findActionByTargetAndSoftwareModule(final Pageable pageable, @Param("target") final String targetId,
+            @Param("module") Long moduleId);
 
     /**
      * Retrieves all {@link UpdateAction}s which are referring the given
@@ -237,4 +252,52 @@ public interface ActionRepository extends BaseEntityRepository<Action, Long>, Jp
      * @return the count of actions referring to the given target
      */
     Long countByDistributionSet(DistributionSet distributionSet);
+
+    /**
+     * Counts the active {@link Action}s referring to the given
+     * DistributionSet.
+     *
+     * @param distributionSet
+     *            DistributionSet to count the {@link Action}s from
+     * @param active
+     *            the active flag of the actions
+     * @return the count of active actions referring to the given set
+     */
+    Long countByDistributionSetAndActive(DistributionSet distributionSet, boolean active);
+
+    /**
+     * Counts the active {@link Action}s referring to the given DistributionSet
+     * whose latest {@link ActionStatus} has the given status, e.g.
+     * {@link Action.Status#DOWNLOAD} which is reported as action status only
+     * while the action itself remains running.
+     *
+     * @param distributionSet
+     *            DistributionSet to count the {@link Action}s from
+     * @param status
+     *            the status of the latest action status
+     * @return the count of actions referring to the given set
+     */
+    @Query("SELECT COUNT(s) FROM ActionStatus s WHERE s.action.distributionSet = :ds AND s.action.active = true AND s.status = :status AND s.id = (SELECT MAX(l.id) FROM ActionStatus l WHERE l.action = s.action)")
+    Long countActiveByDistributionSetAndLatestStatus(@Param("ds") DistributionSet distributionSet,
+            @Param("status") Action.Status status);
+
+    /**
+     * Counts the {@link Action}s referring to the given DistributionSet per
+     * status, which have been created for the targets of the given ID range
+     * since the given time.
+     *
+     * @param distributionSet
+     *            DistributionSet to count the {@link Action}s from
+     * @param firstTargetId
+     *            the lowest ID of the targets
+     * @param lastTargetId
+     *            the highest ID of the targets
+     * @param createdAt
+     *            the earliest creation time of the actions
+     * @return the status and the count of the actions as pairs
+     */
+    @Query("SELECT a.status, COUNT(a) FROM Action a WHERE a.distributionSet = :ds AND a.target.id BETWEEN :firstTargetId AND :lastTargetId AND a.createdAt >= :createdAt GROUP BY a.status")
+    List<Object[]> countByDistributionSetAndTargetIdRangeGroupByStatus(@Param("ds") DistributionSet distributionSet,
+            @Param("firstTargetId") long firstTargetId, @Param("lastTargetId") long lastTargetId,
+            @Param("createdAt") long createdAt);
 }
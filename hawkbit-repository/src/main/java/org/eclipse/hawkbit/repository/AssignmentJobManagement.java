@@ -0,0 +1,586 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.hawkbit.cache.TenancyCacheManager;
+import org.eclipse.hawkbit.executor.AfterTransactionCommitExecutor;
+import org.eclipse.hawkbit.im.authentication.SpPermission.SpringEvalExpressions;
+import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
+import org.eclipse.hawkbit.repository.exception.IncompleteDistributionSetException;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.AssignmentJob;
+import org.eclipse.hawkbit.repository.model.AssignmentJob.JobStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.rsql.RSQLUtility;
+import org.eclipse.hawkbit.repository.specifications.TargetSpecifications;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.hibernate.validator.constraints.NotEmpty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.cache.Cache;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.annotation.Validated;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Business service facade for {@link AssignmentJob}s, which assign a
+ * {@link DistributionSet} to all {@link Target}s matching a target query in
+ * the background.
+ *
+ * A job processes the targets in chunks in the order of their IDs. Every chunk
+ * is assigned by the {@link DeploymentManagement} in its own transaction which
+ * also stores the ID of the last target of the chunk as checkpoint, so neither
+ * the targets nor the actions of the whole job are held in memory or locked at
+ * once.
+ *
+ * A job is processed by the node which owns its lease. The lease is renewed
+ * with every chunk, jobs whose lease has expired, e.g. because their node has
+ * been stopped, are resumed from their checkpoint by any node of the cluster.
+ * Concurrent processing of a job is prevented by the optimistic lock of the
+ * job, so a chunk of a node which lost the lease is rolled back.
+ *
+ * The chunks are processed as the user who created the job. A chunk which
+ * fails because of a transient database error, e.g. a deadlock or a lock
+ * timeout, is retried, any other error fails the job.
+ *
+ * The processing of jobs on a node can be disabled with the property
+ * {@code hawkbit.server.assignment.job.enabled}, the jobs are then processed
+ * by the other nodes only.
+ *
+ */
+@Transactional(readOnly = true)
+@Validated
+@Service
+public class AssignmentJobManagement implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssignmentJobManagement.class);
+
+    private static final String FIND_ORPHANED_JOBS = "SELECT id, tenant FROM sp_assignment_job "
+            + "WHERE status = ? AND (lease_expires_at IS NULL OR lease_expires_at < ?)";
+
+    private static final String CLAIM_JOB = "UPDATE sp_assignment_job SET owner = ?, lease_expires_at = ?, "
+            + "optlock_revision = optlock_revision + 1 WHERE id = ? AND status = ? "
+            + "AND (lease_expires_at IS NULL OR lease_expires_at < ? OR owner = ?)";
+
+    private static final String RELEASE_JOBS = "UPDATE sp_assignment_job SET owner = NULL, lease_expires_at = NULL, "
+            + "optlock_revision = optlock_revision + 1 WHERE owner = ? AND status = ?";
+
+    private static final String FIND_JOB_CREATOR = "SELECT created_by, creator_authorities FROM sp_assignment_job "
+            + "WHERE id = ?";
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 512;
+
+    /**
+     * SQL state class of transaction rollbacks, e.g. serialization failures
+     * and deadlocks.
+     */
+    private static final String SQL_STATE_TRANSACTION_ROLLBACK = "40";
+
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+    private static final int H2_LOCK_TIMEOUT = 50200;
+
+    /**
+     * Identifies this node as owner of the jobs it processes.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * The jobs which are submitted or processed on this node.
+     */
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private AssignmentJobRepository assignmentJobRepository;
+
+    @Autowired
+    private DistributionSetRepository distributionSetRepository;
+
+    @Autowired
+    private TargetRepository targetRepository;
+
+    @Autowired
+    private NoCountPagingRepository criteriaNoCountDao;
+
+    @Autowired
+    private DeploymentManagement deploymentManagement;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private TenancyCacheManager cacheManager;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
+    private ExecutorService jobExecutor;
+
+    private ScheduledExecutorService resumeExecutor;
+
+    private boolean enabled;
+
+    private int chunkSize = 500;
+
+    private int threads = 2;
+
+    private long leaseTime = 300000;
+
+    private long resumeInterval = 60000;
+
+    private int retries = 3;
+
+    private long retryDelay = 1000;
+
+    /**
+     * Starts the processing of jobs in case it is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        jobExecutor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("assignment-job-%d").setDaemon(true).build());
+        resumeExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("assignment-job-resume-%d").setDaemon(true).build());
+        resumeExecutor.scheduleWithFixedDelay(this::resumeOrphanedJobsSafely, resumeInterval, resumeInterval,
+                TimeUnit.MILLISECONDS);
+        LOG.info("Assignment jobs are processed in chunks of {} targets by {} threads", chunkSize, threads);
+    }
+
+    /**
+     * Stops the processing of jobs and releases the leases of the jobs of this
+     * node, so they are resumed by the other nodes.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (jobExecutor == null) {
+            return;
+        }
+        resumeExecutor.shutdownNow();
+        jobExecutor.shutdownNow();
+        try {
+            if (!jobExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warn("Assignment jobs did not stop in time");
+            }
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted while waiting for the assignment jobs to stop", e);
+            Thread.currentThread().interrupt();
+        }
+        try {
+            jdbcTemplate.update(RELEASE_JOBS, nodeId, JobStatus.RUNNING.ordinal());
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to release the assignment jobs of this node, they are resumed after their lease", e);
+        }
+    }
+
+    /**
+     * Creates a job which assigns the {@link DistributionSet} to all
+     * {@link Target}s matching the given query in the background.
+     *
+     * @param dsID
+     *            the ID of the distribution set to assign
+     * @param targetQuery
+     *            the RSQL query of the targets
+     * @param actionType
+     *            the type of the actions to create
+     * @param forcedTimestamp
+     *            the time when the actions should be forced, only necessary
+     *            for {@link ActionType#TIMEFORCED}
+     * @return the created job
+     *
+     * @throws EntityNotFoundException
+     *             if {@link DistributionSet} does not exist.
+     * @throw IncompleteDistributionSetException if mandatory software module
+     *        types are not assigned as defined by the distribution set type.
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_UPDATE_TARGET)
+    public AssignmentJob createAssignmentJob(@NotNull final Long dsID, @NotEmpty final String targetQuery,
+            @NotNull final ActionType actionType, final long forcedTimestamp) {
+        final DistributionSet set = distributionSetRepository.findOne(dsID);
+        if (set == null) {
+            throw new EntityNotFoundException(
+                    String.format("no %s with id %d found", DistributionSet.class.getSimpleName(), dsID));
+        }
+        if (!set.isComplete()) {
+            throw new IncompleteDistributionSetException(
+                    "Distribution set of type " + set.getType().getKey() + " is incomplete: " + set.getId());
+        }
+
+        // counting the targets validates the query as well
+        final long totalTargets = targetRepository
+                .count(RSQLUtility.parse(targetQuery, TargetFields.class, entityManager));
+        final AssignmentJob job = assignmentJobRepository
+                .save(new AssignmentJob(set, targetQuery, actionType, forcedTimestamp, totalTargets,
+                        UserSecurityContext.getCurrentAuthorities()));
+
+        final String tenant = tenantAware.getCurrentTenant();
+        final Long jobId = job.getId();
+        afterCommit.afterCommit(() -> submit(tenant, jobId));
+        return job;
+    }
+
+    /**
+     * @param jobId
+     *            the ID of the job
+     * @return the job or {@code null} if it does not exist
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_READ_TARGET)
+    public AssignmentJob findAssignmentJob(@NotNull final Long jobId) {
+        return assignmentJobRepository.findOne(jobId);
+    }
+
+    /**
+     * @param set
+     *            the distribution set of the jobs
+     * @param pageable
+     *            page parameter
+     * @return the jobs of the set
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_READ_TARGET)
+    public Page<AssignmentJob> findAssignmentJobsByDistributionSet(@NotNull final DistributionSet set,
+            @NotNull final Pageable pageable) {
+        return assignmentJobRepository.findByDistributionSet(set, pageable);
+    }
+
+    /**
+     * Cancels a running job. The targets which have been processed so far
+     * remain assigned, a chunk which is processed concurrently is rolled back.
+     *
+     * @param jobId
+     *            the ID of the job
+     * @return the canceled job
+     *
+     * @throws EntityNotFoundException
+     *             if the job does not exist.
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_UPDATE_TARGET)
+    public AssignmentJob cancelAssignmentJob(@NotNull final Long jobId) {
+        final AssignmentJob job = assignmentJobRepository.findOne(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException(
+                    String.format("no %s with id %d found", AssignmentJob.class.getSimpleName(), jobId));
+        }
+        if (job.getStatus() != JobStatus.RUNNING) {
+            return job;
+        }
+        job.finish(JobStatus.CANCELED, null);
+        return assignmentJobRepository.save(job);
+    }
+
+    /**
+     * Submits a job for processing on this node, unless it is processed here
+     * already.
+     */
+    private void submit(final String tenant, final Long jobId) {
+        if (jobExecutor == null || !runningJobs.add(jobId)) {
+            return;
+        }
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    runJob(tenant, jobId);
+                } finally {
+                    runningJobs.remove(jobId);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            runningJobs.remove(jobId);
+            LOG.warn("Assignment job {} has been rejected, it is resumed after its lease", jobId, e);
+        }
+    }
+
+    /**
+     * Claims the lease of a job and processes its chunks until it is finished,
+     * canceled or this node loses the lease.
+     *
+     * @param tenant
+     *            the tenant of the job
+     * @param jobId
+     *            the ID of the job
+     */
+    void runJob(final String tenant, final Long jobId) {
+        if (!claim(jobId)) {
+            LOG.debug("Assignment job {} is processed by another node", jobId);
+            return;
+        }
+
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(AssignmentJobManagement.class.getCanonicalName() + ".chunk");
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        final Map<String, Object> creator = jdbcTemplate.queryForMap(FIND_JOB_CREATOR, jobId);
+        final String creatorName = (String) creator.get("created_by");
+        final String creatorAuthorities = (String) creator.get("creator_authorities");
+        boolean hasMoreTargets = true;
+        int failedAttempts = 0;
+        while (hasMoreTargets && !Thread.currentThread().isInterrupted()) {
+            try {
+                hasMoreTargets = UserSecurityContext.runAsUser(tenant, creatorName, creatorAuthorities,
+                        () -> tenantAware.runAsTenant(tenant,
+                                () -> transactionTemplate.execute(status -> processChunk(jobId))));
+                failedAttempts = 0;
+                evictUsageCache(tenant);
+            } catch (final OptimisticLockingFailureException e) {
+                LOG.info("Assignment job {} has been changed concurrently, stopping its processing on this node",
+                        jobId);
+                LOG.debug("Concurrent change of assignment job {}", jobId, e);
+                return;
+            } catch (final RuntimeException e) {
+                if (isTransient(e) && failedAttempts < retries) {
+                    failedAttempts++;
+                    LOG.warn("Chunk of assignment job {} failed transiently, retrying ({}/{})", jobId,
+                            failedAttempts, retries, e);
+                    if (!sleep(retryDelay * failedAttempts)) {
+                        return;
+                    }
+                    continue;
+                }
+                LOG.error("Assignment job {} failed", jobId, e);
+                fail(tenant, jobId, transactionTemplate, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the given error or one of its causes is a
+     *         transient database error, e.g. a deadlock or a lock timeout,
+     *         which is likely to succeed if retried
+     */
+    static boolean isTransient(final Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof SQLTransientException
+                    || cause instanceof PessimisticLockException || cause instanceof LockTimeoutException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                final SQLException sqlException = (SQLException) cause;
+                final String sqlState = sqlException.getSQLState();
+                if (sqlState != null && sqlState.startsWith(SQL_STATE_TRANSACTION_ROLLBACK)
+                        || sqlException.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT
+                        || sqlException.getErrorCode() == H2_LOCK_TIMEOUT) {
+                    return true;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Assigns the next chunk of targets and stores the checkpoint of the job.
+     *
+     * @return {@code true} if there might be more targets to process
+     */
+    private boolean processChunk(final Long jobId) {
+        final AssignmentJob job = assignmentJobRepository.findOne(jobId);
+        if (job == null || job.getStatus() != JobStatus.RUNNING || !nodeId.equals(job.getOwner())) {
+            return false;
+        }
+
+        final long start = System.currentTimeMillis();
+        final DistributionSet set = job.getDistributionSet();
+        if (set.isDeleted()) {
+            job.finish(JobStatus.CANCELED, "Distribution set has been deleted");
+            assignmentJobRepository.save(job);
+            return false;
+        }
+
+        final Specification<Target> spec = Specifications
+                .where(RSQLUtility.<TargetFields, Target> parse(job.getTargetQuery(), TargetFields.class,
+                        entityManager))
+                .and(TargetSpecifications.hasIdGreaterThan(job.getLastTargetId()));
+        final List<Target> targets = criteriaNoCountDao
+                .findAll(spec, new PageRequest(0, chunkSize, new Sort(Direction.ASC, "id")), Target.class)
+                .getContent();
+
+        if (!targets.isEmpty()) {
+            final DistributionSetAssignmentResult result = deploymentManagement.assignDistributionSetToTargets(set,
+                    targets.stream()
+                            .map(t -> new TargetWithActionType(t.getControllerId(), job.getActionType(),
+                                    job.getForcedTime()))
+                            .collect(Collectors.toList()));
+            job.checkpoint(targets.get(targets.size() - 1).getId(), targets.size(), result.getAssigned(),
+                    System.currentTimeMillis() - start);
+        }
+
+        final boolean hasMoreTargets = targets.size() == chunkSize;
+        if (hasMoreTargets) {
+            job.setLeaseExpiresAt(System.currentTimeMillis() + leaseTime);
+        } else {
+            job.finish(JobStatus.FINISHED, null);
+            LOG.info("Assignment job {} finished, {} of {} processed targets assigned", jobId,
+                    job.getAssignedTargets(), job.getProcessedTargets());
+        }
+        assignmentJobRepository.save(job);
+        return hasMoreTargets;
+    }
+
+    private boolean claim(final Long jobId) {
+        final long now = System.currentTimeMillis();
+        final boolean claimed = jdbcTemplate.update(CLAIM_JOB, nodeId, now + leaseTime, jobId,
+                JobStatus.RUNNING.ordinal(), now, nodeId) == 1;
+        if (claimed) {
+            // the lease has been written bypassing the persistence context
+            entityManager.getEntityManagerFactory().getCache().evict(AssignmentJob.class, jobId);
+        }
+        return claimed;
+    }
+
+    private void fail(final String tenant, final Long jobId, final TransactionTemplate transactionTemplate,
+            final RuntimeException cause) {
+        final String message = String.valueOf(cause.getMessage());
+        try {
+            tenantAware.runAsTenant(tenant, () -> transactionTemplate.execute(status -> {
+                final AssignmentJob job = assignmentJobRepository.findOne(jobId);
+                if (job != null && job.getStatus() == JobStatus.RUNNING) {
+                    job.finish(JobStatus.FAILED, message.length() > MAX_ERROR_MESSAGE_LENGTH
+                            ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH) : message);
+                    assignmentJobRepository.save(job);
+                }
+                return null;
+            }));
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to mark assignment job {} as failed, it is resumed after its lease", jobId, e);
+        }
+    }
+
+    private void evictUsageCache(final String tenant) {
+        tenantAware.runAsTenant(tenant, () -> {
+            final Cache cache = cacheManager.getCache("distributionUsageAssigned");
+            if (cache != null) {
+                cache.clear();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Submits the running jobs whose lease has expired.
+     *
+     * @return the number of submitted jobs
+     */
+    int resumeOrphanedJobs() {
+        final List<Map.Entry<Long, String>> orphanedJobs = jdbcTemplate.query(FIND_ORPHANED_JOBS,
+                (rs, rowNum) -> new AbstractMap.SimpleImmutableEntry<>(rs.getLong("id"), rs.getString("tenant")),
+                JobStatus.RUNNING.ordinal(), System.currentTimeMillis());
+        orphanedJobs.forEach(job -> submit(job.getValue(), job.getKey()));
+        if (!orphanedJobs.isEmpty()) {
+            LOG.info("Resuming {} orphaned assignment jobs", orphanedJobs.size());
+        }
+        return orphanedJobs.size();
+    }
+
+    private void resumeOrphanedJobsSafely() {
+        try {
+            resumeOrphanedJobs();
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to resume orphaned assignment jobs", e);
+        }
+    }
+
+    /**
+     * @param chunkSize
+     *            the number of targets which are assigned per transaction
+     */
+    void setChunkSize(final int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.assignment.job.");
+        enabled = env.getProperty("enabled", Boolean.class, true);
+        chunkSize = env.getProperty("chunkSize", Integer.class, 500);
+        threads = env.getProperty("threads", Integer.class, 2);
+        leaseTime = env.getProperty("leaseTime", Long.class, 300000L);
+        resumeInterval = env.getProperty("resumeInterval", Long.class, 60000L);
+        retries = env.getProperty("retries", Integer.class, 3);
+        retryDelay = env.getProperty("retryDelay", Long.class, 1000L);
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import org.eclipse.hawkbit.repository.model.AssignmentJob;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link AssignmentJob} repository.
+ *
+ */
+@Transactional(readOnly = true)
+public interface AssignmentJobRepository extends BaseEntityRepository<AssignmentJob, Long> {
+
+    /**
+     * Retrieves the assignment jobs of a {@link DistributionSet}.
+     *
+     * @param distributionSet
+     *            the set of the jobs
+     * @param pageable
+     *            page parameter
+     * @return the found {@link AssignmentJob}s
+     */
+    Page<AssignmentJob> findByDistributionSet(DistributionSet distributionSet, Pageable pageable);
+
+    @Override
+    @Modifying
+    @Transactional
+    <S extends AssignmentJob> S save(S entity);
+}
@@ -9,13 +9,19 @@
 package org.eclipse.hawkbit.repository;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.validation.constraints.NotNull;
 
@@ -33,7 +39,6 @@ import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
-import org.eclipse.hawkbit.repository.model.Target_;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,13 +46,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.bind.RelaxedPropertyResolver;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.core.env.Environment;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 /**
  * Service layer for all operations of the controller API (with access
  * permissions only for the controller).
@@ -86,6 +94,12 @@ public class ControllerManagement implements EnvironmentAware {
     @Autowired
     private ActionStatusRepository actionStatusRepository;
 
+    @Autowired
+    private TargetHeartbeatBuffer heartbeatBuffer;
+
+    @Autowired
+    private TargetRegistrationService targetRegistrationService;
+
     private Integer maxCount = 1000;
 
     private Integer maxAttributes = 100;
@@ -112,7 +126,7 @@ public class ControllerManagement implements EnvironmentAware {
             throw new EntityNotFoundException(targetid);
         }
 
-        return updateLastTargetQuery(target.getTargetInfo(), address).getTarget();
+        return refreshLastTargetQuery(target, address);
     }
 
     /**
@@ -121,8 +135,8 @@ public class ControllerManagement implements EnvironmentAware {
      *
      * @param targetId
      *            to look for
-     * @param module
-     *            that should be assigned to the target
+     * @param softwareModuleId
+     *            the ID of the module that should be assigned to the target
      * @return last {@link UpdateAction} for given combination
      *
      * @throws EntityNotFoundException
@@ -130,12 +144,14 @@ public class ControllerManagement implements EnvironmentAware {
      */
     @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
     public Action getActionForDownloadByTargetAndSoftwareModule(@NotNull final String targetId,
-            @NotNull final SoftwareModule module) {
-        final List<Action> action = actionRepository.findActionByTargetAndSoftwareModule(targetId, module);
+            @NotNull final Long softwareModuleId) {
+        // only the newest action is relevant
+        final List<Action> action = actionRepository.findActionByTargetAndSoftwareModule(new PageRequest(0, 1),
+                targetId, softwareModuleId);
 
         if (action.isEmpty() || action.get(0).isCancelingOrCanceled()) {
             throw new EntityNotFoundException(
-                    "No assigment found for module " + module.getId() + " to target " + targetId);
+                    "No assigment found for module " + softwareModuleId + " to target " + targetId);
         }
 
         return action.get(0);
@@ -172,6 +188,23 @@ public class ControllerManagement implements EnvironmentAware {
         return actionRepository.findByTargetAndActiveOrderByIdAsc(target, true);
     }
 
+    /**
+     * Retrieves all {@link Action}s which are active and assigned to one of
+     * the given {@link Target}s with one query.
+     *
+     * @param targets
+     *            the targets to retrieve the actions from
+     * @return a list of actions assigned to the given targets which are active
+     *         ordered by ID
+     */
+    @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
+    public List<Action> findActionsByTargetsAndActive(@NotNull final Collection<Target> targets) {
+        if (targets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return actionRepository.findActiveByTargetIn(targets);
+    }
+
     /**
      * Retrieves all {@link SoftwareModule}s which are assigned to the given
      * {@link DistributionSet}.
@@ -213,25 +246,59 @@ public class ControllerManagement implements EnvironmentAware {
     @Transactional
     @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
     public Target findOrRegisterTargetIfItDoesNotexist(@NotNull final String targetid, final URI address) {
-        final Specification<Target> spec = new Specification<Target>() {
-            @Override
-            public Predicate toPredicate(final Root<Target> targetRoot, final CriteriaQuery<?> query,
-                    final CriteriaBuilder cb) {
-                return cb.equal(targetRoot.get(Target_.controllerId), targetid);
-            }
-        };
-
-        Target target = targetRepository.findOne(spec);
+        final Target target = targetRegistrationService.findTarget(targetid);
 
         if (target == null) {
-            target = new Target(targetid);
-            target.setDescription("Plug and Play target: " + targetid);
-            target.setName(targetid);
-            return targetManagement.createTarget(target, TargetUpdateStatus.REGISTERED, System.currentTimeMillis(),
-                    address);
+            return targetRegistrationService.registerTarget(targetid, address);
         } else {
-            return updateLastTargetQuery(target.getTargetInfo(), address).getTarget();
+            return refreshLastTargetQuery(target, address);
+        }
+    }
+
+    /**
+     * register new targets in the repository (plug-and-play) with one query
+     * for the existing targets and one transaction for the new ones.
+     *
+     * @param targets
+     *            the client IP addresses of the targets by controller ID, an
+     *            address might be {@code null}
+     * @return the target references in the order of the given controller IDs
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
+    public List<Target> findOrRegisterTargetsIfTheyDoNotExist(@NotNull final Map<String, URI> targets) {
+        final Map<String, Target> existing = targetRegistrationService.findTargets(targets.keySet());
+
+        final Map<String, URI> unknown = new LinkedHashMap<>();
+        targets.forEach((controllerId, address) -> {
+            if (!existing.containsKey(controllerId)) {
+                unknown.put(controllerId, address);
+            }
+        });
+        final Map<String, Target> registered = new HashMap<>();
+        targetRegistrationService.registerTargets(unknown)
+                .forEach(target -> registered.put(target.getControllerId(), target));
+
+        final List<Target> result = new ArrayList<>(targets.size());
+        targets.forEach((controllerId, address) -> {
+            final Target target = existing.get(controllerId);
+            result.add(target == null ? registered.get(controllerId) : refreshLastTargetQuery(target, address));
+        });
+        return result;
+    }
+
+    /**
+     * Refreshes the last poll time of the given target either by means of the
+     * {@link TargetHeartbeatBuffer} or, if the buffer is disabled, directly in
+     * the {@link TargetInfo}.
+     */
+    private Target refreshLastTargetQuery(final Target target, final URI address) {
+        if (heartbeatBuffer.isEnabled()) {
+            heartbeatBuffer.record(target.getTenant(), target.getControllerId(), System.currentTimeMillis(), address);
+            return target;
         }
+        return updateLastTargetQuery(target.getTargetInfo(), address).getTarget();
     }
 
     /**
@@ -361,12 +428,14 @@ public class ControllerManagement implements EnvironmentAware {
             mergedAction.setStatus(Status.ERROR);
             mergedTarget.setAssignedDistributionSet(null);
             targetManagement.updateTarget(mergedTarget);
+            deploymentManagement.notifyPollViewInvalidated(mergedTarget);
             break;
         case FINISHED:
             // set action inactive
             mergedAction.setActive(false);
             mergedAction.setStatus(Status.FINISHED);
             handleFinishedAndStoreInTargetStatus(mergedTarget, mergedAction);
+            deploymentManagement.notifyPollViewInvalidated(mergedTarget);
             break;
         case CANCELED:
         case WARNING:
@@ -440,17 +509,86 @@ public class ControllerManagement implements EnvironmentAware {
             throw new EntityNotFoundException(targetid);
         }
 
-        target.getTargetInfo().getControllerAttributes().putAll(data);
+        final TargetInfo targetInfo = target.getTargetInfo();
+        // the attributes are only loaded and written in case the controller
+        // reported something else than the last time
+        if (!hashAttributes(data).equals(targetInfo.getControllerAttributesHash())) {
+            mergeControllerAttributes(targetInfo, data);
+        }
+
+        targetInfo.setLastTargetQuery(System.currentTimeMillis());
+        targetInfo.setRequestControllerAttributes(false);
+        deploymentManagement.notifyPollViewInvalidated(target);
+        return targetRepository.save(target);
+    }
+
+    /**
+     * Merges the given attributes into the attributes of the target. Only the
+     * new and changed entries are put into the attribute collection, so the
+     * persistence provider writes the rows of these entries only.
+     *
+     * @param targetInfo
+     *            to merge the attributes into
+     * @param data
+     *            reported by the controller
+     *
+     * @throws ToManyAttributeEntriesException
+     *             if the merged attributes exceed the maximum number of
+     *             entries
+     */
+    private void mergeControllerAttributes(final TargetInfo targetInfo, final Map<String, String> data) {
+        final Map<String, String> attributes = targetInfo.getControllerAttributes();
+
+        final Map<String, String> changed = new HashMap<>();
+        int newEntries = 0;
+        for (final Map.Entry<String, String> entry : data.entrySet()) {
+            if (!attributes.containsKey(entry.getKey())) {
+                newEntries++;
+                changed.put(entry.getKey(), entry.getValue());
+            } else if (!Objects.equals(attributes.get(entry.getKey()), entry.getValue())) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
 
-        if (target.getTargetInfo().getControllerAttributes().size() > maxAttributes) {
+        if (attributes.size() + newEntries > maxAttributes) {
             LOG_DOS.info("Target tries to insert more than the allowed number of entries ({}). DOS attack anticipated!",
                     maxAttributes);
             throw new ToManyAttributeEntriesException(String.valueOf(maxAttributes));
         }
 
-        target.getTargetInfo().setLastTargetQuery(System.currentTimeMillis());
-        target.getTargetInfo().setRequestControllerAttributes(false);
-        return targetRepository.save(target);
+        if (!changed.isEmpty()) {
+            attributes.putAll(changed);
+        }
+        targetInfo.setControllerAttributesHash(hashAttributes(attributes));
+    }
+
+    /**
+     * Calculates a content hash of the given attributes which is independent
+     * of the order of the entries.
+     *
+     * @param attributes
+     *            to hash
+     * @return the hex encoded SHA-256 hash
+     */
+    private static String hashAttributes(final Map<String, String> attributes) {
+        final Map<String, String> sorted;
+        // the synchronized map of the target info has to be locked for
+        // iteration
+        synchronized (attributes) {
+            sorted = new TreeMap<>(attributes);
+        }
+
+        final Hasher hasher = Hashing.sha256().newHasher();
+        sorted.forEach((key, value) -> {
+            // length prefixes keep the entries apart
+            hasher.putInt(key.length()).putString(key, StandardCharsets.UTF_8);
+            if (value == null) {
+                hasher.putInt(-1);
+            } else {
+                hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+            }
+        });
+        return hasher.hash().toString();
     }
 
     /*
@@ -541,12 +679,13 @@ public class ControllerManagement implements EnvironmentAware {
 
     /**
      * @param statusMessage
+     * @return the persisted {@link ActionStatus}
      */
     @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
     @Modifying
     @Transactional
-    public void addActionStatusMessage(final ActionStatus statusMessage) {
-        actionStatusRepository.save(statusMessage);
+    public ActionStatus addActionStatusMessage(final ActionStatus statusMessage) {
+        return actionStatusRepository.save(statusMessage);
     }
 
     /**
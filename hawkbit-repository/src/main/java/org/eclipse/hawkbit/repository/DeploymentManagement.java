@@ -14,23 +14,29 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.ListJoin;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import javax.validation.constraints.NotNull;
 
 import org.eclipse.hawkbit.Constants;
 import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
-import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
-import org.eclipse.hawkbit.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent.TargetAssignment;
+import org.eclipse.hawkbit.eventbus.event.TargetPollViewInvalidatedEvent;
 import org.eclipse.hawkbit.executor.AfterTransactionCommitExecutor;
 import org.eclipse.hawkbit.im.authentication.SpPermission.SpringEvalExpressions;
 import org.eclipse.hawkbit.repository.exception.CancelActionNotAllowedException;
@@ -43,20 +49,27 @@ import org.eclipse.hawkbit.repository.model.Action.Status;
 import org.eclipse.hawkbit.repository.model.ActionStatus;
 import org.eclipse.hawkbit.repository.model.ActionWithStatusCount;
 import org.eclipse.hawkbit.repository.model.Action_;
+import org.eclipse.hawkbit.repository.model.AssignmentResult;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.DistributionSetType;
 import org.eclipse.hawkbit.repository.model.DistributionSet_;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.SoftwareModuleType;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetFilterQuery;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.eclipse.hawkbit.repository.model.Target_;
+import org.eclipse.hawkbit.repository.rsql.RSQLUtility;
 import org.eclipse.hawkbit.repository.specifications.TargetSpecifications;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -79,9 +92,39 @@ import com.google.common.eventbus.EventBus;
 @Transactional(readOnly = true)
 @Validated
 @Service
-public class DeploymentManagement {
+public class DeploymentManagement implements EnvironmentAware {
     private static final Logger LOG = LoggerFactory.getLogger(DeploymentManagement.class);
 
+    /**
+     * Maximum number of assignments of a single
+     * {@link TargetAssignDistributionSetBulkEvent}.
+     */
+    private static final int MAX_ASSIGNMENTS_PER_EVENT = 500;
+
+    private static final String ASSIGNED_TARGETS = "SELECT t FROM Target t WHERE t.assignedDistributionSet = :set "
+            + "AND t.assignmentId = :assignment";
+
+    private static final String SET_UPDATE_STATUS_OF_ASSIGNED_TARGETS = "UPDATE TargetInfo ti "
+            + "SET ti.updateStatus = :status WHERE ti.targetId IN (SELECT t.id FROM Target t "
+            + "WHERE t.assignedDistributionSet = :set AND t.assignmentId = :assignment)";
+
+    private static final String CANCEL_ACTIONS_OF_ASSIGNED_TARGETS = "UPDATE Action a SET a.status = :canceling, "
+            + "a.lastModifiedAt = :assignedAt, a.lastModifiedBy = :user, "
+            + "a.optLockRevision = a.optLockRevision + 1 WHERE a.active = true "
+            + "AND a.status <> :canceling AND a.distributionSet IN (SELECT d FROM DistributionSet d "
+            + "WHERE d.requiredMigrationStep = false) AND a.target IN (" + ASSIGNED_TARGETS + ")";
+
+    private static final String CANCELED_ACTIONS_OF_ASSIGNED_TARGETS = "SELECT a FROM Action a "
+            + "JOIN FETCH a.target t JOIN FETCH t.targetInfo WHERE a.active = true AND a.status = :canceling "
+            + "AND a.lastModifiedAt = :assignedAt AND t.assignedDistributionSet = :set "
+            + "AND t.assignmentId = :assignment AND a.id > :lastActionId ORDER BY a.id";
+
+    private static final String CREATED_ACTIONS_OF_ASSIGNED_TARGETS = "SELECT a FROM Action a "
+            + "JOIN FETCH a.target t JOIN FETCH t.targetInfo WHERE a.active = true AND a.distributionSet = :set "
+            + "AND a.createdAt = :assignedAt AND t.assignmentId = :assignment AND a.id > :lastActionId "
+            + "AND NOT EXISTS (SELECT c FROM Action c WHERE c.target = t AND c.active = true "
+            + "AND c.status = :canceling AND c.lastModifiedAt = :assignedAt) ORDER BY a.id";
+
     @Autowired
     private EntityManager entityManager;
 
@@ -100,6 +143,9 @@ public class DeploymentManagement {
     @Autowired
     private ActionStatusRepository actionStatusRepository;
 
+    @Autowired
+    private ActionBatchRepository actionBatchRepository;
+
     @Autowired
     private TargetManagement targetManagement;
 
@@ -115,6 +161,8 @@ public class DeploymentManagement {
     @Autowired
     private AfterTransactionCommitExecutor afterCommit;
 
+    private boolean pollCacheEnabled;
+
     /**
      * method assigns the {@link DistributionSet} to all {@link Target}s.
      *
@@ -233,9 +281,182 @@ public class DeploymentManagement {
         return assignDistributionSetToTargets(set, targets);
     }
 
+    /**
+     * Assigns the {@link DistributionSet} to all {@link Target}s matching the
+     * given {@link TargetFilterQuery}.
+     *
+     * @param dsID
+     *            the ID of the distribution set to assign
+     * @param targetFilterQuery
+     *            the filter of the targets to assign the distribution set
+     * @param actionType
+     *            the type of the action to apply on the assignment
+     * @param forcedTimestamp
+     *            the time when the action should be forced, only necessary for
+     *            {@link ActionType#TIMEFORCED}
+     * @return the assignment result
+     *
+     * @see #assignDistributionSetByTargetQuery(Long, String, ActionType, long)
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_UPDATE_TARGET)
+    @CacheEvict(value = { "distributionUsageAssigned" }, allEntries = true)
+    public AssignmentResult assignDistributionSet(@NotNull final Long dsID,
+            @NotNull final TargetFilterQuery targetFilterQuery, final ActionType actionType,
+            final long forcedTimestamp) {
+        return assignDistributionSetByTargetQuery(dsID, targetFilterQuery.getQuery(), actionType, forcedTimestamp);
+    }
+
+    /**
+     * Assigns the {@link DistributionSet} to all {@link Target}s matching the
+     * given RSQL target query. In contrast to the assignment by controller IDs
+     * the targets are not loaded for the assignment. The targets are updated
+     * by a statement restricted by the query, the {@link Action}s and their
+     * initial {@link ActionStatus} are inserted by statements selecting the
+     * updated targets. Only the events for the targets are sent page by page
+     * after the assignment.
+     *
+     * @param dsID
+     *            the ID of the distribution set to assign
+     * @param targetQuery
+     *            the RSQL query of the targets to assign the distribution set
+     * @param actionType
+     *            the type of the action to apply on the assignment
+     * @param forcedTimestamp
+     *            the time when the action should be forced, only necessary for
+     *            {@link ActionType#TIMEFORCED}
+     * @return the assignment result
+     *
+     * @throws EntityNotFoundException
+     *             if {@link DistributionSet} does not exist.
+     *
+     * @throw IncompleteDistributionSetException if mandatory
+     *        {@link SoftwareModuleType} are not assigned as define by the
+     *        {@link DistributionSetType}.
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_UPDATE_TARGET)
+    @CacheEvict(value = { "distributionUsageAssigned" }, allEntries = true)
+    public AssignmentResult assignDistributionSetByTargetQuery(@NotNull final Long dsID,
+            @NotEmpty final String targetQuery, final ActionType actionType, final long forcedTimestamp) {
+        final DistributionSet set = distributoinSetRepository.findOne(dsID);
+        if (set == null) {
+            throw new EntityNotFoundException(String.format("no %s with id %d found",
+                    DistributionSet.class.getSimpleName(), dsID));
+        }
+        if (!set.isComplete()) {
+            throw new IncompleteDistributionSetException("Distribution set of type " + set.getType().getKey()
+                    + " is incomplete: " + set.getId());
+        }
+
+        final Specification<Target> spec = RSQLUtility.parse(targetQuery, TargetFields.class, entityManager);
+        final long matching = targetRepository.count(spec);
+
+        // pending changes are flushed first as the following statements
+        // bypass the persistence context
+        entityManager.flush();
+        final long assignedAt = System.currentTimeMillis();
+        final String assignment = UUID.randomUUID().toString();
+        final String currentUser = getCurrentAuditor();
+
+        // the targets which get the set assigned are marked with the key of
+        // this assignment which identifies them in all following statements,
+        // the modification time is not unique as other assignments might
+        // happen in the same millisecond
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaUpdate<Target> update = cb.createCriteriaUpdate(Target.class);
+        final Root<Target> targetRoot = update.from(Target.class);
+        final Path<DistributionSet> assignedSet = targetRoot.get(Target_.assignedDistributionSet);
+        final Path<Long> optLockRevision = targetRoot.get("optLockRevision");
+        // the query is applied in a sub query as it might join other
+        // entities, which is not possible in the update itself
+        final Subquery<Long> matchingTargets = update.subquery(Long.class);
+        final Root<Target> matchingRoot = matchingTargets.from(Target.class);
+        matchingTargets.select(matchingRoot.<Long> get("id")).where(spec.toPredicate(matchingRoot, null, cb));
+        update.set(assignedSet, set).set(targetRoot.<String> get("assignmentId"), assignment)
+                .set(targetRoot.<Long> get("lastModifiedAt"), assignedAt)
+                .set(targetRoot.<String> get("lastModifiedBy"),
+                        currentUser != null ? cb.literal(currentUser) : cb.nullLiteral(String.class))
+                .set(optLockRevision, cb.sum(optLockRevision, 1L))
+                .where(targetRoot.<Long> get("id").in(matchingTargets), cb.or(cb.isNull(assignedSet),
+                        cb.notEqual(assignedSet, set)));
+        final int assigned = entityManager.createQuery(update).executeUpdate();
+
+        LOG.debug("assignDistributionSetByTargetQuery({}) assigned {} of {} targets", set, assigned, matching);
+
+        if (assigned > 0) {
+            entityManager.createQuery(SET_UPDATE_STATUS_OF_ASSIGNED_TARGETS)
+                    .setParameter("status", TargetUpdateStatus.PENDING).setParameter("set", set)
+                    .setParameter("assignment", assignment).executeUpdate();
+
+            // override all active actions of the assigned targets like the
+            // assignment by controller IDs
+            entityManager.createQuery(CANCEL_ACTIONS_OF_ASSIGNED_TARGETS)
+                    .setParameter("canceling", Status.CANCELING).setParameter("user", currentUser)
+                    .setParameter("set", set).setParameter("assignment", assignment)
+                    .setParameter("assignedAt", assignedAt).executeUpdate();
+            actionBatchRepository.insertActionStatusOfAssignedTargets(set, assignment, assignedAt,
+                    Status.CANCELING, currentUser, "manual cancelation requested");
+
+            actionBatchRepository.insertActionsOfAssignedTargets(set, assignment, assignedAt,
+                    new TargetWithActionType(null, actionType, forcedTimestamp), currentUser);
+
+            final List<SoftwareModule> softwareModules = softwareModuleRepository.findByAssignedTo(set);
+            forEachPageOfAssignedTargets(CANCELED_ACTIONS_OF_ASSIGNED_TARGETS, set, assignment, assignedAt,
+                    this::cancelAssignDistributionSetEvents);
+            // the events are registered page by page and hold the values
+            // of the assignments only, not the detached targets
+            forEachPageOfAssignedTargets(CREATED_ACTIONS_OF_ASSIGNED_TARGETS, set, assignment, assignedAt,
+                    page -> assignDistributionSetEvent(set.getTenant(),
+                            page.stream()
+                                    .map(action -> new TargetAssignment(action.getTarget().getControllerId(),
+                                            action.getId(), action.getTarget().getTargetInfo().getAddress(),
+                                            TargetUpdateStatus.PENDING))
+                                    .collect(Collectors.toList()),
+                            softwareModules));
+        }
+
+        // detaching as it is not necessary to persist the set itself
+        entityManager.detach(set);
+
+        return new AssignmentResult(assigned, (int) Math.max(matching - assigned, 0));
+    }
+
+    /**
+     * Reads the actions of the targets which got the set assigned by
+     * {@link #assignDistributionSetByTargetQuery} page by page and detaches
+     * them after a page has been consumed.
+     */
+    private void forEachPageOfAssignedTargets(final String query, final DistributionSet set,
+            final String assignment, final long assignedAt, final Consumer<List<Action>> consumer) {
+        long lastActionId = 0;
+        List<Action> page;
+        do {
+            page = entityManager.createQuery(query, Action.class).setParameter("set", set)
+                    .setParameter("assignment", assignment).setParameter("assignedAt", assignedAt).setParameter("canceling", Status.CANCELING)
+                    .setParameter("lastActionId", lastActionId).setMaxResults(Constants.MAX_ENTRIES_IN_STATEMENT)
+                    .getResultList();
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            lastActionId = page.get(page.size() - 1).getId();
+            for (final Action action : page) {
+                entityManager.detach(action.getTarget().getTargetInfo());
+                entityManager.detach(action.getTarget());
+                entityManager.detach(action);
+            }
+        } while (page.size() == Constants.MAX_ENTRIES_IN_STATEMENT);
+    }
+
     /**
      * method assigns the {@link DistributionSet} to all {@link Target}s by
      * their IDs with a specific {@link ActionType} and {@code forcetime}.
+     * Internal helper method used only inside service level, e.g. by the
+     * {@link AssignmentJobManagement} for every chunk of a job. As a result is
+     * no additional security necessary.
      *
      * @param dsID
      *            the ID of the distribution set to assign
@@ -247,7 +468,7 @@ public class DeploymentManagement {
      *        {@link SoftwareModuleType} are not assigned as define by the
      *        {@link DistributionSetType}.
      */
-    private DistributionSetAssignmentResult assignDistributionSetToTargets(@NotNull final DistributionSet set,
+    DistributionSetAssignmentResult assignDistributionSetToTargets(@NotNull final DistributionSet set,
             final List<TargetWithActionType> targetsWithActionType) {
 
         if (!set.isComplete()) {
@@ -283,7 +504,7 @@ public class DeploymentManagement {
             entityManager.detach(set);
             // return with nothing as all targets had the DS already assigned
             return new DistributionSetAssignmentResult(Collections.emptyList(), 0, targetsWithActionType.size(),
-                    Collections.emptyList(), targetManagement);
+                    Collections.emptyList(), targetManagement, actionRepository);
         }
 
         final List<List<Long>> targetIds = Lists.partition(
@@ -301,48 +522,29 @@ public class DeploymentManagement {
         // final List<Long> canncelledTargetIds =
 
         // set assigned distribution set and TargetUpdateStatus
-        final String currentUser;
-        if (auditorProvider != null) {
-            currentUser = auditorProvider.getCurrentAuditor();
-        } else {
-            currentUser = null;
-        }
+        final String currentUser = getCurrentAuditor();
 
         targetIds.forEach(tIds -> targetRepository.setAssignedDistributionSet(set, System.currentTimeMillis(),
                 currentUser, tIds));
         targetIds.forEach(tIds -> targetInfoRepository.setTargetUpdateStatus(TargetUpdateStatus.PENDING, tIds));
 
-        final Map<String, Action> targetIdsToActions = actionRepository.save(targets.stream().map(t -> {
-            final Action tAction = new Action();
-            final TargetWithActionType targetWithActionType = targetsWithActionMap.get(t.getControllerId());
-            tAction.setActionType(targetWithActionType.getActionType());
-            tAction.setForcedTime(targetWithActionType.getForceTime());
-            tAction.setActive(true);
-            tAction.setStatus(Status.RUNNING);
-            tAction.setTarget(t);
-            tAction.setDistributionSet(set);
-            return tAction;
-        }).collect(Collectors.toList())).stream()
-                .collect(Collectors.toMap(a -> a.getTarget().getControllerId(), Function.identity()));
-
-        // MECS-720 create initial action status when action is created so we
-        // remember the initial
-        // running status because we will change the status of the action itself
-        // and with this action
-        // status we have a nicer action history.
-        targetIdsToActions.values().forEach(action -> {
-            final ActionStatus actionStatus = new ActionStatus();
-            actionStatus.setAction(action);
-            actionStatus.setOccurredAt(action.getCreatedAt());
-            actionStatus.setStatus(Status.RUNNING);
-            actionStatusRepository.save(actionStatus);
-        });
+        // the actions and their initial running status are inserted in
+        // batches, the action status history starts with the running status
+        // because the status of the action itself changes later on, pending
+        // changes are flushed first as the inserts bypass the persistence
+        // context
+        entityManager.flush();
+        final long createdAt = System.currentTimeMillis();
+        final Map<Long, Long> targetIdsToActionIds = actionBatchRepository.insertActions(set, targets,
+                t -> targetsWithActionMap.get(t.getControllerId()), currentUser, createdAt);
+        actionBatchRepository.insertActionStatus(set.getTenant(), targetIdsToActionIds.values(), Status.RUNNING,
+                createdAt, currentUser, null);
 
         // select updated targets in order to return them
         final DistributionSetAssignmentResult result = new DistributionSetAssignmentResult(targets.stream()
                 .map(target -> target.getControllerId()).collect(Collectors.toList()), targets.size(),
-                controllerIDs.size() - targets.size(), Lists.newArrayList(targetIdsToActions.values()),
-                targetManagement);
+                controllerIDs.size() - targets.size(), Lists.newArrayList(targetIdsToActionIds.values()),
+                targetManagement, actionRepository);
 
         LOG.debug("assignDistribution({}) finished {}", set, result);
 
@@ -351,36 +553,39 @@ public class DeploymentManagement {
         // detaching as it is not necessary to persist the set itself
         entityManager.detach(set);
 
-        // send distribution set assignment event
-
-        targets.stream()
+        // send distribution set assignment events, the targets with canceled
+        // actions get the assignment after the cancellation
+        final List<TargetAssignment> assignments = targets.stream()
                 .filter(t -> !!!targetIdsCancellList.contains(t.getId()))
-                .forEach(
-                        t -> assignDistributionSetEvent(t, targetIdsToActions.get(t.getControllerId()).getId(),
-                                softwareModules));
+                .map(t -> new TargetAssignment(t.getControllerId(), targetIdsToActionIds.get(t.getId()),
+                        t.getTargetInfo().getAddress(), TargetUpdateStatus.PENDING))
+                .collect(Collectors.toList());
+        assignDistributionSetEvent(set.getTenant(), assignments, softwareModules);
 
         return result;
     }
 
     /**
-     * Sends the {@link TargetAssignDistributionSetEvent} for a specific target
-     * to the {@link EventBus}.
+     * Sends {@link TargetAssignDistributionSetBulkEvent}s for the assigned
+     * targets to the {@link EventBus} after the commit, at most
+     * {@link #MAX_ASSIGNMENTS_PER_EVENT} assignments per event. Mass
+     * assignments call this per page of assigned targets.
      * 
-     * @param target
-     *            the Target which has been assigned to a distribution set
-     * @param actionId
-     *            the action id of the assignment
+     * @param tenant
+     *            the tenant of the targets
+     * @param assignments
+     *            the targets which have been assigned to a distribution set
+     *            and the action ids of the assignments
      * @param softwareModules
      *            the software modules which have been assigned
      */
-    private void assignDistributionSetEvent(final Target target, final Long actionId,
+    private void assignDistributionSetEvent(final String tenant, final List<TargetAssignment> assignments,
             final List<SoftwareModule> softwareModules) {
-        target.getTargetInfo().setUpdateStatus(TargetUpdateStatus.PENDING);
-        afterCommit.afterCommit(() -> {
-            eventBus.post(new TargetInfoUpdateEvent(target.getTargetInfo()));
-            eventBus.post(new TargetAssignDistributionSetEvent(target.getControllerId(), actionId, softwareModules,
-                    target.getTargetInfo().getAddress()));
-        });
+        if (assignments.isEmpty()) {
+            return;
+        }
+        afterCommit.afterCommit(() -> Lists.partition(assignments, MAX_ASSIGNMENTS_PER_EVENT).forEach(
+                batch -> eventBus.post(new TargetAssignDistributionSetBulkEvent(tenant, batch, softwareModules))));
     }
 
     /**
@@ -402,19 +607,28 @@ public class DeploymentManagement {
                         Action.Status.CANCELING);
         activeActions.forEach(action -> {
             action.setStatus(Status.CANCELING);
-            // document that the status has been retrieved
-                actionStatusRepository.save(new ActionStatus(action, Status.CANCELING, System.currentTimeMillis(),
-                        "manual cancelation requested"));
-
-                cancelAssignDistributionSetEvent(action.getTarget(), action.getId());
-
-                cancelledTargetIds.add(action.getTarget().getId());
-            });
+            cancelledTargetIds.add(action.getTarget().getId());
+        });
+        cancelAssignDistributionSetEvents(activeActions);
         actionRepository.save(activeActions);
 
+        // document that the status has been retrieved
+        if (!activeActions.isEmpty()) {
+            actionBatchRepository.insertActionStatus(activeActions.get(0).getTenant(),
+                    activeActions.stream().map(Action::getId).collect(Collectors.toList()), Status.CANCELING,
+                    System.currentTimeMillis(), getCurrentAuditor(), "manual cancelation requested");
+        }
+
         return cancelledTargetIds;
     }
 
+    private String getCurrentAuditor() {
+        if (auditorProvider != null) {
+            return auditorProvider.getCurrentAuditor();
+        }
+        return null;
+    }
+
     private DistributionSetAssignmentResult assignDistributionSetByTargetId(@NotNull final DistributionSet set,
             @NotEmpty final List<String> tIDs, final ActionType actionType, final long forcedTime) {
         return assignDistributionSetToTargets(set,
@@ -502,8 +716,24 @@ public class DeploymentManagement {
      *            the action id of the assignment
      */
     private void cancelAssignDistributionSetEvent(final Target target, final Long actionId) {
-        afterCommit.afterCommit(() -> eventBus.post(new CancelTargetAssignmentEvent(target.getControllerId(), actionId,
-                target.getTargetInfo().getAddress())));
+        afterCommit.afterCommit(() -> eventBus.post(new CancelTargetAssignmentEvent(target.getTenant(),
+                target.getControllerId(), actionId, target.getTargetInfo().getAddress())));
+    }
+
+    /**
+     * Sends the cancellations of the given actions after the commit with a
+     * single callback for all of them.
+     */
+    private void cancelAssignDistributionSetEvents(final List<Action> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+        final List<CancelTargetAssignmentEvent> events = actions.stream()
+                .map(action -> new CancelTargetAssignmentEvent(action.getTenant(),
+                        action.getTarget().getControllerId(), action.getId(),
+                        action.getTarget().getTargetInfo().getAddress()))
+                .collect(Collectors.toList());
+        afterCommit.afterCommit(() -> events.forEach(eventBus::post));
     }
 
     /**
@@ -775,6 +1005,7 @@ public class DeploymentManagement {
         final Action action = actionRepository.findOne(actionId);
         if (action != null && !action.isForced()) {
             action.setActionType(ActionType.FORCED);
+            notifyPollViewInvalidated(action.getTarget());
             return actionRepository.save(action);
         }
         return action;
@@ -828,5 +1059,50 @@ public class DeploymentManagement {
             target.setAssignedDistributionSet(nextActiveActions.get(0).getDistributionSet());
         }
         targetManagement.updateTarget(target);
+        notifyPollViewInvalidated(target);
+    }
+
+    /**
+     * Sends the {@link TargetPollViewInvalidatedEvent} for a specific target
+     * to the {@link EventBus} after the transaction has been committed. Has to
+     * be called for all changes which are visible in the controller poll
+     * response but are not covered by an assignment or cancel event, e.g.
+     * finished actions. Nothing is sent in case the poll response cache is
+     * disabled.
+     * 
+     * @param target
+     *            the target which poll response has changed
+     */
+    void notifyPollViewInvalidated(final Target target) {
+        if (!pollCacheEnabled) {
+            return;
+        }
+        final String tenant = target.getTenant();
+        final String controllerId = target.getControllerId();
+        afterCommit.afterCommit(() -> eventBus.post(new TargetPollViewInvalidatedEvent(tenant, controllerId)));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.pollcache.");
+        pollCacheEnabled = env.getProperty("enabled", Boolean.class, false);
+    }
+
+    /**
+     * Enables the invalidation events of the poll response cache, for testing
+     * purposes.
+     *
+     * @param pollCacheEnabled
+     *            {@code true} if the poll response cache is enabled
+     */
+    void setPollCacheEnabled(final boolean pollCacheEnabled) {
+        this.pollCacheEnabled = pollCacheEnabled;
     }
 }
@@ -8,12 +8,16 @@
  */
 package org.eclipse.hawkbit.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.hawkbit.Constants;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.AssignmentResult;
 import org.eclipse.hawkbit.repository.model.Target;
 
+import com.google.common.collect.Lists;
+
 /**
  * A bean which holds a complex result of an service operation to combine the
  * information of an assignment and how much of the assignment has been done and
@@ -26,10 +30,12 @@ import org.eclipse.hawkbit.repository.model.Target;
 public class DistributionSetAssignmentResult extends AssignmentResult {
 
     private final List<String> assignedTargets;
-    private final List<Action> actions;
+    private final List<Long> actions;
 
     private final TargetManagement targetManagement;
 
+    private final ActionRepository actionRepository;
+
     /**
      *
      * Constructor.
@@ -44,15 +50,19 @@ public class DistributionSetAssignmentResult extends AssignmentResult {
      * @param targetManagement
      *            to retrieve the assigned targets
      * @param actions
-     *            of the assignment
+     *            the IDs of the actions of the assignment
+     * @param actionRepository
+     *            to retrieve the actions
      *
      */
     public DistributionSetAssignmentResult(final List<String> assignedTargets, final int assigned,
-            final int alreadyAssigned, final List<Action> actions, final TargetManagement targetManagement) {
+            final int alreadyAssigned, final List<Long> actions, final TargetManagement targetManagement,
+            final ActionRepository actionRepository) {
         super(assigned, alreadyAssigned);
         this.assignedTargets = assignedTargets;
         this.actions = actions;
         this.targetManagement = targetManagement;
+        this.actionRepository = actionRepository;
     }
 
     /**
@@ -63,9 +73,19 @@ public class DistributionSetAssignmentResult extends AssignmentResult {
     }
 
     /**
-     * @return the actionId
+     * @return the actions of the assignment, loaded on demand
      */
     public List<Action> getActions() {
+        final List<Action> result = new ArrayList<>(actions.size());
+        Lists.partition(actions, Constants.MAX_ENTRIES_IN_STATEMENT)
+                .forEach(ids -> actionRepository.findAll(ids).forEach(result::add));
+        return result;
+    }
+
+    /**
+     * @return the IDs of the actions of the assignment
+     */
+    public List<Long> getActionIds() {
         return actions;
     }
 
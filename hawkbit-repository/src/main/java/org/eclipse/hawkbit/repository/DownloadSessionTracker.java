@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Tracks the download sessions of controllers to record only one
+ * {@link Status#DOWNLOAD} {@link ActionStatus} per action and artifact.
+ * Devices which resume downloads issue many range requests for the same
+ * artifact. Instead of inserting a status for each of them, further requests
+ * of a running session are counted in memory and appended as one message to
+ * the recorded status at most once per flush interval.
+ *
+ * The tracker is disabled by default and can be enabled with the property
+ * {@code hawkbit.server.download.session.enabled}.
+ *
+ */
+@Service
+public class DownloadSessionTracker implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadSessionTracker.class);
+
+    private final Map<SessionKey, DownloadSession> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ControllerManagement controllerManagement;
+
+    @Autowired
+    private ActionStatusRepository actionStatusRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    private ScheduledExecutorService flushExecutor;
+
+    private boolean enabled;
+
+    private long flushInterval = 60000;
+
+    private long sessionTimeout = 3600000;
+
+    /**
+     * Starts the periodic flush in case the tracker is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        flushExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("download-session-flush-%d").setDaemon(true).build());
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        LOG.info("Download session tracking enabled with flush interval of {} ms", flushInterval);
+    }
+
+    /**
+     * Stops the periodic flush and writes the remaining download requests.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted while waiting for download session flush termination", e);
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    /**
+     * @return {@code true} if download requests are tracked, {@code false} if
+     *         the caller has to record a status for every request
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a download request of an artifact. The first request of a
+     * session inserts a {@link Status#DOWNLOAD} status with the given message,
+     * all further requests are only counted.
+     *
+     * @param action
+     *            the action the artifact is downloaded for
+     * @param artifactId
+     *            the ID of the downloaded artifact
+     * @param range
+     *            the requested range, {@code null} for a full download
+     * @param message
+     *            the message of the recorded status in case of a full download
+     */
+    public void recordDownload(final Action action, final Long artifactId, final String range,
+            final String message) {
+        final DownloadSession session = sessions.computeIfAbsent(
+                new SessionKey(action.getTenant().toUpperCase(), action.getId(), artifactId),
+                key -> new DownloadSession());
+        session.lastAccess = System.currentTimeMillis();
+
+        synchronized (session) {
+            if (session.statusId == null) {
+                final ActionStatus status = new ActionStatus();
+                status.setAction(action);
+                status.setOccurredAt(System.currentTimeMillis());
+                status.setStatus(Status.DOWNLOAD);
+                status.addMessage(range != null ? "It is a partial download request: " + range : message);
+                session.statusId = controllerManagement.addActionStatusMessage(status).getId();
+                return;
+            }
+        }
+
+        session.lastRange = range;
+        session.foldedRequests.incrementAndGet();
+    }
+
+    /**
+     * @return the number of tracked download sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Appends the counted requests of every session to its status and removes
+     * expired sessions.
+     *
+     * @return the number of updated status entries
+     */
+    int flush() {
+        final long expiredBefore = System.currentTimeMillis() - sessionTimeout;
+        final Map<String, List<DownloadSession>> byTenant = new HashMap<>();
+        for (final Map.Entry<SessionKey, DownloadSession> entry : sessions.entrySet()) {
+            final DownloadSession session = entry.getValue();
+            if (session.statusId != null && session.foldedRequests.get() > 0) {
+                byTenant.computeIfAbsent(entry.getKey().tenant, tenant -> new ArrayList<>()).add(session);
+            } else if (session.lastAccess < expiredBefore) {
+                sessions.remove(entry.getKey(), session);
+            }
+        }
+
+        int flushed = 0;
+        for (final Map.Entry<String, List<DownloadSession>> tenantSessions : byTenant.entrySet()) {
+            try {
+                flushed += flushTenant(tenantSessions.getKey(), tenantSessions.getValue());
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to flush {} download sessions of tenant {}", tenantSessions.getValue().size(),
+                        tenantSessions.getKey(), e);
+            }
+        }
+        return flushed;
+    }
+
+    private int flushTenant(final String tenant, final List<DownloadSession> tenantSessions) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(DownloadSessionTracker.class.getCanonicalName() + ".flush");
+
+        return tenantAware.runAsTenant(tenant, () -> transactionTemplate.execute(transactionStatus -> {
+            int updated = 0;
+            for (final DownloadSession session : tenantSessions) {
+                final int folded = session.foldedRequests.getAndSet(0);
+                final ActionStatus status = actionStatusRepository.findOne(session.statusId);
+                if (folded == 0 || status == null) {
+                    continue;
+                }
+                status.addMessage(folded + " further download requests, last: "
+                        + (session.lastRange != null ? session.lastRange : "complete artifact"));
+                actionStatusRepository.save(status);
+                updated++;
+            }
+            return updated;
+        }));
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to flush download sessions", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.download.session.");
+        enabled = env.getProperty("enabled", Boolean.class, false);
+        flushInterval = env.getProperty("flushInterval", Long.class, 60000L);
+        sessionTimeout = env.getProperty("sessionTimeout", Long.class, 3600000L);
+    }
+
+    /**
+     * Key of a download session.
+     */
+    private static final class SessionKey {
+        private final String tenant;
+        private final Long actionId;
+        private final Long artifactId;
+
+        private SessionKey(final String tenant, final Long actionId, final Long artifactId) {
+            this.tenant = tenant;
+            this.actionId = actionId;
+            this.artifactId = artifactId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * tenant.hashCode() + actionId.hashCode()) * 31 + artifactId.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SessionKey)) {
+                return false;
+            }
+            final SessionKey other = (SessionKey) obj;
+            return tenant.equals(other.tenant) && actionId.equals(other.actionId)
+                    && artifactId.equals(other.artifactId);
+        }
+    }
+
+    /**
+     * The recorded status and the counted requests of a download session.
+     */
+    private static final class DownloadSession {
+        private volatile Long statusId;
+        private final AtomicInteger foldedRequests = new AtomicInteger();
+        private volatile String lastRange;
+        private volatile long lastAccess;
+    }
+}
@@ -0,0 +1,571 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.hawkbit.cache.TenancyCacheManager;
+import org.eclipse.hawkbit.im.authentication.SpPermission.SpringEvalExpressions;
+import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
+import org.eclipse.hawkbit.repository.exception.IncompleteDistributionSetException;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
+import org.eclipse.hawkbit.repository.model.RolloutWave;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.rsql.RSQLUtility;
+import org.eclipse.hawkbit.repository.specifications.TargetSpecifications;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.hibernate.validator.constraints.NotEmpty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.cache.Cache;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.annotation.Validated;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Business service facade for {@link Rollout}s, which assign a
+ * {@link DistributionSet} to all {@link Target}s matching a target query in
+ * {@link RolloutWave}s instead of all at once, so the downloads and the
+ * feedback of the targets are spread over time.
+ *
+ * The waves are released by a scheduler in the order of the target IDs. The
+ * next wave of a rollout is released if
+ * <ul>
+ * <li>the previous wave reached the success threshold of the rollout,</li>
+ * <li>the number of active actions of the rollout is below its maximum of
+ * running actions, the size of the wave is reduced to the remaining budget,
+ * and</li>
+ * <li>the number of active actions of the rollout whose latest action status
+ * is {@link Status#DOWNLOAD} is below its maximum of active downloads.</li>
+ * </ul>
+ * A rollout is stopped if a wave completes below the success threshold. The
+ * progress of all waves which are not complete is refreshed with every run.
+ * The rollouts are evaluated as the user who created them.
+ *
+ * The scheduler runs on every node, but only the node which holds the lease
+ * of the scheduler lock in the database evaluates the rollouts. The lease is
+ * renewed with every run, another node takes over after the lease has
+ * expired. The scheduler can be disabled on a node with the property
+ * {@code hawkbit.server.rollout.scheduler.enabled}.
+ *
+ */
+@Transactional(readOnly = true)
+@Validated
+@Service
+public class RolloutManagement implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RolloutManagement.class);
+
+    private static final String LOCK_NAME = "rollout-scheduler";
+
+    private static final String ACQUIRE_LOCK = "UPDATE sp_scheduler_lock SET owner = ?, lease_expires_at = ? "
+            + "WHERE name = ? AND (owner IS NULL OR owner = ? OR lease_expires_at < ?)";
+
+    private static final String CREATE_LOCK = "INSERT INTO sp_scheduler_lock (name, owner, lease_expires_at) "
+            + "VALUES (?, ?, ?)";
+
+    private static final String RELEASE_LOCK = "UPDATE sp_scheduler_lock SET owner = NULL, lease_expires_at = NULL "
+            + "WHERE name = ? AND owner = ?";
+
+    private static final String FIND_RUNNING_ROLLOUTS = "SELECT id, tenant, created_by, creator_authorities "
+            + "FROM sp_rollout WHERE status = ?";
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 512;
+
+    /**
+     * Identifies this node as owner of the scheduler lock.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private RolloutRepository rolloutRepository;
+
+    @Autowired
+    private RolloutWaveRepository rolloutWaveRepository;
+
+    @Autowired
+    private ActionRepository actionRepository;
+
+    @Autowired
+    private DistributionSetRepository distributionSetRepository;
+
+    @Autowired
+    private TargetRepository targetRepository;
+
+    @Autowired
+    private NoCountPagingRepository criteriaNoCountDao;
+
+    @Autowired
+    private DeploymentManagement deploymentManagement;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private TenancyCacheManager cacheManager;
+
+    private ScheduledExecutorService schedulerExecutor;
+
+    private boolean enabled;
+
+    private long interval = 10000;
+
+    private long leaseTime = 60000;
+
+    /**
+     * Starts the scheduler in case it is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        schedulerExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("rollout-scheduler-%d").setDaemon(true).build());
+        schedulerExecutor.scheduleWithFixedDelay(this::scheduleSafely, interval, interval, TimeUnit.MILLISECONDS);
+        LOG.info("Rollout scheduler started with an interval of {} ms", interval);
+    }
+
+    /**
+     * Stops the scheduler and releases the scheduler lock, so another node
+     * takes over without waiting for the lease.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (schedulerExecutor == null) {
+            return;
+        }
+        schedulerExecutor.shutdownNow();
+        try {
+            jdbcTemplate.update(RELEASE_LOCK, LOCK_NAME, nodeId);
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to release the rollout scheduler lock, it is taken over after its lease", e);
+        }
+    }
+
+    /**
+     * Creates a rollout which assigns the {@link DistributionSet} to all
+     * {@link Target}s matching the given query in waves.
+     *
+     * @param dsID
+     *            the ID of the distribution set to assign
+     * @param name
+     *            of the rollout
+     * @param targetQuery
+     *            the RSQL query of the targets
+     * @param actionType
+     *            the type of the actions to create
+     * @param forcedTimestamp
+     *            the time when the actions should be forced, only necessary
+     *            for {@link ActionType#TIMEFORCED}
+     * @param waveSize
+     *            the maximum number of targets of a wave
+     * @param successThreshold
+     *            the percentage of successfully finished targets of a wave
+     *            which is necessary to release the next wave
+     * @param maxRunningActions
+     *            the maximum number of active actions of the rollout,
+     *            {@code 0} if not limited
+     * @param maxActiveDownloads
+     *            the maximum number of actions of the rollout which download
+     *            at the same time, {@code 0} if not limited
+     * @return the created rollout
+     *
+     * @throws EntityNotFoundException
+     *             if {@link DistributionSet} does not exist.
+     * @throw IncompleteDistributionSetException if mandatory software module
+     *        types are not assigned as defined by the distribution set type.
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_UPDATE_TARGET)
+    public Rollout createRollout(@NotNull final Long dsID, @NotEmpty final String name,
+            @NotEmpty final String targetQuery, @NotNull final ActionType actionType, final long forcedTimestamp,
+            @Min(1) final int waveSize, @Min(0) @Max(100) final int successThreshold,
+            @Min(0) final int maxRunningActions, @Min(0) final int maxActiveDownloads) {
+        final DistributionSet set = distributionSetRepository.findOne(dsID);
+        if (set == null) {
+            throw new EntityNotFoundException(
+                    String.format("no %s with id %d found", DistributionSet.class.getSimpleName(), dsID));
+        }
+        if (!set.isComplete()) {
+            throw new IncompleteDistributionSetException(
+                    "Distribution set of type " + set.getType().getKey() + " is incomplete: " + set.getId());
+        }
+
+        // counting the targets validates the query as well
+        final long totalTargets = targetRepository
+                .count(RSQLUtility.parse(targetQuery, TargetFields.class, entityManager));
+        final Rollout rollout = new Rollout(name, set, targetQuery, actionType, forcedTimestamp, totalTargets,
+                UserSecurityContext.getCurrentAuthorities());
+        rollout.setWaveSize(waveSize);
+        rollout.setSuccessThreshold(successThreshold);
+        rollout.setMaxRunningActions(maxRunningActions);
+        rollout.setMaxActiveDownloads(maxActiveDownloads);
+        return rolloutRepository.save(rollout);
+    }
+
+    /**
+     * @param rolloutId
+     *            the ID of the rollout
+     * @return the rollout or {@code null} if it does not exist
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_READ_TARGET)
+    public Rollout findRollout(@NotNull final Long rolloutId) {
+        return rolloutRepository.findOne(rolloutId);
+    }
+
+    /**
+     * @param set
+     *            the distribution set of the rollouts
+     * @param pageable
+     *            page parameter
+     * @return the rollouts of the set
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_READ_TARGET)
+    public Page<Rollout> findRolloutsByDistributionSet(@NotNull final DistributionSet set,
+            @NotNull final Pageable pageable) {
+        return rolloutRepository.findByDistributionSet(set, pageable);
+    }
+
+    /**
+     * Retrieves the released waves of a rollout including their progress as of
+     * the last run of the scheduler.
+     *
+     * @param rollout
+     *            the rollout of the waves
+     * @return the waves ordered by their number
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_REPOSITORY_AND_READ_TARGET)
+    public List<RolloutWave> findRolloutWaves(@NotNull final Rollout rollout) {
+        return rolloutWaveRepository.findByRolloutOrderByNumberAsc(rollout);
+    }
+
+    /**
+     * Cancels a running rollout. The waves which have been released so far
+     * remain assigned.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @return the canceled rollout
+     *
+     * @throws EntityNotFoundException
+     *             if the rollout does not exist.
+     */
+    @Modifying
+    @Transactional
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_UPDATE_TARGET)
+    public Rollout cancelRollout(@NotNull final Long rolloutId) {
+        final Rollout rollout = rolloutRepository.findOne(rolloutId);
+        if (rollout == null) {
+            throw new EntityNotFoundException(
+                    String.format("no %s with id %d found", Rollout.class.getSimpleName(), rolloutId));
+        }
+        if (rollout.getStatus() != RolloutStatus.RUNNING) {
+            return rollout;
+        }
+        rollout.finish(RolloutStatus.CANCELED, null);
+        return rolloutRepository.save(rollout);
+    }
+
+    /**
+     * Evaluates all running rollouts of all tenants in case this node holds
+     * the scheduler lock.
+     *
+     * @return the number of evaluated rollouts or {@code -1} if another node
+     *         holds the lock
+     */
+    synchronized int schedule() {
+        if (!acquireLock()) {
+            return -1;
+        }
+
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(RolloutManagement.class.getCanonicalName() + ".schedule");
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        final List<RunningRollout> rollouts = jdbcTemplate.query(FIND_RUNNING_ROLLOUTS,
+                (rs, rowNum) -> new RunningRollout(rs.getLong("id"), rs.getString("tenant"),
+                        rs.getString("created_by"), rs.getString("creator_authorities")),
+                RolloutStatus.RUNNING.ordinal());
+        for (final RunningRollout rollout : rollouts) {
+            final Long rolloutId = rollout.id;
+            final String tenant = rollout.tenant;
+            try {
+                final boolean released = UserSecurityContext.runAsUser(tenant, rollout.creator, rollout.creatorAuthorities,
+                        () -> tenantAware.runAsTenant(tenant,
+                                () -> transactionTemplate.execute(status -> evaluate(rolloutId))));
+                if (released) {
+                    evictUsageCache(tenant);
+                }
+            } catch (final OptimisticLockingFailureException e) {
+                LOG.info("Rollout {} has been changed concurrently, it is evaluated again with the next run",
+                        rolloutId);
+                LOG.debug("Concurrent change of rollout {}", rolloutId, e);
+            } catch (final RuntimeException e) {
+                LOG.error("Rollout {} failed", rolloutId, e);
+                stop(tenant, rolloutId, transactionTemplate, e);
+            }
+        }
+        return rollouts.size();
+    }
+
+    /**
+     * Updates the progress of the waves of the rollout which are not complete
+     * and releases the next wave if the success threshold and the budget of
+     * the rollout allow it.
+     *
+     * @return {@code true} if a wave has been released
+     */
+    private boolean evaluate(final Long rolloutId) {
+        final Rollout rollout = rolloutRepository.findOne(rolloutId);
+        if (rollout == null || rollout.getStatus() != RolloutStatus.RUNNING) {
+            return false;
+        }
+        final DistributionSet set = rollout.getDistributionSet();
+        if (set.isDeleted()) {
+            rollout.finish(RolloutStatus.CANCELED, "Distribution set has been deleted");
+            rolloutRepository.save(rollout);
+            return false;
+        }
+
+        // earlier waves are refreshed as well as their targets might still
+        // report their results after the next wave has been released
+        RolloutWave currentWave = null;
+        for (final RolloutWave wave : rolloutWaveRepository.findByRolloutOrderByNumberAsc(rollout)) {
+            if (!wave.isComplete()) {
+                updateProgress(wave);
+            }
+            currentWave = wave;
+        }
+        if (currentWave != null) {
+            if (currentWave.getSuccessRate() < rollout.getSuccessThreshold()) {
+                if (currentWave.isComplete()) {
+                    rollout.finish(RolloutStatus.STOPPED, String.format(
+                            "Wave %d completed with a success rate of %d%% below the threshold of %d%%",
+                            currentWave.getNumber(), currentWave.getSuccessRate(), rollout.getSuccessThreshold()));
+                    rolloutRepository.save(rollout);
+                    LOG.info("Rollout {} stopped: {}", rolloutId, rollout.getErrorMessage());
+                }
+                return false;
+            }
+        }
+
+        final int budget = getReleaseBudget(rollout);
+        if (budget <= 0) {
+            LOG.debug("Rollout {} waits for its budget", rolloutId);
+            return false;
+        }
+
+        final Specification<Target> spec = Specifications
+                .where(RSQLUtility.<TargetFields, Target> parse(rollout.getTargetQuery(), TargetFields.class,
+                        entityManager))
+                .and(TargetSpecifications.hasIdGreaterThan(rollout.getLastTargetId()));
+        final List<Target> targets = criteriaNoCountDao
+                .findAll(spec, new PageRequest(0, budget, new Sort(Direction.ASC, "id")), Target.class)
+                .getContent();
+
+        if (targets.isEmpty()) {
+            if (currentWave == null || currentWave.isComplete()) {
+                rollout.finish(RolloutStatus.FINISHED, null);
+                rolloutRepository.save(rollout);
+                LOG.info("Rollout {} finished after {} waves", rolloutId, rollout.getWaveCount());
+            }
+            return false;
+        }
+
+        final long releasedAt = System.currentTimeMillis();
+        final DistributionSetAssignmentResult result = deploymentManagement.assignDistributionSetToTargets(set,
+                targets.stream().map(t -> new TargetWithActionType(t.getControllerId(), rollout.getActionType(),
+                        rollout.getForcedTime())).collect(Collectors.toList()));
+        final RolloutWave wave = rolloutWaveRepository.save(new RolloutWave(rollout, rollout.getWaveCount() + 1,
+                targets.get(0).getId(), targets.get(targets.size() - 1).getId(), releasedAt, result.getAssigned()));
+        rollout.release(wave, targets.size());
+        rolloutRepository.save(rollout);
+        LOG.info("Rollout {} released wave {} with {} targets", rolloutId, wave.getNumber(), wave.getTargets());
+        return true;
+    }
+
+    /**
+     * @return the number of targets which can be released with the next wave
+     */
+    private int getReleaseBudget(final Rollout rollout) {
+        final DistributionSet set = rollout.getDistributionSet();
+        if (rollout.getMaxActiveDownloads() > 0 && actionRepository
+                .countActiveByDistributionSetAndLatestStatus(set, Status.DOWNLOAD) >= rollout
+                        .getMaxActiveDownloads()) {
+            return 0;
+        }
+        if (rollout.getMaxRunningActions() > 0) {
+            final long running = actionRepository.countByDistributionSetAndActive(set, true);
+            return (int) Math.min(rollout.getWaveSize(), rollout.getMaxRunningActions() - running);
+        }
+        return rollout.getWaveSize();
+    }
+
+    private void updateProgress(final RolloutWave wave) {
+        int running = 0;
+        int finished = 0;
+        int error = 0;
+        for (final Object[] statusCount : actionRepository.countByDistributionSetAndTargetIdRangeGroupByStatus(
+                wave.getRollout().getDistributionSet(), wave.getFirstTargetId(), wave.getLastTargetId(),
+                wave.getReleasedAt())) {
+            final int count = ((Number) statusCount[1]).intValue();
+            switch ((Status) statusCount[0]) {
+            case FINISHED:
+                finished += count;
+                break;
+            case ERROR:
+                error += count;
+                break;
+            case CANCELED:
+                break;
+            default:
+                running += count;
+                break;
+            }
+        }
+        wave.updateProgress(running, finished, error);
+        rolloutWaveRepository.save(wave);
+    }
+
+    private void stop(final String tenant, final Long rolloutId, final TransactionTemplate transactionTemplate,
+            final RuntimeException cause) {
+        final String message = String.valueOf(cause.getMessage());
+        try {
+            tenantAware.runAsTenant(tenant, () -> transactionTemplate.execute(status -> {
+                final Rollout rollout = rolloutRepository.findOne(rolloutId);
+                if (rollout != null && rollout.getStatus() == RolloutStatus.RUNNING) {
+                    rollout.finish(RolloutStatus.STOPPED, message.length() > MAX_ERROR_MESSAGE_LENGTH
+                            ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH) : message);
+                    rolloutRepository.save(rollout);
+                }
+                return null;
+            }));
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to stop rollout {}, it is evaluated again with the next run", rolloutId, e);
+        }
+    }
+
+    /**
+     * Acquires or renews the lease of the scheduler lock.
+     *
+     * @return {@code true} if this node holds the lock
+     */
+    private boolean acquireLock() {
+        final long now = System.currentTimeMillis();
+        if (jdbcTemplate.update(ACQUIRE_LOCK, nodeId, now + leaseTime, LOCK_NAME, nodeId, now) == 1) {
+            return true;
+        }
+        try {
+            // the lock is created by the first node
+            return jdbcTemplate.update(CREATE_LOCK, LOCK_NAME, nodeId, now + leaseTime) == 1;
+        } catch (final DuplicateKeyException e) {
+            LOG.trace("Rollout scheduler lock is held by another node", e);
+            return false;
+        }
+    }
+
+    private void evictUsageCache(final String tenant) {
+        tenantAware.runAsTenant(tenant, () -> {
+            final Cache cache = cacheManager.getCache("distributionUsageAssigned");
+            if (cache != null) {
+                cache.clear();
+            }
+            return null;
+        });
+    }
+
+    private void scheduleSafely() {
+        try {
+            schedule();
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to schedule the rollouts", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.rollout.scheduler.");
+        enabled = env.getProperty("enabled", Boolean.class, true);
+        interval = env.getProperty("interval", Long.class, 10000L);
+        leaseTime = env.getProperty("leaseTime", Long.class, 60000L);
+    }
+
+    /**
+     * A running rollout as read by the scheduler.
+     */
+    private static final class RunningRollout {
+        private final Long id;
+        private final String tenant;
+        private final String creator;
+        private final String creatorAuthorities;
+
+        private RunningRollout(final Long id, final String tenant, final String creator,
+                final String creatorAuthorities) {
+            this.id = id;
+            this.tenant = tenant;
+            this.creator = creator;
+            this.creatorAuthorities = creatorAuthorities;
+        }
+    }
+}
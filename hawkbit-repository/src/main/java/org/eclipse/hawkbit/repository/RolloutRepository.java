@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link Rollout} repository.
+ *
+ */
+@Transactional(readOnly = true)
+public interface RolloutRepository extends BaseEntityRepository<Rollout, Long> {
+
+    /**
+     * Retrieves the rollouts of a {@link DistributionSet}.
+     *
+     * @param distributionSet
+     *            the set of the rollouts
+     * @param pageable
+     *            page parameter
+     * @return the found {@link Rollout}s
+     */
+    Page<Rollout> findByDistributionSet(DistributionSet distributionSet, Pageable pageable);
+
+    @Override
+    @Modifying
+    @Transactional
+    <S extends Rollout> S save(S entity);
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.util.List;
+
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.RolloutWave;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link RolloutWave} repository.
+ *
+ */
+@Transactional(readOnly = true)
+public interface RolloutWaveRepository extends BaseEntityRepository<RolloutWave, Long> {
+
+    /**
+     * Retrieves the waves of a {@link Rollout}.
+     *
+     * @param rollout
+     *            the rollout of the waves
+     * @return the found {@link RolloutWave}s ordered by their number
+     */
+    List<RolloutWave> findByRolloutOrderByNumberAsc(Rollout rollout);
+
+    /**
+     * Retrieves a wave of a {@link Rollout} by its number.
+     *
+     * @param rollout
+     *            the rollout of the wave
+     * @param number
+     *            of the wave
+     * @return the found {@link RolloutWave} or {@code null}
+     */
+    RolloutWave findByRolloutAndNumber(Rollout rollout, int number);
+
+    @Override
+    @Modifying
+    @Transactional
+    <S extends RolloutWave> S save(S entity);
+}
@@ -17,6 +17,8 @@ import javax.persistence.EntityManager;
 import javax.validation.constraints.NotNull;
 
 import org.eclipse.hawkbit.cache.TenancyCacheManager;
+import org.eclipse.hawkbit.eventbus.event.TenantConfigurationChangedEvent;
+import org.eclipse.hawkbit.executor.AfterTransactionCommitExecutor;
 import org.eclipse.hawkbit.im.authentication.SpPermission.SpringEvalExpressions;
 import org.eclipse.hawkbit.report.model.SystemUsageReport;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
@@ -46,6 +48,8 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import com.google.common.eventbus.EventBus;
+
 /**
  * Central system management operations of the SP server.
  *
@@ -66,6 +70,15 @@ public class SystemManagement implements EnvironmentAware {
     @Autowired
     private DistributionSetRepository distributionSetRepository;
 
+    @Autowired
+    private AssignmentJobRepository assignmentJobRepository;
+
+    @Autowired
+    private RolloutWaveRepository rolloutWaveRepository;
+
+    @Autowired
+    private RolloutRepository rolloutRepository;
+
     @Autowired
     private SoftwareModuleRepository softwareModuleRepository;
 
@@ -105,6 +118,12 @@ public class SystemManagement implements EnvironmentAware {
     @Autowired
     private TenancyCacheManager cacheManager;
 
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
     private final ThreadLocal<String> createInitialTenant = new ThreadLocal<>();
 
     private final ConfigurableConversionService conversionService = new DefaultConversionService();
@@ -239,6 +258,9 @@ public class SystemManagement implements EnvironmentAware {
             externalArtifactProviderRepository.deleteByTenantIgnoreCase(tenant);
             targetTagRepository.deleteByTenantIgnoreCase(tenant);
             actionRepository.deleteByTenantIgnoreCase(tenant);
+            assignmentJobRepository.deleteByTenantIgnoreCase(tenant);
+            rolloutWaveRepository.deleteByTenantIgnoreCase(tenant);
+            rolloutRepository.deleteByTenantIgnoreCase(tenant);
             distributionSetTagRepository.deleteByTenantIgnoreCase(tenant);
             distributionSetRepository.deleteByTenantIgnoreCase(tenant);
             distributionSetTypeRepository.deleteByTenantIgnoreCase(tenant);
@@ -361,7 +383,9 @@ public class SystemManagement implements EnvironmentAware {
         } else {
             tenantConfiguration = new TenantConfiguration(tenantConf.getKey(), tenantConf.getValue());
         }
-        return tenantConfigurationRepository.save(tenantConfiguration);
+        final TenantConfiguration savedConfiguration = tenantConfigurationRepository.save(tenantConfiguration);
+        notifyConfigurationChanged(savedConfiguration.getKey());
+        return savedConfiguration;
     }
 
     /**
@@ -375,6 +399,12 @@ public class SystemManagement implements EnvironmentAware {
     @Modifying
     public void deleteConfiguration(final TenantConfigurationKey configurationKey) {
         tenantConfigurationRepository.deleteByKey(configurationKey.getKeyName());
+        notifyConfigurationChanged(configurationKey.getKeyName());
+    }
+
+    private void notifyConfigurationChanged(final String configurationKey) {
+        final String tenant = tenantAware.getCurrentTenant();
+        afterCommit.afterCommit(() -> eventBus.post(new TenantConfigurationChangedEvent(tenant, configurationKey)));
     }
 
     @Transactional
@@ -0,0 +1,360 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.net.URI;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+
+import org.eclipse.hawkbit.Constants;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Write-behind buffer for the last poll time and the address of controllers.
+ * Nearly every controller request only refreshes
+ * {@link TargetInfo#getLastTargetQuery()} and {@link TargetInfo#getAddress()}.
+ * Instead of merging and updating the {@link TargetInfo} in a separate
+ * transaction for every request, the heartbeats are collected in memory keyed
+ * by tenant and controller ID. Repeated polls of the same controller are
+ * coalesced and flushed periodically with a JDBC batch update per tenant.
+ *
+ * The buffer is disabled by default and can be enabled with the property
+ * {@code hawkbit.server.controller.heartbeat.enabled}.
+ *
+ */
+@Service
+public class TargetHeartbeatBuffer implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TargetHeartbeatBuffer.class);
+
+    private static final String UPDATE_HEARTBEAT = "UPDATE sp_target_info SET last_target_query = ?, address = COALESCE(?, address) "
+            + "WHERE target_id = (SELECT t.id FROM sp_target t WHERE t.tenant = ? AND t.controller_id = ?) "
+            + "AND (last_target_query IS NULL OR last_target_query < ?)";
+
+    private static final String FIND_TARGET_IDS = "SELECT id FROM sp_target WHERE tenant = ? AND controller_id IN (%s)";
+
+    private static final String METRIC_BUFFER_SIZE = "hawkbit.controller.heartbeat.buffer.size";
+    private static final String METRIC_FLUSH_SIZE = "hawkbit.controller.heartbeat.flush.size";
+    private static final String METRIC_FLUSH_LATENCY = "hawkbit.controller.heartbeat.flush.latency";
+
+    private final Map<HeartbeatKey, Heartbeat> buffer = new ConcurrentHashMap<>();
+
+    /**
+     * Set while a flush triggered by a full buffer is queued or running, so
+     * that a full buffer triggers only one additional flush.
+     */
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private GaugeService gaugeService;
+
+    private ScheduledExecutorService flushExecutor;
+
+    private boolean enabled;
+
+    private long flushInterval = 5000;
+
+    private int maxBufferSize = 100000;
+
+    /**
+     * Starts the periodic flush in case the buffer is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        flushExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("heartbeat-flush-%d").setDaemon(true).build());
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        LOG.info("Controller heartbeat buffer enabled with flush interval of {} ms", flushInterval);
+    }
+
+    /**
+     * Stops the periodic flush and writes all remaining heartbeats to the
+     * database.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(flushInterval, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Heartbeat flush did not terminate in time, flushing remaining entries on shutdown");
+            }
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted while waiting for heartbeat flush termination", e);
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    /**
+     * @return {@code true} if heartbeats are buffered, {@code false} if the
+     *         caller has to update the {@link TargetInfo} directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a heartbeat of the given controller. A newer heartbeat of the
+     * same controller replaces an older one which has not been flushed yet.
+     *
+     * @param tenant
+     *            the tenant of the target
+     * @param controllerId
+     *            the ID of the controller
+     * @param lastTargetQuery
+     *            the time of the poll in milliseconds
+     * @param address
+     *            the client address of the target, might be {@code null}
+     */
+    public void record(final String tenant, final String controllerId, final long lastTargetQuery,
+            final URI address) {
+        final String addressValue = address != null ? address.toString() : null;
+        buffer.merge(new HeartbeatKey(tenant.toUpperCase(), controllerId),
+                new Heartbeat(lastTargetQuery, addressValue), Heartbeat::merge);
+
+        if (buffer.size() >= maxBufferSize && flushExecutor != null && !flushExecutor.isShutdown()
+                && flushPending.compareAndSet(false, true)) {
+            LOG.debug("Heartbeat buffer reached its maximum size of {}, triggering flush", maxBufferSize);
+            flushExecutor.execute(() -> {
+                try {
+                    flushSafely();
+                } finally {
+                    flushPending.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of heartbeats which are not flushed yet
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    /**
+     * Writes all buffered heartbeats with one JDBC batch update per tenant.
+     *
+     * @return the number of flushed heartbeats
+     */
+    int flush() {
+        final int bufferSize = buffer.size();
+        gaugeService.submit(METRIC_BUFFER_SIZE, bufferSize);
+        if (bufferSize == 0) {
+            return 0;
+        }
+
+        final long start = System.currentTimeMillis();
+        final Map<String, List<Map.Entry<HeartbeatKey, Heartbeat>>> byTenant = drain();
+        final Cache cache = entityManager.getEntityManagerFactory().getCache();
+        int flushed = 0;
+        for (final Map.Entry<String, List<Map.Entry<HeartbeatKey, Heartbeat>>> tenantEntries : byTenant
+                .entrySet()) {
+            try {
+                final List<Long> targetIds = flushTenant(tenantEntries.getKey(), tenantEntries.getValue());
+                // the heartbeats have been written bypassing the persistence
+                // context
+                targetIds.forEach(targetId -> cache.evict(TargetInfo.class, targetId));
+                flushed += tenantEntries.getValue().size();
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to flush {} controller heartbeats of tenant {}", tenantEntries.getValue().size(),
+                        tenantEntries.getKey(), e);
+            }
+        }
+
+        final long latency = System.currentTimeMillis() - start;
+        gaugeService.submit(METRIC_FLUSH_SIZE, flushed);
+        gaugeService.submit(METRIC_FLUSH_LATENCY, latency);
+        LOG.debug("Flushed {} controller heartbeats in {} ms", flushed, latency);
+        return flushed;
+    }
+
+    private Map<String, List<Map.Entry<HeartbeatKey, Heartbeat>>> drain() {
+        final Map<String, List<Map.Entry<HeartbeatKey, Heartbeat>>> byTenant = new HashMap<>();
+        for (final HeartbeatKey key : buffer.keySet()) {
+            // heartbeats recorded after the removal are flushed next time
+            final Heartbeat heartbeat = buffer.remove(key);
+            if (heartbeat != null) {
+                byTenant.computeIfAbsent(key.tenant, tenant -> new ArrayList<>())
+                        .add(new AbstractMap.SimpleImmutableEntry<>(key, heartbeat));
+            }
+        }
+        return byTenant;
+    }
+
+    /**
+     * @return the IDs of the targets which heartbeats have been flushed
+     */
+    private List<Long> flushTenant(final String tenant, final List<Map.Entry<HeartbeatKey, Heartbeat>> entries) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(TargetHeartbeatBuffer.class.getCanonicalName() + ".flush");
+
+        return tenantAware.runAsTenant(tenant, () -> transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_HEARTBEAT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                    final HeartbeatKey key = entries.get(i).getKey();
+                    final Heartbeat heartbeat = entries.get(i).getValue();
+                    ps.setLong(1, heartbeat.lastTargetQuery);
+                    if (heartbeat.address != null) {
+                        ps.setString(2, heartbeat.address);
+                    } else {
+                        ps.setNull(2, Types.VARCHAR);
+                    }
+                    ps.setString(3, key.tenant);
+                    ps.setString(4, key.controllerId);
+                    ps.setLong(5, heartbeat.lastTargetQuery);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return entries.size();
+                }
+            });
+            return findTargetIds(tenant, entries);
+        }));
+    }
+
+    private List<Long> findTargetIds(final String tenant, final List<Map.Entry<HeartbeatKey, Heartbeat>> entries) {
+        final List<Long> targetIds = new ArrayList<>(entries.size());
+        for (final List<Map.Entry<HeartbeatKey, Heartbeat>> partition : Lists.partition(entries,
+                Constants.MAX_ENTRIES_IN_STATEMENT)) {
+            final List<Object> args = new ArrayList<>(partition.size() + 1);
+            args.add(tenant);
+            partition.forEach(entry -> args.add(entry.getKey().controllerId));
+            targetIds.addAll(jdbcTemplate.queryForList(
+                    String.format(FIND_TARGET_IDS, String.join(",", Collections.nCopies(partition.size(), "?"))),
+                    Long.class, args.toArray()));
+        }
+        return targetIds;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to flush controller heartbeats", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.heartbeat.");
+        enabled = env.getProperty("enabled", Boolean.class, false);
+        flushInterval = env.getProperty("flushInterval", Long.class, 5000L);
+        maxBufferSize = env.getProperty("maxBufferSize", Integer.class, 100000);
+    }
+
+    /**
+     * Key of a buffered heartbeat.
+     */
+    private static final class HeartbeatKey {
+        private final String tenant;
+        private final String controllerId;
+
+        private HeartbeatKey(final String tenant, final String controllerId) {
+            this.tenant = tenant;
+            this.controllerId = controllerId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenant.hashCode() + controllerId.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof HeartbeatKey)) {
+                return false;
+            }
+            final HeartbeatKey other = (HeartbeatKey) obj;
+            return tenant.equals(other.tenant) && controllerId.equals(other.controllerId);
+        }
+    }
+
+    /**
+     * The latest poll time and address of a controller.
+     */
+    private static final class Heartbeat {
+        private final long lastTargetQuery;
+        private final String address;
+
+        private Heartbeat(final long lastTargetQuery, final String address) {
+            this.lastTargetQuery = lastTargetQuery;
+            this.address = address;
+        }
+
+        private static Heartbeat merge(final Heartbeat older, final Heartbeat newer) {
+            final long lastTargetQuery = Math.max(older.lastTargetQuery, newer.lastTargetQuery);
+            final String address = newer.address != null ? newer.address : older.address;
+            return new Heartbeat(lastTargetQuery, address);
+        }
+    }
+}
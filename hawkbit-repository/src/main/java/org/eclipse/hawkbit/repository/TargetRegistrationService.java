@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.eventbus.event.TargetDeletedEvent;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Plug-and-play registration of targets. A target is inserted in its own
+ * transaction, so a concurrent registration of the same controller on this or
+ * another node which violates the unique constraint of the controller ID does
+ * not fail the caller but returns the target which has been registered
+ * concurrently. The concurrently registered target is read in a new
+ * transaction as well, as a caller transaction with isolation level
+ * {@code REPEATABLE READ}, e.g. on MySQL, would not see it.
+ *
+ * The IDs of the known targets can be cached per tenant by controller ID, so
+ * the existence check of a polling controller is a primary key lookup instead
+ * of a query. The cache is disabled by default and can be enabled with the
+ * property {@code hawkbit.server.controller.registration.cache}.
+ *
+ */
+@EventSubscriber
+public class TargetRegistrationService implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TargetRegistrationService.class);
+
+    @Autowired
+    private TargetRepository targetRepository;
+
+    @Autowired
+    private TargetManagement targetManagement;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    private final Map<String, Cache<String, Long>> targetIds = new ConcurrentHashMap<>();
+
+    private boolean cacheEnabled;
+
+    private long maxCachedTargetsPerTenant = 10000;
+
+    private int maxAttempts = 3;
+
+    /**
+     * Finds the target of the given controller.
+     *
+     * @param controllerId
+     *            of the target
+     * @return the target or {@code null} if it does not exist
+     */
+    public Target findTarget(final String controllerId) {
+        final Cache<String, Long> tenantTargetIds = getTenantTargetIds();
+        if (tenantTargetIds != null) {
+            final Long targetId = tenantTargetIds.getIfPresent(controllerId);
+            if (targetId != null) {
+                final Target target = targetRepository.findOne(targetId);
+                if (target != null && controllerId.equals(target.getControllerId())) {
+                    return target;
+                }
+                tenantTargetIds.invalidate(controllerId);
+            }
+        }
+
+        final Target target = targetRepository.findByControllerId(controllerId);
+        if (target != null && tenantTargetIds != null) {
+            tenantTargetIds.put(controllerId, target.getId());
+        }
+        return target;
+    }
+
+    /**
+     * Finds the targets of the given controllers with one query.
+     *
+     * @param controllerIds
+     *            of the targets
+     * @return the existing targets by controller ID
+     */
+    public Map<String, Target> findTargets(final Collection<String> controllerIds) {
+        final Map<String, Target> targets = new LinkedHashMap<>();
+        if (controllerIds.isEmpty()) {
+            return targets;
+        }
+        final Cache<String, Long> tenantTargetIds = getTenantTargetIds();
+        targetRepository.findByControllerIdIn(controllerIds.toArray(new String[controllerIds.size()]))
+                .forEach(target -> {
+                    targets.put(target.getControllerId(), target);
+                    if (tenantTargetIds != null) {
+                        tenantTargetIds.put(target.getControllerId(), target.getId());
+                    }
+                });
+        return targets;
+    }
+
+    /**
+     * Registers a new target for the given controller. In case the target has
+     * been registered concurrently that target is returned instead.
+     *
+     * @param controllerId
+     *            of the target
+     * @param address
+     *            the client address of the target, might be {@code null}
+     * @return the registered target
+     */
+    public Target registerTarget(final String controllerId, final URI address) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                final Target target = inNewTransaction("register",
+                        () -> targetManagement.createTarget(newPlugAndPlayTarget(controllerId),
+                                TargetUpdateStatus.REGISTERED, System.currentTimeMillis(), address));
+                cacheTargetId(target);
+                return target;
+            } catch (final RuntimeException e) {
+                // most likely the target has been registered concurrently,
+                // read it in a new transaction so the snapshot of a caller
+                // transaction does not hide it
+                final Target existing = inNewTransaction("findRegistered", () -> findTarget(controllerId));
+                if (existing != null) {
+                    LOG.debug("Target {} has been registered concurrently", controllerId);
+                    return existing;
+                }
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                LOG.warn("Failed to register target {} (attempt {} of {})", controllerId, attempt, maxAttempts, e);
+            }
+        }
+    }
+
+    /**
+     * Registers new targets for the given controllers in one transaction. In
+     * case the transaction fails, e.g. because one of the targets has been
+     * registered concurrently, the targets are registered one by one with
+     * {@link #registerTarget(String, URI)}.
+     *
+     * @param controllers
+     *            the client addresses of the targets by controller ID, an
+     *            address might be {@code null}
+     * @return the registered targets in the order of the given controllers
+     */
+    public List<Target> registerTargets(final Map<String, URI> controllers) {
+        if (controllers.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            final List<Target> targets = inNewTransaction("registerBatch", () -> {
+                final long now = System.currentTimeMillis();
+                final List<Target> created = new ArrayList<>(controllers.size());
+                controllers.forEach((controllerId, address) -> created.add(targetManagement
+                        .createTarget(newPlugAndPlayTarget(controllerId), TargetUpdateStatus.REGISTERED, now, address)));
+                return created;
+            });
+            targets.forEach(this::cacheTargetId);
+            return targets;
+        } catch (final RuntimeException e) {
+            LOG.debug("Failed to register {} targets in one transaction, registering one by one", controllers.size(),
+                    e);
+            final List<Target> targets = new ArrayList<>(controllers.size());
+            controllers.forEach((controllerId, address) -> targets.add(registerTarget(controllerId, address)));
+            return targets;
+        }
+    }
+
+    /**
+     * Drops the cached ID of a deleted target.
+     *
+     * @param event
+     *            the target deleted event
+     */
+    @Subscribe
+    public void onTargetDeleted(final TargetDeletedEvent event) {
+        final Cache<String, Long> tenantTargetIds = targetIds.get(event.getTenant().toUpperCase());
+        if (tenantTargetIds != null) {
+            tenantTargetIds.asMap().values().remove(event.getTargetId());
+        }
+    }
+
+    private static Target newPlugAndPlayTarget(final String controllerId) {
+        final Target target = new Target(controllerId);
+        target.setDescription("Plug and Play target: " + controllerId);
+        target.setName(controllerId);
+        return target;
+    }
+
+    private <T> T inNewTransaction(final String name, final Supplier<T> work) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(TargetRegistrationService.class.getCanonicalName() + "." + name);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private void cacheTargetId(final Target target) {
+        final Cache<String, Long> tenantTargetIds = getTenantTargetIds();
+        if (tenantTargetIds != null) {
+            tenantTargetIds.put(target.getControllerId(), target.getId());
+        }
+    }
+
+    private Cache<String, Long> getTenantTargetIds() {
+        if (!cacheEnabled) {
+            return null;
+        }
+        return targetIds.computeIfAbsent(tenantAware.getCurrentTenant().toUpperCase(),
+                tenant -> CacheBuilder.newBuilder().maximumSize(maxCachedTargetsPerTenant).build());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.registration.");
+        cacheEnabled = env.getProperty("cache", Boolean.class, false);
+        maxCachedTargetsPerTenant = env.getProperty("maxCachedTargetsPerTenant", Long.class, 10000L);
+        maxAttempts = env.getProperty("maxAttempts", Integer.class, 3);
+    }
+
+    /**
+     * @param cacheEnabled
+     *            {@code true} to cache the IDs of the known targets
+     */
+    void setCacheEnabled(final boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+}
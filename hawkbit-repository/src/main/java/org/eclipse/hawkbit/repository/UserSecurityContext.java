@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawkbit.im.authentication.TenantAwareAuthenticationDetails;
+import org.eclipse.hawkbit.tenancy.TenantAware.TenantRunner;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+
+/**
+ * Runs background processing, e.g. of jobs which have been stored by a user
+ * and are resumed on another node, in the name of the user who created it, so
+ * the entities which are created or modified by the processing are audited
+ * with this user and the secured services can be called with the authorities
+ * the user had when creating the job.
+ *
+ */
+final class UserSecurityContext {
+
+    private UserSecurityContext() {
+        // utility class
+    }
+
+    /**
+     * @return the authorities of the current user as comma separated list,
+     *         which is stored together with a job created by the user to run
+     *         it later with {@link #runAsUser(String, String, String, TenantRunner)}
+     */
+    static String getCurrentAuthorities() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return "";
+        }
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Runs the given code as the given user.
+     *
+     * @param tenant
+     *            the tenant of the user
+     * @param user
+     *            the name of the user
+     * @param authorities
+     *            the comma separated authorities of the user as retrieved by
+     *            {@link #getCurrentAuthorities()} when the user created the
+     *            job, {@code null} for none
+     * @param runner
+     *            the code to run
+     * @return the result of the runner
+     */
+    static <T> T runAsUser(final String tenant, final String user, final String authorities,
+            final TenantRunner<T> runner) {
+        final List<GrantedAuthority> grantedAuthorities = StringUtils.commaDelimitedListToSet(authorities).stream()
+                .map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        final UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user,
+                null, grantedAuthorities);
+        authentication.setDetails(new TenantAwareAuthenticationDetails(tenant, false));
+
+        final SecurityContext userContext = SecurityContextHolder.createEmptyContext();
+        userContext.setAuthentication(authentication);
+        final SecurityContext oldContext = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(userContext);
+        try {
+            return runner.run();
+        } finally {
+            SecurityContextHolder.setContext(oldContext);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.model;
+
+import javax.persistence.Column;
+import javax.persistence.ConstraintMode;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+
+/**
+ * A background job which assigns a {@link DistributionSet} to all
+ * {@link Target}s matching a target query. The targets are processed in
+ * chunks in the order of their IDs, every chunk in its own transaction. The ID
+ * of the last processed target is stored as checkpoint together with the
+ * chunk, so an interrupted job continues with the next chunk.
+ *
+ */
+@Entity
+@Table(name = "sp_assignment_job", indexes = {
+        @Index(name = "sp_idx_assignment_job_01", columnList = "tenant,distribution_set"),
+        @Index(name = "sp_idx_assignment_job_02", columnList = "status,lease_expires_at") })
+public class AssignmentJob extends BaseEntity {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The status of an {@link AssignmentJob}.
+     */
+    public enum JobStatus {
+        /**
+         * The job has not processed all targets yet.
+         */
+        RUNNING,
+
+        /**
+         * All targets have been processed.
+         */
+        FINISHED,
+
+        /**
+         * The job has been canceled, the targets processed so far remain
+         * assigned.
+         */
+        CANCELED,
+
+        /**
+         * The job has been stopped by an error.
+         */
+        FAILED;
+    }
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "distribution_set", nullable = false, updatable = false, foreignKey = @ForeignKey(value = ConstraintMode.CONSTRAINT, name = "fk_assignment_job_ds") )
+    private DistributionSet distributionSet;
+
+    @Column(name = "target_query", length = 1024, nullable = false, updatable = false)
+    private String targetQuery;
+
+    @Column(name = "action_type", nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private ActionType actionType;
+
+    @Column(name = "forced_time", updatable = false)
+    private long forcedTime;
+
+    @Column(name = "creator_authorities", length = 2048, updatable = false)
+    private String creatorAuthorities;
+
+    @Column(name = "status", nullable = false)
+    private JobStatus status;
+
+    @Column(name = "total_targets")
+    private long totalTargets;
+
+    @Column(name = "processed_targets")
+    private long processedTargets;
+
+    @Column(name = "assigned_targets")
+    private long assignedTargets;
+
+    @Column(name = "last_target_id")
+    private long lastTargetId;
+
+    @Column(name = "processing_time")
+    private long processingTime;
+
+    @Column(name = "finished_at")
+    private Long finishedAt;
+
+    @Column(name = "owner", length = 64)
+    private String owner;
+
+    @Column(name = "lease_expires_at")
+    private Long leaseExpiresAt;
+
+    @Column(name = "error_message", length = 512)
+    private String errorMessage;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public AssignmentJob() {
+        // JPA default constructor
+    }
+
+    /**
+     * Constructs a new running job.
+     *
+     * @param distributionSet
+     *            to assign
+     * @param targetQuery
+     *            the RSQL query of the targets to assign the set to
+     * @param actionType
+     *            of the created actions
+     * @param forcedTime
+     *            of the created actions, only necessary for
+     *            {@link ActionType#TIMEFORCED}
+     * @param totalTargets
+     *            the number of targets matching the query on creation
+     * @param creatorAuthorities
+     *            the comma separated authorities of the creator the job is
+     *            processed with
+     */
+    public AssignmentJob(final DistributionSet distributionSet, final String targetQuery,
+            final ActionType actionType, final long forcedTime, final long totalTargets,
+            final String creatorAuthorities) {
+        this.distributionSet = distributionSet;
+        this.targetQuery = targetQuery;
+        this.actionType = actionType;
+        this.forcedTime = forcedTime;
+        this.totalTargets = totalTargets;
+        this.creatorAuthorities = creatorAuthorities;
+        status = JobStatus.RUNNING;
+    }
+
+    /**
+     * Records a processed chunk of targets.
+     *
+     * @param lastTargetId
+     *            the ID of the last target of the chunk
+     * @param processed
+     *            the number of targets in the chunk
+     * @param assigned
+     *            the number of targets the set has been assigned to
+     * @param duration
+     *            the time the chunk took in milliseconds
+     */
+    public void checkpoint(final long lastTargetId, final int processed, final int assigned, final long duration) {
+        this.lastTargetId = lastTargetId;
+        processedTargets += processed;
+        assignedTargets += assigned;
+        processingTime += duration;
+    }
+
+    /**
+     * Finishes the job with the given status and releases its lease.
+     *
+     * @param status
+     *            the final status
+     * @param errorMessage
+     *            the cause of a failure, might be {@code null}
+     */
+    public void finish(final JobStatus status, final String errorMessage) {
+        this.status = status;
+        this.errorMessage = errorMessage;
+        finishedAt = System.currentTimeMillis();
+        owner = null;
+        leaseExpiresAt = null;
+    }
+
+    /**
+     * Estimates the remaining time of a running job by the average processing
+     * time per target so far. The time the job has not been processed, e.g.
+     * during a restart, is not taken into account.
+     *
+     * @return the estimated remaining time in milliseconds or {@code null} if
+     *         it cannot be estimated yet or the job is not running
+     */
+    public Long getEstimatedRemainingTime() {
+        if (status != JobStatus.RUNNING || processedTargets == 0) {
+            return null;
+        }
+        final long remaining = Math.max(totalTargets - processedTargets, 0);
+        return remaining * processingTime / processedTargets;
+    }
+
+    /**
+     * @return the progress of the job between 0 and 100
+     */
+    public int getProgress() {
+        if (status == JobStatus.FINISHED) {
+            return 100;
+        }
+        if (totalTargets == 0) {
+            return 0;
+        }
+        // targets created after the job might be processed as well
+        return (int) Math.min(processedTargets * 100 / totalTargets, 99);
+    }
+
+    /**
+     * @return the distributionSet
+     */
+    public DistributionSet getDistributionSet() {
+        return distributionSet;
+    }
+
+    /**
+     * @return the RSQL query of the targets
+     */
+    public String getTargetQuery() {
+        return targetQuery;
+    }
+
+    /**
+     * @return the actionType
+     */
+    public ActionType getActionType() {
+        return actionType;
+    }
+
+    /**
+     * @return the forcedTime
+     */
+    public long getForcedTime() {
+        return forcedTime;
+    }
+
+    /**
+     * @return the comma separated authorities of the creator the job is
+     *         processed with
+     */
+    public String getCreatorAuthorities() {
+        return creatorAuthorities;
+    }
+
+    /**
+     * @return the status
+     */
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the number of targets matching the query on creation
+     */
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * @return the number of targets processed so far
+     */
+    public long getProcessedTargets() {
+        return processedTargets;
+    }
+
+    /**
+     * @return the number of targets the set has been assigned to so far,
+     *         targets which already had the set assigned are not counted
+     */
+    public long getAssignedTargets() {
+        return assignedTargets;
+    }
+
+    /**
+     * @return the ID of the last processed target
+     */
+    public long getLastTargetId() {
+        return lastTargetId;
+    }
+
+    /**
+     * @return the accumulated processing time of the chunks in milliseconds
+     */
+    public long getProcessingTime() {
+        return processingTime;
+    }
+
+    /**
+     * @return the time the job has been finished or {@code null} if it is
+     *         running
+     */
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return the node which processes the job
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the time the lease of the owner expires
+     */
+    public Long getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    /**
+     * Renews the lease of the owner.
+     *
+     * @param leaseExpiresAt
+     *            the time the lease expires
+     */
+    public void setLeaseExpiresAt(final Long leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    /**
+     * @return the cause of a failure
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "AssignmentJob [id=" + getId() + ", status=" + status + ", processedTargets=" + processedTargets
+                + ", totalTargets=" + totalTargets + "]";
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.model;
+
+import javax.persistence.Column;
+import javax.persistence.ConstraintMode;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+
+/**
+ * A rollout assigns a {@link DistributionSet} to all {@link Target}s matching
+ * a target query in {@link RolloutWave}s. The targets are released wave by
+ * wave in the order of their IDs, a wave is released only if the previous
+ * wave reached the success threshold and the number of running actions and
+ * active downloads of the rollout is below the configured budget.
+ *
+ */
+@Entity
+@Table(name = "sp_rollout", indexes = { @Index(name = "sp_idx_rollout_01", columnList = "tenant,distribution_set"),
+        @Index(name = "sp_idx_rollout_02", columnList = "status") })
+public class Rollout extends BaseEntity {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The status of a {@link Rollout}.
+     */
+    public enum RolloutStatus {
+        /**
+         * Not all waves have been released or completed yet.
+         */
+        RUNNING,
+
+        /**
+         * All waves have been released and reached the success threshold.
+         */
+        FINISHED,
+
+        /**
+         * A wave has completed below the success threshold, no further waves
+         * are released.
+         */
+        STOPPED,
+
+        /**
+         * The rollout has been canceled, the released waves remain assigned.
+         */
+        CANCELED;
+    }
+
+    @Column(name = "name", length = 64, nullable = false)
+    private String name;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "distribution_set", nullable = false, updatable = false, foreignKey = @ForeignKey(value = ConstraintMode.CONSTRAINT, name = "fk_rollout_ds") )
+    private DistributionSet distributionSet;
+
+    @Column(name = "target_query", length = 1024, nullable = false, updatable = false)
+    private String targetQuery;
+
+    @Column(name = "action_type", nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private ActionType actionType;
+
+    @Column(name = "forced_time", updatable = false)
+    private long forcedTime;
+
+    @Column(name = "creator_authorities", length = 2048, updatable = false)
+    private String creatorAuthorities;
+
+    @Column(name = "wave_size", nullable = false)
+    private int waveSize;
+
+    @Column(name = "success_threshold", nullable = false)
+    private int successThreshold;
+
+    @Column(name = "max_running_actions", nullable = false)
+    private int maxRunningActions;
+
+    @Column(name = "max_active_downloads", nullable = false)
+    private int maxActiveDownloads;
+
+    @Column(name = "status", nullable = false)
+    private RolloutStatus status;
+
+    @Column(name = "total_targets")
+    private long totalTargets;
+
+    @Column(name = "released_targets")
+    private long releasedTargets;
+
+    @Column(name = "last_target_id")
+    private long lastTargetId;
+
+    @Column(name = "wave_count")
+    private int waveCount;
+
+    @Column(name = "finished_at")
+    private Long finishedAt;
+
+    @Column(name = "error_message", length = 512)
+    private String errorMessage;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public Rollout() {
+        // JPA default constructor
+    }
+
+    /**
+     * Constructs a new running rollout.
+     *
+     * @param name
+     *            of the rollout
+     * @param distributionSet
+     *            to assign
+     * @param targetQuery
+     *            the RSQL query of the targets to assign the set to
+     * @param actionType
+     *            of the created actions
+     * @param forcedTime
+     *            of the created actions, only necessary for
+     *            {@link ActionType#TIMEFORCED}
+     * @param totalTargets
+     *            the number of targets matching the query on creation
+     * @param creatorAuthorities
+     *            the comma separated authorities of the creator the rollout is
+     *            processed with
+     */
+    public Rollout(final String name, final DistributionSet distributionSet, final String targetQuery,
+            final ActionType actionType, final long forcedTime, final long totalTargets,
+            final String creatorAuthorities) {
+        this.name = name;
+        this.distributionSet = distributionSet;
+        this.targetQuery = targetQuery;
+        this.actionType = actionType;
+        this.forcedTime = forcedTime;
+        this.totalTargets = totalTargets;
+        this.creatorAuthorities = creatorAuthorities;
+        status = RolloutStatus.RUNNING;
+    }
+
+    /**
+     * Records a released wave.
+     *
+     * @param wave
+     *            the released wave
+     * @param processed
+     *            the number of targets which have been selected for the wave,
+     *            including targets which had the set assigned already
+     */
+    public void release(final RolloutWave wave, final int processed) {
+        waveCount = wave.getNumber();
+        lastTargetId = wave.getLastTargetId();
+        releasedTargets += processed;
+    }
+
+    /**
+     * Finishes the rollout with the given status.
+     *
+     * @param status
+     *            the final status
+     * @param errorMessage
+     *            the cause of a stop, might be {@code null}
+     */
+    public void finish(final RolloutStatus status, final String errorMessage) {
+        this.status = status;
+        this.errorMessage = errorMessage;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the progress of the released targets between 0 and 100
+     */
+    public int getProgress() {
+        if (status == RolloutStatus.FINISHED) {
+            return 100;
+        }
+        if (totalTargets == 0) {
+            return 0;
+        }
+        // targets created after the rollout might be released as well
+        return (int) Math.min(releasedTargets * 100 / totalTargets, 99);
+    }
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the distributionSet
+     */
+    public DistributionSet getDistributionSet() {
+        return distributionSet;
+    }
+
+    /**
+     * @return the RSQL query of the targets
+     */
+    public String getTargetQuery() {
+        return targetQuery;
+    }
+
+    /**
+     * @return the actionType
+     */
+    public ActionType getActionType() {
+        return actionType;
+    }
+
+    /**
+     * @return the forcedTime
+     */
+    public long getForcedTime() {
+        return forcedTime;
+    }
+
+    /**
+     * @return the comma separated authorities of the creator the rollout is
+     *         processed with
+     */
+    public String getCreatorAuthorities() {
+        return creatorAuthorities;
+    }
+
+    /**
+     * @return the maximum number of targets of a wave
+     */
+    public int getWaveSize() {
+        return waveSize;
+    }
+
+    /**
+     * @param waveSize
+     *            the maximum number of targets of a wave
+     */
+    public void setWaveSize(final int waveSize) {
+        this.waveSize = waveSize;
+    }
+
+    /**
+     * @return the percentage of successfully finished targets of a wave which
+     *         is necessary to release the next wave
+     */
+    public int getSuccessThreshold() {
+        return successThreshold;
+    }
+
+    /**
+     * @param successThreshold
+     *            the percentage of successfully finished targets of a wave
+     *            which is necessary to release the next wave
+     */
+    public void setSuccessThreshold(final int successThreshold) {
+        this.successThreshold = successThreshold;
+    }
+
+    /**
+     * @return the maximum number of running actions of the rollout, {@code 0}
+     *         if not limited
+     */
+    public int getMaxRunningActions() {
+        return maxRunningActions;
+    }
+
+    /**
+     * @param maxRunningActions
+     *            the maximum number of running actions of the rollout,
+     *            {@code 0} if not limited
+     */
+    public void setMaxRunningActions(final int maxRunningActions) {
+        this.maxRunningActions = maxRunningActions;
+    }
+
+    /**
+     * @return the maximum number of actions of the rollout which download the
+     *         artifacts at the same time, {@code 0} if not limited
+     */
+    public int getMaxActiveDownloads() {
+        return maxActiveDownloads;
+    }
+
+    /**
+     * @param maxActiveDownloads
+     *            the maximum number of actions of the rollout which download
+     *            the artifacts at the same time, {@code 0} if not limited
+     */
+    public void setMaxActiveDownloads(final int maxActiveDownloads) {
+        this.maxActiveDownloads = maxActiveDownloads;
+    }
+
+    /**
+     * @return the status
+     */
+    public RolloutStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the number of targets matching the query on creation
+     */
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * @return the number of targets released so far
+     */
+    public long getReleasedTargets() {
+        return releasedTargets;
+    }
+
+    /**
+     * @return the ID of the last released target
+     */
+    public long getLastTargetId() {
+        return lastTargetId;
+    }
+
+    /**
+     * @return the number of released waves, which is the number of the
+     *         current wave as well
+     */
+    public int getWaveCount() {
+        return waveCount;
+    }
+
+    /**
+     * @return the time the rollout has been finished or {@code null} if it is
+     *         running
+     */
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return the cause of a stop
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "Rollout [id=" + getId() + ", name=" + name + ", status=" + status + ", waveCount=" + waveCount
+                + "]";
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.model;
+
+import javax.persistence.Column;
+import javax.persistence.ConstraintMode;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+/**
+ * A released wave of a {@link Rollout}. The targets of a wave are the targets
+ * matching the query of the rollout with IDs between the first and the last
+ * target ID of the wave. The progress counters are updated whenever the
+ * rollout scheduler evaluates the wave.
+ *
+ */
+@Entity
+@Table(name = "sp_rollout_wave", indexes = {
+        @Index(name = "sp_idx_rollout_wave_01", columnList = "tenant,rollout,wave_number") })
+public class RolloutWave extends BaseEntity {
+    private static final long serialVersionUID = 1L;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "rollout", nullable = false, updatable = false, foreignKey = @ForeignKey(value = ConstraintMode.CONSTRAINT, name = "fk_rollout_wave_rollout") )
+    private Rollout rollout;
+
+    @Column(name = "wave_number", nullable = false, updatable = false)
+    private int number;
+
+    @Column(name = "first_target_id", updatable = false)
+    private long firstTargetId;
+
+    @Column(name = "last_target_id", updatable = false)
+    private long lastTargetId;
+
+    @Column(name = "released_at", updatable = false)
+    private long releasedAt;
+
+    @Column(name = "targets", updatable = false)
+    private int targets;
+
+    @Column(name = "running_targets")
+    private int runningTargets;
+
+    @Column(name = "finished_targets")
+    private int finishedTargets;
+
+    @Column(name = "error_targets")
+    private int errorTargets;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public RolloutWave() {
+        // JPA default constructor
+    }
+
+    /**
+     * Constructs a released wave.
+     *
+     * @param rollout
+     *            the rollout of the wave
+     * @param number
+     *            of the wave, starting with 1
+     * @param firstTargetId
+     *            the ID of the first target of the wave
+     * @param lastTargetId
+     *            the ID of the last target of the wave
+     * @param releasedAt
+     *            the time the wave has been released
+     * @param targets
+     *            the number of targets the set has been assigned to
+     */
+    public RolloutWave(final Rollout rollout, final int number, final long firstTargetId, final long lastTargetId,
+            final long releasedAt, final int targets) {
+        this.rollout = rollout;
+        this.number = number;
+        this.firstTargetId = firstTargetId;
+        this.lastTargetId = lastTargetId;
+        this.releasedAt = releasedAt;
+        this.targets = targets;
+        runningTargets = targets;
+    }
+
+    /**
+     * Updates the progress of the wave.
+     *
+     * @param running
+     *            the number of active actions
+     * @param finished
+     *            the number of successfully finished actions
+     * @param error
+     *            the number of failed actions
+     */
+    public void updateProgress(final int running, final int finished, final int error) {
+        runningTargets = running;
+        finishedTargets = finished;
+        errorTargets = error;
+    }
+
+    /**
+     * @return the percentage of successfully finished targets, {@code 100} for
+     *         a wave without targets
+     */
+    public int getSuccessRate() {
+        if (targets == 0) {
+            return 100;
+        }
+        return finishedTargets * 100 / targets;
+    }
+
+    /**
+     * @return {@code true} if none of the actions of the wave is active any
+     *         more
+     */
+    public boolean isComplete() {
+        return runningTargets == 0;
+    }
+
+    /**
+     * @return the rollout
+     */
+    public Rollout getRollout() {
+        return rollout;
+    }
+
+    /**
+     * @return the number of the wave, starting with 1
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the ID of the first target of the wave
+     */
+    public long getFirstTargetId() {
+        return firstTargetId;
+    }
+
+    /**
+     * @return the ID of the last target of the wave
+     */
+    public long getLastTargetId() {
+        return lastTargetId;
+    }
+
+    /**
+     * @return the time the wave has been released
+     */
+    public long getReleasedAt() {
+        return releasedAt;
+    }
+
+    /**
+     * @return the number of targets the set has been assigned to by the wave
+     */
+    public int getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return the number of targets with an active action
+     */
+    public int getRunningTargets() {
+        return runningTargets;
+    }
+
+    /**
+     * @return the number of targets which finished the action successfully
+     */
+    public int getFinishedTargets() {
+        return finishedTargets;
+    }
+
+    /**
+     * @return the number of targets which failed
+     */
+    public int getErrorTargets() {
+        return errorTargets;
+    }
+
+    @Override
+    public String toString() {
+        return "RolloutWave [id=" + getId() + ", number=" + number + ", targets=" + targets + ", finishedTargets="
+                + finishedTargets + ", errorTargets=" + errorTargets + "]";
+    }
+}
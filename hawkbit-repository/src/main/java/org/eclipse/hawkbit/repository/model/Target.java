@@ -66,6 +66,7 @@ import org.springframework.data.domain.Persistable;
         @Index(name = "sp_idx_target_02", columnList = "tenant,name"),
         @Index(name = "sp_idx_target_03", columnList = "tenant,controller_id,assigned_distribution_set"),
         @Index(name = "sp_idx_target_04", columnList = "tenant,created_at"),
+        @Index(name = "sp_idx_target_05", columnList = "tenant,assignment_id"),
         @Index(name = "sp_idx_target_prim", columnList = "tenant,id") }, uniqueConstraints = @UniqueConstraint(columnNames = {
                 "controller_id", "tenant" }, name = "uk_tenant_controller_id") )
 @NamedEntityGraph(name = "Target.detail", attributeNodes = { @NamedAttributeNode("tags"),
@@ -106,6 +107,14 @@ public class Target extends NamedEntity implements Persistable<Long> {
     @Column(name = "sec_token", insertable = true, updatable = true, nullable = false, length = 128)
     private String securityToken = null;
 
+    /**
+     * the key of the last set based assignment of a distribution set, which
+     * identifies the assigned targets within the assignment. Only written by
+     * the set based update of the assignment.
+     */
+    @Column(name = "assignment_id", length = 36)
+    private String assignmentId;
+
     /**
      * Constructor.
      * 
@@ -35,6 +35,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyColumn;
 import javax.persistence.MapsId;
 import javax.persistence.OneToOne;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
@@ -114,12 +115,26 @@ public class TargetInfo implements Persistable<Long>, Serializable {
     // @org.hibernate.annotations.ForeignKey( name = "fk_targ_attrib_target" )
     private final Map<String, String> controllerAttributes = Collections.synchronizedMap(new HashMap<String, String>());
 
+    /**
+     * Content hash of the {@link #controllerAttributes}, so an unchanged
+     * attribute update of a controller does not need to load them.
+     */
+    @Column(name = "attributes_hash", length = 64)
+    private String controllerAttributesHash;
+
     // set default request controller attributes to true, because we want to
     // request them the first
     // time
     @Column(name = "request_controller_attributes", nullable = false)
     private boolean requestControllerAttributes = true;
 
+    /**
+     * The persisted value of {@link #requestControllerAttributes} to detect
+     * changes of the flag.
+     */
+    @Transient
+    private boolean loadedRequestControllerAttributes = true;
+
     /**
      * Constructor for {@link TargetStatus}.
      * 
@@ -256,6 +271,22 @@ public class TargetInfo implements Persistable<Long>, Serializable {
         return controllerAttributes;
     }
 
+    /**
+     * @return the content hash of the controller attributes or {@code null}
+     *         if it has not been calculated yet
+     */
+    public String getControllerAttributesHash() {
+        return controllerAttributesHash;
+    }
+
+    /**
+     * @param controllerAttributesHash
+     *            the content hash of the controller attributes
+     */
+    public void setControllerAttributesHash(final String controllerAttributesHash) {
+        this.controllerAttributesHash = controllerAttributesHash;
+    }
+
     /**
      * @return the requestControllerAttributes
      */
@@ -263,6 +294,19 @@ public class TargetInfo implements Persistable<Long>, Serializable {
         return requestControllerAttributes;
     }
 
+    /**
+     * @return {@code true} in case the requestControllerAttributes flag has
+     *         been changed since the entity has been loaded
+     */
+    public boolean isRequestControllerAttributesChanged() {
+        return requestControllerAttributes != loadedRequestControllerAttributes;
+    }
+
+    @PostLoad
+    void rememberLoadedRequestControllerAttributes() {
+        loadedRequestControllerAttributes = requestControllerAttributes;
+    }
+
     /**
      * @return the installationDate
      */
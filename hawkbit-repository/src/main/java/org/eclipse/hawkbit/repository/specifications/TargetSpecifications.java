@@ -278,4 +278,23 @@ public final class TargetSpecifications {
             }
         };
     }
+
+    /**
+     * {@link Specification} for retrieving {@link Target}s with an ID greater
+     * than the given one, used to continue an iteration over the targets in
+     * the order of their IDs.
+     * 
+     * @param targetId
+     *            the ID of the last target of the previous iteration
+     * @return the {@link Target} {@link Specification}
+     */
+    public static Specification<Target> hasIdGreaterThan(final Long targetId) {
+        return new Specification<Target>() {
+            @Override
+            public Predicate toPredicate(final Root<Target> targetRoot, final CriteriaQuery<?> query,
+                    final CriteriaBuilder cb) {
+                return cb.greaterThan(targetRoot.get(Target_.id), targetId);
+            }
+        };
+    }
 }
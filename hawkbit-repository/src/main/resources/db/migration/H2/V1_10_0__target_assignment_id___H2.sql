@@ -0,0 +1,2 @@
+ALTER TABLE sp_target ADD COLUMN assignment_id VARCHAR(36);
+CREATE INDEX sp_idx_target_05 ON sp_target (tenant, assignment_id);
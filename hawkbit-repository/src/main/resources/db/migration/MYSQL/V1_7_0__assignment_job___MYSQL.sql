@@ -0,0 +1,33 @@
+    create table sp_assignment_job (
+        id bigint not null auto_increment,
+        created_at bigint,
+        created_by varchar(40),
+        last_modified_at bigint,
+        last_modified_by varchar(40),
+        optlock_revision bigint,
+        tenant varchar(40) not null,
+        distribution_set bigint not null,
+        target_query varchar(1024) not null,
+        action_type varchar(255) not null,
+        forced_time bigint,
+        status integer not null,
+        total_targets bigint,
+        processed_targets bigint,
+        assigned_targets bigint,
+        last_target_id bigint,
+        processing_time bigint,
+        finished_at bigint,
+        owner varchar(64),
+        lease_expires_at bigint,
+        error_message varchar(512),
+        primary key (id)
+    );
+
+    create index sp_idx_assignment_job_01 on sp_assignment_job (tenant, distribution_set);
+    create index sp_idx_assignment_job_02 on sp_assignment_job (status, lease_expires_at);
+
+    alter table sp_assignment_job
+        add constraint fk_assignment_job_ds
+        foreign key (distribution_set)
+        references sp_distribution_set (id)
+        on delete cascade;
@@ -0,0 +1,69 @@
+    create table sp_rollout (
+        id bigint not null auto_increment,
+        created_at bigint,
+        created_by varchar(40),
+        last_modified_at bigint,
+        last_modified_by varchar(40),
+        optlock_revision bigint,
+        tenant varchar(40) not null,
+        name varchar(64) not null,
+        distribution_set bigint not null,
+        target_query varchar(1024) not null,
+        action_type varchar(255) not null,
+        forced_time bigint,
+        wave_size integer not null,
+        success_threshold integer not null,
+        max_running_actions integer not null,
+        max_active_downloads integer not null,
+        status integer not null,
+        total_targets bigint,
+        released_targets bigint,
+        last_target_id bigint,
+        wave_count integer,
+        finished_at bigint,
+        error_message varchar(512),
+        primary key (id)
+    );
+
+    create table sp_rollout_wave (
+        id bigint not null auto_increment,
+        created_at bigint,
+        created_by varchar(40),
+        last_modified_at bigint,
+        last_modified_by varchar(40),
+        optlock_revision bigint,
+        tenant varchar(40) not null,
+        rollout bigint not null,
+        wave_number integer not null,
+        first_target_id bigint,
+        last_target_id bigint,
+        released_at bigint,
+        targets integer,
+        running_targets integer,
+        finished_targets integer,
+        error_targets integer,
+        primary key (id)
+    );
+
+    create table sp_scheduler_lock (
+        name varchar(64) not null,
+        owner varchar(64),
+        lease_expires_at bigint,
+        primary key (name)
+    );
+
+    create index sp_idx_rollout_01 on sp_rollout (tenant, distribution_set);
+    create index sp_idx_rollout_02 on sp_rollout (status);
+    create index sp_idx_rollout_wave_01 on sp_rollout_wave (tenant, rollout, wave_number);
+
+    alter table sp_rollout
+        add constraint fk_rollout_ds
+        foreign key (distribution_set)
+        references sp_distribution_set (id)
+        on delete cascade;
+
+    alter table sp_rollout_wave
+        add constraint fk_rollout_wave_rollout
+        foreign key (rollout)
+        references sp_rollout (id)
+        on delete cascade;
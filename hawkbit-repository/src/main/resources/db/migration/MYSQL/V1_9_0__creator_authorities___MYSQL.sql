@@ -0,0 +1,2 @@
+ALTER TABLE sp_assignment_job ADD COLUMN creator_authorities VARCHAR(2048);
+ALTER TABLE sp_rollout ADD COLUMN creator_authorities VARCHAR(2048);
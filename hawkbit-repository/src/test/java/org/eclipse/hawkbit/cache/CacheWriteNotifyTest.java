@@ -8,17 +8,22 @@
  */
 package org.eclipse.hawkbit.cache;
 
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.eclipse.hawkbit.eventbus.event.DownloadProgressBatchEvent;
 import org.eclipse.hawkbit.eventbus.event.DownloadProgressEvent;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.eclipse.hawkbit.tenancy.TenantAware.TenantRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.cache.Cache;
@@ -66,4 +71,34 @@ public class CacheWriteNotifyTest {
         verify(eventBusMock).post(any(DownloadProgressEvent.class));
     }
 
+    @Test
+    public void aggregatedDownloadProgressIsCachedAndSentOncePerWindow() {
+        final DownloadProgressAggregator aggregator = new DownloadProgressAggregator();
+        aggregator.setEventBus(eventBusMock);
+        aggregator.setCacheManager(cacheManagerMock);
+        aggregator.setTenantAware(tenantAwareMock);
+        aggregator.setEnabled(true);
+        underTest.setDownloadProgressAggregator(aggregator);
+
+        when(cacheManagerMock.getCache(Action.class.getName())).thenReturn(cacheMock);
+        when(tenantAwareMock.getCurrentTenant()).thenReturn("default");
+        when(tenantAwareMock.runAsTenant(eq("default"), any(TenantRunner.class)))
+                .then(invocation -> ((TenantRunner<?>) invocation.getArguments()[1]).run());
+
+        underTest.downloadProgressPercent(1, 10);
+        underTest.downloadProgressPercent(1, 20);
+        underTest.downloadProgressPercent(2, 100);
+        verify(eventBusMock, never()).post(any());
+
+        assertThat(aggregator.publish()).isEqualTo(2);
+        verify(cacheMock).put("1." + CacheKeys.DOWNLOAD_PROGRESS_PERCENT, 20);
+        verify(cacheMock).evict("2." + CacheKeys.DOWNLOAD_PROGRESS_PERCENT);
+        final ArgumentCaptor<DownloadProgressBatchEvent> event = ArgumentCaptor
+                .forClass(DownloadProgressBatchEvent.class);
+        verify(eventBusMock).post(event.capture());
+        assertThat(event.getValue().getProgressPercents()).hasSize(2);
+        assertThat(event.getValue().getProgressPercents().get(1L)).isEqualTo(20);
+
+        assertThat(aggregator.publish()).isEqualTo(0);
+    }
 }
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.hawkbit.AbstractIntegrationTest;
+import org.eclipse.hawkbit.TestDataUtil;
+import org.eclipse.hawkbit.repository.ActionFeedbackQueue.Feedback;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.DistributionSetTag;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+public class ActionFeedbackQueueTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ActionFeedbackQueue actionFeedbackQueue;
+
+    @Test
+    @Description("Feedback of a batch is persisted in the order of arrival within one transaction.")
+    public void batchIsPersistedInOrder() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("FeedbackDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(1));
+        final Action action = deploymentManagement.assignDistributionSet(ds, targets).getActions().get(0);
+
+        final Action runningAction = actionRepository.findOne(action.getId());
+        runningAction.setStatus(Status.RUNNING);
+        final ActionStatus running = new ActionStatus(runningAction, Status.RUNNING, System.currentTimeMillis());
+        running.addMessage("running");
+
+        final Action finishedAction = actionRepository.findOne(action.getId());
+        finishedAction.setStatus(Status.FINISHED);
+        final ActionStatus finished = new ActionStatus(finishedAction, Status.FINISHED, System.currentTimeMillis());
+        finished.addMessage("finished");
+
+        actionFeedbackQueue.persist(Arrays.asList(new Feedback(running, runningAction, false),
+                new Feedback(finished, finishedAction, false)));
+
+        assertThat(actionStatusRepository.countByActionAndStatus(action, Status.RUNNING)).isEqualTo(1L);
+        assertThat(actionStatusRepository.countByActionAndStatus(action, Status.FINISHED)).isEqualTo(1L);
+        assertThat(actionRepository.findOne(action.getId()).isActive()).isFalse();
+        assertThat(targetManagement.findTargetByControllerID(targets.get(0).getControllerId()).getTargetInfo()
+                .getUpdateStatus()).isEqualTo(TargetUpdateStatus.IN_SYNC);
+    }
+
+    @Test
+    @Description("Feedback of one action in separate batches is applied to the current state of the action and not "
+            + "to the copy which has been read when the feedback arrived.")
+    public void feedbackOfOneActionInSeparateBatchesIsPersisted() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("FeedbackDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(1));
+        final Action action = deploymentManagement.assignDistributionSet(ds, targets).getActions().get(0);
+
+        // both feedback entries arrived before the first one got persisted
+        final Action detachedAction = actionRepository.findOne(action.getId());
+        final Feedback running = new Feedback(
+                new ActionStatus(detachedAction, Status.RUNNING, System.currentTimeMillis(), "running"),
+                detachedAction, false);
+        final Feedback finished = new Feedback(
+                new ActionStatus(detachedAction, Status.FINISHED, System.currentTimeMillis(), "finished"),
+                detachedAction, false);
+
+        actionFeedbackQueue.persist(Collections.singletonList(running));
+        actionFeedbackQueue.persist(Collections.singletonList(finished));
+
+        assertThat(actionStatusRepository.countByActionAndStatus(action, Status.RUNNING)).isEqualTo(1L);
+        assertThat(actionStatusRepository.countByActionAndStatus(action, Status.FINISHED)).isEqualTo(1L);
+        final Action persistedAction = actionRepository.findOne(action.getId());
+        assertThat(persistedAction.isActive()).isFalse();
+        assertThat(persistedAction.getStatus()).isEqualTo(Status.FINISHED);
+        assertThat(targetManagement.findTargetByControllerID(targets.get(0).getControllerId()).getTargetInfo()
+                .getUpdateStatus()).isEqualTo(TargetUpdateStatus.IN_SYNC);
+    }
+
+    @Test
+    @Description("Feedback is rejected if the asynchronous ingestion is not enabled.")
+    public void feedbackIsRejectedIfNotEnabled() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("FeedbackDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(1));
+        final Action action = deploymentManagement.assignDistributionSet(ds, targets).getActions().get(0);
+
+        assertThat(actionFeedbackQueue.isEnabled()).isFalse();
+        assertThat(actionFeedbackQueue
+                .offerUpdateActionStatus(new ActionStatus(action, Status.RUNNING, System.currentTimeMillis()), action))
+                        .isFalse();
+        assertThat(actionFeedbackQueue.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.hawkbit.AbstractIntegrationTest;
+import org.eclipse.hawkbit.TestDataUtil;
+import org.eclipse.hawkbit.im.authentication.SpPermission;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.AssignmentJob;
+import org.eclipse.hawkbit.repository.model.AssignmentJob.JobStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.DistributionSetTag;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Deployment Management")
+public class AssignmentJobManagementTest extends AbstractIntegrationTest {
+
+    private static final String RESET_JOB = "UPDATE sp_assignment_job SET status = ?, owner = ?, "
+            + "lease_expires_at = ?, finished_at = NULL WHERE id = ?";
+
+    @Autowired
+    private AssignmentJobManagement assignmentJobManagement;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void resetChunkSize() {
+        assignmentJobManagement.setChunkSize(500);
+    }
+
+    @Test
+    @Description("A job assigns the set to all targets matching its query chunk by chunk and reports its progress.")
+    public void jobAssignsMatchingTargetsInChunks() throws InterruptedException {
+        assignmentJobManagement.setChunkSize(10);
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("JobDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> matching = targetManagement.createTargets(TestDataUtil.generateTargets(25, "job-"));
+        targetManagement.createTargets(TestDataUtil.generateTargets(5, "other-"));
+
+        // targets which have the set assigned already are processed but not
+        // assigned again
+        deploymentManagement.assignDistributionSet(ds, matching.subList(0, 5));
+
+        final AssignmentJob created = assignmentJobManagement.createAssignmentJob(ds.getId(), "controllerId==job-*",
+                ActionType.SOFT, 0);
+        assertThat(created.getTotalTargets()).isEqualTo(25);
+        assertThat(created.getProgress()).isEqualTo(0);
+
+        final AssignmentJob finished = waitForJob(created.getId());
+        assertThat(finished.getStatus()).isEqualTo(JobStatus.FINISHED);
+        assertThat(finished.getProcessedTargets()).isEqualTo(25);
+        assertThat(finished.getAssignedTargets()).isEqualTo(20);
+        assertThat(finished.getProgress()).isEqualTo(100);
+        assertThat(finished.getEstimatedRemainingTime()).isNull();
+        assertThat(finished.getLastTargetId()).isEqualTo(matching.get(matching.size() - 1).getId());
+
+        assertThat(targetManagement.findTargetByAssignedDistributionSet(ds.getId(), pageReq).getTotalElements())
+                .isEqualTo(25);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(25L);
+    }
+
+    @Test
+    @Description("The chunks of a job are processed as the user who created the job with the authorities of the user.")
+    public void jobIsProcessedAsItsCreator() throws InterruptedException {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("CreatorDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, "creator-"));
+
+        final AssignmentJob created = assignmentJobManagement.createAssignmentJob(ds.getId(),
+                "controllerId==creator-*", ActionType.SOFT, 0);
+        assertThat(created.getCreatedBy()).isEqualTo("bumlux");
+        assertThat(created.getCreatorAuthorities().split(",")).contains(SpPermission.READ_REPOSITORY,
+                SpPermission.UPDATE_TARGET, "ROLE_CONTROLLER");
+
+        assertThat(waitForJob(created.getId()).getStatus()).isEqualTo(JobStatus.FINISHED);
+        final List<Action> actions = actionRepository.findByDistributionSet(pageReq, ds).getContent();
+        assertThat(actions).hasSize(3);
+        for (final Action action : actions) {
+            assertThat(action.getCreatedBy()).isEqualTo("bumlux");
+        }
+    }
+
+    @Test
+    @Description("A job whose lease has expired, e.g. after a restart of its node, is resumed from its checkpoint, a job leased by another node is not claimed.")
+    public void expiredJobIsResumedFromItsCheckpoint() throws InterruptedException {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("ResumeDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(10, "resume-"));
+        final AssignmentJob created = assignmentJobManagement.createAssignmentJob(ds.getId(),
+                "controllerId==resume-*", ActionType.SOFT, 0);
+        final AssignmentJob checkpoint = waitForJob(created.getId());
+        assertThat(checkpoint.getProcessedTargets()).isEqualTo(10);
+
+        // targets behind the checkpoint which have not been processed when
+        // the node stopped
+        targetManagement.createTargets(TestDataUtil.generateTargets(10, 5, "resume-"));
+
+        // the lease of the other node is valid
+        resetJob(created.getId(), "other-node", System.currentTimeMillis() + 60000);
+        assignmentJobManagement.runJob(created.getTenant(), created.getId());
+        assertThat(assignmentJobManagement.findAssignmentJob(created.getId()).getProcessedTargets()).isEqualTo(10);
+
+        // the other node has been stopped
+        resetJob(created.getId(), "other-node", System.currentTimeMillis() - 1);
+        assertThat(assignmentJobManagement.resumeOrphanedJobs()).isGreaterThan(0);
+
+        final AssignmentJob resumed = waitForJob(created.getId());
+        assertThat(resumed.getStatus()).isEqualTo(JobStatus.FINISHED);
+        assertThat(resumed.getProcessedTargets()).isEqualTo(15);
+        assertThat(resumed.getAssignedTargets()).isEqualTo(15);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(15L);
+    }
+
+    @Test
+    @Description("A canceled job is neither processed nor resumed anymore.")
+    public void canceledJobIsNotProcessed() throws InterruptedException {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("CancelDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, "cancel-"));
+        final AssignmentJob created = assignmentJobManagement.createAssignmentJob(ds.getId(),
+                "controllerId==cancel-*", ActionType.SOFT, 0);
+        waitForJob(created.getId());
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, 3, "cancel-"));
+        resetJob(created.getId(), "other-node", System.currentTimeMillis() + 60000);
+
+        final AssignmentJob canceled = assignmentJobManagement.cancelAssignmentJob(created.getId());
+        assertThat(canceled.getStatus()).isEqualTo(JobStatus.CANCELED);
+        assertThat(canceled.getFinishedAt()).isNotNull();
+
+        assignmentJobManagement.runJob(created.getTenant(), created.getId());
+        assignmentJobManagement.resumeOrphanedJobs();
+        assertThat(assignmentJobManagement.findAssignmentJob(created.getId()).getStatus())
+                .isEqualTo(JobStatus.CANCELED);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(3L);
+    }
+
+    @Test
+    @Description("A job whose chunk fails permanently is marked as failed with the error.")
+    public void failingJobIsMarkedAsFailed() throws InterruptedException {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("FailDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final AssignmentJob created = assignmentJobManagement.createAssignmentJob(ds.getId(),
+                "controllerId==fail-*", ActionType.SOFT, 0);
+        waitForJob(created.getId());
+
+        // the query has become invalid, e.g. by a schema change
+        jdbcTemplate.update("UPDATE sp_assignment_job SET target_query = ? WHERE id = ?", "unknownField==1",
+                created.getId());
+        resetJob(created.getId(), null, null);
+        assignmentJobManagement.runJob(created.getTenant(), created.getId());
+
+        final AssignmentJob failed = assignmentJobManagement.findAssignmentJob(created.getId());
+        assertThat(failed.getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(failed.getErrorMessage()).isNotNull();
+    }
+
+    @Test
+    @Description("Deadlocks and lock timeouts are retried, other errors fail the job.")
+    public void transientErrorsAreDetected() {
+        assertThat(AssignmentJobManagement.isTransient(new DeadlockLoserDataAccessException("deadlock", null)))
+                .isTrue();
+        assertThat(AssignmentJobManagement.isTransient(new CannotAcquireLockException("lock timeout"))).isTrue();
+        assertThat(AssignmentJobManagement
+                .isTransient(new IllegalStateException(new SQLException("Deadlock found", "40001", 1213)))).isTrue();
+        assertThat(AssignmentJobManagement
+                .isTransient(new IllegalStateException(new SQLException("Lock wait timeout", "HY000", 1205))))
+                        .isTrue();
+        assertThat(AssignmentJobManagement.isTransient(new DataIntegrityViolationException("duplicate"))).isFalse();
+        assertThat(AssignmentJobManagement.isTransient(new IllegalArgumentException("invalid query"))).isFalse();
+    }
+
+    private void resetJob(final Long jobId, final String owner, final Long leaseExpiresAt) {
+        jdbcTemplate.update(RESET_JOB, JobStatus.RUNNING.ordinal(), owner, leaseExpiresAt, jobId);
+        entityManager.getEntityManagerFactory().getCache().evict(AssignmentJob.class, jobId);
+    }
+
+    private AssignmentJob waitForJob(final Long jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            final AssignmentJob job = assignmentJobManagement.findAssignmentJob(jobId);
+            if (job.getStatus() != JobStatus.RUNNING) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        return assignmentJobManagement.findAssignmentJob(jobId);
+    }
+}
@@ -10,8 +10,19 @@ package org.eclipse.hawkbit.repository;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.eclipse.hawkbit.AbstractIntegrationTest;
@@ -22,7 +33,13 @@ import org.eclipse.hawkbit.repository.model.ActionStatus;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.eclipse.persistence.internal.databaseaccess.DatabaseCall;
+import org.eclipse.persistence.jpa.JpaEntityManagerFactory;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
 import org.junit.Test;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 
 import ru.yandex.qatools.allure.annotations.Description;
 import ru.yandex.qatools.allure.annotations.Features;
@@ -112,4 +129,101 @@ public class ControllerManagementTest extends AbstractIntegrationTest {
                 .isEqualTo(TargetUpdateStatus.ERROR);
 
     }
+
+    @Test
+    @Description("Controller reports unchanged attributes which are neither read nor written again.")
+    public void unchangedControllerAttributesAreNotWritten() {
+        targetManagement.createTarget(new Target("4713"));
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("hwRevision", "1");
+        attributes.put("serial", "4713");
+        controllerManagament.updateControllerAttributes("4713", attributes);
+
+        final AttributeStatementCounter counter = new AttributeStatementCounter();
+        final Session session = entityManager.getEntityManagerFactory().unwrap(JpaEntityManagerFactory.class)
+                .getServerSession();
+        session.getEventManager().addListener(counter);
+        try {
+            controllerManagament.updateControllerAttributes("4713", new HashMap<>(attributes));
+            assertThat(counter.statements).isEqualTo(0);
+
+            final Map<String, String> changed = new HashMap<>();
+            changed.put("hwRevision", "2");
+            controllerManagament.updateControllerAttributes("4713", changed);
+            assertThat(counter.statements).isGreaterThan(0);
+        } finally {
+            session.getEventManager().removeListener(counter);
+        }
+
+        final Target target = targetManagement.findTargetByControllerIDWithDetails("4713");
+        assertThat(target.getTargetInfo().getControllerAttributes()).hasSize(2);
+        assertThat(target.getTargetInfo().getControllerAttributes().get("hwRevision")).isEqualTo("2");
+        assertThat(target.getTargetInfo().getControllerAttributes().get("serial")).isEqualTo("4713");
+    }
+
+    @Test
+    @Description("Concurrent plug and play registrations of the same controller result in exactly one target.")
+    public void concurrentRegistrationsOfSameControllerCreateOneTarget() throws Exception {
+        final int registrations = 8;
+        final ExecutorService executor = new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(registrations));
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Target>> results = new ArrayList<>();
+            for (int i = 0; i < registrations; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return controllerManagament.findOrRegisterTargetIfItDoesNotexist("4715", null);
+                }));
+            }
+            start.countDown();
+
+            final Set<Long> targetIds = new HashSet<>();
+            for (final Future<Target> result : results) {
+                targetIds.add(result.get(30, TimeUnit.SECONDS).getId());
+            }
+            assertThat(targetIds).hasSize(1);
+            assertThat(targetRepository.findByControllerIdIn("4715")).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Registers new and known controllers in one call.")
+    public void registerTargetsInBatch() {
+        targetManagement.createTarget(new Target("known"));
+
+        final Map<String, URI> controllers = new LinkedHashMap<>();
+        controllers.put("new1", null);
+        controllers.put("known", null);
+        controllers.put("new2", null);
+        final List<Target> targets = controllerManagament.findOrRegisterTargetsIfTheyDoNotExist(controllers);
+
+        assertThat(targets).hasSize(3);
+        assertThat(targets.get(0).getControllerId()).isEqualTo("new1");
+        assertThat(targets.get(1).getControllerId()).isEqualTo("known");
+        assertThat(targets.get(2).getControllerId()).isEqualTo("new2");
+        assertThat(targetManagement.findTargetByControllerID("new1").getTargetInfo().getUpdateStatus())
+                .isEqualTo(TargetUpdateStatus.REGISTERED);
+        assertThat(targetManagement.countTargetsAll()).isEqualTo(3);
+    }
+
+    /**
+     * Counts the SQL statements which access the controller attributes table.
+     */
+    private static final class AttributeStatementCounter extends SessionEventAdapter {
+        private int statements;
+
+        @Override
+        public void preExecuteCall(final SessionEvent event) {
+            if (!(event.getCall() instanceof DatabaseCall)) {
+                return;
+            }
+            final String sql = ((DatabaseCall) event.getCall()).getSQLString();
+            if (sql != null && sql.toLowerCase().contains("sp_target_attributes")) {
+                statements++;
+            }
+        }
+    }
 }
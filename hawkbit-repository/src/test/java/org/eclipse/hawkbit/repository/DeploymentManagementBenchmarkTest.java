@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.hawkbit.AbstractIntegrationTest;
+import org.eclipse.hawkbit.TestDataUtil;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.DistributionSetTag;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+/**
+ * Measures the throughput of mass assignments. The benchmark is only executed
+ * with {@code -Dhawkbit.benchmark=true}, by default on H2 and on MySQL with
+ * {@code -Dspring.jpa.database=MYSQL} and the according datasource.
+ *
+ */
+@Features("Component Tests - Repository")
+@Stories("Deployment Management")
+public class DeploymentManagementBenchmarkTest extends AbstractIntegrationTest {
+    private static final Logger LOG = LoggerFactory.getLogger(DeploymentManagementBenchmarkTest.class);
+
+    @Before
+    public void assumeBenchmark() {
+        Assume.assumeTrue(Boolean.getBoolean("hawkbit.benchmark"));
+    }
+
+    @Test
+    @Description("Measures the assignment of a distribution set to 10.000 targets.")
+    public void assign10kTargets() {
+        benchmarkAssignment(10_000);
+    }
+
+    @Test
+    @Description("Measures the assignment of a distribution set to 100.000 targets.")
+    public void assign100kTargets() {
+        benchmarkAssignment(100_000);
+    }
+
+    private void benchmarkAssignment(final int count) {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("bench" + count, "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement
+                .createTargets(TestDataUtil.generateTargets(count, "bench" + count + "-"));
+
+        final long start = System.currentTimeMillis();
+        final DistributionSetAssignmentResult result = deploymentManagement.assignDistributionSet(ds, targets);
+        final long duration = Math.max(System.currentTimeMillis() - start, 1);
+
+        LOG.info("Assigned {} targets in {} ms ({} targets/s)", count, duration, count * 1000L / duration);
+
+        assertThat(result.getAssigned()).isEqualTo(count);
+        assertThat(result.getActionIds()).hasSize(count);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo((long) count);
+    }
+}
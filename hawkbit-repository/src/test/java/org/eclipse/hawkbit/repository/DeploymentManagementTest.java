@@ -19,13 +19,17 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.eclipse.hawkbit.AbstractIntegrationTest;
 import org.eclipse.hawkbit.Constants;
 import org.eclipse.hawkbit.TestDataUtil;
 import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent.TargetAssignment;
 import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetPollViewInvalidatedEvent;
 import org.eclipse.hawkbit.repository.exception.ForceQuitActionNotAllowedException;
 import org.eclipse.hawkbit.repository.exception.IncompleteDistributionSetException;
 import org.eclipse.hawkbit.repository.model.Action;
@@ -33,6 +37,7 @@ import org.eclipse.hawkbit.repository.model.Action.ActionType;
 import org.eclipse.hawkbit.repository.model.Action.Status;
 import org.eclipse.hawkbit.repository.model.ActionStatus;
 import org.eclipse.hawkbit.repository.model.ActionWithStatusCount;
+import org.eclipse.hawkbit.repository.model.AssignmentResult;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.DistributionSetTag;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
@@ -43,6 +48,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import ru.yandex.qatools.allure.annotations.Description;
 import ru.yandex.qatools.allure.annotations.Features;
@@ -66,6 +72,9 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
     @Autowired
     private EventBus eventBus;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     @Description("Test verifies that the custom query to find all actions include the count of action status is working correctly")
     public void findActionsWithStatusCountByTarget() {
@@ -85,6 +94,147 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
         assertThat(findActionsWithStatusCountByTarget.get(0).getActionStatusCount()).isEqualTo(3L);
     }
 
+    @Test
+    @Description("Assigns a distribution set to all targets matching a target query by statements on the database and verifies the created actions and the overridden actions.")
+    public void assignDistributionSetByTargetQuery() {
+        final DistributionSet oldDs = TestDataUtil.generateDistributionSet("OldDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final DistributionSet newDs = TestDataUtil.generateDistributionSet("NewDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> matching = targetManagement.createTargets(TestDataUtil.generateTargets(10, "query-"));
+        targetManagement.createTargets(TestDataUtil.generateTargets(5, "other-"));
+        deploymentManagement.assignDistributionSet(oldDs, matching.subList(0, 3));
+
+        final AssignmentResult result = deploymentManagement.assignDistributionSetByTargetQuery(newDs.getId(),
+                "controllerId==query-*", ActionType.SOFT, Action.NO_FORCE_TIME);
+        assertThat(result.getAssigned()).isEqualTo(10);
+        assertThat(result.getAlreadyAssigned()).isEqualTo(0);
+
+        assertThat(targetManagement.findTargetByAssignedDistributionSet(newDs.getId(), pageReq).getTotalElements())
+                .isEqualTo(10);
+        assertThat(actionRepository.countByDistributionSet(newDs)).isEqualTo(10L);
+
+        final Target overridden = targetManagement.findTargetByControllerIDWithDetails("query-0");
+        assertThat(overridden.getTargetInfo().getUpdateStatus()).isEqualTo(TargetUpdateStatus.PENDING);
+        final List<Action> activeActions = deploymentManagement.findActiveActionsByTarget(overridden);
+        assertThat(activeActions).hasSize(2);
+        for (final Action action : activeActions) {
+            final boolean isOld = action.getDistributionSet().getId().equals(oldDs.getId());
+            assertThat(action.getStatus()).isEqualTo(isOld ? Status.CANCELING : Status.RUNNING);
+            assertThat(action.getActionType()).isEqualTo(isOld ? ActionType.FORCED : ActionType.SOFT);
+            // the initial status and the cancel request of the old action
+            assertThat(actionStatusRepository.findByAction(pageReq, action).getTotalElements())
+                    .isEqualTo(isOld ? 2 : 1);
+        }
+
+        // assigning again does not create further actions
+        final AssignmentResult again = deploymentManagement.assignDistributionSetByTargetQuery(newDs.getId(),
+                "controllerId==query-*", ActionType.SOFT, Action.NO_FORCE_TIME);
+        assertThat(again.getAssigned()).isEqualTo(0);
+        assertThat(again.getAlreadyAssigned()).isEqualTo(10);
+        assertThat(actionRepository.countByDistributionSet(newDs)).isEqualTo(10L);
+    }
+
+    @Test
+    @Description("Verifies that an assignment by target query only affects its own targets even if the same distribution set was assigned to other targets in the same millisecond.")
+    public void assignDistributionSetByTargetQueryIgnoresAssignmentsOfTheSameMillisecond() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("CollisionDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(5, "query-"));
+        final List<Target> others = targetManagement.createTargets(TestDataUtil.generateTargets(1000, "other-"));
+        deploymentManagement.assignDistributionSet(ds, others);
+
+        // the other targets look as if the set was assigned to them in each
+        // millisecond of the next second, i.e. also in the one of the
+        // assignment by query
+        final long minId = others.stream().mapToLong(Target::getId).min().getAsLong();
+        jdbcTemplate.update("UPDATE sp_target SET last_modified_at = ? + id WHERE controller_id LIKE 'other-%'",
+                System.currentTimeMillis() - minId);
+
+        final AssignmentResult result = deploymentManagement.assignDistributionSetByTargetQuery(ds.getId(),
+                "controllerId==query-*", ActionType.SOFT, Action.NO_FORCE_TIME);
+        assertThat(result.getAssigned()).isEqualTo(5);
+
+        // exactly one action per target and none of them is canceled
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(1005L);
+        assertThat(actionRepository.countByDistributionSetAndActive(ds, true)).isEqualTo(1005L);
+        for (final Target target : targetRepository.findAll()) {
+            assertThat(actionRepository.countByTarget(target)).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    @Description("Assigns a distribution set by target queries on fields of associated entities, which are resolved by joins, and verifies that the overridden actions are versioned and canceled.")
+    public void assignDistributionSetByTargetQueryOnAssociations() throws InterruptedException {
+        final DistributionSet oldDs = TestDataUtil.generateDistributionSet("JoinOldDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final DistributionSet newDs = TestDataUtil.generateDistributionSet("JoinNewDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(6, "join-"));
+        final List<Action> oldActions = deploymentManagement.assignDistributionSet(oldDs, targets.subList(0, 3))
+                .getActions();
+        final long oldRevision = actionRepository.findOne(oldActions.get(0).getId()).getOptLockRevision();
+
+        final CancelEventHandlerMock cancelEvents = new CancelEventHandlerMock(3);
+        eventBus.register(cancelEvents);
+        try {
+            // assigned distribution set
+            assertThat(deploymentManagement.assignDistributionSetByTargetQuery(newDs.getId(),
+                    "assignedds.name==JoinOldDs", ActionType.SOFT, Action.NO_FORCE_TIME).getAssigned()).isEqualTo(3);
+            assertThat(cancelEvents.getEvents(10, TimeUnit.SECONDS)).hasSize(3);
+        } finally {
+            eventBus.unregister(cancelEvents);
+        }
+        for (final Action action : oldActions) {
+            final Action oldAction = actionRepository.findOne(action.getId());
+            assertThat(oldAction.getStatus()).isEqualTo(Status.CANCELING);
+            assertThat(oldAction.getOptLockRevision()).isGreaterThan(oldRevision);
+        }
+
+        // target info
+        assertThat(deploymentManagement.assignDistributionSetByTargetQuery(newDs.getId(),
+                "updatestatus==unknown;controllerId==join-*", ActionType.SOFT, Action.NO_FORCE_TIME).getAssigned())
+                        .isEqualTo(3);
+        assertThat(targetManagement.findTargetByAssignedDistributionSet(newDs.getId(), pageReq).getTotalElements())
+                .isEqualTo(6);
+        assertThat(actionRepository.countByDistributionSet(newDs)).isEqualTo(6L);
+    }
+
+    @Test
+    @Description("Verifies that the actions and action status which are inserted by statements on the database carry all audit columns.")
+    public void batchInsertedActionsAreAudited() {
+        final DistributionSet listDs = TestDataUtil.generateDistributionSet("AuditListDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final DistributionSet queryDs = TestDataUtil.generateDistributionSet("AuditQueryDs", "1.0",
+                softwareManagement, distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(3, "audit-"));
+
+        deploymentManagement.assignDistributionSet(listDs, targets);
+        deploymentManagement.assignDistributionSetByTargetQuery(queryDs.getId(), "controllerId==audit-*",
+                ActionType.SOFT, Action.NO_FORCE_TIME);
+
+        for (final DistributionSet set : Lists.newArrayList(listDs, queryDs)) {
+            final List<Action> actions = actionRepository.findByDistributionSet(pageReq, set).getContent();
+            assertThat(actions).hasSize(3);
+            for (final Action action : actions) {
+                assertAudited(action.getCreatedBy(), action.getCreatedAt(), action.getLastModifiedBy(),
+                        action.getLastModifiedAt());
+                for (final ActionStatus status : actionStatusRepository.findByAction(pageReq, action)) {
+                    assertAudited(status.getCreatedBy(), status.getCreatedAt(), status.getLastModifiedBy(),
+                            status.getLastModifiedAt());
+                }
+            }
+        }
+    }
+
+    private static void assertAudited(final String createdBy, final Long createdAt, final String lastModifiedBy,
+            final Long lastModifiedAt) {
+        assertThat(createdBy).isEqualTo("bumlux");
+        assertThat(createdAt).isNotNull();
+        assertThat(lastModifiedBy).isEqualTo("bumlux");
+        assertThat(lastModifiedAt).isNotNull();
+    }
+
     @Test
     @Description("Ensures that distribution sets can assigned and unassigned to a  distribution set tag. Not exists  distribution set will be ignored for the assignment.")
     public void assignAndUnassignDistributionSetToTag() {
@@ -401,6 +551,43 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
         assertTargetAssignDistributionSetEvents(savedDeployedTargets, ds, events);
     }
 
+    @Test
+    @Description("A mass assignment results in a few bulk events which share the software modules instead of events per target.")
+    public void massAssignmentSendsBulkEvents() throws InterruptedException {
+        final EventHandlerMock eventHandlerMock = new EventHandlerMock(600);
+        eventBus.register(eventHandlerMock);
+
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("bulk", softwareManagement,
+                distributionSetManagement);
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(600, "bulk-"));
+
+        assertThat(deploymentManagement.assignDistributionSet(ds, targets).getAssigned()).isEqualTo(600);
+
+        assertTargetAssignDistributionSetEvents(targets, ds, eventHandlerMock.getEvents(10, TimeUnit.SECONDS));
+        assertThat(eventHandlerMock.bulkEvents.get()).isEqualTo(2);
+    }
+
+    @Test
+    @Description("A mass assignment by a target query posts the bulk events page by page of assigned targets.")
+    public void massAssignmentByTargetQuerySendsBulkEventsPerPage() throws InterruptedException {
+        final EventHandlerMock eventHandlerMock = new EventHandlerMock(Constants.MAX_ENTRIES_IN_STATEMENT + 1);
+        eventBus.register(eventHandlerMock);
+
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("bulkquery", softwareManagement,
+                distributionSetManagement);
+        targetManagement.createTargets(
+                TestDataUtil.generateTargets(Constants.MAX_ENTRIES_IN_STATEMENT + 1, "bulkquery-"));
+
+        assertThat(deploymentManagement.assignDistributionSetByTargetQuery(ds.getId(), "controllerId==bulkquery-*",
+                ActionType.SOFT, Action.NO_FORCE_TIME).getAssigned()).isEqualTo(Constants.MAX_ENTRIES_IN_STATEMENT + 1);
+
+        assertThat(eventHandlerMock.getEvents(10, TimeUnit.SECONDS)).hasSize(Constants.MAX_ENTRIES_IN_STATEMENT + 1);
+        assertThat(eventHandlerMock.pendingAssignments.get()).isEqualTo(Constants.MAX_ENTRIES_IN_STATEMENT + 1);
+        // a full page is split into two events, the last target is sent with
+        // an event of its own page
+        assertThat(eventHandlerMock.bulkEvents.get()).isEqualTo(3);
+    }
+
     @Test
     @Description("Test that it is not possible to assign a distribution set that is not complete.")
     public void failDistributionSetAssigmentThatIsNotComplete() throws InterruptedException {
@@ -823,6 +1010,33 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
         assertThat(findAction.getActionType()).isEqualTo(ActionType.FORCED);
     }
 
+    @Test
+    @Description("Verifies that poll response invalidations are only sent if the poll response cache is enabled.")
+    public void pollViewInvalidationIsOnlySentIfPollCacheIsEnabled() throws InterruptedException {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("a", softwareManagement,
+                distributionSetManagement);
+        final List<Action> actions = deploymentManagement.assignDistributionSet(ds.getId(), ActionType.SOFT,
+                Action.NO_FORCE_TIME, targetManagement.createTarget(new Target("pollCacheDisabled")).getControllerId(),
+                targetManagement.createTarget(new Target("pollCacheEnabled")).getControllerId()).getActions();
+
+        final PollViewInvalidatedEventHandlerMock invalidations = new PollViewInvalidatedEventHandlerMock();
+        eventBus.register(invalidations);
+        try {
+            deploymentManagement.forceTargetAction(actions.get(0).getId());
+
+            deploymentManagement.setPollCacheEnabled(true);
+            deploymentManagement.forceTargetAction(actions.get(1).getId());
+
+            assertThat(invalidations.latch.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(invalidations.events).hasSize(1);
+            assertThat(invalidations.events.get(0).getControllerId())
+                    .isEqualTo(actions.get(1).getTarget().getControllerId());
+        } finally {
+            deploymentManagement.setPollCacheEnabled(false);
+            eventBus.unregister(invalidations);
+        }
+    }
+
     @Test
     @Description("Tests the switch from a hard to hard update by API, e.g. which in fact should not change anything.")
     public void forceAlreadyForcedActionNothingChanges() {
@@ -1059,6 +1273,8 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
     private static class EventHandlerMock {
         private final List<TargetAssignDistributionSetEvent> events = Collections
                 .synchronizedList(new LinkedList<TargetAssignDistributionSetEvent>());
+        private final AtomicInteger bulkEvents = new AtomicInteger();
+        private final AtomicInteger pendingAssignments = new AtomicInteger();
         private final CountDownLatch latch;
         private final int expectedNumberOfEvents;
 
@@ -1068,9 +1284,16 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
         }
 
         @Subscribe
-        public void handleEvent(final TargetAssignDistributionSetEvent event) {
-            events.add(event);
-            latch.countDown();
+        public void handleEvent(final TargetAssignDistributionSetBulkEvent event) {
+            bulkEvents.incrementAndGet();
+            for (final TargetAssignment assignment : event.getAssignments()) {
+                if (assignment.getUpdateStatus() == TargetUpdateStatus.PENDING) {
+                    pendingAssignments.incrementAndGet();
+                }
+                events.add(new TargetAssignDistributionSetEvent(event.getTenant(), assignment.getControllerId(),
+                        assignment.getActionId(), event.getSoftwareModules(), assignment.getTargetAdress()));
+                latch.countDown();
+            }
         }
 
         public List<TargetAssignDistributionSetEvent> getEvents(final long timeout, final TimeUnit unit)
@@ -1113,4 +1336,16 @@ public class DeploymentManagementTest extends AbstractIntegrationTest {
         }
     }
 
+    private static class PollViewInvalidatedEventHandlerMock {
+        private final List<TargetPollViewInvalidatedEvent> events = Collections
+                .synchronizedList(new LinkedList<TargetPollViewInvalidatedEvent>());
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Subscribe
+        public void handleEvent(final TargetPollViewInvalidatedEvent event) {
+            events.add(event);
+            latch.countDown();
+        }
+    }
+
 }
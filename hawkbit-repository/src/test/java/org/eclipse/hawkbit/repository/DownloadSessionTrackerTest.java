@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.hawkbit.AbstractIntegrationTest;
+import org.eclipse.hawkbit.TestDataUtil;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.DistributionSetTag;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+public class DownloadSessionTrackerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private DownloadSessionTracker downloadSessionTracker;
+
+    @Test
+    @Description("Only the first download request of an artifact records a status, further range requests are appended as one message on flush.")
+    public void rangeRequestsAreFoldedIntoOneDownloadStatus() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("DownloadDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(1));
+        final Action action = deploymentManagement.assignDistributionSet(ds, targets).getActions().get(0);
+
+        downloadSessionTracker.recordDownload(action, 1L, null, "Controller downloads");
+        downloadSessionTracker.recordDownload(action, 1L, "bytes=0-99", "Controller downloads");
+        downloadSessionTracker.recordDownload(action, 1L, "bytes=100-199", "Controller downloads");
+        downloadSessionTracker.recordDownload(action, 2L, "bytes=0-99", "Controller downloads");
+
+        assertThat(actionStatusRepository.countByActionAndStatus(action, Status.DOWNLOAD)).isEqualTo(2L);
+        assertThat(downloadSessionTracker.flush()).isEqualTo(1);
+        assertThat(downloadSessionTracker.flush()).isEqualTo(0);
+
+        final List<ActionStatus> statusList = actionStatusRepository
+                .findByActionOrderByIdDesc(new PageRequest(0, 10), action).getContent();
+        final ActionStatus firstDownload = statusList.stream().filter(status -> status.getStatus() == Status.DOWNLOAD)
+                .reduce((newer, older) -> older).get();
+        assertThat(firstDownload.getMessages()).contains("Controller downloads",
+                "2 further download requests, last: bytes=100-199");
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.hawkbit.AbstractIntegrationTest;
+import org.eclipse.hawkbit.TestDataUtil;
+import org.eclipse.hawkbit.im.authentication.SpPermission;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.DistributionSetTag;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
+import org.eclipse.hawkbit.repository.model.RolloutWave;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Deployment Management")
+public class RolloutManagementTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private RolloutManagement rolloutManagement;
+
+    @Test
+    @Description("A rollout releases the matching targets wave by wave in the order of their IDs.")
+    public void rolloutReleasesMatchingTargetsInWaves() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("RolloutDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> matching = targetManagement.createTargets(TestDataUtil.generateTargets(12, "wave-"));
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, "other-"));
+
+        final Rollout created = rolloutManagement.createRollout(ds.getId(), "rollout", "controllerId==wave-*",
+                ActionType.SOFT, 0, 5, 0, 0, 0);
+        assertThat(created.getStatus()).isEqualTo(RolloutStatus.RUNNING);
+        assertThat(created.getTotalTargets()).isEqualTo(12);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(rolloutManagement.schedule()).isEqualTo(1);
+        }
+
+        final Rollout released = rolloutManagement.findRollout(created.getId());
+        assertThat(released.getWaveCount()).isEqualTo(3);
+        assertThat(released.getReleasedTargets()).isEqualTo(12);
+        assertThat(released.getLastTargetId()).isEqualTo(matching.get(matching.size() - 1).getId());
+
+        final List<RolloutWave> waves = rolloutManagement.findRolloutWaves(released);
+        assertThat(waves).hasSize(3);
+        assertThat(waves.get(0).getTargets()).isEqualTo(5);
+        assertThat(waves.get(0).getFirstTargetId()).isEqualTo(matching.get(0).getId());
+        assertThat(waves.get(2).getTargets()).isEqualTo(2);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(12L);
+
+        // the rollout remains running as long as the last wave is active
+        rolloutManagement.schedule();
+        assertThat(rolloutManagement.findRollout(created.getId()).getStatus()).isEqualTo(RolloutStatus.RUNNING);
+        assertThat(rolloutManagement.findRolloutWaves(released).get(2).getRunningTargets()).isEqualTo(2);
+
+        final Rollout canceled = rolloutManagement.cancelRollout(created.getId());
+        assertThat(canceled.getStatus()).isEqualTo(RolloutStatus.CANCELED);
+        assertThat(rolloutManagement.schedule()).isEqualTo(0);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(12L);
+    }
+
+    @Test
+    @Description("A rollout does not release the next wave before the current wave reached the success threshold.")
+    public void rolloutWaitsForSuccessThreshold() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("ThresholdDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(10, "threshold-"));
+
+        final Rollout created = rolloutManagement.createRollout(ds.getId(), "rollout", "controllerId==threshold-*",
+                ActionType.FORCED, 0, 5, 100, 0, 0);
+
+        rolloutManagement.schedule();
+        rolloutManagement.schedule();
+
+        final Rollout waiting = rolloutManagement.findRollout(created.getId());
+        assertThat(waiting.getStatus()).isEqualTo(RolloutStatus.RUNNING);
+        assertThat(waiting.getWaveCount()).isEqualTo(1);
+        assertThat(waiting.getReleasedTargets()).isEqualTo(5);
+        assertThat(rolloutManagement.findRolloutWaves(waiting).get(0).getSuccessRate()).isEqualTo(0);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(5L);
+    }
+
+    @Test
+    @Description("A rollout does not release more targets than its budget of running actions allows.")
+    public void rolloutRespectsMaxRunningActions() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("RunningDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(10, "running-"));
+
+        final Rollout created = rolloutManagement.createRollout(ds.getId(), "rollout", "controllerId==running-*",
+                ActionType.SOFT, 0, 5, 0, 3, 0);
+
+        // the first wave is limited to the budget, the second has to wait
+        // until the actions of the first one are closed
+        rolloutManagement.schedule();
+        rolloutManagement.schedule();
+
+        final Rollout limited = rolloutManagement.findRollout(created.getId());
+        assertThat(limited.getWaveCount()).isEqualTo(1);
+        assertThat(limited.getReleasedTargets()).isEqualTo(3);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(3L);
+
+        closeAction(actionRepository.findByDistributionSet(pageReq, ds).getContent().get(0), Status.FINISHED);
+        rolloutManagement.schedule();
+
+        final Rollout released = rolloutManagement.findRollout(created.getId());
+        assertThat(released.getWaveCount()).isEqualTo(2);
+        assertThat(released.getReleasedTargets()).isEqualTo(4);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(4L);
+    }
+
+    @Test
+    @Description("A rollout does not release the next wave as long as the budget of active downloads is exhausted, an action counts as downloading if its latest status is DOWNLOAD.")
+    public void rolloutRespectsMaxActiveDownloads() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("DownloadDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(6, "download-"));
+
+        final Rollout created = rolloutManagement.createRollout(ds.getId(), "rollout", "controllerId==download-*",
+                ActionType.SOFT, 0, 2, 0, 0, 1);
+        rolloutManagement.schedule();
+        assertThat(rolloutManagement.findRollout(created.getId()).getWaveCount()).isEqualTo(1);
+
+        final Action downloading = actionRepository.findByDistributionSet(pageReq, ds).getContent().get(0);
+        actionStatusRepository.save(new ActionStatus(downloading, Status.DOWNLOAD, System.currentTimeMillis()));
+        rolloutManagement.schedule();
+        assertThat(rolloutManagement.findRollout(created.getId()).getWaveCount()).isEqualTo(1);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(2L);
+
+        // the download is over as soon as a later status has been reported
+        actionStatusRepository.save(new ActionStatus(downloading, Status.RUNNING, System.currentTimeMillis()));
+        rolloutManagement.schedule();
+        assertThat(rolloutManagement.findRollout(created.getId()).getWaveCount()).isEqualTo(2);
+        assertThat(actionRepository.countByDistributionSet(ds)).isEqualTo(4L);
+    }
+
+    @Test
+    @Description("The progress of earlier waves is refreshed after the next wave has been released.")
+    public void rolloutRefreshesEarlierWaves() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("RefreshDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(4, "refresh-"));
+
+        final Rollout created = rolloutManagement.createRollout(ds.getId(), "rollout", "controllerId==refresh-*",
+                ActionType.SOFT, 0, 2, 0, 0, 0);
+        rolloutManagement.schedule();
+        rolloutManagement.schedule();
+        assertThat(rolloutManagement.findRollout(created.getId()).getWaveCount()).isEqualTo(2);
+
+        for (final Action action : actionRepository.findByDistributionSet(pageReq, ds).getContent()) {
+            if (action.getTarget().getId().equals(targets.get(0).getId())) {
+                closeAction(action, Status.FINISHED);
+            }
+        }
+        rolloutManagement.schedule();
+
+        final List<RolloutWave> waves = rolloutManagement.findRolloutWaves(rolloutManagement.findRollout(created
+                .getId()));
+        assertThat(waves.get(0).getFinishedTargets()).isEqualTo(1);
+        assertThat(waves.get(0).getRunningTargets()).isEqualTo(1);
+        assertThat(waves.get(1).getRunningTargets()).isEqualTo(2);
+    }
+
+    @Test
+    @Description("The scheduler evaluates a rollout as the user who created it.")
+    public void rolloutIsEvaluatedAsItsCreator() {
+        final DistributionSet ds = TestDataUtil.generateDistributionSet("CreatorDs", "1.0", softwareManagement,
+                distributionSetManagement, new ArrayList<DistributionSetTag>());
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, "creator-"));
+
+        final Rollout created = rolloutManagement.createRollout(ds.getId(), "rollout", "controllerId==creator-*",
+                ActionType.SOFT, 0, 5, 0, 0, 0);
+        assertThat(created.getCreatedBy()).isEqualTo("bumlux");
+        assertThat(created.getCreatorAuthorities().split(",")).contains(SpPermission.READ_REPOSITORY,
+                SpPermission.UPDATE_TARGET, "ROLE_CONTROLLER");
+
+        // the scheduler runs without a security context
+        final SecurityContext context = SecurityContextHolder.getContext();
+        SecurityContextHolder.clearContext();
+        try {
+            assertThat(rolloutManagement.schedule()).isEqualTo(1);
+        } finally {
+            SecurityContextHolder.setContext(context);
+        }
+
+        final List<Action> actions = actionRepository.findByDistributionSet(pageReq, ds).getContent();
+        assertThat(actions).hasSize(3);
+        for (final Action action : actions) {
+            assertThat(action.getCreatedBy()).isEqualTo("bumlux");
+        }
+    }
+
+    private void closeAction(final Action action, final Status status) {
+        action.setStatus(status);
+        action.setActive(false);
+        actionRepository.save(action);
+    }
+}
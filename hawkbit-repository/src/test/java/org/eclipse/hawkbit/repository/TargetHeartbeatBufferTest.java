@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.net.URI;
+
+import org.eclipse.hawkbit.AbstractIntegrationTest;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+public class TargetHeartbeatBufferTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private TargetHeartbeatBuffer heartbeatBuffer;
+
+    @Test
+    @Description("Repeated heartbeats of the same controller are coalesced and the latest one is written on flush.")
+    public void heartbeatsAreCoalescedAndFlushed() {
+        final Target target = targetManagement.createTarget(new Target("4711"));
+
+        heartbeatBuffer.record(target.getTenant(), "4711", 1000L, URI.create("http://127.0.0.1"));
+        heartbeatBuffer.record(target.getTenant(), "4711", 3000L, null);
+        heartbeatBuffer.record(target.getTenant(), "4711", 2000L, null);
+        assertThat(heartbeatBuffer.size()).isEqualTo(1);
+
+        assertThat(heartbeatBuffer.flush()).isEqualTo(1);
+        assertThat(heartbeatBuffer.size()).isEqualTo(0);
+
+        final Target flushed = targetManagement.findTargetByControllerIDWithDetails("4711");
+        assertThat(flushed.getTargetInfo().getLastTargetQuery()).isEqualTo(3000L);
+        assertThat(flushed.getTargetInfo().getAddress()).isEqualTo(URI.create("http://127.0.0.1"));
+    }
+
+    @Test
+    @Description("A flushed heartbeat never moves the last poll time of a target back.")
+    public void olderHeartbeatDoesNotOverrideNewerPollTime() {
+        final Target target = targetManagement.createTarget(new Target("4712"));
+        controllerManagament.updateTargetStatus(target.getTargetInfo(), null, 5000L, null);
+
+        heartbeatBuffer.record(target.getTenant(), "4712", 4000L, null);
+        heartbeatBuffer.flush();
+
+        assertThat(targetManagement.findTargetByControllerIDWithDetails("4712").getTargetInfo().getLastTargetQuery())
+                .isEqualTo(5000L);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawkbit.im.authentication.SpPermission;
+import org.eclipse.hawkbit.im.authentication.TenantAwareAuthenticationDetails;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Repository")
+@Stories("User security context")
+public class UserSecurityContextTest {
+
+    @After
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Description("The code runs with exactly the authorities the user had when creating the job.")
+    public void runsWithTheAuthoritiesOfTheCreator() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("creator", null, SpPermission.READ_TARGET, SpPermission.UPDATE_TARGET));
+        final String authorities = UserSecurityContext.getCurrentAuthorities();
+        final Authentication caller = new TestingAuthenticationToken("scheduler", null);
+        SecurityContextHolder.getContext().setAuthentication(caller);
+
+        final Authentication user = UserSecurityContext.runAsUser("mytenant", "creator", authorities,
+                () -> SecurityContextHolder.getContext().getAuthentication());
+
+        assertThat(user.getName()).isEqualTo("creator");
+        assertThat(authorityNames(user)).containsOnly(SpPermission.READ_TARGET, SpPermission.UPDATE_TARGET);
+        assertThat(((TenantAwareAuthenticationDetails) user.getDetails()).getTenant()).isEqualTo("mytenant");
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(caller);
+    }
+
+    @Test
+    @Description("A job without stored authorities runs without any authority.")
+    public void runsWithoutAuthoritiesIfNoneAreStored() {
+        final Authentication user = UserSecurityContext.runAsUser("mytenant", "creator", null,
+                () -> SecurityContextHolder.getContext().getAuthentication());
+
+        assertThat(user.getAuthorities()).isEmpty();
+    }
+
+    private static List<String> authorityNames(final Authentication authentication) {
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+    }
+}
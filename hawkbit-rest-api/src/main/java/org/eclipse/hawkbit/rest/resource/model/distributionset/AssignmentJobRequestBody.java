@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.rest.resource.model.distributionset;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Request Body for the creation of an assignment job which assigns a
+ * distribution set to all targets matching a target query in the background.
+ *
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AssignmentJobRequestBody {
+
+    @JsonProperty
+    private String targetQuery;
+
+    private long forcetime;
+
+    private ActionTypeRest type;
+
+    /**
+     * @return the RSQL query of the targets
+     */
+    public String getTargetQuery() {
+        return targetQuery;
+    }
+
+    /**
+     * @param targetQuery
+     *            the RSQL query of the targets to set
+     */
+    public void setTargetQuery(final String targetQuery) {
+        this.targetQuery = targetQuery;
+    }
+
+    /**
+     * @return the type
+     */
+    public ActionTypeRest getType() {
+        return type;
+    }
+
+    /**
+     * @param type
+     *            the type to set
+     */
+    public void setType(final ActionTypeRest type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the forcetime
+     */
+    public long getForcetime() {
+        return forcetime;
+    }
+
+    /**
+     * @param forcetime
+     *            the forcetime to set
+     */
+    public void setForcetime(final long forcetime) {
+        this.forcetime = forcetime;
+    }
+
+}
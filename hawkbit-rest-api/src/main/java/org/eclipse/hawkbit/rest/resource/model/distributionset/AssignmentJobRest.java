@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.rest.resource.model.distributionset;
+
+import org.eclipse.hawkbit.rest.resource.model.BaseEntityRest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A json annotated rest model for AssignmentJob to RESTful API
+ * representation, including the progress of the job.
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AssignmentJobRest extends BaseEntityRest {
+
+    @JsonProperty("id")
+    private Long jobId;
+
+    @JsonProperty
+    private Long distributionSetId;
+
+    @JsonProperty
+    private String targetQuery;
+
+    @JsonProperty
+    private ActionTypeRest type;
+
+    @JsonProperty
+    private Long forcetime;
+
+    @JsonProperty
+    private String status;
+
+    @JsonProperty
+    private long totalTargets;
+
+    @JsonProperty
+    private long processedTargets;
+
+    @JsonProperty
+    private long assignedTargets;
+
+    @JsonProperty
+    private int progress;
+
+    @JsonProperty
+    private Long estimatedRemainingTime;
+
+    @JsonProperty
+    private Long finishedAt;
+
+    @JsonProperty
+    private String errorMessage;
+
+    /**
+     * @return the jobId
+     */
+    public Long getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @param jobId
+     *            the jobId to set
+     */
+    public void setJobId(final Long jobId) {
+        this.jobId = jobId;
+    }
+
+    /**
+     * @return the distributionSetId
+     */
+    public Long getDistributionSetId() {
+        return distributionSetId;
+    }
+
+    /**
+     * @param distributionSetId
+     *            the distributionSetId to set
+     */
+    public void setDistributionSetId(final Long distributionSetId) {
+        this.distributionSetId = distributionSetId;
+    }
+
+    /**
+     * @return the targetQuery
+     */
+    public String getTargetQuery() {
+        return targetQuery;
+    }
+
+    /**
+     * @param targetQuery
+     *            the targetQuery to set
+     */
+    public void setTargetQuery(final String targetQuery) {
+        this.targetQuery = targetQuery;
+    }
+
+    /**
+     * @return the type
+     */
+    public ActionTypeRest getType() {
+        return type;
+    }
+
+    /**
+     * @param type
+     *            the type to set
+     */
+    public void setType(final ActionTypeRest type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the forcetime
+     */
+    public Long getForcetime() {
+        return forcetime;
+    }
+
+    /**
+     * @param forcetime
+     *            the forcetime to set
+     */
+    public void setForcetime(final Long forcetime) {
+        this.forcetime = forcetime;
+    }
+
+    /**
+     * @return the status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @param status
+     *            the status to set
+     */
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the totalTargets
+     */
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * @param totalTargets
+     *            the totalTargets to set
+     */
+    public void setTotalTargets(final long totalTargets) {
+        this.totalTargets = totalTargets;
+    }
+
+    /**
+     * @return the processedTargets
+     */
+    public long getProcessedTargets() {
+        return processedTargets;
+    }
+
+    /**
+     * @param processedTargets
+     *            the processedTargets to set
+     */
+    public void setProcessedTargets(final long processedTargets) {
+        this.processedTargets = processedTargets;
+    }
+
+    /**
+     * @return the assignedTargets
+     */
+    public long getAssignedTargets() {
+        return assignedTargets;
+    }
+
+    /**
+     * @param assignedTargets
+     *            the assignedTargets to set
+     */
+    public void setAssignedTargets(final long assignedTargets) {
+        this.assignedTargets = assignedTargets;
+    }
+
+    /**
+     * @return the progress in percent
+     */
+    public int getProgress() {
+        return progress;
+    }
+
+    /**
+     * @param progress
+     *            the progress to set
+     */
+    public void setProgress(final int progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * @return the estimated remaining time in milliseconds
+     */
+    public Long getEstimatedRemainingTime() {
+        return estimatedRemainingTime;
+    }
+
+    /**
+     * @param estimatedRemainingTime
+     *            the estimatedRemainingTime to set
+     */
+    public void setEstimatedRemainingTime(final Long estimatedRemainingTime) {
+        this.estimatedRemainingTime = estimatedRemainingTime;
+    }
+
+    /**
+     * @return the finishedAt
+     */
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @param finishedAt
+     *            the finishedAt to set
+     */
+    public void setFinishedAt(final Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * @return the errorMessage
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * @param errorMessage
+     *            the errorMessage to set
+     */
+    public void setErrorMessage(final String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
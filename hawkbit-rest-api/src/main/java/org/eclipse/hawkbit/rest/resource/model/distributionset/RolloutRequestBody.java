@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.rest.resource.model.distributionset;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Request Body for the creation of a rollout which assigns a distribution set
+ * to all targets matching a target query in waves.
+ *
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RolloutRequestBody {
+
+    @JsonProperty
+    private String name;
+
+    @JsonProperty
+    private String targetQuery;
+
+    @JsonProperty
+    private ActionTypeRest type;
+
+    @JsonProperty
+    private long forcetime;
+
+    @JsonProperty
+    private int waveSize;
+
+    @JsonProperty
+    private int successThreshold;
+
+    @JsonProperty
+    private int maxRunningActions;
+
+    @JsonProperty
+    private int maxActiveDownloads;
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name
+     *            the name to set
+     */
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the RSQL query of the targets
+     */
+    public String getTargetQuery() {
+        return targetQuery;
+    }
+
+    /**
+     * @param targetQuery
+     *            the RSQL query of the targets to set
+     */
+    public void setTargetQuery(final String targetQuery) {
+        this.targetQuery = targetQuery;
+    }
+
+    /**
+     * @return the type
+     */
+    public ActionTypeRest getType() {
+        return type;
+    }
+
+    /**
+     * @param type
+     *            the type to set
+     */
+    public void setType(final ActionTypeRest type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the forcetime
+     */
+    public long getForcetime() {
+        return forcetime;
+    }
+
+    /**
+     * @param forcetime
+     *            the forcetime to set
+     */
+    public void setForcetime(final long forcetime) {
+        this.forcetime = forcetime;
+    }
+
+    /**
+     * @return the maximum number of targets of a wave
+     */
+    public int getWaveSize() {
+        return waveSize;
+    }
+
+    /**
+     * @param waveSize
+     *            the maximum number of targets of a wave to set
+     */
+    public void setWaveSize(final int waveSize) {
+        this.waveSize = waveSize;
+    }
+
+    /**
+     * @return the success threshold in percent
+     */
+    public int getSuccessThreshold() {
+        return successThreshold;
+    }
+
+    /**
+     * @param successThreshold
+     *            the success threshold in percent to set
+     */
+    public void setSuccessThreshold(final int successThreshold) {
+        this.successThreshold = successThreshold;
+    }
+
+    /**
+     * @return the maximum number of running actions
+     */
+    public int getMaxRunningActions() {
+        return maxRunningActions;
+    }
+
+    /**
+     * @param maxRunningActions
+     *            the maximum number of running actions to set
+     */
+    public void setMaxRunningActions(final int maxRunningActions) {
+        this.maxRunningActions = maxRunningActions;
+    }
+
+    /**
+     * @return the maximum number of active downloads
+     */
+    public int getMaxActiveDownloads() {
+        return maxActiveDownloads;
+    }
+
+    /**
+     * @param maxActiveDownloads
+     *            the maximum number of active downloads to set
+     */
+    public void setMaxActiveDownloads(final int maxActiveDownloads) {
+        this.maxActiveDownloads = maxActiveDownloads;
+    }
+
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.rest.resource.model.distributionset;
+
+import java.util.List;
+
+import org.eclipse.hawkbit.rest.resource.model.BaseEntityRest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A json annotated rest model for Rollout to RESTful API representation,
+ * including the progress of its waves.
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RolloutRest extends BaseEntityRest {
+
+    @JsonProperty("id")
+    private Long rolloutId;
+
+    @JsonProperty
+    private String name;
+
+    @JsonProperty
+    private Long distributionSetId;
+
+    @JsonProperty
+    private String targetQuery;
+
+    @JsonProperty
+    private ActionTypeRest type;
+
+    @JsonProperty
+    private Long forcetime;
+
+    @JsonProperty
+    private int waveSize;
+
+    @JsonProperty
+    private int successThreshold;
+
+    @JsonProperty
+    private int maxRunningActions;
+
+    @JsonProperty
+    private int maxActiveDownloads;
+
+    @JsonProperty
+    private String status;
+
+    @JsonProperty
+    private long totalTargets;
+
+    @JsonProperty
+    private long releasedTargets;
+
+    @JsonProperty
+    private int progress;
+
+    @JsonProperty
+    private Long finishedAt;
+
+    @JsonProperty
+    private String errorMessage;
+
+    @JsonProperty
+    private List<RolloutWaveRest> waves;
+
+    /**
+     * @return the rolloutId
+     */
+    public Long getRolloutId() {
+        return rolloutId;
+    }
+
+    /**
+     * @param rolloutId
+     *            the rolloutId to set
+     */
+    public void setRolloutId(final Long rolloutId) {
+        this.rolloutId = rolloutId;
+    }
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name
+     *            the name to set
+     */
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the distributionSetId
+     */
+    public Long getDistributionSetId() {
+        return distributionSetId;
+    }
+
+    /**
+     * @param distributionSetId
+     *            the distributionSetId to set
+     */
+    public void setDistributionSetId(final Long distributionSetId) {
+        this.distributionSetId = distributionSetId;
+    }
+
+    /**
+     * @return the targetQuery
+     */
+    public String getTargetQuery() {
+        return targetQuery;
+    }
+
+    /**
+     * @param targetQuery
+     *            the targetQuery to set
+     */
+    public void setTargetQuery(final String targetQuery) {
+        this.targetQuery = targetQuery;
+    }
+
+    /**
+     * @return the type
+     */
+    public ActionTypeRest getType() {
+        return type;
+    }
+
+    /**
+     * @param type
+     *            the type to set
+     */
+    public void setType(final ActionTypeRest type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the forcetime
+     */
+    public Long getForcetime() {
+        return forcetime;
+    }
+
+    /**
+     * @param forcetime
+     *            the forcetime to set
+     */
+    public void setForcetime(final Long forcetime) {
+        this.forcetime = forcetime;
+    }
+
+    /**
+     * @return the waveSize
+     */
+    public int getWaveSize() {
+        return waveSize;
+    }
+
+    /**
+     * @param waveSize
+     *            the waveSize to set
+     */
+    public void setWaveSize(final int waveSize) {
+        this.waveSize = waveSize;
+    }
+
+    /**
+     * @return the successThreshold
+     */
+    public int getSuccessThreshold() {
+        return successThreshold;
+    }
+
+    /**
+     * @param successThreshold
+     *            the successThreshold to set
+     */
+    public void setSuccessThreshold(final int successThreshold) {
+        this.successThreshold = successThreshold;
+    }
+
+    /**
+     * @return the maxRunningActions
+     */
+    public int getMaxRunningActions() {
+        return maxRunningActions;
+    }
+
+    /**
+     * @param maxRunningActions
+     *            the maxRunningActions to set
+     */
+    public void setMaxRunningActions(final int maxRunningActions) {
+        this.maxRunningActions = maxRunningActions;
+    }
+
+    /**
+     * @return the maxActiveDownloads
+     */
+    public int getMaxActiveDownloads() {
+        return maxActiveDownloads;
+    }
+
+    /**
+     * @param maxActiveDownloads
+     *            the maxActiveDownloads to set
+     */
+    public void setMaxActiveDownloads(final int maxActiveDownloads) {
+        this.maxActiveDownloads = maxActiveDownloads;
+    }
+
+    /**
+     * @return the status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @param status
+     *            the status to set
+     */
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the totalTargets
+     */
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * @param totalTargets
+     *            the totalTargets to set
+     */
+    public void setTotalTargets(final long totalTargets) {
+        this.totalTargets = totalTargets;
+    }
+
+    /**
+     * @return the releasedTargets
+     */
+    public long getReleasedTargets() {
+        return releasedTargets;
+    }
+
+    /**
+     * @param releasedTargets
+     *            the releasedTargets to set
+     */
+    public void setReleasedTargets(final long releasedTargets) {
+        this.releasedTargets = releasedTargets;
+    }
+
+    /**
+     * @return the progress
+     */
+    public int getProgress() {
+        return progress;
+    }
+
+    /**
+     * @param progress
+     *            the progress to set
+     */
+    public void setProgress(final int progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * @return the finishedAt
+     */
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @param finishedAt
+     *            the finishedAt to set
+     */
+    public void setFinishedAt(final Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * @return the errorMessage
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * @param errorMessage
+     *            the errorMessage to set
+     */
+    public void setErrorMessage(final String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * @return the waves
+     */
+    public List<RolloutWaveRest> getWaves() {
+        return waves;
+    }
+
+    /**
+     * @param waves
+     *            the waves to set
+     */
+    public void setWaves(final List<RolloutWaveRest> waves) {
+        this.waves = waves;
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.rest.resource.model.distributionset;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A json annotated rest model for the progress of a RolloutWave to RESTful
+ * API representation.
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RolloutWaveRest {
+
+    @JsonProperty
+    private int number;
+
+    @JsonProperty
+    private int targets;
+
+    @JsonProperty
+    private int runningTargets;
+
+    @JsonProperty
+    private int finishedTargets;
+
+    @JsonProperty
+    private int errorTargets;
+
+    @JsonProperty
+    private int successRate;
+
+    @JsonProperty
+    private long releasedAt;
+
+    /**
+     * @return the number of the wave
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @param number
+     *            the number of the wave to set
+     */
+    public void setNumber(final int number) {
+        this.number = number;
+    }
+
+    /**
+     * @return the number of targets
+     */
+    public int getTargets() {
+        return targets;
+    }
+
+    /**
+     * @param targets
+     *            the number of targets to set
+     */
+    public void setTargets(final int targets) {
+        this.targets = targets;
+    }
+
+    /**
+     * @return the number of targets with an active action
+     */
+    public int getRunningTargets() {
+        return runningTargets;
+    }
+
+    /**
+     * @param runningTargets
+     *            the number of targets with an active action to set
+     */
+    public void setRunningTargets(final int runningTargets) {
+        this.runningTargets = runningTargets;
+    }
+
+    /**
+     * @return the number of successfully finished targets
+     */
+    public int getFinishedTargets() {
+        return finishedTargets;
+    }
+
+    /**
+     * @param finishedTargets
+     *            the number of successfully finished targets to set
+     */
+    public void setFinishedTargets(final int finishedTargets) {
+        this.finishedTargets = finishedTargets;
+    }
+
+    /**
+     * @return the number of failed targets
+     */
+    public int getErrorTargets() {
+        return errorTargets;
+    }
+
+    /**
+     * @param errorTargets
+     *            the number of failed targets to set
+     */
+    public void setErrorTargets(final int errorTargets) {
+        this.errorTargets = errorTargets;
+    }
+
+    /**
+     * @return the success rate in percent
+     */
+    public int getSuccessRate() {
+        return successRate;
+    }
+
+    /**
+     * @param successRate
+     *            the success rate in percent to set
+     */
+    public void setSuccessRate(final int successRate) {
+        this.successRate = successRate;
+    }
+
+    /**
+     * @return the release time
+     */
+    public long getReleasedAt() {
+        return releasedAt;
+    }
+
+    /**
+     * @param releasedAt
+     *            the release time to set
+     */
+    public void setReleasedAt(final long releasedAt) {
+        this.releasedAt = releasedAt;
+    }
+
+}
@@ -44,10 +44,15 @@ public class CacheWriteNotify {
     @Autowired
     private TenantAware tenantAware;
 
+    @Autowired(required = false)
+    private DownloadProgressAggregator downloadProgressAggregator;
+
     /**
      * writes the download progress in percentage into the cache
      * {@link CacheKeys#DOWNLOAD_PROGRESS_PERCENT} and notifies the
-     * {@link EventBus} with a {@link DownloadProgressEvent}.
+     * {@link EventBus} with a {@link DownloadProgressEvent}. In case the
+     * {@link DownloadProgressAggregator} is enabled the progress is only
+     * recorded and written and published by the aggregator once per window.
      * 
      * @param statusId
      *            the ID of the {@link ActionStatus}
@@ -55,6 +60,10 @@ public class CacheWriteNotify {
      *            the progress in percentage which must be between 0-100
      */
     public void downloadProgressPercent(final long statusId, final int progressPercent) {
+        if (downloadProgressAggregator != null && downloadProgressAggregator.isEnabled()) {
+            downloadProgressAggregator.record(tenantAware.getCurrentTenant(), statusId, progressPercent);
+            return;
+        }
 
         final Cache cache = cacheManager.getCache(Action.class.getName());
         final String cacheKey = CacheKeys.entitySpecificCacheKey(String.valueOf(statusId),
@@ -94,4 +103,12 @@ public class CacheWriteNotify {
     void setTenantAware(final TenantAware tenantAware) {
         this.tenantAware = tenantAware;
     }
+
+    /**
+     * @param downloadProgressAggregator
+     *            the downloadProgressAggregator to set
+     */
+    void setDownloadProgressAggregator(final DownloadProgressAggregator downloadProgressAggregator) {
+        this.downloadProgressAggregator = downloadProgressAggregator;
+    }
 }
@@ -18,6 +18,7 @@ import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
 import org.eclipse.hawkbit.cache.CacheWriteNotify;
 import org.eclipse.hawkbit.repository.ArtifactManagement;
 import org.eclipse.hawkbit.repository.ControllerManagement;
+import org.eclipse.hawkbit.repository.DownloadSessionTracker;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Action.Status;
 import org.eclipse.hawkbit.repository.model.ActionStatus;
@@ -67,6 +68,9 @@ public class ArtifactStoreController implements EnvironmentAware {
     @Autowired
     private CacheWriteNotify cacheWriteNotify;
 
+    @Autowired
+    private DownloadSessionTracker downloadSessionTracker;
+
     private static final String SP_SERVER_CONFIG_PREFIX = "hawkbit.server.";
     private RelaxedPropertyResolver environment;
 
@@ -144,9 +148,14 @@ public class ArtifactStoreController implements EnvironmentAware {
                         environment.getProperty("security.rp.remote_ip_header", String.class, "X-Forwarded-For")));
 
         final Action action = controllerManagement.getActionForDownloadByTargetAndSoftwareModule(
-                target.getControllerId(), artifact.getSoftwareModule());
+                target.getControllerId(), artifact.getSoftwareModule().getId());
         final String range = request.getHeader("Range");
 
+        if (downloadSessionTracker.isEnabled()) {
+            downloadSessionTracker.recordDownload(action, artifact.getId(), range, "Target downloads");
+            return action;
+        }
+
         final ActionStatus actionStatus = new ActionStatus();
         actionStatus.setAction(action);
         actionStatus.setOccurredAt(System.currentTimeMillis());
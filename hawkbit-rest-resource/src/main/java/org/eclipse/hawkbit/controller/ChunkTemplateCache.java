@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.controller;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.eventbus.event.SoftwareContentChangedEvent;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Cache of the chunks of the deployment base response per distribution set.
+ * All controllers of a rollout get the same software modules and artifacts,
+ * so the modules and their artifacts are read once per distribution set and
+ * only the links to the artifacts, which contain the controller ID, are built
+ * per request.
+ *
+ * The chunks of a distribution set are invalidated with every
+ * {@link SoftwareContentChangedEvent} of the set or one of its modules on any
+ * node.
+ *
+ * The cache is disabled by default and can be enabled with the property
+ * {@code hawkbit.server.controller.chunkcache.enabled}.
+ *
+ */
+@EventSubscriber
+public class ChunkTemplateCache implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChunkTemplateCache.class);
+
+    /**
+     * Sequence number of the last invalidation, used to reject chunks which
+     * have been read before an invalidation but are put into the cache after
+     * it.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private Cache<TemplateKey, ChunkTemplates> templates;
+
+    private boolean enabled;
+
+    /**
+     * Returns the chunk templates of the given distribution set, either from
+     * the cache or read from the distribution set.
+     *
+     * @param distributionSet
+     *            of the deployment
+     * @return the chunk templates
+     */
+    List<ChunkTemplate> getChunkTemplates(final DistributionSet distributionSet) {
+        if (!enabled) {
+            return DataConversionHelper.createChunkTemplates(distributionSet);
+        }
+
+        final TemplateKey key = new TemplateKey(distributionSet.getTenant(), distributionSet.getId());
+        final ChunkTemplates cached = templates.getIfPresent(key);
+        if (cached != null) {
+            return cached.chunks;
+        }
+
+        final long loadingSequence = invalidations.get();
+        final ChunkTemplates loaded = new ChunkTemplates(DataConversionHelper.createChunkTemplates(distributionSet));
+        if (invalidations.get() == loadingSequence) {
+            templates.put(key, loaded);
+        } else {
+            LOG.debug("chunks of distribution set {} have been invalidated while loading, not caching them", key);
+        }
+        return loaded.chunks;
+    }
+
+    /**
+     * Drops the chunks of the changed distribution set or of the sets which
+     * contain the changed software module.
+     *
+     * @param event
+     *            the software content changed event
+     */
+    @Subscribe
+    public void softwareContentChanged(final SoftwareContentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        final String tenant = event.getTenant().toUpperCase();
+        templates.asMap().entrySet().removeIf(entry -> entry.getKey().tenant.equals(tenant)
+                && (event.isTenantWide() || entry.getKey().distributionSetId.equals(event.getDistributionSetId())
+                        || entry.getValue().moduleIds.contains(event.getSoftwareModuleId())));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.chunkcache.");
+        configure(env.getProperty("enabled", Boolean.class, false), env.getProperty("maxSize", Long.class, 1000L));
+    }
+
+    /**
+     * @param enabled
+     *            {@code true} to cache the chunks
+     * @param maxSize
+     *            the maximum number of cached distribution sets
+     */
+    void configure(final boolean enabled, final long maxSize) {
+        this.enabled = enabled;
+        templates = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * The controller independent part of a chunk of the deployment base.
+     */
+    static final class ChunkTemplate {
+        private final String part;
+        private final String version;
+        private final String name;
+        private final Long softwareModuleId;
+        private final List<ArtifactTemplate> artifacts;
+
+        ChunkTemplate(final String part, final String version, final String name, final Long softwareModuleId,
+                final List<ArtifactTemplate> artifacts) {
+            this.part = part;
+            this.version = version;
+            this.name = name;
+            this.softwareModuleId = softwareModuleId;
+            this.artifacts = Collections.unmodifiableList(artifacts);
+        }
+
+        String getPart() {
+            return part;
+        }
+
+        String getVersion() {
+            return version;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Long getSoftwareModuleId() {
+            return softwareModuleId;
+        }
+
+        List<ArtifactTemplate> getArtifacts() {
+            return artifacts;
+        }
+    }
+
+    /**
+     * The controller independent part of an artifact of a chunk.
+     */
+    static final class ArtifactTemplate {
+        private final String filename;
+        private final String sha1Hash;
+        private final String md5Hash;
+        private final Long size;
+
+        ArtifactTemplate(final String filename, final String sha1Hash, final String md5Hash, final Long size) {
+            this.filename = filename;
+            this.sha1Hash = sha1Hash;
+            this.md5Hash = md5Hash;
+            this.size = size;
+        }
+
+        String getFilename() {
+            return filename;
+        }
+
+        String getSha1Hash() {
+            return sha1Hash;
+        }
+
+        String getMd5Hash() {
+            return md5Hash;
+        }
+
+        Long getSize() {
+            return size;
+        }
+    }
+
+    private static final class ChunkTemplates {
+        private final List<ChunkTemplate> chunks;
+        private final Set<Long> moduleIds;
+
+        private ChunkTemplates(final List<ChunkTemplate> chunks) {
+            this.chunks = Collections.unmodifiableList(chunks);
+            this.moduleIds = chunks.stream().map(ChunkTemplate::getSoftwareModuleId).collect(Collectors.toSet());
+        }
+    }
+
+    private static final class TemplateKey {
+        private final String tenant;
+        private final Long distributionSetId;
+
+        private TemplateKey(final String tenant, final Long distributionSetId) {
+            this.tenant = tenant.toUpperCase();
+            this.distributionSetId = distributionSetId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenant.hashCode() + distributionSetId.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TemplateKey)) {
+                return false;
+            }
+            final TemplateKey other = (TemplateKey) obj;
+            return tenant.equals(other.tenant) && distributionSetId.equals(other.distributionSetId);
+        }
+
+        @Override
+        public String toString() {
+            return "TemplateKey [tenant=" + tenant + ", distributionSetId=" + distributionSetId + "]";
+        }
+    }
+}
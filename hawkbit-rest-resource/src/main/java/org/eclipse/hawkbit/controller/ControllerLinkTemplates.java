@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.controller;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Registry of the link templates of the {@link RootController} which are part
+ * of the controller API responses. The request mappings are resolved to
+ * templates once when the class is loaded, so building a link is plain string
+ * concatenation instead of proxying the controller with
+ * {@code linkTo(methodOn(RootController.class, tenant))} for every link.
+ *
+ * The templates are relative to the base URI of the controller API of the
+ * tenant which is resolved once per response with
+ * {@link #controllerBaseUri(String)}.
+ *
+ *
+ *
+ */
+final class ControllerLinkTemplates {
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final LinkTemplate DOWNLOAD_ARTIFACT = LinkTemplate.of("downloadArtifact");
+    private static final LinkTemplate DOWNLOAD_ARTIFACT_MD5 = LinkTemplate.of("downloadArtifactMd5");
+    private static final LinkTemplate DEPLOYMENT_BASE_ACTION = LinkTemplate.of("getControllerBasedeploymentAction");
+    private static final LinkTemplate CANCEL_ACTION = LinkTemplate.of("getControllerCancelAction");
+    private static final LinkTemplate CONFIG_DATA = LinkTemplate.of("putConfigData");
+
+    // utility class, private constructor.
+    private ControllerLinkTemplates() {
+
+    }
+
+    /**
+     * Resolves the base URI of the controller API of the given tenant for the
+     * current request.
+     *
+     * @param tenant
+     *            of the controller
+     * @return the base URI without trailing slash
+     */
+    static String controllerBaseUri(final String tenant) {
+        return linkTo(RootController.class, tenant).toString();
+    }
+
+    static String downloadArtifact(final String baseUri, final String targetid, final Long softwareModuleId,
+            final String fileName) {
+        return DOWNLOAD_ARTIFACT.expand(baseUri, targetid, softwareModuleId, fileName);
+    }
+
+    static String downloadArtifactMd5(final String baseUri, final String targetid, final Long softwareModuleId,
+            final String fileName) {
+        return DOWNLOAD_ARTIFACT_MD5.expand(baseUri, targetid, softwareModuleId, fileName);
+    }
+
+    static String deploymentBaseAction(final String baseUri, final String targetid, final Long actionId,
+            final int resource) {
+        return DEPLOYMENT_BASE_ACTION.expand(baseUri, targetid, actionId, resource);
+    }
+
+    static String cancelAction(final String baseUri, final String targetid, final Long actionId) {
+        return CANCEL_ACTION.expand(baseUri, targetid, actionId);
+    }
+
+    static String configData(final String baseUri, final String targetid) {
+        return CONFIG_DATA.expand(baseUri, targetid);
+    }
+
+    private static String encode(final String value, final boolean pathSegment) {
+        try {
+            return pathSegment ? UriUtils.encodePathSegment(value, ENCODING)
+                    : UriUtils.encodeQueryParam(value, ENCODING);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The template of one request mapping of the {@link RootController}, i.e.
+     * the literal parts of the path, the path variables in between and the
+     * request parameters.
+     */
+    static final class LinkTemplate {
+        private static final Pattern VARIABLE = Pattern.compile("\\{[^}]+\\}");
+
+        private final String[] literals;
+        private final String[] queryParameters;
+
+        private LinkTemplate(final String[] literals, final String[] queryParameters) {
+            this.literals = literals;
+            this.queryParameters = queryParameters;
+        }
+
+        /**
+         * Resolves the template of the given {@link RootController} method.
+         *
+         * @param methodName
+         *            of the request mapping method
+         * @return the template
+         */
+        static LinkTemplate of(final String methodName) {
+            final Method method = Arrays.stream(RootController.class.getMethods())
+                    .filter(candidate -> candidate.getName().equals(methodName)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No request mapping " + methodName));
+            final RequestMapping mapping = AnnotationUtils.findAnnotation(method, RequestMapping.class);
+
+            final List<String> queryParameters = new ArrayList<>();
+            for (final Annotation[] annotations : method.getParameterAnnotations()) {
+                Arrays.stream(annotations).filter(annotation -> annotation instanceof RequestParam)
+                        .forEach(annotation -> queryParameters.add(((RequestParam) annotation).value()));
+            }
+            return parse(mapping.value()[0], queryParameters);
+        }
+
+        /**
+         * Parses the given path template.
+         *
+         * @param path
+         *            with variables in curly braces
+         * @param queryParameters
+         *            the names of the request parameters
+         * @return the template
+         */
+        static LinkTemplate parse(final String path, final List<String> queryParameters) {
+            final List<String> literals = new ArrayList<>();
+            final Matcher matcher = VARIABLE.matcher(path);
+            int start = 0;
+            while (matcher.find()) {
+                literals.add(path.substring(start, matcher.start()));
+                start = matcher.end();
+            }
+            literals.add(path.substring(start));
+            return new LinkTemplate(literals.toArray(new String[literals.size()]),
+                    queryParameters.toArray(new String[queryParameters.size()]));
+        }
+
+        /**
+         * Expands the template.
+         *
+         * @param baseUri
+         *            the URI the template is relative to
+         * @param values
+         *            of the path variables followed by the values of the
+         *            request parameters
+         * @return the link
+         */
+        String expand(final String baseUri, final Object... values) {
+            final int variables = literals.length - 1;
+            if (values.length != variables + queryParameters.length) {
+                throw new IllegalArgumentException("Expected " + (variables + queryParameters.length)
+                        + " values but got " + values.length);
+            }
+
+            final StringBuilder link = new StringBuilder(baseUri.length() + 128).append(baseUri);
+            for (int i = 0; i < variables; i++) {
+                link.append(literals[i]).append(encode(String.valueOf(values[i]), true));
+            }
+            link.append(literals[variables]);
+            for (int i = 0; i < queryParameters.length; i++) {
+                link.append(i == 0 ? '?' : '&').append(queryParameters[i]).append('=')
+                        .append(encode(String.valueOf(values[variables + i]), false));
+            }
+            return link.toString();
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hawkbit.controller.model.ControllerBase;
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetDeletedEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetPollViewInvalidatedEvent;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.hateoas.Link;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Per target cache of the {@link ControllerBase} poll response including its
+ * ETag. Nearly all controller polls return the same response as the previous
+ * poll, so the response is only recalculated in case it has been invalidated
+ * by an event which changes the response, e.g. a
+ * {@link TargetAssignDistributionSetEvent}, a
+ * {@link TargetAssignDistributionSetBulkEvent} or a
+ * {@link CancelTargetAssignmentEvent}. Invalidations are posted as
+ * {@link TargetPollViewInvalidatedEvent} which is distributed to all nodes of
+ * the cluster.
+ *
+ * The cache is disabled by default and can be enabled with the property
+ * {@code hawkbit.server.controller.pollcache.enabled}. The ETag of the poll
+ * response is calculated in any case.
+ *
+ */
+@EventSubscriber
+public class ControllerPollViewCache implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ControllerPollViewCache.class);
+
+    @Autowired
+    private EventBus eventBus;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<Long, PollViewKey> targetIdIndex = new ConcurrentHashMap<>();
+
+    private Cache<PollViewKey, PollView> views;
+
+    /**
+     * Sequence number of the last invalidation per target, used to reject
+     * responses which have been calculated before an invalidation but are put
+     * into the cache after it.
+     */
+    private Cache<PollViewKey, Long> invalidations;
+
+    private boolean enabled;
+
+    /**
+     * @return {@code true} if poll responses are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marks the start of the calculation of a poll response which is put into
+     * the cache afterwards with {@link #put(long, String, Target, List, ControllerBase)}.
+     *
+     * @return the sequence number of the calculation
+     */
+    public long startLoading() {
+        return sequence.get();
+    }
+
+    /**
+     * Returns the cached poll response of the given controller.
+     *
+     * @param tenant
+     *            the tenant of the target
+     * @param controllerId
+     *            the ID of the controller
+     * @param baseUri
+     *            the base URI of the current request which is used in the
+     *            links of the response
+     * @return the cached poll response or {@code null} if there is none
+     */
+    public PollView get(final String tenant, final String controllerId, final String baseUri) {
+        if (!enabled) {
+            return null;
+        }
+        final PollViewKey key = new PollViewKey(tenant, controllerId);
+        final PollView view = views.getIfPresent(key);
+        if (view == null || !view.baseUri.equals(baseUri)) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= view.validUntil) {
+            views.invalidate(key);
+            return null;
+        }
+        return view;
+    }
+
+    /**
+     * Calculates the ETag of the given poll response and puts it into the
+     * cache if enabled.
+     *
+     * @param loadingSequence
+     *            the sequence number retrieved by {@link #startLoading()}
+     *            before the actions of the target have been read
+     * @param baseUri
+     *            the base URI of the current request which is used in the
+     *            links of the response
+     * @param target
+     *            the target of the poll response
+     * @param actions
+     *            the active actions of the target
+     * @param controllerBase
+     *            the poll response
+     * @return the poll response including its ETag
+     */
+    public PollView put(final long loadingSequence, final String baseUri, final Target target,
+            final List<Action> actions, final ControllerBase controllerBase) {
+        final PollView view = new PollView(controllerBase, calculateETag(controllerBase), baseUri, target.getId(),
+                target.getTargetInfo().isRequestControllerAttributes(), calculateValidUntil(actions));
+        if (!enabled) {
+            return view;
+        }
+
+        final PollViewKey key = new PollViewKey(target.getTenant(), target.getControllerId());
+        final Long lastInvalidation = invalidations.getIfPresent(key);
+        if (lastInvalidation != null && lastInvalidation > loadingSequence) {
+            LOG.debug("poll response of {} has been invalidated while loading, not caching it", key);
+            return view;
+        }
+        targetIdIndex.put(view.targetId, key);
+        views.put(key, view);
+        return view;
+    }
+
+    /**
+     * @return the number of cached poll responses
+     */
+    public long size() {
+        return enabled ? views.size() : 0;
+    }
+
+    /**
+     * Invalidates the poll response of the target on all nodes.
+     *
+     * @param event
+     *            the assignment event
+     */
+    @Subscribe
+    public void targetAssignDistributionSet(final TargetAssignDistributionSetEvent event) {
+        if (!enabled) {
+            return;
+        }
+        notifyInvalidated(event.getTenant(), event.getControllerId());
+    }
+
+    /**
+     * Invalidates the poll responses of the assigned targets on all nodes.
+     *
+     * @param event
+     *            the bulk assignment event
+     */
+    @Subscribe
+    public void targetAssignDistributionSetBulk(final TargetAssignDistributionSetBulkEvent event) {
+        if (!enabled) {
+            return;
+        }
+        event.getAssignments()
+                .forEach(assignment -> notifyInvalidated(event.getTenant(), assignment.getControllerId()));
+    }
+
+    /**
+     * Invalidates the poll response of the target on all nodes.
+     *
+     * @param event
+     *            the cancel event
+     */
+    @Subscribe
+    public void targetCancelAssignmentToDistributionSet(final CancelTargetAssignmentEvent event) {
+        if (!enabled) {
+            return;
+        }
+        notifyInvalidated(event.getTenant(), event.getControllerId());
+    }
+
+    /**
+     * Invalidates the poll response of the target on all nodes in case the
+     * request for controller attributes has changed. The invalidation is
+     * distributed regardless of whether this node caches the response, as
+     * other nodes might. Other changes of the {@link TargetInfo}, e.g. the
+     * last poll time, are not part of the poll response.
+     *
+     * @param event
+     *            the target info update event
+     */
+    @Subscribe
+    public void targetInfoUpdate(final TargetInfoUpdateEvent event) {
+        if (!enabled) {
+            return;
+        }
+        final TargetInfo targetInfo = event.getEntity();
+        final String controllerId = targetInfo.getTarget().getControllerId();
+        final PollView view = views.getIfPresent(new PollViewKey(event.getTenant(), controllerId));
+        if (targetInfo.isRequestControllerAttributesChanged()
+                || view != null && view.requestControllerAttributes != targetInfo.isRequestControllerAttributes()) {
+            notifyInvalidated(event.getTenant(), controllerId);
+        }
+    }
+
+    /**
+     * Removes the cached poll response of the target. The event is received
+     * from the local node as well as from all other nodes.
+     *
+     * @param event
+     *            the invalidation event
+     */
+    @Subscribe
+    public void pollViewInvalidated(final TargetPollViewInvalidatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        invalidate(new PollViewKey(event.getTenant(), event.getControllerId()));
+    }
+
+    /**
+     * Removes the cached poll response of the deleted target. The
+     * {@link TargetDeletedEvent} is already distributed to all nodes.
+     *
+     * @param event
+     *            the target deleted event
+     */
+    @Subscribe
+    public void targetDeleted(final TargetDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        final PollViewKey key = targetIdIndex.get(event.getTargetId());
+        if (key != null) {
+            invalidate(key);
+        }
+    }
+
+    private void notifyInvalidated(final String tenant, final String controllerId) {
+        if (tenant != null) {
+            eventBus.post(new TargetPollViewInvalidatedEvent(tenant, controllerId));
+        }
+    }
+
+    private void invalidate(final PollViewKey key) {
+        invalidations.put(key, sequence.incrementAndGet());
+        views.invalidate(key);
+    }
+
+    private static String calculateETag(final ControllerBase controllerBase) {
+        final Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(controllerBase.getConfig().getPolling().getSleep(), Charsets.UTF_8);
+        for (final Link link : controllerBase.getLinks()) {
+            hasher.putString(link.getRel(), Charsets.UTF_8).putString(link.getHref(), Charsets.UTF_8);
+        }
+        return "\"" + hasher.hash().toString() + "\"";
+    }
+
+    /**
+     * A time forced action becomes forced at its forced time which changes the
+     * poll response without any event.
+     */
+    private static long calculateValidUntil(final List<Action> actions) {
+        final long now = System.currentTimeMillis();
+        return actions.stream()
+                .filter(action -> action.getActionType() == ActionType.TIMEFORCED && !action.isHitAutoForceTime(now))
+                .mapToLong(Action::getForcedTime).min().orElse(Long.MAX_VALUE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.pollcache.");
+        configure(env.getProperty("enabled", Boolean.class, false), env.getProperty("maxSize", Long.class, 100000L),
+                env.getProperty("expireAfterWrite", Long.class, 3600000L));
+    }
+
+    /**
+     * Sets up the cache, for testing purposes.
+     *
+     * @param enabled
+     *            {@code true} to cache poll responses
+     * @param maxSize
+     *            the maximum number of cached poll responses
+     * @param expireAfterWrite
+     *            the maximum time in milliseconds a poll response is cached
+     */
+    void configure(final boolean enabled, final long maxSize, final long expireAfterWrite) {
+        this.enabled = enabled;
+        views = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+                .<PollViewKey, PollView> removalListener(notification -> {
+                    if (notification.getCause() != RemovalCause.REPLACED) {
+                        targetIdIndex.remove(notification.getValue().targetId, notification.getKey());
+                    }
+                }).build();
+        invalidations = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(1, TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * Sets the event bus, for testing purposes.
+     *
+     * @param eventBus
+     *            the eventBus to set
+     */
+    void setEventBus(final EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * A cached poll response including its ETag.
+     */
+    public static final class PollView {
+        private final ControllerBase controllerBase;
+        private final String eTag;
+        private final String baseUri;
+        private final long targetId;
+        private final boolean requestControllerAttributes;
+        private final long validUntil;
+
+        private PollView(final ControllerBase controllerBase, final String eTag, final String baseUri,
+                final long targetId, final boolean requestControllerAttributes, final long validUntil) {
+            this.controllerBase = controllerBase;
+            this.eTag = eTag;
+            this.baseUri = baseUri;
+            this.targetId = targetId;
+            this.requestControllerAttributes = requestControllerAttributes;
+            this.validUntil = validUntil;
+        }
+
+        /**
+         * @return the poll response
+         */
+        public ControllerBase getControllerBase() {
+            return controllerBase;
+        }
+
+        /**
+         * @return the quoted ETag of the poll response
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    /**
+     * Key of a cached poll response.
+     */
+    private static final class PollViewKey {
+        private final String tenant;
+        private final String controllerId;
+
+        private PollViewKey(final String tenant, final String controllerId) {
+            this.tenant = tenant.toUpperCase();
+            this.controllerId = controllerId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenant.hashCode() + controllerId.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PollViewKey)) {
+                return false;
+            }
+            final PollViewKey other = (PollViewKey) obj;
+            return tenant.equals(other.tenant) && controllerId.equals(other.controllerId);
+        }
+
+        @Override
+        public String toString() {
+            return tenant + "/" + controllerId;
+        }
+    }
+}
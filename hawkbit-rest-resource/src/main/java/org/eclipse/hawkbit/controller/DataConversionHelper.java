@@ -8,9 +8,6 @@
  */
 package org.eclipse.hawkbit.controller;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +15,8 @@ import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.hawkbit.controller.ChunkTemplateCache.ArtifactTemplate;
+import org.eclipse.hawkbit.controller.ChunkTemplateCache.ChunkTemplate;
 import org.eclipse.hawkbit.controller.model.Artifact;
 import org.eclipse.hawkbit.controller.model.Chunk;
 import org.eclipse.hawkbit.controller.model.Config;
@@ -25,10 +24,12 @@ import org.eclipse.hawkbit.controller.model.ControllerBase;
 import org.eclipse.hawkbit.controller.model.Polling;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.rest.resource.model.artifact.ArtifactHash;
 import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.springframework.hateoas.Link;
 
 import com.google.common.base.Charsets;
 
@@ -46,12 +47,64 @@ public final class DataConversionHelper {
 
     }
 
-    static List<Chunk> createChunks(final String targetid, final Action uAction, final TenantAware tenantAware) {
-        return uAction.getDistributionSet()
-                .getModules().stream().map(module -> new Chunk(mapChunkLegacyKeys(module.getType().getKey()),
-                        module.getVersion(), module.getName(), createArtifacts(targetid, module, tenantAware)))
+    /**
+     * Creates the chunks of a deployment base for the given controller out of
+     * the controller independent chunk templates.
+     *
+     * @param targetid
+     *            of the target
+     * @param templates
+     *            the chunk templates of the distribution set
+     * @param tenantAware
+     *            of the tenant
+     * @return the chunks
+     */
+    static List<Chunk> createChunks(final String targetid, final List<ChunkTemplate> templates,
+            final TenantAware tenantAware) {
+        final String baseUri = ControllerLinkTemplates.controllerBaseUri(tenantAware.getCurrentTenant());
+        return templates.stream().map(template -> new Chunk(template.getPart(), template.getVersion(),
+                template.getName(), createArtifacts(baseUri, targetid, template))).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the controller independent chunk templates of the given
+     * distribution set, i.e. its modules and their artifacts.
+     *
+     * @param distributionSet
+     *            of the deployment
+     * @return the chunk templates
+     */
+    static List<ChunkTemplate> createChunkTemplates(final DistributionSet distributionSet) {
+        return distributionSet.getModules().stream().map(DataConversionHelper::createChunkTemplate)
                 .collect(Collectors.toList());
+    }
 
+    private static ChunkTemplate createChunkTemplate(
+            final org.eclipse.hawkbit.repository.model.SoftwareModule module) {
+        return new ChunkTemplate(mapChunkLegacyKeys(module.getType().getKey()), module.getVersion(), module.getName(),
+                module.getId(),
+                module.getLocalArtifacts().stream().map(artifact -> new ArtifactTemplate(artifact.getFilename(),
+                        artifact.getSha1Hash(), artifact.getMd5Hash(), artifact.getSize()))
+                        .collect(Collectors.toList()));
+    }
+
+    private static List<Artifact> createArtifacts(final String baseUri, final String targetid,
+            final ChunkTemplate template) {
+        final List<Artifact> files = new ArrayList<>(template.getArtifacts().size());
+        for (final ArtifactTemplate artifact : template.getArtifacts()) {
+            final Artifact file = new Artifact();
+            file.setHashes(new ArtifactHash(artifact.getSha1Hash(), artifact.getMd5Hash()));
+            file.setFilename(artifact.getFilename());
+            file.setSize(artifact.getSize());
+
+            file.add(new Link(ControllerLinkTemplates.downloadArtifact(baseUri, targetid,
+                    template.getSoftwareModuleId(), artifact.getFilename()), "download"));
+            file.add(new Link(ControllerLinkTemplates.downloadArtifactMd5(baseUri, targetid,
+                    template.getSoftwareModuleId(), artifact.getFilename()), "md5sum"));
+
+            files.add(file);
+        }
+        return files;
     }
 
     private static String mapChunkLegacyKeys(final String key) {
@@ -78,26 +131,14 @@ public final class DataConversionHelper {
      */
     public static List<Artifact> createArtifacts(final String targetid,
             final org.eclipse.hawkbit.repository.model.SoftwareModule module, final TenantAware tenantAware) {
-        final List<Artifact> files = new ArrayList<>();
-        module.getLocalArtifacts().forEach(artifact -> {
-            final Artifact file = new Artifact();
-            file.setHashes(new ArtifactHash(artifact.getSha1Hash(), artifact.getMd5Hash()));
-            file.setFilename(artifact.getFilename());
-            file.setSize(artifact.getSize());
-
-            file.add(linkTo(methodOn(RootController.class, tenantAware.getCurrentTenant()).downloadArtifact(targetid,
-                    artifact.getSoftwareModule().getId(), artifact.getFilename(), null, null)).withRel("download"));
-            file.add(linkTo(methodOn(RootController.class, tenantAware.getCurrentTenant()).downloadArtifactMd5(targetid,
-                    artifact.getSoftwareModule().getId(), artifact.getFilename(), null, null)).withRel("md5sum"));
-
-            files.add(file);
-        });
-        return files;
+        return createArtifacts(ControllerLinkTemplates.controllerBaseUri(tenantAware.getCurrentTenant()), targetid,
+                createChunkTemplate(module));
     }
 
     static ControllerBase fromTarget(final Target target, final List<Action> actions,
             final String defaultControllerPollTime, final TenantAware tenantAware) {
         final ControllerBase result = new ControllerBase(new Config(new Polling(defaultControllerPollTime)));
+        final String baseUri = ControllerLinkTemplates.controllerBaseUri(tenantAware.getCurrentTenant());
 
         boolean addedUpdate = false;
         boolean addedCancel = false;
@@ -109,21 +150,20 @@ public final class DataConversionHelper {
                 // have changed from 'soft' to 'forced' type and we need to
                 // change the payload of the
                 // response because of eTags.
-                result.add(linkTo(methodOn(RootController.class, tenantAware.getCurrentTenant())
-                        .getControllerBasedeploymentAction(target.getControllerId(), action.getId(), actions.hashCode(),
-                                null)).withRel(ControllerConstants.DEPLOYMENT_BASE_ACTION));
+                result.add(new Link(ControllerLinkTemplates.deploymentBaseAction(baseUri, target.getControllerId(),
+                        action.getId(), actions.hashCode()), ControllerConstants.DEPLOYMENT_BASE_ACTION));
                 addedUpdate = true;
             } else if (action.isCancelingOrCanceled() && !addedCancel) {
-                result.add(linkTo(methodOn(RootController.class, tenantAware.getCurrentTenant())
-                        .getControllerCancelAction(target.getControllerId(), action.getId(), null))
-                                .withRel(ControllerConstants.CANCEL_ACTION));
+                result.add(new Link(
+                        ControllerLinkTemplates.cancelAction(baseUri, target.getControllerId(), action.getId()),
+                        ControllerConstants.CANCEL_ACTION));
                 addedCancel = true;
             }
         }
 
         if (target.getTargetInfo().isRequestControllerAttributes()) {
-            result.add(linkTo(methodOn(RootController.class, tenantAware.getCurrentTenant()).putConfigData(null,
-                    target.getControllerId(), null)).withRel(ControllerConstants.CONFIG_DATA_ACTION));
+            result.add(new Link(ControllerLinkTemplates.configData(baseUri, target.getControllerId()),
+                    ControllerConstants.CONFIG_DATA_ACTION));
         }
         return result;
     }
@@ -8,6 +8,8 @@
  */
 package org.eclipse.hawkbit.controller;
 
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
 import java.io.IOException;
 import java.util.List;
 
@@ -18,6 +20,7 @@ import javax.validation.Valid;
 import org.eclipse.hawkbit.ControllerPollProperties;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
 import org.eclipse.hawkbit.cache.CacheWriteNotify;
+import org.eclipse.hawkbit.controller.ControllerPollViewCache.PollView;
 import org.eclipse.hawkbit.controller.model.ActionFeedback;
 import org.eclipse.hawkbit.controller.model.Cancel;
 import org.eclipse.hawkbit.controller.model.CancelActionToStop;
@@ -30,7 +33,10 @@ import org.eclipse.hawkbit.controller.model.DeploymentBase;
 import org.eclipse.hawkbit.controller.model.Result.FinalResult;
 import org.eclipse.hawkbit.repository.ArtifactManagement;
 import org.eclipse.hawkbit.repository.ControllerManagement;
+import org.eclipse.hawkbit.repository.ActionFeedbackQueue;
+import org.eclipse.hawkbit.repository.DownloadSessionTracker;
 import org.eclipse.hawkbit.repository.SoftwareManagement;
+import org.eclipse.hawkbit.repository.TargetHeartbeatBuffer;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Action.Status;
@@ -50,6 +56,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.bind.RelaxedPropertyResolver;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -99,6 +106,21 @@ public class RootController implements EnvironmentAware {
     @Autowired
     private TenantAware tenantAware;
 
+    @Autowired
+    private ControllerPollViewCache pollViewCache;
+
+    @Autowired
+    private ChunkTemplateCache chunkTemplateCache;
+
+    @Autowired
+    private TargetHeartbeatBuffer heartbeatBuffer;
+
+    @Autowired
+    private DownloadSessionTracker downloadSessionTracker;
+
+    @Autowired
+    private ActionFeedbackQueue actionFeedbackQueue;
+
     private String requestHeader;
 
     @Override
@@ -154,6 +176,22 @@ public class RootController implements EnvironmentAware {
             final HttpServletRequest request) {
         LOG.debug("getControllerBase({})", targetid);
 
+        final String tenant = tenantAware.getCurrentTenant();
+        final String baseUri = linkTo(RootController.class, tenant).toString();
+        final PollView cachedView = pollViewCache.get(tenant, targetid, baseUri);
+        if (cachedView != null) {
+            LOG.debug("returning cached poll response of {}", targetid);
+            if (heartbeatBuffer.isEnabled()) {
+                heartbeatBuffer.record(tenant, targetid, System.currentTimeMillis(),
+                        IpUtil.getClientIpFromRequest(request, requestHeader));
+            } else {
+                controllerManagement.updateLastTargetQuery(targetid,
+                        IpUtil.getClientIpFromRequest(request, requestHeader));
+            }
+            return pollViewResponse(cachedView, request);
+        }
+
+        final long loadingSequence = pollViewCache.startLoading();
         final Target target = controllerManagement.findOrRegisterTargetIfItDoesNotexist(targetid,
                 IpUtil.getClientIpFromRequest(request, requestHeader));
 
@@ -163,9 +201,24 @@ public class RootController implements EnvironmentAware {
                     System.currentTimeMillis(), IpUtil.getClientIpFromRequest(request, requestHeader));
         }
 
-        return new ResponseEntity<>(DataConversionHelper.fromTarget(target,
-                controllerManagement.findActionByTargetAndActive(target), controllerPollProperties.getPollingTime(),
-                tenantAware), HttpStatus.OK);
+        final List<Action> actions = controllerManagement.findActionByTargetAndActive(target);
+        final ControllerBase controllerBase = DataConversionHelper.fromTarget(target, actions,
+                controllerPollProperties.getPollingTime(), tenantAware);
+        return pollViewResponse(pollViewCache.put(loadingSequence, baseUri, target, actions, controllerBase),
+                request);
+    }
+
+    private static ResponseEntity<ControllerBase> pollViewResponse(final PollView view,
+            final HttpServletRequest request) {
+        final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (final String eTag : ifNoneMatch.split(",")) {
+                if (view.getETag().equals(eTag.trim())) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(view.getETag()).build();
+                }
+            }
+        }
+        return ResponseEntity.ok().eTag(view.getETag()).body(view.getControllerBase());
     }
 
     /**
@@ -208,7 +261,7 @@ public class RootController implements EnvironmentAware {
             if (ifMatch != null && !RestResourceConversionHelper.matchesHttpHeader(ifMatch, artifact.getSha1Hash())) {
                 result = new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
             } else {
-                final Action action = checkAndLogDownload(request, target, module);
+                final Action action = checkAndLogDownload(request, target, module, artifact);
                 result = RestResourceConversionHelper.writeFileResponse(artifact, response, request, file,
                         cacheWriteNotify, action.getId());
             }
@@ -219,11 +272,16 @@ public class RootController implements EnvironmentAware {
     }
 
     private Action checkAndLogDownload(final HttpServletRequest request, final Target target,
-            final SoftwareModule module) {
+            final SoftwareModule module, final LocalArtifact artifact) {
         final Action action = controllerManagement.getActionForDownloadByTargetAndSoftwareModule(
-                target.getControllerId(), module);
+                target.getControllerId(), module.getId());
         final String range = request.getHeader("Range");
 
+        if (downloadSessionTracker.isEnabled()) {
+            downloadSessionTracker.recordDownload(action, artifact.getId(), range, "Controller downloads");
+            return action;
+        }
+
         final ActionStatus statusMessage = new ActionStatus();
         statusMessage.setAction(action);
         statusMessage.setOccurredAt(System.currentTimeMillis());
@@ -319,7 +377,8 @@ public class RootController implements EnvironmentAware {
 
         if (!action.isCancelingOrCanceled()) {
 
-            final List<Chunk> chunks = DataConversionHelper.createChunks(targetid, action, tenantAware);
+            final List<Chunk> chunks = DataConversionHelper.createChunks(targetid,
+                    chunkTemplateCache.getChunkTemplates(action.getDistributionSet()), tenantAware);
 
             final HandlingType handlingType = action.isForce() ? HandlingType.FORCED : HandlingType.ATTEMPT;
 
@@ -381,8 +440,11 @@ public class RootController implements EnvironmentAware {
             return new ResponseEntity<>(HttpStatus.GONE);
         }
 
-        controllerManagement.addUpdateActionStatus(generateUpdateStatus(feedback, targetid, feedback.getId(), action),
-                action);
+        final ActionStatus actionStatus = generateUpdateStatus(feedback, targetid, feedback.getId(), action);
+        if (actionFeedbackQueue.isEnabled()) {
+            return queuedFeedbackResponse(actionFeedbackQueue.offerUpdateActionStatus(actionStatus, action));
+        }
+        controllerManagement.addUpdateActionStatus(actionStatus, action);
 
         return new ResponseEntity<>(HttpStatus.OK);
 
@@ -553,11 +615,29 @@ public class RootController implements EnvironmentAware {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        controllerManagement.addCancelActionStatus(
-                generateActionCancelStatus(feedback, target, feedback.getId(), action), action);
+        final ActionStatus actionStatus = generateActionCancelStatus(feedback, target, feedback.getId(), action);
+        if (actionFeedbackQueue.isEnabled()) {
+            return queuedFeedbackResponse(actionFeedbackQueue.offerCancelActionStatus(actionStatus, action));
+        }
+        controllerManagement.addCancelActionStatus(actionStatus, action);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * Creates the response for feedback which has been offered to the
+     * {@link ActionFeedbackQueue}. Rejected feedback is answered with
+     * {@link HttpStatus#SERVICE_UNAVAILABLE} and a {@code Retry-After} header
+     * so the controller sends it again later.
+     */
+    private ResponseEntity<Void> queuedFeedbackResponse(final boolean queued) {
+        if (queued) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", String.valueOf(actionFeedbackQueue.getRetryAfter()));
+        return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     private static ActionStatus generateActionCancelStatus(final ActionFeedback feedback, final Target target,
             final Long actionid, final Action action) {
 
@@ -14,18 +14,25 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.eclipse.hawkbit.repository.DistributionSetAssignmentResult;
 import org.eclipse.hawkbit.repository.DistributionSetManagement;
 import org.eclipse.hawkbit.repository.SoftwareManagement;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
+import org.eclipse.hawkbit.repository.model.AssignmentJob;
+import org.eclipse.hawkbit.repository.model.AssignmentResult;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.DistributionSetMetadata;
 import org.eclipse.hawkbit.repository.model.DistributionSetType;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.RolloutWave;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.rest.resource.model.MetadataRest;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.ActionTypeRest;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.AssignmentJobRest;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetRequestBodyPost;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetRest;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetsRest;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.RolloutRest;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.RolloutWaveRest;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.TargetAssignmentResponseBody;
 
 /**
@@ -184,7 +191,7 @@ public final class DistributionSetMapper {
         return response;
     }
 
-    static TargetAssignmentResponseBody toResponse(final DistributionSetAssignmentResult dsAssignmentResult) {
+    static TargetAssignmentResponseBody toResponse(final AssignmentResult dsAssignmentResult) {
         final TargetAssignmentResponseBody result = new TargetAssignmentResponseBody();
         result.setAssigned(dsAssignmentResult.getAssigned());
         result.setAlreadyAssigned(dsAssignmentResult.getAlreadyAssigned());
@@ -192,6 +199,103 @@ public final class DistributionSetMapper {
         return result;
     }
 
+    static AssignmentJobRest toResponse(final AssignmentJob job) {
+        final AssignmentJobRest response = new AssignmentJobRest();
+        RestModelMapper.mapBaseToBase(response, job);
+
+        response.setJobId(job.getId());
+        response.setDistributionSetId(job.getDistributionSet().getId());
+        response.setTargetQuery(job.getTargetQuery());
+        response.setType(ActionTypeRest.valueOf(job.getActionType().name()));
+        if (job.getForcedTime() > 0) {
+            response.setForcetime(job.getForcedTime());
+        }
+        response.setStatus(job.getStatus().name().toLowerCase());
+        response.setTotalTargets(job.getTotalTargets());
+        response.setProcessedTargets(job.getProcessedTargets());
+        response.setAssignedTargets(job.getAssignedTargets());
+        response.setProgress(job.getProgress());
+        response.setEstimatedRemainingTime(job.getEstimatedRemainingTime());
+        response.setFinishedAt(job.getFinishedAt());
+        response.setErrorMessage(job.getErrorMessage());
+
+        response.add(linkTo(
+                methodOn(DistributionSetResource.class).getAssignmentJob(response.getDistributionSetId(),
+                        response.getJobId())).withRel("self"));
+        response.add(linkTo(
+                methodOn(DistributionSetResource.class).getDistributionSet(response.getDistributionSetId()))
+                .withRel("distributionset"));
+
+        return response;
+    }
+
+    static List<AssignmentJobRest> toResponseAssignmentJobs(final List<AssignmentJob> jobs) {
+        final List<AssignmentJobRest> mappedList = new ArrayList<>();
+        if (jobs != null) {
+            jobs.forEach(job -> mappedList.add(toResponse(job)));
+        }
+        return mappedList;
+    }
+
+    static RolloutRest toResponse(final Rollout rollout, final List<RolloutWave> waves) {
+        final RolloutRest response = new RolloutRest();
+        RestModelMapper.mapBaseToBase(response, rollout);
+
+        response.setRolloutId(rollout.getId());
+        response.setName(rollout.getName());
+        response.setDistributionSetId(rollout.getDistributionSet().getId());
+        response.setTargetQuery(rollout.getTargetQuery());
+        response.setType(ActionTypeRest.valueOf(rollout.getActionType().name()));
+        if (rollout.getForcedTime() > 0) {
+            response.setForcetime(rollout.getForcedTime());
+        }
+        response.setWaveSize(rollout.getWaveSize());
+        response.setSuccessThreshold(rollout.getSuccessThreshold());
+        response.setMaxRunningActions(rollout.getMaxRunningActions());
+        response.setMaxActiveDownloads(rollout.getMaxActiveDownloads());
+        response.setStatus(rollout.getStatus().name().toLowerCase());
+        response.setTotalTargets(rollout.getTotalTargets());
+        response.setReleasedTargets(rollout.getReleasedTargets());
+        response.setProgress(rollout.getProgress());
+        response.setFinishedAt(rollout.getFinishedAt());
+        response.setErrorMessage(rollout.getErrorMessage());
+        if (waves != null) {
+            final List<RolloutWaveRest> mappedWaves = new ArrayList<>();
+            waves.forEach(wave -> mappedWaves.add(toResponse(wave)));
+            response.setWaves(mappedWaves);
+        }
+
+        response.add(linkTo(
+                methodOn(DistributionSetResource.class).getRollout(response.getDistributionSetId(),
+                        response.getRolloutId())).withRel("self"));
+        response.add(linkTo(
+                methodOn(DistributionSetResource.class).getDistributionSet(response.getDistributionSetId()))
+                .withRel("distributionset"));
+
+        return response;
+    }
+
+    static RolloutWaveRest toResponse(final RolloutWave wave) {
+        final RolloutWaveRest response = new RolloutWaveRest();
+        response.setNumber(wave.getNumber());
+        response.setTargets(wave.getTargets());
+        response.setRunningTargets(wave.getRunningTargets());
+        response.setFinishedTargets(wave.getFinishedTargets());
+        response.setErrorTargets(wave.getErrorTargets());
+        response.setSuccessRate(wave.getSuccessRate());
+        response.setReleasedAt(wave.getReleasedAt());
+        return response;
+    }
+
+    static List<RolloutRest> toResponseRollouts(final List<Rollout> rollouts) {
+        final List<RolloutRest> mappedList = new ArrayList<>();
+        if (rollouts != null) {
+            // the waves are only part of the single rollout
+            rollouts.forEach(rollout -> mappedList.add(toResponse(rollout, null)));
+        }
+        return mappedList;
+    }
+
     static DistributionSetsRest toResponseDistributionSets(final Iterable<DistributionSet> sets) {
         final DistributionSetsRest response = new DistributionSetsRest();
         if (sets != null) {
@@ -8,6 +8,7 @@
  */
 package org.eclipse.hawkbit.rest.resource;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -15,33 +16,46 @@ import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
+import org.eclipse.hawkbit.repository.AssignmentJobManagement;
 import org.eclipse.hawkbit.repository.DeploymentManagement;
 import org.eclipse.hawkbit.repository.DistributionSetAssignmentResult;
 import org.eclipse.hawkbit.repository.DistributionSetFields;
 import org.eclipse.hawkbit.repository.DistributionSetManagement;
 import org.eclipse.hawkbit.repository.DistributionSetMetadataFields;
+import org.eclipse.hawkbit.repository.RolloutManagement;
 import org.eclipse.hawkbit.repository.SoftwareManagement;
 import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.repository.TargetFields;
 import org.eclipse.hawkbit.repository.TargetManagement;
 import org.eclipse.hawkbit.repository.TargetWithActionType;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.AssignmentJob;
+import org.eclipse.hawkbit.repository.model.AssignmentResult;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.DistributionSetMetadata;
 import org.eclipse.hawkbit.repository.model.DsMetadataCompositeKey;
+import org.eclipse.hawkbit.repository.model.Rollout;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.rsql.RSQLUtility;
 import org.eclipse.hawkbit.rest.resource.helper.RestResourceConversionHelper;
 import org.eclipse.hawkbit.rest.resource.model.MetadataRest;
 import org.eclipse.hawkbit.rest.resource.model.MetadataRestPageList;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.AssignmentJobPagedList;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.AssignmentJobRequestBody;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.AssignmentJobRest;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetPagedList;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetRequestBodyPost;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetRequestBodyPut;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetRest;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.DistributionSetsRest;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.RolloutPagedList;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.RolloutRequestBody;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.RolloutRest;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.TargetAssignmentRequestBody;
 import org.eclipse.hawkbit.rest.resource.model.distributionset.TargetAssignmentResponseBody;
+import org.eclipse.hawkbit.rest.resource.model.distributionset.TargetQueryAssignmentRequestBody;
 import org.eclipse.hawkbit.rest.resource.model.softwaremodule.SoftwareModuleAssigmentRest;
 import org.eclipse.hawkbit.rest.resource.model.softwaremodule.SoftwareModulePagedList;
 import org.eclipse.hawkbit.rest.resource.model.target.TargetPagedList;
@@ -83,6 +97,12 @@ public class DistributionSetResource {
     @Autowired
     private DeploymentManagement deployManagament;
 
+    @Autowired
+    private AssignmentJobManagement assignmentJobManagement;
+
+    @Autowired
+    private RolloutManagement rolloutManagement;
+
     @Autowired
     private SystemManagement systemManagement;
 
@@ -369,6 +389,238 @@ public class DistributionSetResource {
         return new ResponseEntity<>(DistributionSetMapper.toResponse(assignDistributionSet), HttpStatus.OK);
     }
 
+    /**
+     * Handles the POST request of assigning all targets matching a target
+     * query to a single distribution set. The targets are selected on the
+     * database, so the client does not need to retrieve and post the IDs of
+     * the targets.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set within the URL path parameter
+     * @param assignmentRequest
+     *            the target query and the action type of the assignment
+     * @return status OK if the assignment of the targets was successful and a
+     *         complex return body which contains information about the assigned
+     *         targets and the already assigned targets counters
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/{distributionSetId}/assignedTargets/query", consumes = {
+            "application/hal+json",
+            MediaType.APPLICATION_JSON_VALUE }, produces = { MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<TargetAssignmentResponseBody> createAssignedTargetsByQuery(
+            @PathVariable final Long distributionSetId,
+            @RequestBody final TargetQueryAssignmentRequestBody assignmentRequest) {
+        final AssignmentResult assignmentResult = deployManagament.assignDistributionSetByTargetQuery(
+                distributionSetId, assignmentRequest.getTargetQuery(),
+                RestResourceConversionHelper.convertActionType(assignmentRequest.getType()),
+                assignmentRequest.getForcetime());
+
+        return new ResponseEntity<>(DistributionSetMapper.toResponse(assignmentResult), HttpStatus.OK);
+    }
+
+    /**
+     * Handles the POST request of creating a job which assigns a single
+     * distribution set to all targets matching a target query in the
+     * background. The progress of the job can be retrieved by the returned
+     * job.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set within the URL path parameter
+     * @param jobRequest
+     *            the target query and the action type of the assignment
+     * @return status CREATED with the created job
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/{distributionSetId}/assignmentJobs", consumes = {
+            "application/hal+json",
+            MediaType.APPLICATION_JSON_VALUE }, produces = { MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<AssignmentJobRest> createAssignmentJob(@PathVariable final Long distributionSetId,
+            @RequestBody final AssignmentJobRequestBody jobRequest) {
+        final ActionType actionType = RestResourceConversionHelper.convertActionType(jobRequest.getType());
+        final AssignmentJob job = assignmentJobManagement.createAssignmentJob(distributionSetId,
+                jobRequest.getTargetQuery(), actionType != null ? actionType : ActionType.FORCED,
+                jobRequest.getForcetime());
+
+        return new ResponseEntity<>(DistributionSetMapper.toResponse(job), HttpStatus.CREATED);
+    }
+
+    /**
+     * Handles the GET request of retrieving the assignment jobs of a specific
+     * distribution set.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set to retrieve the jobs
+     * @param pagingOffsetParam
+     *            the offset of list of jobs for pagination, might not be
+     *            present in the rest request then default value will be applied
+     * @param pagingLimitParam
+     *            the limit of the paged request, might not be present in the
+     *            rest request then default value will be applied
+     * @return status OK if get request is successful with the paged list of
+     *         jobs, the latest job first
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/{distributionSetId}/assignmentJobs", produces = {
+            MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<AssignmentJobPagedList> getAssignmentJobs(@PathVariable final Long distributionSetId,
+            @RequestParam(value = RestConstants.REQUEST_PARAMETER_PAGING_OFFSET, defaultValue = RestConstants.REQUEST_PARAMETER_PAGING_DEFAULT_OFFSET) final int pagingOffsetParam,
+            @RequestParam(value = RestConstants.REQUEST_PARAMETER_PAGING_LIMIT, defaultValue = RestConstants.REQUEST_PARAMETER_PAGING_DEFAULT_LIMIT) final int pagingLimitParam) {
+        final DistributionSet foundDs = findDistributionSetWithExceptionIfNotFound(distributionSetId);
+
+        final int sanitizedOffsetParam = PagingUtility.sanitizeOffsetParam(pagingOffsetParam);
+        final int sanitizedLimitParam = PagingUtility.sanitizePageLimitParam(pagingLimitParam);
+        final Pageable pageable = new OffsetBasedPageRequest(sanitizedOffsetParam, sanitizedLimitParam,
+                new Sort(Sort.Direction.DESC, "id"));
+        final Page<AssignmentJob> jobs = assignmentJobManagement.findAssignmentJobsByDistributionSet(foundDs,
+                pageable);
+
+        return new ResponseEntity<>(new AssignmentJobPagedList(
+                DistributionSetMapper.toResponseAssignmentJobs(jobs.getContent()), jobs.getTotalElements()),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Handles the GET request of retrieving a single assignment job including
+     * its progress and the estimated remaining time.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set of the job
+     * @param jobId
+     *            the ID of the job to retrieve
+     * @return status OK with the job
+     * @throws EntityNotFoundException
+     *             in case the job does not exist.
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/{distributionSetId}/assignmentJobs/{jobId}", produces = {
+            MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<AssignmentJobRest> getAssignmentJob(@PathVariable final Long distributionSetId,
+            @PathVariable final Long jobId) {
+        return new ResponseEntity<>(
+                DistributionSetMapper.toResponse(findAssignmentJobWithExceptionIfNotFound(distributionSetId, jobId)),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Handles the DELETE request of canceling a running assignment job. The
+     * targets which have been processed so far remain assigned.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set of the job
+     * @param jobId
+     *            the ID of the job to cancel
+     * @return status OK with the canceled job
+     * @throws EntityNotFoundException
+     *             in case the job does not exist.
+     */
+    @RequestMapping(method = RequestMethod.DELETE, value = "/{distributionSetId}/assignmentJobs/{jobId}", produces = {
+            MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<AssignmentJobRest> cancelAssignmentJob(@PathVariable final Long distributionSetId,
+            @PathVariable final Long jobId) {
+        findAssignmentJobWithExceptionIfNotFound(distributionSetId, jobId);
+        final AssignmentJob canceledJob = assignmentJobManagement.cancelAssignmentJob(jobId);
+        return new ResponseEntity<>(DistributionSetMapper.toResponse(canceledJob), HttpStatus.OK);
+    }
+
+    /**
+     * Handles the POST request of creating a rollout which assigns a single
+     * distribution set to all targets matching a target query in waves.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set within the URL path parameter
+     * @param rolloutRequest
+     *            the target query, the action type and the wave parameters of
+     *            the rollout
+     * @return status CREATED with the created rollout
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/{distributionSetId}/rollouts", consumes = {
+            "application/hal+json",
+            MediaType.APPLICATION_JSON_VALUE }, produces = { MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<RolloutRest> createRollout(@PathVariable final Long distributionSetId,
+            @RequestBody final RolloutRequestBody rolloutRequest) {
+        final ActionType actionType = RestResourceConversionHelper.convertActionType(rolloutRequest.getType());
+        final Rollout rollout = rolloutManagement.createRollout(distributionSetId, rolloutRequest.getName(),
+                rolloutRequest.getTargetQuery(), actionType != null ? actionType : ActionType.FORCED,
+                rolloutRequest.getForcetime(), rolloutRequest.getWaveSize(), rolloutRequest.getSuccessThreshold(),
+                rolloutRequest.getMaxRunningActions(), rolloutRequest.getMaxActiveDownloads());
+
+        return new ResponseEntity<>(DistributionSetMapper.toResponse(rollout, Collections.emptyList()),
+                HttpStatus.CREATED);
+    }
+
+    /**
+     * Handles the GET request of retrieving the rollouts of a specific
+     * distribution set.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set to retrieve the rollouts
+     * @param pagingOffsetParam
+     *            the offset of list of rollouts for pagination, might not be
+     *            present in the rest request then default value will be applied
+     * @param pagingLimitParam
+     *            the limit of the paged request, might not be present in the
+     *            rest request then default value will be applied
+     * @return status OK if get request is successful with the paged list of
+     *         rollouts without their waves, the latest rollout first
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/{distributionSetId}/rollouts", produces = {
+            MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<RolloutPagedList> getRollouts(@PathVariable final Long distributionSetId,
+            @RequestParam(value = RestConstants.REQUEST_PARAMETER_PAGING_OFFSET, defaultValue = RestConstants.REQUEST_PARAMETER_PAGING_DEFAULT_OFFSET) final int pagingOffsetParam,
+            @RequestParam(value = RestConstants.REQUEST_PARAMETER_PAGING_LIMIT, defaultValue = RestConstants.REQUEST_PARAMETER_PAGING_DEFAULT_LIMIT) final int pagingLimitParam) {
+        final DistributionSet foundDs = findDistributionSetWithExceptionIfNotFound(distributionSetId);
+
+        final int sanitizedOffsetParam = PagingUtility.sanitizeOffsetParam(pagingOffsetParam);
+        final int sanitizedLimitParam = PagingUtility.sanitizePageLimitParam(pagingLimitParam);
+        final Pageable pageable = new OffsetBasedPageRequest(sanitizedOffsetParam, sanitizedLimitParam,
+                new Sort(Sort.Direction.DESC, "id"));
+        final Page<Rollout> rollouts = rolloutManagement.findRolloutsByDistributionSet(foundDs, pageable);
+
+        return new ResponseEntity<>(new RolloutPagedList(
+                DistributionSetMapper.toResponseRollouts(rollouts.getContent()), rollouts.getTotalElements()),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Handles the GET request of retrieving a single rollout including the
+     * progress of its released waves.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set of the rollout
+     * @param rolloutId
+     *            the ID of the rollout to retrieve
+     * @return status OK with the rollout
+     * @throws EntityNotFoundException
+     *             in case the rollout does not exist.
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/{distributionSetId}/rollouts/{rolloutId}", produces = {
+            MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<RolloutRest> getRollout(@PathVariable final Long distributionSetId,
+            @PathVariable final Long rolloutId) {
+        final Rollout rollout = findRolloutWithExceptionIfNotFound(distributionSetId, rolloutId);
+        return new ResponseEntity<>(
+                DistributionSetMapper.toResponse(rollout, rolloutManagement.findRolloutWaves(rollout)),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Handles the DELETE request of canceling a running rollout. The waves
+     * which have been released so far remain assigned.
+     *
+     * @param distributionSetId
+     *            the ID of the distribution set of the rollout
+     * @param rolloutId
+     *            the ID of the rollout to cancel
+     * @return status OK with the canceled rollout
+     * @throws EntityNotFoundException
+     *             in case the rollout does not exist.
+     */
+    @RequestMapping(method = RequestMethod.DELETE, value = "/{distributionSetId}/rollouts/{rolloutId}", produces = {
+            MediaType.APPLICATION_JSON_VALUE, "application/hal+json" })
+    public ResponseEntity<RolloutRest> cancelRollout(@PathVariable final Long distributionSetId,
+            @PathVariable final Long rolloutId) {
+        findRolloutWithExceptionIfNotFound(distributionSetId, rolloutId);
+        final Rollout canceledRollout = rolloutManagement.cancelRollout(rolloutId);
+        return new ResponseEntity<>(DistributionSetMapper.toResponse(canceledRollout,
+                rolloutManagement.findRolloutWaves(canceledRollout)), HttpStatus.OK);
+    }
+
     /**
      * Gets a paged list of meta data for a distribution set.
      *
@@ -624,6 +876,24 @@ public class DistributionSetResource {
         return set;
     }
 
+    private AssignmentJob findAssignmentJobWithExceptionIfNotFound(final Long distributionSetId, final Long jobId) {
+        final AssignmentJob job = assignmentJobManagement.findAssignmentJob(jobId);
+        if (job == null || !job.getDistributionSet().getId().equals(distributionSetId)) {
+            throw new EntityNotFoundException("AssignmentJob with Id {" + jobId + "} does not exist");
+        }
+
+        return job;
+    }
+
+    private Rollout findRolloutWithExceptionIfNotFound(final Long distributionSetId, final Long rolloutId) {
+        final Rollout rollout = rolloutManagement.findRollout(rolloutId);
+        if (rollout == null || !rollout.getDistributionSet().getId().equals(distributionSetId)) {
+            throw new EntityNotFoundException("Rollout with Id {" + rolloutId + "} does not exist");
+        }
+
+        return rollout;
+    }
+
     private SoftwareModule findSoftwareModuleWithExceptionIfNotFound(final Long softwareModuleId) {
         final SoftwareModule sm = softwareManagement.findSoftwareModuleById(softwareModuleId);
         if (sm == null) {
@@ -11,9 +11,13 @@ package org.eclipse.hawkbit.rest.resource.helper;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -48,6 +52,15 @@ public final class RestResourceConversionHelper {
 
     private static final int BUFFER_SIZE = 4096;
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of bytes per {@link FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)} call, so that the download
+     * progress is still published.
+     */
+    private static final long TRANSFER_SIZE = 1024 * 1024L;
+
     // utility class, private constructor.
     private RestResourceConversionHelper() {
 
@@ -178,9 +191,8 @@ public final class RestResourceConversionHelper {
         response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + r.getStart() + "-" + r.getEnd() + "/" + r.getTotal());
         response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(r.getLength()));
 
-        try {
-            copyStreams(file.getFileInputStream(), response.getOutputStream(), cacheWriteNotify, statusId, r.getStart(),
-                    r.getLength());
+        try (final SeekableByteChannel from = file.openChannel()) {
+            copyRange(from, response.getOutputStream(), cacheWriteNotify, statusId, r.getStart(), r.getLength());
         } catch (final IOException e) {
             LOG.error("fullfileRequest of file ({}) failed!", artifact.getFilename(), e);
             throw new FileSteamingFailedException(artifact.getFilename());
@@ -245,7 +257,7 @@ public final class RestResourceConversionHelper {
         response.setContentType("multipart/byteranges; boundary=" + ByteRange.MULTIPART_BOUNDARY);
         response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
 
-        try {
+        try (final SeekableByteChannel from = file.openChannel()) {
             for (final ByteRange r : ranges) {
                 // Add multipart boundary and header fields for every range.
                 response.getOutputStream().println();
@@ -254,8 +266,8 @@ public final class RestResourceConversionHelper {
                         .println("Content-Range: bytes " + r.getStart() + "-" + r.getEnd() + "/" + r.getTotal());
 
                 // Copy single part range of multi part range.
-                copyStreams(file.getFileInputStream(), response.getOutputStream(), cacheWriteNotify, statusId,
-                        r.getStart(), r.getLength());
+                copyRange(from, response.getOutputStream(), cacheWriteNotify, statusId, r.getStart(),
+                        r.getLength());
             }
 
             // End with final multipart boundary.
@@ -275,58 +287,56 @@ public final class RestResourceConversionHelper {
         response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(r.getLength()));
         response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
 
-        try {
-            copyStreams(file.getFileInputStream(), response.getOutputStream(), cacheWriteNotify, statusId, r.getStart(),
-                    r.getLength());
+        try (final SeekableByteChannel from = file.openChannel()) {
+            copyRange(from, response.getOutputStream(), cacheWriteNotify, statusId, r.getStart(), r.getLength());
         } catch (final IOException e) {
             LOG.error("standardRangeRequest of file ({}) failed!", artifact.getFilename(), e);
             throw new FileSteamingFailedException(artifact.getFilename());
         }
     }
 
-    private static long copyStreams(final InputStream from, final OutputStream to,
+    /**
+     * Copies the given range of the artifact channel to the output stream. The
+     * channel is positioned directly at the start of the range. File based
+     * channels are transferred by {@link FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)}, all others are copied through a
+     * buffer.
+     */
+    private static long copyRange(final SeekableByteChannel from, final OutputStream to,
             final CacheWriteNotify cacheWriteNotify, final Long statusId, final long start, final long length)
                     throws IOException {
         checkNotNull(from);
         checkNotNull(to);
-        final byte[] buf = new byte[BUFFER_SIZE];
-        long total = 0;
-        int progressPercent = 1;
-
-        // skipp until start is reached
-        long skipped = 0;
-        do {
-            skipped += from.skip(start);
-        } while (skipped < start);
-
-        long toRead = length;
-        boolean toContinue = true;
+        final DownloadProgress progress = new DownloadProgress(cacheWriteNotify, statusId, length);
+
+        if (from instanceof FileChannel) {
+            final WritableByteChannel target = Channels.newChannel(to);
+            long total = 0;
+            while (total < length) {
+                final long transferred = ((FileChannel) from).transferTo(start + total,
+                        Math.min(TRANSFER_SIZE, length - total), target);
+                if (transferred <= 0) {
+                    break;
+                }
+                total += transferred;
+                progress.update(total);
+            }
+            return total;
+        }
 
-        while (toContinue) {
+        from.position(start);
+        final ByteBuffer buf = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long total = 0;
+        while (total < length) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), length - total));
             final int r = from.read(buf);
             if (r == -1) {
                 break;
             }
-
-            toRead -= r;
-            if (toRead > 0) {
-                to.write(buf, 0, r);
-                total += r;
-            } else {
-                to.write(buf, 0, (int) toRead + r);
-                total += toRead + r;
-                toContinue = false;
-            }
-
-            if (cacheWriteNotify != null) {
-                final int newPercent = DoubleMath.roundToInt(total * 100.0 / length, RoundingMode.DOWN);
-
-                // every 10 percent an event
-                if (newPercent == 100 || newPercent > progressPercent + 10) {
-                    progressPercent = newPercent;
-                    cacheWriteNotify.downloadProgressPercent(statusId, progressPercent);
-                }
-            }
+            to.write(buf.array(), 0, r);
+            total += r;
+            progress.update(total);
         }
         return total;
     }
@@ -371,4 +381,33 @@ public final class RestResourceConversionHelper {
         }
 
     }
+
+    /**
+     * Publishes the download progress of a range every ten percent.
+     */
+    private static final class DownloadProgress {
+        private final CacheWriteNotify cacheWriteNotify;
+        private final Long statusId;
+        private final long length;
+        private int progressPercent = 1;
+
+        private DownloadProgress(final CacheWriteNotify cacheWriteNotify, final Long statusId, final long length) {
+            this.cacheWriteNotify = cacheWriteNotify;
+            this.statusId = statusId;
+            this.length = length;
+        }
+
+        private void update(final long total) {
+            if (cacheWriteNotify == null) {
+                return;
+            }
+            final int newPercent = DoubleMath.roundToInt(total * 100.0 / length, RoundingMode.DOWN);
+
+            // every 10 percent an event
+            if (newPercent == 100 || newPercent > progressPercent + 10) {
+                progressPercent = newPercent;
+                cacheWriteNotify.downloadProgressPercent(statusId, progressPercent);
+            }
+        }
+    }
 }
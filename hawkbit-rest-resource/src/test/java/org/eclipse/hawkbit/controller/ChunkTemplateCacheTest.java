@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.controller;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.eclipse.hawkbit.controller.ChunkTemplateCache.ChunkTemplate;
+import org.eclipse.hawkbit.eventbus.event.SoftwareContentChangedEvent;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.LocalArtifact;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.SoftwareModuleType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Controller RESTful API")
+@Stories("Deployment chunk cache")
+public class ChunkTemplateCacheTest {
+
+    @Mock
+    private DistributionSet distributionSet;
+
+    @Mock
+    private SoftwareModule module;
+
+    @Mock
+    private SoftwareModuleType moduleType;
+
+    private final ChunkTemplateCache cache = new ChunkTemplateCache();
+
+    @Before
+    public void setup() {
+        cache.configure(true, 100);
+
+        when(moduleType.getKey()).thenReturn("application");
+        when(module.getType()).thenReturn(moduleType);
+        when(module.getId()).thenReturn(10L);
+        when(module.getName()).thenReturn("app");
+        when(module.getVersion()).thenReturn("1.0");
+        when(module.getLocalArtifacts()).thenReturn(Collections.<LocalArtifact> emptyList());
+
+        when(distributionSet.getId()).thenReturn(1L);
+        when(distributionSet.getTenant()).thenReturn("default");
+        when(distributionSet.getModules()).thenReturn(Collections.singleton(module));
+    }
+
+    @Test
+    @Description("The chunks of a distribution set are read once and invalidated when one of its modules changes.")
+    public void chunksAreCachedUntilModuleChanges() {
+        final ChunkTemplate chunk = cache.getChunkTemplates(distributionSet).get(0);
+        assertThat(chunk.getPart()).isEqualTo("bApp");
+        assertThat(chunk.getSoftwareModuleId()).isEqualTo(10L);
+
+        assertThat(cache.getChunkTemplates(distributionSet).get(0)).isSameAs(chunk);
+        verify(distributionSet, times(1)).getModules();
+
+        // other sets and modules do not invalidate the chunks
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", 2L, null));
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", null, 11L));
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("OTHER", null, null));
+        assertThat(cache.getChunkTemplates(distributionSet).get(0)).isSameAs(chunk);
+
+        cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", null, 10L));
+        assertThat(cache.getChunkTemplates(distributionSet).get(0)).isNotSameAs(chunk);
+        verify(distributionSet, times(2)).getModules();
+    }
+
+    @Test
+    @Description("Chunks which have been read before an invalidation are not cached.")
+    public void chunksLoadedBeforeInvalidationAreNotCached() {
+        when(distributionSet.getModules()).thenAnswer(invocation -> {
+            cache.softwareContentChanged(new SoftwareContentChangedEvent("DEFAULT", 1L, null));
+            return Collections.singleton(module);
+        });
+
+        cache.getChunkTemplates(distributionSet);
+        cache.getChunkTemplates(distributionSet);
+        verify(distributionSet, times(2)).getModules();
+    }
+}
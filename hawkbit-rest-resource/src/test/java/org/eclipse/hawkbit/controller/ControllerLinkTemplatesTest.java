@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.controller;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Controller RESTful API")
+@Stories("Link templates")
+public class ControllerLinkTemplatesTest {
+
+    private static final String TENANT = "DEFAULT";
+
+    @Before
+    public void setUp() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @Description("The links built from the templates are equal to the links built by proxying the controller.")
+    public void linksAreEqualToControllerLinks() {
+        final String baseUri = ControllerLinkTemplates.controllerBaseUri(TENANT);
+        assertThat(baseUri).isEqualTo("http://localhost/DEFAULT/controller/v1");
+
+        assertThat(ControllerLinkTemplates.downloadArtifact(baseUri, "4712", 1L, "file.bin")).isEqualTo(
+                linkTo(methodOn(RootController.class, TENANT).downloadArtifact("4712", 1L, "file.bin", null, null))
+                        .withSelfRel().getHref());
+        assertThat(ControllerLinkTemplates.downloadArtifactMd5(baseUri, "4712", 1L, "file.bin")).isEqualTo(
+                linkTo(methodOn(RootController.class, TENANT).downloadArtifactMd5("4712", 1L, "file.bin", null, null))
+                        .withSelfRel().getHref());
+        assertThat(ControllerLinkTemplates.deploymentBaseAction(baseUri, "4712", 2L, -42)).isEqualTo(
+                linkTo(methodOn(RootController.class, TENANT).getControllerBasedeploymentAction("4712", 2L, -42, null))
+                        .withSelfRel().getHref());
+        assertThat(ControllerLinkTemplates.cancelAction(baseUri, "4712", 3L)).isEqualTo(
+                linkTo(methodOn(RootController.class, TENANT).getControllerCancelAction("4712", 3L, null))
+                        .withSelfRel().getHref());
+        assertThat(ControllerLinkTemplates.configData(baseUri, "4712")).isEqualTo(
+                linkTo(methodOn(RootController.class, TENANT).putConfigData(null, "4712", null)).withSelfRel()
+                        .getHref());
+    }
+
+    @Test
+    @Description("The values of the path variables are encoded as path segments.")
+    public void pathVariablesAreEncoded() {
+        assertThat(ControllerLinkTemplates.downloadArtifact("http://localhost/DEFAULT/controller/v1", "my target", 1L,
+                "file #1.bin")).isEqualTo(
+                        "http://localhost/DEFAULT/controller/v1/my%20target/softwaremodules/1/artifacts/file%20%231.bin");
+    }
+}
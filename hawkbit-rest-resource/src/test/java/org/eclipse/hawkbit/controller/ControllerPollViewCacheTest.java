@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.controller;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.eclipse.hawkbit.controller.ControllerPollViewCache.PollView;
+import org.eclipse.hawkbit.controller.model.Config;
+import org.eclipse.hawkbit.controller.model.ControllerBase;
+import org.eclipse.hawkbit.controller.model.Polling;
+import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetDeletedEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetPollViewInvalidatedEvent;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.hateoas.Link;
+
+import com.google.common.eventbus.EventBus;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Controller RESTful API")
+@Stories("Poll response cache")
+public class ControllerPollViewCacheTest {
+
+    private static final String BASE_URI = "http://localhost/default/controller/v1";
+
+    @Mock
+    private EventBus eventBus;
+
+    @Mock
+    private Target target;
+
+    @Mock
+    private TargetInfo targetInfo;
+
+    private final ControllerPollViewCache cache = new ControllerPollViewCache();
+
+    @Before
+    public void setup() {
+        cache.setEventBus(eventBus);
+        cache.configure(true, 100, 60000);
+
+        when(target.getId()).thenReturn(1L);
+        when(target.getTenant()).thenReturn("default");
+        when(target.getControllerId()).thenReturn("4711");
+        when(target.getTargetInfo()).thenReturn(targetInfo);
+    }
+
+    @Test
+    @Description("A cached poll response is returned until it gets invalidated.")
+    public void cachedViewIsReturnedUntilInvalidated() {
+        final PollView view = cache.put(cache.startLoading(), BASE_URI, target, Collections.<Action> emptyList(),
+                controllerBase("00:01:00"));
+
+        assertThat(cache.get("DEFAULT", "4711", BASE_URI)).isSameAs(view);
+        assertThat(cache.get("DEFAULT", "4711", "http://otherhost/default/controller/v1")).isNull();
+
+        cache.pollViewInvalidated(new TargetPollViewInvalidatedEvent("DEFAULT", "4711"));
+        assertThat(cache.get("DEFAULT", "4711", BASE_URI)).isNull();
+    }
+
+    @Test
+    @Description("A poll response calculated before an invalidation is not cached.")
+    public void viewLoadedBeforeInvalidationIsNotCached() {
+        final long loadingSequence = cache.startLoading();
+        cache.pollViewInvalidated(new TargetPollViewInvalidatedEvent("DEFAULT", "4711"));
+        cache.put(loadingSequence, BASE_URI, target, new ArrayList<>(), controllerBase("00:01:00"));
+
+        assertThat(cache.get("DEFAULT", "4711", BASE_URI)).isNull();
+    }
+
+    @Test
+    @Description("An assignment is distributed as invalidation event and a deleted target is removed from the cache.")
+    public void assignmentIsDistributedAndDeletionEvicts() {
+        cache.targetAssignDistributionSet(new TargetAssignDistributionSetEvent("DEFAULT", "4711", 1L,
+                Collections.emptyList(), null));
+        verify(eventBus).post(any(TargetPollViewInvalidatedEvent.class));
+
+        cache.put(cache.startLoading(), BASE_URI, target, new ArrayList<>(), controllerBase("00:01:00"));
+        cache.targetDeleted(new TargetDeletedEvent("DEFAULT", 1L));
+        assertThat(cache.get("DEFAULT", "4711", BASE_URI)).isNull();
+    }
+
+    @Test
+    @Description("A changed request for controller attributes is distributed even if the view is not cached on this node.")
+    public void changedAttributeRequestIsDistributedWithoutLocalView() {
+        when(targetInfo.getTarget()).thenReturn(target);
+
+        cache.targetInfoUpdate(new TargetInfoUpdateEvent(targetInfo));
+        verify(eventBus, never()).post(any());
+
+        when(targetInfo.isRequestControllerAttributesChanged()).thenReturn(true);
+        cache.targetInfoUpdate(new TargetInfoUpdateEvent(targetInfo));
+        verify(eventBus).post(any(TargetPollViewInvalidatedEvent.class));
+    }
+
+    @Test
+    @Description("The ETag only depends on the content of the poll response and is calculated if the cache is disabled.")
+    public void eTagIsCalculatedIfDisabled() {
+        cache.configure(false, 100, 60000);
+
+        final String eTag = cache.put(0, BASE_URI, target, new ArrayList<>(), controllerBase("00:01:00")).getETag();
+        assertThat(cache.put(0, BASE_URI, target, new ArrayList<>(), controllerBase("00:01:00")).getETag())
+                .isEqualTo(eTag);
+        assertThat(cache.put(0, BASE_URI, target, new ArrayList<>(), controllerBase("00:02:00")).getETag())
+                .isNotEqualTo(eTag);
+        assertThat(cache.get("DEFAULT", "4711", BASE_URI)).isNull();
+
+        cache.targetAssignDistributionSet(new TargetAssignDistributionSetEvent("DEFAULT", "4711", 1L,
+                Collections.emptyList(), null));
+        cache.targetCancelAssignmentToDistributionSet(new CancelTargetAssignmentEvent("DEFAULT", "4711", 1L,
+                null));
+        verify(eventBus, never()).post(any());
+    }
+
+    private static ControllerBase controllerBase(final String sleep) {
+        final ControllerBase controllerBase = new ControllerBase(new Config(new Polling(sleep)));
+        controllerBase.add(new Link(BASE_URI + "/4711/configData", ControllerConstants.CONFIG_DATA_ACTION));
+        return controllerBase;
+    }
+}
@@ -834,6 +834,185 @@ public class DistributionSetResourceTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("content[0].value", equalTo("knownValue1")));
     }
 
+    @Test
+    @Description("Verifies the assignment of a distribution set to all targets matching a target query through the RESTful API.")
+    public void assignTargetsByQuery() throws Exception {
+        final DistributionSet oldSet = TestDataUtil.generateDistributionSet("QueryOld", softwareManagement,
+                distributionSetManagement);
+        final DistributionSet set = TestDataUtil.generateDistributionSet("QuerySet", softwareManagement,
+                distributionSetManagement);
+        final List<Target> targets = targetManagement.createTargets(TestDataUtil.generateTargets(4, "restquery"));
+        targetManagement.createTarget(new Target("other"));
+        deploymentManagement.assignDistributionSet(oldSet, targets.subList(0, 2));
+        final String queryUri = RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + set.getId()
+                + "/assignedTargets/query";
+
+        mvc.perform(post(queryUri).contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONObject().put("targetQuery", "assignedds.name==" + oldSet.getName())
+                        .put("type", "soft").toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.assigned", equalTo(2))).andExpect(jsonPath("$.alreadyAssigned", equalTo(0)))
+                .andExpect(jsonPath("$.total", equalTo(2)));
+
+        mvc.perform(post(queryUri).contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONObject().put("targetQuery", "controllerId==restquery*").toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.assigned", equalTo(2))).andExpect(jsonPath("$.alreadyAssigned", equalTo(2)))
+                .andExpect(jsonPath("$.total", equalTo(4)));
+
+        assertThat(targetManagement.findTargetByAssignedDistributionSet(set.getId(), pageReq).getTotalElements())
+                .isEqualTo(4);
+        assertThat(actionRepository.countByDistributionSet(set)).isEqualTo(4L);
+
+        mvc.perform(post(queryUri).contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONObject().put("targetQuery", "unknownField==1").toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Description("Verifies the creation, the progress, the listing and the cancellation of assignment jobs through the RESTful API.")
+    public void assignmentJobLifecycle() throws Exception {
+        final DistributionSet set = TestDataUtil.generateDistributionSet("JobSet", softwareManagement,
+                distributionSetManagement);
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, "restjob"));
+        targetManagement.createTarget(new Target("other"));
+        final String jobsUri = RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + set.getId()
+                + "/assignmentJobs";
+
+        final MvcResult created = mvc
+                .perform(post(jobsUri).contentType(MediaType.APPLICATION_JSON)
+                        .content(new JSONObject().put("targetQuery", "controllerId==restjob*").put("type", "soft")
+                                .toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.distributionSetId", equalTo(set.getId().intValue())))
+                .andExpect(jsonPath("$.targetQuery", equalTo("controllerId==restjob*")))
+                .andExpect(jsonPath("$.type", equalTo("soft"))).andExpect(jsonPath("$.totalTargets", equalTo(3)))
+                .andReturn();
+        final Integer jobId = JsonPath.read(created.getResponse().getContentAsString(), "$.id");
+        final String jobUri = jobsUri + "/" + jobId;
+
+        String status = null;
+        for (int i = 0; i < 100 && !"finished".equals(status); i++) {
+            Thread.sleep(100);
+            status = JsonPath.read(mvc.perform(get(jobUri)).andExpect(status().isOk()).andReturn().getResponse()
+                    .getContentAsString(), "$.status");
+        }
+        mvc.perform(get(jobUri)).andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", equalTo("finished")))
+                .andExpect(jsonPath("$.processedTargets", equalTo(3)))
+                .andExpect(jsonPath("$.assignedTargets", equalTo(3))).andExpect(jsonPath("$.progress", equalTo(100)));
+
+        mvc.perform(get(jobsUri)).andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", equalTo(1))).andExpect(jsonPath("$.size", equalTo(1)))
+                .andExpect(jsonPath("$.content[0].id", equalTo(jobId)));
+
+        // a finished job is not canceled anymore
+        mvc.perform(delete(jobUri)).andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", equalTo("finished")));
+        assertThat(targetManagement.findTargetByAssignedDistributionSet(set.getId(), pageReq).getTotalElements())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @Description("Verifies that invalid assignment job requests are refused through the RESTful API.")
+    public void invalidAssignmentJobRequests() throws Exception {
+        final DistributionSet set = TestDataUtil.generateDistributionSet("InvalidJobSet", softwareManagement,
+                distributionSetManagement);
+        final String jobsUri = RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + set.getId()
+                + "/assignmentJobs";
+
+        mvc.perform(post(jobsUri).contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONObject().put("targetQuery", "unknownField==1").toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isBadRequest());
+        mvc.perform(post(RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/12345678/assignmentJobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONObject().put("targetQuery", "controllerId==*").toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isNotFound());
+        mvc.perform(get(jobsUri + "/12345678")).andDo(MockMvcResultPrinter.print()).andExpect(status().isNotFound());
+        mvc.perform(delete(jobsUri + "/12345678")).andDo(MockMvcResultPrinter.print())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Description("Verifies that a rollout can be created, retrieved and canceled through the RESTful API.")
+    public void rolloutLifecycle() throws Exception {
+        final DistributionSet set = TestDataUtil.generateDistributionSet("RolloutSet", softwareManagement,
+                distributionSetManagement);
+        targetManagement.createTargets(TestDataUtil.generateTargets(3, "restrollout"));
+        targetManagement.createTarget(new Target("other"));
+        final String rolloutsUri = RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + set.getId()
+                + "/rollouts";
+
+        final MvcResult created = mvc
+                .perform(post(rolloutsUri).contentType(MediaType.APPLICATION_JSON)
+                        .content(new JSONObject().put("name", "rollout").put("targetQuery", "controllerId==restrollout*")
+                                .put("type", "soft").put("waveSize", 2).put("successThreshold", 50)
+                                .put("maxRunningActions", 10).put("maxActiveDownloads", 5).toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name", equalTo("rollout")))
+                .andExpect(jsonPath("$.distributionSetId", equalTo(set.getId().intValue())))
+                .andExpect(jsonPath("$.targetQuery", equalTo("controllerId==restrollout*")))
+                .andExpect(jsonPath("$.type", equalTo("soft"))).andExpect(jsonPath("$.waveSize", equalTo(2)))
+                .andExpect(jsonPath("$.successThreshold", equalTo(50)))
+                .andExpect(jsonPath("$.maxRunningActions", equalTo(10)))
+                .andExpect(jsonPath("$.maxActiveDownloads", equalTo(5)))
+                .andExpect(jsonPath("$.status", equalTo("running"))).andExpect(jsonPath("$.totalTargets", equalTo(3)))
+                .andExpect(jsonPath("$.releasedTargets", equalTo(0))).andReturn();
+        final Integer rolloutId = JsonPath.read(created.getResponse().getContentAsString(), "$.id");
+        final String rolloutUri = rolloutsUri + "/" + rolloutId;
+
+        mvc.perform(get(rolloutUri)).andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", equalTo(rolloutId))).andExpect(jsonPath("$.status", equalTo("running")))
+                .andExpect(jsonPath("$.waves", hasSize(0)));
+
+        mvc.perform(get(rolloutsUri)).andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", equalTo(1))).andExpect(jsonPath("$.size", equalTo(1)))
+                .andExpect(jsonPath("$.content[0].id", equalTo(rolloutId)));
+
+        mvc.perform(delete(rolloutUri)).andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", equalTo("canceled")));
+        mvc.perform(get(rolloutUri)).andExpect(status().isOk()).andExpect(jsonPath("$.status", equalTo("canceled")));
+        assertThat(targetManagement.findTargetByAssignedDistributionSet(set.getId(), pageReq).getTotalElements())
+                .isEqualTo(0);
+    }
+
+    @Test
+    @Description("Verifies that invalid rollout requests are refused through the RESTful API.")
+    public void invalidRolloutRequests() throws Exception {
+        final DistributionSet set = TestDataUtil.generateDistributionSet("InvalidRolloutSet", softwareManagement,
+                distributionSetManagement);
+        final DistributionSet otherSet = TestDataUtil.generateDistributionSet("OtherRolloutSet", softwareManagement,
+                distributionSetManagement);
+        final String rolloutsUri = RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + set.getId()
+                + "/rollouts";
+
+        mvc.perform(post(rolloutsUri).contentType(MediaType.APPLICATION_JSON)
+                .content(new JSONObject().put("name", "rollout").put("targetQuery", "unknownField==1")
+                        .put("waveSize", 2).toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isBadRequest());
+        mvc.perform(post(RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/12345678/rollouts")
+                .contentType(MediaType.APPLICATION_JSON).content(new JSONObject().put("name", "rollout")
+                        .put("targetQuery", "controllerId==*").put("waveSize", 2).toString()))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isNotFound());
+        mvc.perform(get(RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/12345678/rollouts"))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isNotFound());
+        mvc.perform(get(rolloutsUri + "/12345678")).andDo(MockMvcResultPrinter.print())
+                .andExpect(status().isNotFound());
+        mvc.perform(delete(rolloutsUri + "/12345678")).andDo(MockMvcResultPrinter.print())
+                .andExpect(status().isNotFound());
+
+        // a rollout is only found through its own distribution set
+        final MvcResult created = mvc
+                .perform(post(rolloutsUri).contentType(MediaType.APPLICATION_JSON).content(new JSONObject()
+                        .put("name", "rollout").put("targetQuery", "controllerId==*").put("waveSize", 2).toString()))
+                .andExpect(status().isCreated()).andReturn();
+        final Integer rolloutId = JsonPath.read(created.getResponse().getContentAsString(), "$.id");
+        mvc.perform(get(RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + otherSet.getId() + "/rollouts/"
+                + rolloutId)).andDo(MockMvcResultPrinter.print()).andExpect(status().isNotFound());
+        mvc.perform(delete(RestConstants.DISTRIBUTIONSET_V1_REQUEST_MAPPING + "/" + otherSet.getId() + "/rollouts/"
+                + rolloutId)).andDo(MockMvcResultPrinter.print()).andExpect(status().isNotFound());
+    }
+
     private Set<DistributionSet> createDistributionSetsAlphabetical(final int amount) {
         char character = 'a';
         final Set<DistributionSet> created = new HashSet<>();
@@ -9,8 +9,10 @@
 package org.eclipse.hawkbit.security;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import javax.servlet.FilterChain;
@@ -25,14 +27,21 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
 /**
  * Filter for protection against denial of service attacks. It reduces the
  * maximum number of request per seconds which can be separately configured for
  * read (GET) and write (PUT/POST/DELETE) requests. requests
  *
+ * The requests are classified by {@link EndpointClass} and limited by a
+ * {@link RateLimiter} per client IP address and optionally per tenant and per
+ * controller, each with its own {@link RateLimit} per endpoint class. A
+ * request is only accepted if it is within all of its limits, a rejected
+ * request does not consume a permit of any limit. White listed IP addresses
+ * are exempt from the limit per IP address only.
+ *
+ * The filter is meant to be registered for all requests. Requests that are
+ * neither controller requests nor requests of the management API under
+ * {@code /rest} are not rate limited, only the black list applies to them.
  *
  *
  *
@@ -43,16 +52,65 @@ public class DosFilter extends OncePerRequestFilter {
     private static final Logger LOG_DOS = LoggerFactory.getLogger("server-security.dos");
     private static final Logger LOG_BLACKLIST = LoggerFactory.getLogger("server-security.blacklist");
 
+    private static final int DEFAULT_MAX_KEYS = 100000;
+
+    private static final String CONTROLLER_PATH_SEGMENT = "controller";
+    private static final String CONTROLLER_API_PATH_SEGMENT = "v1";
+    private static final String ARTIFACTS_PATH_SEGMENT = "artifacts";
+    private static final String REST_PATH_SEGMENT = "rest";
+
+    /**
+     * Classes of endpoints which are limited separately.
+     */
+    public enum EndpointClass {
+        /**
+         * Read requests of the direct device integration API.
+         */
+        DDI_POLL,
+        /**
+         * Artifact downloads of controllers.
+         */
+        DOWNLOAD,
+        /**
+         * Write requests of the direct device integration API, e.g. action
+         * feedback.
+         */
+        FEEDBACK,
+        /**
+         * Read requests of the management API.
+         */
+        MANAGEMENT_READ,
+        /**
+         * Write requests of the management API.
+         */
+        MANAGEMENT_WRITE;
+    }
+
+    /**
+     * Keys the requests are limited by.
+     */
+    public enum KeyType {
+        /**
+         * The IP address of the client.
+         */
+        IP,
+        /**
+         * The tenant of a controller request.
+         */
+        TENANT,
+        /**
+         * The controller of a controller request.
+         */
+        CONTROLLER;
+    }
+
     private final Pattern ipAdressBlacklist;
 
-    private final Cache<String, AtomicInteger> readCountCache = CacheBuilder.newBuilder()
-            .expireAfterAccess(1, TimeUnit.SECONDS).build();
+    private final RateLimiter rateLimiter;
 
-    private final Cache<String, AtomicInteger> writeCountCache = CacheBuilder.newBuilder()
-            .expireAfterAccess(1, TimeUnit.SECONDS).build();
+    private final Map<EndpointClass, Map<KeyType, RateLimit>> limits = new EnumMap<>(EndpointClass.class);
 
-    private final Integer maxRead;
-    private final Integer maxWrite;
+    private final Map<EndpointClass, AtomicLong> rejected = new EnumMap<>(EndpointClass.class);
 
     private final Pattern whitelist;
 
@@ -78,10 +136,47 @@ public class DosFilter extends OncePerRequestFilter {
      */
     public DosFilter(final Integer maxRead, final Integer maxWrite, final String ipDosWhiteListPattern,
             final String ipBlackListPattern, final String forwardHeader) {
+        this(maxRead, maxWrite, ipDosWhiteListPattern, ipBlackListPattern, forwardHeader, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Filter constructor including configuration.
+     *
+     * @param maxRead
+     *            Maximum number of allowed REST read/GET requests per second
+     *            per client
+     * @param maxWrite
+     *            Maximum number of allowed REST write/(PUT/POST/etc.) requests
+     *            per second per client
+     * @param ipDosWhiteListPattern
+     *            {@link Pattern} with with white list of peer IP addresses for
+     *            DOS filter
+     * @param ipBlackListPattern
+     *            {@link Pattern} with black listed IP addresses
+     * @param forwardHeader
+     *            the header containing the forwarded IP address e.g.
+     *            {@code x-forwarded-for}
+     * @param maxKeys
+     *            the maximum number of clients, tenants and controllers the
+     *            request rates are tracked for
+     */
+    public DosFilter(final Integer maxRead, final Integer maxWrite, final String ipDosWhiteListPattern,
+            final String ipBlackListPattern, final String forwardHeader, final int maxKeys) {
         super();
-        this.maxRead = maxRead;
-        this.maxWrite = maxWrite;
         this.forwardHeader = forwardHeader;
+        this.rateLimiter = new RateLimiter(maxKeys);
+
+        for (final EndpointClass endpointClass : EndpointClass.values()) {
+            limits.put(endpointClass, new EnumMap<>(KeyType.class));
+            rejected.put(endpointClass, new AtomicLong());
+        }
+        final RateLimit readLimit = RateLimit.perSecond(maxRead);
+        final RateLimit writeLimit = RateLimit.perSecond(maxWrite);
+        setLimit(EndpointClass.DDI_POLL, KeyType.IP, readLimit);
+        setLimit(EndpointClass.DOWNLOAD, KeyType.IP, readLimit);
+        setLimit(EndpointClass.MANAGEMENT_READ, KeyType.IP, readLimit);
+        setLimit(EndpointClass.FEEDBACK, KeyType.IP, writeLimit);
+        setLimit(EndpointClass.MANAGEMENT_WRITE, KeyType.IP, writeLimit);
 
         if (ipBlackListPattern != null && !ipBlackListPattern.isEmpty()) {
             ipAdressBlacklist = Pattern.compile(ipBlackListPattern);
@@ -96,6 +191,43 @@ public class DosFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Sets the limit of an endpoint class for a key type. The limits per IP
+     * address are initialized with the maximum read and write requests,
+     * tenants and controllers are not limited by default.
+     *
+     * @param endpointClass
+     *            the class of the limited endpoints
+     * @param keyType
+     *            the key type the requests are limited by
+     * @param limit
+     *            the limit or {@code null} for no limit
+     */
+    public void setLimit(final EndpointClass endpointClass, final KeyType keyType, final RateLimit limit) {
+        if (limit == null) {
+            limits.get(endpointClass).remove(keyType);
+        } else {
+            limits.get(endpointClass).put(keyType, limit);
+        }
+    }
+
+    /**
+     * @param endpointClass
+     *            the class of the endpoints
+     * @return the number of rejected requests of the endpoint class
+     */
+    public long getRejectedCount(final EndpointClass endpointClass) {
+        return rejected.get(endpointClass).get();
+    }
+
+    /**
+     * @return the number of clients, tenants and controllers the request
+     *         rates are tracked for
+     */
+    public int getActiveKeys() {
+        return rateLimiter.getActiveKeys();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -110,22 +242,12 @@ public class DosFilter extends OncePerRequestFilter {
 
         boolean processChain;
 
-        final String ip = IpUtil.getClientIpFromRequest(request, forwardHeader).getHost();
+        final String ip = IpUtil.getClientHostFromRequest(request, forwardHeader);
         if (checkIpFails(ip)) {
             processChain = handleMissingIpAddress(response);
         } else {
-            processChain = checkAgainstBlacklist(response, ip);
-
-            if (processChain && (whitelist == null || !whitelist.matcher(ip).find())) {
-                // read request
-                if (HttpMethod.valueOf(request.getMethod()) == HttpMethod.GET) {
-                    processChain = handleReadRequest(response, ip);
-                }
-                // write request
-                else {
-                    processChain = handleWriteRequest(response, ip);
-                }
-            }
+            processChain = checkAgainstBlacklist(response, ip)
+                    && handleRequest(request, response, ip, whitelist != null && whitelist.matcher(ip).find());
         }
 
         if (processChain) {
@@ -159,35 +281,81 @@ public class DosFilter extends OncePerRequestFilter {
         return processChain;
     }
 
-    private boolean handleWriteRequest(final HttpServletResponse response, final String ip) {
-        boolean processChain = true;
-        final AtomicInteger count = writeCountCache.getIfPresent(ip);
+    private boolean handleRequest(final HttpServletRequest request, final HttpServletResponse response,
+            final String ip, final boolean whitelisted) {
+        final boolean read = HttpMethod.GET.name().equals(request.getMethod());
+        final String[] path = splitPath(request);
+        final EndpointClass endpointClass = classify(path, read);
+        if (endpointClass == null) {
+            return true;
+        }
+        final Map<KeyType, RateLimit> endpointLimits = limits.get(endpointClass);
+
+        final String tenant = isControllerRequest(path) ? path[0] : null;
+        final String controllerId = tenant != null && path.length >= 4
+                && CONTROLLER_API_PATH_SEGMENT.equals(path[2]) ? tenant + '/' + path[3] : null;
 
-        if (count == null) {
-            writeCountCache.put(ip, new AtomicInteger());
-        } else if (count.getAndIncrement() > maxWrite) {
-            LOG_DOS.info("Registered DOS attack! Client {} is above configured WRITE request threshold ({})!", ip,
-                    maxWrite);
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            processChain = false;
+        final Map<String, RateLimit> requestLimits = new LinkedHashMap<>();
+        addLimit(requestLimits, endpointClass, endpointLimits, KeyType.IP, whitelisted ? null : ip);
+        addLimit(requestLimits, endpointClass, endpointLimits, KeyType.TENANT, tenant);
+        addLimit(requestLimits, endpointClass, endpointLimits, KeyType.CONTROLLER, controllerId);
+        if (requestLimits.isEmpty() || rateLimiter.tryAcquireAll(requestLimits)) {
+            return true;
         }
 
-        return processChain;
+        rejected.get(endpointClass).incrementAndGet();
+        LOG_DOS.info("Registered DOS attack! Client {} is above configured {} request threshold ({})!", ip,
+                endpointClass, endpointLimits);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        return false;
     }
 
-    private boolean handleReadRequest(final HttpServletResponse response, final String ip) {
-        boolean processChain = true;
-        final AtomicInteger count = readCountCache.getIfPresent(ip);
+    private static void addLimit(final Map<String, RateLimit> requestLimits, final EndpointClass endpointClass,
+            final Map<KeyType, RateLimit> endpointLimits, final KeyType keyType, final String key) {
+        final RateLimit limit = endpointLimits.get(keyType);
+        if (limit != null && key != null) {
+            requestLimits.put(endpointClass.ordinal() + ":" + keyType.ordinal() + ":" + key, limit);
+        }
+    }
 
-        if (count == null) {
-            readCountCache.put(ip, new AtomicInteger());
-        } else if (count.getAndIncrement() > maxRead) {
-            LOG_DOS.info("Registered DOS attack! Client {} is above configured READ request threshold ({})!", ip,
-                    maxRead);
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            processChain = false;
+    private static String[] splitPath(final HttpServletRequest request) {
+        String path = request.getRequestURI();
+        final String contextPath = request.getContextPath();
+        if (contextPath != null && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
         }
+        return path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
+    }
 
-        return processChain;
+    /**
+     * @return {@code true} for the path of the direct device integration API
+     *         {@code /{tenant}/controller/v1/{controllerId}/...} or the
+     *         artifact download {@code /{tenant}/controller/artifacts/...}
+     */
+    private static boolean isControllerRequest(final String[] path) {
+        return path.length >= 3 && CONTROLLER_PATH_SEGMENT.equals(path[1])
+                && (CONTROLLER_API_PATH_SEGMENT.equals(path[2]) || ARTIFACTS_PATH_SEGMENT.equals(path[2]));
+    }
+
+    /**
+     * @return the {@link EndpointClass} of the request or {@code null} if the
+     *         request is not rate limited
+     */
+    private static EndpointClass classify(final String[] path, final boolean read) {
+        if (!isControllerRequest(path)) {
+            if (path.length >= 1 && REST_PATH_SEGMENT.equals(path[0])) {
+                return read ? EndpointClass.MANAGEMENT_READ : EndpointClass.MANAGEMENT_WRITE;
+            }
+            return null;
+        }
+        if (!read) {
+            return EndpointClass.FEEDBACK;
+        }
+        for (int i = 2; i < path.length; i++) {
+            if (ARTIFACTS_PATH_SEGMENT.equals(path[i])) {
+                return EndpointClass.DOWNLOAD;
+            }
+        }
+        return EndpointClass.DDI_POLL;
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A limit of the {@link RateLimiter}, i.e. the number of permits per second
+ * and the number of permits which can be acquired at once after a pause.
+ *
+ *
+ *
+ */
+public final class RateLimit {
+
+    private final int permitsPerSecond;
+    private final int burst;
+    private final long emissionInterval;
+    private final long tolerance;
+
+    /**
+     * Constructor.
+     *
+     * @param permitsPerSecond
+     *            the sustained number of permits per second
+     * @param burst
+     *            the number of permits which can be acquired at once
+     */
+    public RateLimit(final int permitsPerSecond, final int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.emissionInterval = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.tolerance = emissionInterval * burst;
+    }
+
+    /**
+     * Creates a limit which allows a burst of the permits of one second.
+     *
+     * @param permitsPerSecond
+     *            the sustained number of permits per second
+     * @return the limit
+     */
+    public static RateLimit perSecond(final int permitsPerSecond) {
+        return new RateLimit(permitsPerSecond, permitsPerSecond);
+    }
+
+    public int getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return the time in nanoseconds which one permit takes to refill
+     */
+    long getEmissionInterval() {
+        return emissionInterval;
+    }
+
+    /**
+     * @return the time in nanoseconds the refill of a bucket may lag behind
+     */
+    long getTolerance() {
+        return tolerance;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimit [permitsPerSecond=" + permitsPerSecond + ", burst=" + burst + "]";
+    }
+}
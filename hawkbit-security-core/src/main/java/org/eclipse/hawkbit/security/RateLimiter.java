@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free rate limiter with one token bucket per key, e.g. per IP address,
+ * tenant or controller. A bucket is a single {@link AtomicLong} holding the
+ * theoretical arrival time of the next permit (generic cell rate algorithm),
+ * so acquiring a permit is one compare-and-set and a bucket refills
+ * continuously instead of being reset once a second.
+ *
+ * The buckets are striped over several maps by key. The number of keys is
+ * bounded: a stripe which exceeds its share drops the buckets which are full
+ * anyway, as a full bucket behaves like a new one, and afterwards the least
+ * recently used buckets.
+ *
+ *
+ *
+ */
+public class RateLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final List<Map<String, Bucket>> stripes = new ArrayList<>(STRIPES);
+    private final List<AtomicBoolean> shedding = new ArrayList<>(STRIPES);
+    private final int maxKeysPerStripe;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param maxKeys
+     *            the maximum number of keys the rate limiter keeps buckets
+     *            for
+     */
+    public RateLimiter(final int maxKeys) {
+        maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.add(new ConcurrentHashMap<>());
+            shedding.add(new AtomicBoolean());
+        }
+    }
+
+    /**
+     * Acquires a permit for the given key if the bucket of the key is not
+     * empty.
+     *
+     * @param key
+     *            the key of the bucket
+     * @param limit
+     *            the limit of the bucket
+     * @return {@code true} if the permit has been acquired, {@code false} if
+     *         the rate of the key is above the limit
+     */
+    public boolean tryAcquire(final String key, final RateLimit limit) {
+        final long now = System.nanoTime();
+        final boolean acquired = bucket(key, now).tryAcquire(now, limit);
+        shedIfExceeded(key, now);
+        if (!acquired) {
+            rejected.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    /**
+     * Acquires a permit for each of the given keys if none of their buckets
+     * is empty. If a bucket is empty the permits which have already been
+     * acquired for the other keys are released again, so a rejected request
+     * does not consume any permit.
+     *
+     * @param limits
+     *            the keys of the buckets and their limits, acquired in
+     *            iteration order
+     * @return {@code true} if all permits have been acquired, {@code false} if
+     *         the rate of at least one key is above its limit
+     */
+    public boolean tryAcquireAll(final Map<String, RateLimit> limits) {
+        final long now = System.nanoTime();
+        final List<Bucket> acquired = new ArrayList<>(limits.size());
+        final List<RateLimit> acquiredLimits = new ArrayList<>(limits.size());
+        boolean allAcquired = true;
+        for (final Map.Entry<String, RateLimit> limit : limits.entrySet()) {
+            final Bucket bucket = bucket(limit.getKey(), now);
+            if (!bucket.tryAcquire(now, limit.getValue())) {
+                allAcquired = false;
+                break;
+            }
+            acquired.add(bucket);
+            acquiredLimits.add(limit.getValue());
+        }
+
+        if (!allAcquired) {
+            for (int i = 0; i < acquired.size(); i++) {
+                acquired.get(i).release(acquiredLimits.get(i));
+            }
+            rejected.incrementAndGet();
+        }
+        limits.keySet().forEach(key -> shedIfExceeded(key, now));
+        return allAcquired;
+    }
+
+    /**
+     * @return the number of rejected permits
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of keys buckets are kept for
+     */
+    public int getActiveKeys() {
+        return stripes.stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * @return the number of buckets which have been dropped to keep the
+     *         number of keys bounded
+     */
+    public long getShedCount() {
+        return shed.get();
+    }
+
+    private Bucket bucket(final String key, final long now) {
+        final Map<String, Bucket> buckets = stripes.get(stripe(key));
+
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            final Bucket created = new Bucket(now);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                return created;
+            }
+        }
+        bucket.lastAccess = now;
+        return bucket;
+    }
+
+    /**
+     * Sheds the stripe of the key if it holds too many buckets. Called after
+     * acquiring, so a new bucket is not full anymore and is kept.
+     */
+    private void shedIfExceeded(final String key, final long now) {
+        final int stripe = stripe(key);
+        if (stripes.get(stripe).size() > maxKeysPerStripe) {
+            shed(stripe, now);
+        }
+    }
+
+    private static int stripe(final String key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private void shed(final int stripe, final long now) {
+        // only one thread sheds a stripe, all others go on without waiting
+        final AtomicBoolean guard = shedding.get(stripe);
+        if (!guard.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final Map<String, Bucket> buckets = stripes.get(stripe);
+            final int sizeBefore = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+
+            // shed down to three quarters so the next key does not shed
+            // again
+            final int excess = buckets.size() - maxKeysPerStripe * 3 / 4;
+            if (excess > 0) {
+                // the access time is copied as it changes while sorting
+                final List<AccessSnapshot> byAccess = new ArrayList<>(buckets.size());
+                buckets.forEach((key, bucket) -> byAccess.add(new AccessSnapshot(key, bucket, now)));
+                byAccess.sort(Comparator.comparingLong((final AccessSnapshot snapshot) -> snapshot.age).reversed());
+                byAccess.stream().limit(excess).forEach(snapshot -> buckets.remove(snapshot.key, snapshot.bucket));
+            }
+            shed.addAndGet(sizeBefore - buckets.size());
+        } finally {
+            guard.set(false);
+        }
+    }
+
+    /**
+     * Token bucket of one key.
+     */
+    private static final class Bucket {
+        private final AtomicLong theoreticalArrival;
+        private volatile long lastAccess;
+
+        private Bucket(final long now) {
+            theoreticalArrival = new AtomicLong(now);
+            lastAccess = now;
+        }
+
+        private boolean tryAcquire(final long now, final RateLimit limit) {
+            while (true) {
+                final long arrival = theoreticalArrival.get();
+                // compare the difference as the nano time may overflow
+                final long next = (arrival - now > 0 ? arrival : now) + limit.getEmissionInterval();
+                if (next - now > limit.getTolerance()) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release(final RateLimit limit) {
+            theoreticalArrival.addAndGet(-limit.getEmissionInterval());
+        }
+
+        private boolean isFull(final long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+    }
+
+    /**
+     * A bucket with the time of its last access at the start of shedding.
+     */
+    private static final class AccessSnapshot {
+        private final String key;
+        private final Bucket bucket;
+        private final long age;
+
+        private AccessSnapshot(final String key, final Bucket bucket, final long now) {
+            this.key = key;
+            this.bucket = bucket;
+            this.age = now - bucket.lastAccess;
+        }
+    }
+}
@@ -55,11 +55,42 @@ public final class IpUtil {
      *         request
      */
     public static URI getClientIpFromRequest(final HttpServletRequest request, final String forwardHeader) {
+        return createHttpUri(getClientIpAddress(request, forwardHeader));
+    }
+
+    /**
+     * Retrieves the host of the client which sent the given
+     * {@link HttpServletRequest} in the same way as
+     * {@link #getClientIpFromRequest(HttpServletRequest, String)} but without
+     * creating an {@link URI}, i.e. IPv6 addresses are enclosed in brackets.
+     * 
+     * @param request
+     *            the {@link HttpServletRequest} to determine the IP address
+     *            where this request has been sent from
+     * @param forwardHeader
+     *            the header name containing the IP address e.g. forwarded by a
+     *            proxy {@code x-forwarded-for}
+     * @return the host of the client or {@code null} if it cannot be
+     *         determined
+     */
+    public static String getClientHostFromRequest(final HttpServletRequest request, final String forwardHeader) {
+        final String ip = getClientIpAddress(request, forwardHeader);
+        if (ip != null && isIpV6(ip)) {
+            return "[" + ip + "]";
+        }
+        return ip;
+    }
+
+    private static String getClientIpAddress(final HttpServletRequest request, final String forwardHeader) {
         String ip = request.getHeader(forwardHeader);
         if (ip == null || (ip = findClientIpAddress(ip)) == null) {
             ip = request.getRemoteAddr();
         }
-        return createHttpUri(ip);
+        return ip;
+    }
+
+    private static boolean isIpV6(final String host) {
+        return host.indexOf(':') >= 0 && host.charAt(0) != '[';
     }
 
     private static String findClientIpAddress(final String s) {
@@ -91,8 +122,7 @@ public final class IpUtil {
      *             If the given string not parsable
      */
     public static URI createUri(final String scheme, final String host) {
-        final boolean isIpV6 = host.indexOf(':') >= 0 && host.charAt(0) != '[';
-        if (isIpV6) {
+        if (isIpV6(host)) {
             return URI.create(scheme + SCHEME_SEPERATOR + "[" + host + "]");
         }
 
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+
+import org.eclipse.hawkbit.security.DosFilter.EndpointClass;
+import org.eclipse.hawkbit.security.DosFilter.KeyType;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Security")
+@Stories("DOS Filter")
+public class DosFilterTest {
+
+    private static final String FORWARD_HEADER = "X-Forwarded-For";
+
+    @Test
+    @Description("Requests are classified by endpoint and every endpoint class is limited separately.")
+    public void endpointsAreClassified() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(1, 1, null, null, FORWARD_HEADER);
+
+        assertLimited(filter, EndpointClass.MANAGEMENT_READ, "GET", "/rest/v1/targets");
+        assertLimited(filter, EndpointClass.MANAGEMENT_WRITE, "POST", "/rest/v1/targets");
+        assertLimited(filter, EndpointClass.DDI_POLL, "GET", "/tenant/controller/v1/device");
+        assertLimited(filter, EndpointClass.DOWNLOAD, "GET",
+                "/tenant/controller/v1/device/softwaremodules/1/artifacts/file.bin");
+        assertLimited(filter, EndpointClass.FEEDBACK, "POST",
+                "/tenant/controller/v1/device/deploymentBase/1/feedback");
+    }
+
+    @Test
+    @Description("Artifact downloads of the artifacts API are classified as downloads.")
+    public void artifactsApiIsClassifiedAsDownload() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(1, 1, null, null, FORWARD_HEADER);
+
+        assertLimited(filter, EndpointClass.DOWNLOAD, "GET",
+                "/tenant/controller/artifacts/v1/filename/file.bin");
+    }
+
+    @Test
+    @Description("Requests that are neither controller nor management API requests are not limited.")
+    public void otherRequestsAreNotLimited() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(1, 1, null, null, FORWARD_HEADER);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(filter(filter, "GET", "/UI/", "10.0.0.1")).isTrue();
+            assertThat(filter(filter, "POST", "/UI/UIDL/", "10.0.0.1")).isTrue();
+            assertThat(filter(filter, "GET", "/tenant/other/v1/device", "10.0.0.1")).isTrue();
+        }
+        for (final EndpointClass endpointClass : EndpointClass.values()) {
+            assertThat(filter.getRejectedCount(endpointClass)).isEqualTo(0);
+        }
+    }
+
+    @Test
+    @Description("Controller requests are limited per tenant across all clients and controllers of the tenant.")
+    public void requestsAreLimitedPerTenant() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(100, 100, null, null, FORWARD_HEADER);
+        filter.setLimit(EndpointClass.DDI_POLL, KeyType.TENANT, new RateLimit(1, 1));
+
+        assertThat(filter(filter, "GET", "/tenant1/controller/v1/device1", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant1/controller/v1/device2", "10.0.0.2")).isFalse();
+        assertThat(filter(filter, "GET", "/tenant2/controller/v1/device1", "10.0.0.1")).isTrue();
+        assertThat(filter.getRejectedCount(EndpointClass.DDI_POLL)).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Controller requests are limited per controller of a tenant across all clients.")
+    public void requestsAreLimitedPerController() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(100, 100, null, null, FORWARD_HEADER);
+        filter.setLimit(EndpointClass.DDI_POLL, KeyType.CONTROLLER, new RateLimit(1, 1));
+
+        assertThat(filter(filter, "GET", "/tenant1/controller/v1/device1", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant1/controller/v1/device1", "10.0.0.2")).isFalse();
+        assertThat(filter(filter, "GET", "/tenant1/controller/v1/device2", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant2/controller/v1/device1", "10.0.0.1")).isTrue();
+        assertThat(filter.getRejectedCount(EndpointClass.DDI_POLL)).isEqualTo(1);
+    }
+
+    @Test
+    @Description("A request rejected by one limit does not consume a permit of the other limits.")
+    public void rejectedRequestDoesNotConsumePermits() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(2, 2, null, null, FORWARD_HEADER);
+        filter.setLimit(EndpointClass.DDI_POLL, KeyType.CONTROLLER, new RateLimit(1, 1));
+
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device1", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device1", "10.0.0.1")).isFalse();
+        // the second permit of the IP address has not been consumed by the
+        // rejected request
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device2", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device3", "10.0.0.1")).isFalse();
+    }
+
+    @Test
+    @Description("White listed IP addresses are exempt from the limit per IP address but not from the other limits.")
+    public void whitelistAppliesToIpLimitOnly() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(1, 1, "10\\.0\\.0\\.1", null, FORWARD_HEADER);
+        filter.setLimit(EndpointClass.DDI_POLL, KeyType.CONTROLLER, new RateLimit(1, 1));
+
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device1", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device2", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device3", "10.0.0.1")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device1", "10.0.0.1")).isFalse();
+
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device4", "10.0.0.2")).isTrue();
+        assertThat(filter(filter, "GET", "/tenant/controller/v1/device5", "10.0.0.2")).isFalse();
+    }
+
+    @Test
+    @Description("Black listed IP addresses are rejected.")
+    public void blacklistedIpIsForbidden() throws IOException, ServletException {
+        final DosFilter filter = new DosFilter(100, 100, null, "10\\.0\\.0\\.1", FORWARD_HEADER);
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(filter(filter, "GET", "/rest/v1/targets", "10.0.0.1", response)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.FORBIDDEN.value());
+    }
+
+    private static void assertLimited(final DosFilter filter, final EndpointClass endpointClass, final String method,
+            final String path) throws IOException, ServletException {
+        final long rejected = filter.getRejectedCount(endpointClass);
+
+        assertThat(filter(filter, method, path, "10.0.0.1")).isTrue();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(filter(filter, method, path, "10.0.0.1", response)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(filter.getRejectedCount(endpointClass)).isEqualTo(rejected + 1);
+    }
+
+    private static boolean filter(final DosFilter filter, final String method, final String path, final String ip)
+            throws IOException, ServletException {
+        return filter(filter, method, path, ip, new MockHttpServletResponse());
+    }
+
+    private static boolean filter(final DosFilter filter, final String method, final String path, final String ip,
+            final MockHttpServletResponse response) throws IOException, ServletException {
+        final MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(ip);
+        final MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return chain.getRequest() != null;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Security")
+@Stories("Rate Limiter")
+public class RateLimiterTest {
+
+    @Test
+    @Description("A bucket allows the burst at once and rejects further permits until it has been refilled.")
+    public void burstIsAllowedAndRefilled() throws InterruptedException {
+        final RateLimiter rateLimiter = new RateLimiter(100);
+        final RateLimit limit = new RateLimit(100, 3);
+
+        assertThat(rateLimiter.tryAcquire("client", limit)).isTrue();
+        assertThat(rateLimiter.tryAcquire("client", limit)).isTrue();
+        assertThat(rateLimiter.tryAcquire("client", limit)).isTrue();
+        assertThat(rateLimiter.tryAcquire("client", limit)).isFalse();
+        assertThat(rateLimiter.tryAcquire("other", limit)).isTrue();
+        assertThat(rateLimiter.getRejectedCount()).isEqualTo(1);
+
+        // one permit is refilled every 10 ms
+        TimeUnit.MILLISECONDS.sleep(20);
+        assertThat(rateLimiter.tryAcquire("client", limit)).isTrue();
+    }
+
+    @Test
+    @Description("Permits of several keys are acquired all or none.")
+    public void permitsOfSeveralKeysAreAcquiredAllOrNone() {
+        final RateLimiter rateLimiter = new RateLimiter(100);
+        final Map<String, RateLimit> limits = new LinkedHashMap<>();
+        limits.put("client", new RateLimit(100, 2));
+        limits.put("tenant", new RateLimit(100, 1));
+
+        assertThat(rateLimiter.tryAcquireAll(limits)).isTrue();
+        assertThat(rateLimiter.tryAcquireAll(limits)).isFalse();
+        assertThat(rateLimiter.getRejectedCount()).isEqualTo(1);
+
+        // the permit of the client has been released by the rejection
+        assertThat(rateLimiter.tryAcquire("client", new RateLimit(100, 2))).isTrue();
+        assertThat(rateLimiter.tryAcquire("client", new RateLimit(100, 2))).isFalse();
+    }
+
+    @Test
+    @Description("The number of keys is bounded by shedding full and least recently used buckets.")
+    public void keysAreBounded() {
+        final RateLimiter rateLimiter = new RateLimiter(160);
+        final RateLimit limit = new RateLimit(1, 1);
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(rateLimiter.tryAcquire("client" + i, limit)).isTrue();
+        }
+
+        assertThat(rateLimiter.getActiveKeys()).isLessThanOrEqualTo(160 + 16);
+        assertThat(rateLimiter.getShedCount()).isEqualTo(10000 - rateLimiter.getActiveKeys());
+        // the most recent client is still limited
+        assertThat(rateLimiter.tryAcquire("client9999", limit)).isFalse();
+    }
+}
@@ -28,12 +28,19 @@ public abstract class AbstractControllerAuthenticationFilter implements PreAuthe
 
     protected final SystemManagement systemManagement;
     protected final TenantAware tenantAware;
+    protected final ControllerAuthenticationCache authenticationCache;
     private final SecurityConfigurationKeyTenantRunner configurationKeyTenantRunner;
 
     protected AbstractControllerAuthenticationFilter(final SystemManagement systemManagement,
             final TenantAware tenantAware) {
+        this(systemManagement, tenantAware, null);
+    }
+
+    protected AbstractControllerAuthenticationFilter(final SystemManagement systemManagement,
+            final TenantAware tenantAware, final ControllerAuthenticationCache authenticationCache) {
         this.systemManagement = systemManagement;
         this.tenantAware = tenantAware;
+        this.authenticationCache = authenticationCache;
         this.configurationKeyTenantRunner = new SecurityConfigurationKeyTenantRunner();
     }
 
@@ -41,9 +48,18 @@ public abstract class AbstractControllerAuthenticationFilter implements PreAuthe
 
     @Override
     public boolean isEnable(final TenantSecruityToken secruityToken) {
+        if (isAuthenticationCacheEnabled()) {
+            return authenticationCache.isAuthenticationModeEnabled(secruityToken.getTenant(),
+                    getTenantConfigurationKey(),
+                    () -> tenantAware.runAsTenant(secruityToken.getTenant(), configurationKeyTenantRunner));
+        }
         return tenantAware.runAsTenant(secruityToken.getTenant(), configurationKeyTenantRunner);
     }
 
+    protected boolean isAuthenticationCacheEnabled() {
+        return authenticationCache != null && authenticationCache.isEnabled();
+    }
+
     @Override
     public abstract HeaderAuthentication getPreAuthenticatedPrincipal(TenantSecruityToken secruityToken);
 
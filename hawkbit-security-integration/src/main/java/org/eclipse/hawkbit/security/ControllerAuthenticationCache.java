@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.eventbus.event.TargetDeletedEvent;
+import org.eclipse.hawkbit.eventbus.event.TenantConfigurationChangedEvent;
+import org.eclipse.hawkbit.repository.SystemManagement;
+import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Cache of the information which is necessary to authenticate controllers,
+ * so an authenticated controller request does not need to read the security
+ * token of the target and the enabled authentication modes of the tenant from
+ * the repository.
+ *
+ * The security tokens are cached in a bounded cache per tenant by controller
+ * ID. The tokens of a tenant are evicted in case a target of the tenant is
+ * deleted, so a re-created target is not authenticated with the token of the
+ * deleted one, and expire after a configured time anyway.
+ *
+ * The authentication modes are held as snapshot per tenant which is dropped
+ * with every {@link TenantConfigurationChangedEvent}, i.e. whenever
+ * {@link SystemManagement#addOrUpdateConfiguration} or
+ * {@link SystemManagement#deleteConfiguration} changed the configuration on
+ * any node.
+ *
+ * The cache is disabled by default and can be enabled with the property
+ * {@code hawkbit.server.controller.authcache.enabled}.
+ *
+ */
+@EventSubscriber
+public class ControllerAuthenticationCache implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ControllerAuthenticationCache.class);
+
+    private final Map<String, Cache<String, String>> securityTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<TenantConfigurationKey, Boolean>> authenticationModes = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+
+    private long maxTokensPerTenant = 10000;
+
+    private long tokenExpiry = 300000;
+
+    /**
+     * @return {@code true} if the authentication information is cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the security token of the given controller. The token is read
+     * with the given loader in case it is not cached. Targets without token
+     * are not cached, so a target created afterwards is found.
+     *
+     * @param tenant
+     *            the tenant of the controller
+     * @param controllerId
+     *            the ID of the controller
+     * @param loader
+     *            reads the security token from the repository
+     * @return the security token or {@code null} if the target does not
+     *         exist
+     */
+    public String getSecurityToken(final String tenant, final String controllerId, final Supplier<String> loader) {
+        final Cache<String, String> tenantTokens = securityTokens.computeIfAbsent(tenant.toUpperCase(),
+                key -> CacheBuilder.newBuilder().maximumSize(maxTokensPerTenant)
+                        .expireAfterWrite(tokenExpiry, TimeUnit.MILLISECONDS).build());
+
+        final String cachedToken = tenantTokens.getIfPresent(controllerId);
+        if (cachedToken != null) {
+            return cachedToken;
+        }
+        final String securityToken = loader.get();
+        if (securityToken != null) {
+            tenantTokens.put(controllerId, securityToken);
+        }
+        return securityToken;
+    }
+
+    /**
+     * Returns if the given authentication mode is enabled for the tenant. The
+     * configuration value is read with the given loader in case it is not
+     * part of the snapshot of the tenant.
+     *
+     * @param tenant
+     *            the tenant of the controller
+     * @param configurationKey
+     *            the configuration key of the authentication mode
+     * @param loader
+     *            reads the configuration value from the repository
+     * @return {@code true} if the authentication mode is enabled
+     */
+    public boolean isAuthenticationModeEnabled(final String tenant, final TenantConfigurationKey configurationKey,
+            final Supplier<Boolean> loader) {
+        final Map<TenantConfigurationKey, Boolean> tenantModes = authenticationModes
+                .computeIfAbsent(tenant.toUpperCase(), key -> new ConcurrentHashMap<>());
+        // not computeIfAbsent as the loader must not be called while holding
+        // the lock of the map
+        Boolean modeEnabled = tenantModes.get(configurationKey);
+        if (modeEnabled == null) {
+            modeEnabled = Boolean.TRUE.equals(loader.get());
+            tenantModes.put(configurationKey, modeEnabled);
+        }
+        return modeEnabled;
+    }
+
+    /**
+     * Drops the security tokens of the tenant of a deleted target. The event
+     * only contains the ID of the target but the tokens are cached by
+     * controller ID.
+     *
+     * @param event
+     *            the target deleted event
+     */
+    @Subscribe
+    public void onTargetDeleted(final TargetDeletedEvent event) {
+        // the cache is replaced instead of invalidated, so a token which is
+        // loaded concurrently is put into the dropped cache
+        securityTokens.remove(event.getTenant().toUpperCase());
+    }
+
+    /**
+     * Drops the authentication mode snapshot of the tenant.
+     *
+     * @param event
+     *            the configuration changed event
+     */
+    @Subscribe
+    public void onConfigurationChanged(final TenantConfigurationChangedEvent event) {
+        LOG.debug("Dropping authentication mode snapshot of tenant {} due to {}", event.getTenant(), event);
+        authenticationModes.remove(event.getTenant().toUpperCase());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.context.EnvironmentAware#setEnvironment(org.
+     * springframework.core.env. Environment)
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        final RelaxedPropertyResolver env = new RelaxedPropertyResolver(environment,
+                "hawkbit.server.controller.authcache.");
+        enabled = env.getProperty("enabled", Boolean.class, false);
+        maxTokensPerTenant = env.getProperty("maxTokensPerTenant", Long.class, 10000L);
+        tokenExpiry = env.getProperty("tokenExpiry", Long.class, 300000L);
+    }
+
+    /**
+     * @param enabled
+     *            {@code true} to cache the authentication information
+     */
+    void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -57,7 +57,30 @@ public class ControllerPreAuthenticateSecurityTokenFilter extends AbstractContro
      */
     public ControllerPreAuthenticateSecurityTokenFilter(final SystemManagement systemManagement,
             final ControllerManagement controllerManagement, final TenantAware tenantAware) {
-        super(systemManagement, tenantAware);
+        this(systemManagement, controllerManagement, tenantAware, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param systemManagement
+     *            the system management service to retrieve configuration
+     *            properties
+     * @param controllerManagement
+     *            the controller management to retrieve the specific target
+     *            security token to verify
+     * @param tenantAware
+     *            the tenant aware service to get configuration for the specific
+     *            tenant
+     * @param authenticationCache
+     *            the cache of the security tokens and authentication modes,
+     *            {@code null} to read them from the repository for every
+     *            request
+     */
+    public ControllerPreAuthenticateSecurityTokenFilter(final SystemManagement systemManagement,
+            final ControllerManagement controllerManagement, final TenantAware tenantAware,
+            final ControllerAuthenticationCache authenticationCache) {
+        super(systemManagement, tenantAware, authenticationCache);
         this.controllerManagement = controllerManagement;
     }
 
@@ -77,8 +100,16 @@ public class ControllerPreAuthenticateSecurityTokenFilter extends AbstractContro
 
     @Override
     public HeaderAuthentication getPreAuthenticatedCredentials(final TenantSecruityToken secruityToken) {
-        final String securityToken = tenantAware.runAsTenant(secruityToken.getTenant(),
-                new GetSecurityTokenTenantRunner(secruityToken.getTenant(), secruityToken.getControllerId()));
+        final GetSecurityTokenTenantRunner securityTokenRunner = new GetSecurityTokenTenantRunner(
+                secruityToken.getTenant(), secruityToken.getControllerId());
+        final String securityToken;
+        if (isAuthenticationCacheEnabled()) {
+            securityToken = authenticationCache.getSecurityToken(secruityToken.getTenant(),
+                    secruityToken.getControllerId(),
+                    () -> tenantAware.runAsTenant(secruityToken.getTenant(), securityTokenRunner));
+        } else {
+            securityToken = tenantAware.runAsTenant(secruityToken.getTenant(), securityTokenRunner);
+        }
         return new HeaderAuthentication(secruityToken.getControllerId(), securityToken);
     }
 
@@ -48,7 +48,25 @@ public class ControllerPreAuthenticatedGatewaySecurityTokenFilter extends Abstra
      */
     public ControllerPreAuthenticatedGatewaySecurityTokenFilter(final SystemManagement systemManagement,
             final TenantAware tenantAware) {
-        super(systemManagement, tenantAware);
+        this(systemManagement, tenantAware, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param systemManagement
+     *            the system management service to retrieve configuration
+     *            properties
+     * @param tenantAware
+     *            the tenant aware service to get configuration for the specific
+     *            tenant
+     * @param authenticationCache
+     *            the cache of the authentication modes, {@code null} to read
+     *            them from the repository for every request
+     */
+    public ControllerPreAuthenticatedGatewaySecurityTokenFilter(final SystemManagement systemManagement,
+            final TenantAware tenantAware, final ControllerAuthenticationCache authenticationCache) {
+        super(systemManagement, tenantAware, authenticationCache);
     }
 
     @Override
@@ -67,7 +67,32 @@ public class ControllerPreAuthenticatedSecurityHeaderFilter extends AbstractCont
     public ControllerPreAuthenticatedSecurityHeaderFilter(final String caCommonNameHeader,
             final String caAuthorityNameHeader, final SystemManagement systemManagement,
             final TenantAware tenantAware) {
-        super(systemManagement, tenantAware);
+        this(caCommonNameHeader, caAuthorityNameHeader, systemManagement, tenantAware, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param caCommonNameHeader
+     *            the http-header which holds the common-name of the certificate
+     * @param caAuthorityNameHeader
+     *            the http-header which holds the ca-authority name of the
+     *            certificate
+     * @param systemManagement
+     *            the system management service to retrieve configuration
+     *            properties to check if the header authentication is enabled
+     *            for this tenant
+     * @param tenantAware
+     *            the tenant aware service to get configuration for the specific
+     *            tenant
+     * @param authenticationCache
+     *            the cache of the authentication modes, {@code null} to read
+     *            them from the repository for every request
+     */
+    public ControllerPreAuthenticatedSecurityHeaderFilter(final String caCommonNameHeader,
+            final String caAuthorityNameHeader, final SystemManagement systemManagement,
+            final TenantAware tenantAware, final ControllerAuthenticationCache authenticationCache) {
+        super(systemManagement, tenantAware, authenticationCache);
         this.caCommonNameHeader = caCommonNameHeader;
         this.sslIssuerHashBasicHeader = caAuthorityNameHeader;
     }
@@ -8,6 +8,9 @@
  */
 package org.eclipse.hawkbit.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 /**
  * The authentication principal and credentials object which holds the
  * controller-id and the authority name from the http-headers as principal or
@@ -57,12 +60,22 @@ public final class HeaderAuthentication {
             if (other.headerAuth != null) {
                 return false;
             }
-        } else if (!headerAuth.equals(other.headerAuth)) {
+        } else if (other.headerAuth == null || !isEqualConstantTime(headerAuth, other.headerAuth)) {
             return false;
         }
         return true;
     }
 
+    /**
+     * Compares the credentials independent of the position of the first
+     * differing character, so the time of a failed authentication does not
+     * reveal how much of a guessed token has been correct.
+     */
+    private static boolean isEqualConstantTime(final String expected, final String actual) {
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Override
     public String toString() {
         // only the controller ID because the principal is stored as string for
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.ui.management.dstable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.repository.AssignmentJobManagement;
+import org.eclipse.hawkbit.repository.model.AssignmentJob;
+import org.eclipse.hawkbit.repository.model.AssignmentJob.JobStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.ui.components.SPUIComponentProvider;
+import org.eclipse.hawkbit.ui.utils.I18N;
+import org.eclipse.hawkbit.ui.utils.SPUIDefinitions;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.vaadin.event.UIEvents.PollEvent;
+import com.vaadin.event.UIEvents.PollListener;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.ProgressBar;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+/**
+ * Shows the progress and the estimated remaining time of the latest
+ * assignment jobs of a distribution set. The UI is polled while one of the
+ * shown jobs is running.
+ *
+ */
+public class AssignmentJobsLayout implements PollListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_JOBS = 5;
+
+    private static final int POLL_INTERVAL = 2000;
+
+    private final I18N i18n;
+
+    private final transient AssignmentJobManagement assignmentJobManagement;
+
+    private final VerticalLayout layout;
+
+    private UI ui;
+
+    private DistributionSet distributionSet;
+
+    /**
+     * @param i18n
+     *            the messages
+     * @param assignmentJobManagement
+     *            the management to read the jobs
+     */
+    public AssignmentJobsLayout(final I18N i18n, final AssignmentJobManagement assignmentJobManagement) {
+        this.i18n = i18n;
+        this.assignmentJobManagement = assignmentJobManagement;
+        layout = SPUIComponentProvider.getDetailTabLayout();
+        layout.addStyleName("details-layout");
+    }
+
+    /**
+     * @return the layout showing the jobs
+     */
+    public VerticalLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Shows the jobs of the given distribution set.
+     *
+     * @param distributionSet
+     *            the set or {@code null} to show nothing
+     */
+    public void populate(final DistributionSet distributionSet) {
+        this.distributionSet = distributionSet;
+        refresh();
+    }
+
+    /**
+     * Stops polling the UI.
+     */
+    public void destroy() {
+        distributionSet = null;
+        setPolling(false);
+    }
+
+    @Override
+    public void poll(final PollEvent event) {
+        refresh();
+    }
+
+    private void refresh() {
+        layout.removeAllComponents();
+        if (distributionSet == null) {
+            setPolling(false);
+            return;
+        }
+
+        final List<AssignmentJob> jobs = assignmentJobManagement.findAssignmentJobsByDistributionSet(
+                distributionSet, new PageRequest(0, MAX_JOBS, new Sort(Direction.DESC, "id"))).getContent();
+        if (jobs.isEmpty()) {
+            layout.addComponent(new Label(i18n.get("label.assignment.jobs.none")));
+        }
+        boolean running = false;
+        for (final AssignmentJob job : jobs) {
+            layout.addComponent(createJobComponent(job));
+            running |= job.getStatus() == JobStatus.RUNNING;
+        }
+        setPolling(running);
+    }
+
+    private VerticalLayout createJobComponent(final AssignmentJob job) {
+        final ProgressBar progressBar = new ProgressBar(job.getProgress() / 100F);
+        progressBar.setCaption(i18n.get("label.assignment.job", job.getId(), job.getStatus()));
+        progressBar.setWidth("100%");
+
+        final Label progressLabel = new Label(i18n.get("label.assignment.job.progress", job.getProcessedTargets(),
+                job.getTotalTargets(), job.getAssignedTargets()));
+        progressLabel.addStyleName(SPUIDefinitions.TEXT_STYLE);
+
+        final VerticalLayout jobLayout = new VerticalLayout(progressBar, progressLabel);
+        final Long remainingTime = job.getEstimatedRemainingTime();
+        if (remainingTime != null) {
+            final Label etaLabel = new Label(i18n.get("label.assignment.job.eta", formatDuration(remainingTime)));
+            etaLabel.addStyleName(SPUIDefinitions.TEXT_STYLE);
+            jobLayout.addComponent(etaLabel);
+        }
+        if (job.getErrorMessage() != null) {
+            final Label errorLabel = new Label(job.getErrorMessage());
+            errorLabel.addStyleName(SPUIDefinitions.TEXT_STYLE);
+            jobLayout.addComponent(errorLabel);
+        }
+        return jobLayout;
+    }
+
+    private void setPolling(final boolean polling) {
+        final UI current = UI.getCurrent();
+        if (polling && ui == null && current != null) {
+            ui = current;
+            ui.addPollListener(this);
+            ui.setPollInterval(POLL_INTERVAL);
+        } else if (!polling && ui != null) {
+            ui.removePollListener(this);
+            ui.setPollInterval(-1);
+            ui = null;
+        }
+    }
+
+    private static String formatDuration(final long millis) {
+        final long hours = TimeUnit.MILLISECONDS.toHours(millis);
+        final long minutes = TimeUnit.MILLISECONDS.toMinutes(millis) % 60;
+        final long seconds = TimeUnit.MILLISECONDS.toSeconds(millis) % 60;
+        return String.format("%d:%02d:%02d", hours, minutes, seconds);
+    }
+}
@@ -11,6 +11,7 @@ package org.eclipse.hawkbit.ui.management.dstable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.eclipse.hawkbit.repository.AssignmentJobManagement;
 import org.eclipse.hawkbit.repository.SpPermissionChecker;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.ui.common.detailslayout.AbstractTableDetailsLayout;
@@ -67,8 +68,13 @@ public class DistributionDetails extends AbstractTableDetailsLayout {
     @Autowired
     private DistributionTagToken distributionTagToken;
 
+    @Autowired
+    private transient AssignmentJobManagement assignmentJobManagement;
+
     private SoftwareModuleDetailsTable softwareModuleTable;
 
+    private AssignmentJobsLayout assignmentJobsLayout;
+
     private Long dsId;
 
     private DistributionSet selectedDsModule;
@@ -83,6 +89,9 @@ public class DistributionDetails extends AbstractTableDetailsLayout {
         eventBus.subscribe(this);
         softwareModuleTable = new SoftwareModuleDetailsTable();
         softwareModuleTable.init(i18n, false, permissionChecker, null, null, null);
+        if (permissionChecker.hasTargetAndRepositoryReadPermission()) {
+            assignmentJobsLayout = new AssignmentJobsLayout(i18n, assignmentJobManagement);
+        }
         super.init();
         ui = UI.getCurrent();
     }
@@ -90,6 +99,9 @@ public class DistributionDetails extends AbstractTableDetailsLayout {
     @PreDestroy
     void destroy() {
         eventBus.unsubscribe(this);
+        if (assignmentJobsLayout != null) {
+            assignmentJobsLayout.destroy();
+        }
     }
 
     @EventBusListenerMethod(scope = EventScope.SESSION)
@@ -139,6 +151,9 @@ public class DistributionDetails extends AbstractTableDetailsLayout {
         detailsTab.addTab(createSoftwareModuleTab(), i18n.get("caption.softwares.distdetail.tab"), null);
         detailsTab.addTab(createTagsLayout(), i18n.get("caption.tags.tab"), null);
         detailsTab.addTab(createLogLayout(), i18n.get("caption.logs.tab"), null);
+        if (assignmentJobsLayout != null) {
+            detailsTab.addTab(assignmentJobsLayout.getLayout(), i18n.get("caption.assignment.jobs.tab"), null);
+        }
     }
 
     /*
@@ -241,6 +256,7 @@ public class DistributionDetails extends AbstractTableDetailsLayout {
             populateDetails(dist);
             populateDescription(dist);
             populateLog(dist);
+            populateAssignmentJobs(dist);
             softwareModuleTable.populateModule(dist);
         } else {
             setDsId(null);
@@ -249,6 +265,13 @@ public class DistributionDetails extends AbstractTableDetailsLayout {
             populateDescription(null);
             softwareModuleTable.populateModule(null);
             populateLog(null);
+            populateAssignmentJobs(null);
+        }
+    }
+
+    private void populateAssignmentJobs(final DistributionSet ds) {
+        if (assignmentJobsLayout != null) {
+            assignmentJobsLayout.populate(ds);
         }
     }
 
@@ -21,6 +21,8 @@ import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent;
+import org.eclipse.hawkbit.eventbus.event.TargetAssignDistributionSetBulkEvent.TargetAssignment;
 import org.eclipse.hawkbit.eventbus.event.TargetCreatedEvent;
 import org.eclipse.hawkbit.eventbus.event.TargetDeletedEvent;
 import org.eclipse.hawkbit.eventbus.event.TargetInfoUpdateEvent;
@@ -168,12 +170,25 @@ public class TargetTable extends AbstractTable implements Handler {
         if (TargetCreatedEvent.class.isInstance(firstEvent)) {
             onTargetCreatedEvents();
         } else if (TargetInfoUpdateEvent.class.isInstance(firstEvent)) {
-            onTargetInfoUpdateEvents((List<TargetInfoUpdateEvent>) events);
+            onTargetInfoUpdates(((List<TargetInfoUpdateEvent>) events).stream().map(TargetInfoUpdateEvent::getEntity)
+                    .collect(Collectors.toList()));
         } else if (TargetDeletedEvent.class.isInstance(firstEvent)) {
             onTargetDeletedEvent((List<TargetDeletedEvent>) events);
         }
     }
 
+    /**
+     * EventListener method which is called when a distribution set has been
+     * assigned to a bunch of targets, e.g. by a mass assignment.
+     *
+     * @param event
+     *            the bulk assignment event
+     */
+    @EventBusListenerMethod(scope = EventScope.SESSION)
+    void onEvent(final TargetAssignDistributionSetBulkEvent event) {
+        onTargetAssignments(event.getAssignments());
+    }
+
     @EventBusListenerMethod(scope = EventScope.SESSION)
     void onEvent(final DragEvent dragEvent) {
         if (dragEvent == DragEvent.TARGET_TAG_DRAG || dragEvent == DragEvent.DISTRIBUTION_DRAG) {
@@ -945,19 +960,18 @@ public class TargetTable extends AbstractTable implements Handler {
     }
 
     /**
-     * EventListener method which is called by the event bus to notify about a
-     * list of {@link TargetInfoUpdateEvent}.
+     * Updates the table on a list of changed {@link TargetInfo}s from
+     * {@link TargetInfoUpdateEvent}s.
      *
-     * @param targetInfoUpdateEvents
-     *            list of target info update event
+     * @param targetInfos
+     *            list of changed target infos
      */
     @SuppressWarnings("unchecked")
-    private void onTargetInfoUpdateEvents(final List<TargetInfoUpdateEvent> targetInfoUpdateEvents) {
+    private void onTargetInfoUpdates(final List<TargetInfo> targetInfos) {
         final List<Object> visibleItemIds = (List<Object>) getVisibleItemIds();
         boolean shoulTargetsUpdated = false;
         Target lastSelectedTarget = null;
-        for (final TargetInfoUpdateEvent targetInfoUpdateEvent : targetInfoUpdateEvents) {
-            final TargetInfo targetInfo = targetInfoUpdateEvent.getEntity();
+        for (final TargetInfo targetInfo : targetInfos) {
             final Target target = targetInfo.getTarget();
             final TargetIdName targetIdName = target.getTargetIdName();
             if (Filters.or(getTargetTableFilters(target)).doFilter()) {
@@ -983,6 +997,45 @@ public class TargetTable extends AbstractTable implements Handler {
         }
     }
 
+    /**
+     * Updates the table on the assignments of a
+     * {@link TargetAssignDistributionSetBulkEvent}. The update status of the
+     * visible targets is changed in place, the table is refreshed if the
+     * assignments might change the filtered targets.
+     *
+     * @param assignments
+     *            the assigned targets
+     */
+    private void onTargetAssignments(final List<TargetAssignment> assignments) {
+        final Map<String, TargetUpdateStatus> updateStatus = new HashMap<>();
+        assignments.forEach(assignment -> updateStatus.put(assignment.getControllerId(),
+                assignment.getUpdateStatus()));
+
+        final TargetTableFilters targetTableFilters = managementUIState.getTargetTableFilters();
+        if (!targetTableFilters.getClickedStatusTargetTags().isEmpty()
+                || targetTableFilters.getDistributionSet().isPresent()
+                || targetTableFilters.getTargetFilterQuery().isPresent()) {
+            refreshTargets();
+        } else {
+            final LazyQueryContainer targetContainer = (LazyQueryContainer) getContainerDataSource();
+            for (final Object itemId : getVisibleItemIds()) {
+                final TargetUpdateStatus status = updateStatus.get(((TargetIdName) itemId).getControllerId());
+                if (status != null) {
+                    targetContainer.getItem(itemId).getItemProperty(SPUILabelDefinitions.VAR_TARGET_STATUS)
+                            .setValue(status);
+                }
+            }
+        }
+
+        // workaround until push is available for action history, re-select
+        // the updated target so the action history gets refreshed.
+        final TargetIdName lastSelectedTarget = managementUIState.getLastSelectedTargetIdName();
+        if (lastSelectedTarget != null && updateStatus.containsKey(lastSelectedTarget.getControllerId())) {
+            eventBus.publish(this, new TargetTableEvent(TargetComponentEvent.SELECTED_TARGET,
+                    targetManagement.findTargetByControllerIDWithDetails(lastSelectedTarget.getControllerId())));
+        }
+    }
+
     private void onTargetCreatedEvents() {
         refreshTargets();
     }